@@ -3,10 +3,15 @@ package com.example.crypto.rest;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 
+import com.example.crypto.application.getboundvalues.GetBoundValuesBatchRequest;
 import com.example.crypto.application.getboundvalues.GetBoundValuesView;
+import com.example.crypto.application.getboundvalues.GetSymbolBoundValuesView;
 import com.example.crypto.application.gethighestnormalized.GetHighestNormalizedView;
 import com.example.crypto.application.getnormalizedrange.GetNormalizedRangeView;
+import com.example.crypto.application.getprices.GetPriceView;
 import io.specto.hoverfly.junit.rule.HoverflyRule;
+import java.time.LocalDate;
+import java.util.List;
 import javax.inject.Inject;
 import org.junit.Before;
 import org.junit.ClassRule;
@@ -14,10 +19,13 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.context.ApplicationContext;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.test.context.TestExecutionListeners;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 import org.springframework.test.context.support.DependencyInjectionTestExecutionListener;
 import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.test.StepVerifier;
 
 @RunWith(SpringJUnit4ClassRunner.class)
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
@@ -109,6 +117,55 @@ public class CryptoControllerIntegrationTest {
                 });
     }
 
+    @Test
+    public void test_getBoundValues_when_notModified() {
+
+        String eTag = wtc.get().uri("/cryptos/ETH/boundValues?dateFrom=2022-01-01&dateTo=2022-01-31")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().exists(HttpHeaders.LAST_MODIFIED)
+                .expectHeader().valueEquals(HttpHeaders.CACHE_CONTROL, "no-cache")
+                .returnResult(GetBoundValuesView.class)
+                .getResponseHeaders().getETag();
+        assertNotNull(eTag);
+
+        wtc.get().uri("/cryptos/ETH/boundValues?dateTo=2022-01-31&dateFrom=2022-01-01")
+                .ifNoneMatch(eTag)
+                .exchange()
+                .expectStatus().isNotModified()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, eTag)
+                .expectBody().isEmpty();
+    }
+
+    @Test
+    public void test_getBatchBoundValues() {
+
+        LocalDate dateFrom = LocalDate.of(2022, 1, 1);
+        LocalDate dateTo = LocalDate.of(2022, 1, 31);
+
+        wtc.post().uri("/cryptos/boundValues")
+                .bodyValue(new GetBoundValuesBatchRequest(List.of("ETH", "BTC"),
+                        List.of(new GetBoundValuesBatchRequest.Window(dateFrom, dateTo))))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(GetSymbolBoundValuesView[].class)
+                .consumeWith(response -> {
+                    final GetSymbolBoundValuesView[] views = response.getResponseBody();
+                    assertNotNull(views);
+                    assertEquals(2, views.length);
+
+                    assertEquals("ETH", views[0].getSymbol());
+                    assertEquals(dateFrom, views[0].getDateFrom());
+                    assertEquals(dateTo, views[0].getDateTo());
+                    assertEquals(Double.valueOf(2336.52), views[0].getBoundValues().getMinValue());
+                    assertEquals(Double.valueOf(3828.11), views[0].getBoundValues().getMaxValue());
+                    assertEquals(Double.valueOf(3715.32), views[0].getBoundValues().getOldestValue());
+                    assertEquals(Double.valueOf(2672.5), views[0].getBoundValues().getNewestValue());
+
+                    assertEquals("BTC", views[1].getSymbol());
+                });
+    }
+
     @Test
     public void test_getHighestNormalized() {
 
@@ -127,4 +184,27 @@ public class CryptoControllerIntegrationTest {
                     assertEquals("ETH", view.getName());
                 });
     }
+
+    @Test
+    public void test_getPrices() {
+
+        wtc.get().uri(uriBuilder -> uriBuilder
+                        .path("/cryptos/{symbol}/prices")
+                        .queryParam("dateFrom", "2022-01-01")
+                        .queryParam("dateTo", "2022-01-01")
+                        .build("BTC"))
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .returnResult(GetPriceView.class)
+                .getResponseBody()
+                .as(StepVerifier::create)
+                .assertNext(view -> {
+                    assertEquals(Long.valueOf(1641009600000L), view.getTimestamp());
+                    assertEquals(Double.valueOf(46813.21), view.getPrice());
+                })
+                .thenConsumeWhile(view -> true)
+                .verifyComplete();
+    }
 }
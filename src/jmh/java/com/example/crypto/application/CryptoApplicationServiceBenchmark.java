@@ -0,0 +1,62 @@
+package com.example.crypto.application;
+
+import com.example.crypto.application.getboundvalues.GetBoundValuesView;
+import com.example.crypto.application.gethighestnormalized.GetHighestNormalizedView;
+import com.example.crypto.application.getnormalizedrange.GetNormalizedRangeView;
+import com.example.crypto.infrastructure.persistence.BenchmarkData;
+import com.example.crypto.infrastructure.persistence.CryptoDocumentRepositoryImpl;
+import com.example.crypto.infrastructure.persistence.CryptoPriceStore;
+import com.example.crypto.infrastructure.persistence.CryptoPriceWriteAheadLog;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Measures every {@link CryptoApplicationServiceImpl} operation over the synthetic {@link BenchmarkData}, without the
+ * result cache nor the coalescing, over the whole data.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CryptoApplicationServiceBenchmark {
+
+    @Param({"10000", "1000000", "10000000"})
+    int rows;
+
+    CryptoApplicationService service;
+
+    LocalDate lastDay;
+
+    @Setup
+    public void setUp() {
+        CryptoPriceStore store = BenchmarkData.store(rows);
+        service = new CryptoApplicationServiceImpl(
+                new CryptoDocumentRepositoryImpl(store, CryptoPriceWriteAheadLog.disabled(), Schedulers.immediate()),
+                store.getSymbolRegistry());
+        lastDay = BenchmarkData.lastDay(rows);
+    }
+
+    @Benchmark
+    public List<GetNormalizedRangeView> getNormalizedRange() {
+        return service.getNormalizedRange(BenchmarkData.FIRST_DAY, lastDay).block();
+    }
+
+    @Benchmark
+    public GetBoundValuesView getBoundValues() {
+        return service.getBoundValues("BTC", BenchmarkData.FIRST_DAY, lastDay).block();
+    }
+
+    @Benchmark
+    public GetHighestNormalizedView getHighestNormalized() {
+        return service.getHighestNormalized(lastDay).block();
+    }
+}
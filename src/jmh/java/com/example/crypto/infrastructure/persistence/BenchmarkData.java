@@ -0,0 +1,84 @@
+package com.example.crypto.infrastructure.persistence;
+
+import com.example.crypto.infrastructure.util.CryptoPriceGenerator;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Synthetic price data for the benchmarks : the random walks of the {@link CryptoPriceGenerator}, one tick per minute
+ * from {@link #FIRST_DAY}, seeded so that every run measures the same data.
+ */
+public final class BenchmarkData {
+
+    public static final List<String> SYMBOLS = List.of("BTC", "DOGE", "ETH", "LTC", "XRP");
+
+    public static final LocalDate FIRST_DAY = LocalDate.of(2022, 1, 1);
+
+    public static final long TICK_MILLIS = 60_000L;
+
+    private static final CryptoPriceGenerator GENERATOR =
+            new CryptoPriceGenerator(42L, Duration.ofMillis(TICK_MILLIS), FIRST_DAY, FIRST_DAY);
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * Generates the prices of a crypto.
+     *
+     * @param symbol The crypto symbol, which also seeds its walk.
+     * @param rows   The number of ticks.
+     * @return The PriceColumns
+     */
+    public static PriceColumns columns(String symbol, int rows) {
+        return GENERATOR.generate(symbol, rows);
+    }
+
+    /**
+     * Generates a store holding the prices of all the {@link #SYMBOLS}.
+     *
+     * @param rows The total number of ticks, evenly spread over the symbols.
+     * @return The CryptoPriceStore
+     */
+    public static CryptoPriceStore store(int rows) {
+        List<CryptoPriceSeries> series = new ArrayList<>();
+        for (String symbol : SYMBOLS) {
+            series.add(CryptoPriceSeries.of(symbol, columns(symbol, rows / SYMBOLS.size())));
+        }
+        return new CryptoPriceStore(CryptoSymbolRegistry.of(SYMBOLS.toArray(String[]::new)), series, 0L);
+    }
+
+    /**
+     * Calculates the last day holding prices.
+     *
+     * @param rows The total number of ticks, evenly spread over the symbols.
+     * @return The last day
+     */
+    public static LocalDate lastDay(int rows) {
+        long minutes = rows / SYMBOLS.size() - 1;
+        return FIRST_DAY.plusDays(minutes * TICK_MILLIS / 86_400_000L);
+    }
+
+    /**
+     * Writes the prices of a crypto as a {@code timestamp,symbol,price} csv price file.
+     *
+     * @param file   The file to write.
+     * @param symbol The crypto symbol.
+     * @param rows   The number of ticks.
+     * @throws IOException If the file cannot be written
+     */
+    public static void writeCsv(Path file, String symbol, int rows) throws IOException {
+        PriceColumns columns = columns(symbol, rows);
+        try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+            writer.write("timestamp,symbol,price\n");
+            for (int i = 0; i < columns.size(); i++) {
+                writer.write(columns.timestampAt(i) + "," + symbol + "," + columns.priceAt(i) + "\n");
+            }
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.crypto.infrastructure.persistence;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Measures every {@link CryptoDocumentRepository} query over the synthetic {@link BenchmarkData}, on the calling
+ * thread so that the scheduler hand-off is left out. The row queries cover a day, the summaries the whole data.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CryptoDocumentRepositoryBenchmark {
+
+    @Param({"10000", "1000000", "10000000"})
+    int rows;
+
+    CryptoDocumentRepository repository;
+
+    LocalDate lastDay;
+
+    @Setup
+    public void setUp() {
+        repository = new CryptoDocumentRepositoryImpl(BenchmarkData.store(rows), CryptoPriceWriteAheadLog.disabled(),
+                Schedulers.immediate());
+        lastDay = BenchmarkData.lastDay(rows);
+    }
+
+    @Benchmark
+    public void findAllByDateRange(Blackhole blackhole) {
+        repository.findAllByDateRange(lastDay, lastDay).doOnNext(blackhole::consume).blockLast();
+    }
+
+    @Benchmark
+    public void findBySymbolAndDateRange(Blackhole blackhole) {
+        repository.findBySymbolAndDateRange("BTC", lastDay, lastDay).doOnNext(blackhole::consume).blockLast();
+    }
+
+    @Benchmark
+    public CryptoPriceBounds findBoundsBySymbolAndDateRange() {
+        return repository.findBoundsBySymbolAndDateRange("BTC", BenchmarkData.FIRST_DAY, lastDay).block();
+    }
+
+    @Benchmark
+    public void findAllBoundsByDateRange(Blackhole blackhole) {
+        repository.findAllBoundsByDateRange(BenchmarkData.FIRST_DAY, lastDay).doOnNext(blackhole::consume).blockLast();
+    }
+
+    @Benchmark
+    public void findDailyBoundsByDateRange(Blackhole blackhole) {
+        repository.findDailyBoundsByDateRange(BenchmarkData.FIRST_DAY, lastDay).doOnNext(blackhole::consume).blockLast();
+    }
+
+    @Benchmark
+    public void findAllByDate(Blackhole blackhole) {
+        repository.findAllByDate(lastDay).doOnNext(blackhole::consume).blockLast();
+    }
+}
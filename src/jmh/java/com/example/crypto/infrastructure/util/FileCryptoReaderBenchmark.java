@@ -0,0 +1,60 @@
+package com.example.crypto.infrastructure.util;
+
+import com.example.crypto.infrastructure.persistence.BenchmarkData;
+import com.example.crypto.infrastructure.persistence.PriceColumns;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Measures the loading of a csv price file, chunked over the common pool or streamed by a single thread.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.AverageTime, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class FileCryptoReaderBenchmark {
+
+    @Param({"10000", "1000000", "10000000"})
+    int rows;
+
+    Path csvFile;
+
+    FileCryptoReader fileCryptoReader;
+
+    @Setup
+    public void setUp() throws IOException {
+        csvFile = Files.createTempFile("BTC", FileCryptoReader.CSV_SUFFIX);
+        BenchmarkData.writeCsv(csvFile, "BTC", rows);
+        fileCryptoReader = new FileCryptoReader();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(csvFile);
+    }
+
+    @Benchmark
+    public PriceColumns readPriceColumns() {
+        return fileCryptoReader.readPriceColumns(csvFile);
+    }
+
+    @Benchmark
+    public PriceColumns parseStreamed() throws IOException {
+        PriceColumns columns = new PriceColumns();
+        try (FileChannel channel = FileChannel.open(csvFile)) {
+            CsvPriceParser.parse(channel, columns::add);
+        }
+        return columns;
+    }
+}
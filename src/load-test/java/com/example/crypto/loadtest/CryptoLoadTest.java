@@ -0,0 +1,423 @@
+package com.example.crypto.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.net.ServerSocket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+import org.eclipse.jetty.client.HttpClient;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.core.env.SimpleCommandLinePropertySource;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.http.client.reactive.JettyClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.Disposable;
+
+/**
+ * Boots the application in a separate JVM, from its executable jar, and drives its routes over HTTP at a series of
+ * target rates, each one for a fixed duration. Running the server on its own keeps the heap, the GC pauses and the CPU
+ * of the load generator out of the measured latencies. The requests are sent open-loop : on schedule, whether or not
+ * the previous ones were answered, so that the latencies include the time spent queued behind a saturated server. The
+ * requests still unanswered once a stage has drained for {@link #DRAIN_TIMEOUT} are counted as errors.
+ * <p>
+ * The {@code --loadtest.*} arguments configure the load test, and all the other ones are passed to the application
+ * (e.g. {@code --crypto.data.directory=}) :
+ * <ul>
+ *     <li>server-jar, server-jvm-args : the executable jar of the application, and the comma separated options of its
+ *     JVM, default -Xms4g,-Xmx4g</li>
+ *     <li>startup-timeout : how long the application may take to load its prices and start, default 5m</li>
+ *     <li>rates : the comma separated requests per second of every stage, default 100,500,1000</li>
+ *     <li>duration, warmup : the length of every stage, and of the warm-up at the first rate, default 30s and 10s</li>
+ *     <li>mix : the relative share of every route, default normalizedRange=1,boundValues=3,highestNormalized=1</li>
+ *     <li>seed, max-window-days : the seed of the requests, and their longest date range, default 42 and 31</li>
+ *     <li>connections : the connections to the application, default 256</li>
+ *     <li>slo-p99 : the p99 latency a sustainable rate must stay under, default 100ms</li>
+ *     <li>report-directory, label : where the report and the log of the application are written, in a sub directory
+ *     named by the label</li>
+ * </ul>
+ */
+public class CryptoLoadTest {
+
+    private static final String ARGUMENT_PREFIX = "--loadtest.";
+
+    private static final Duration DRAIN_TIMEOUT = Duration.ofSeconds(30);
+
+    private static final Duration SHUTDOWN_TIMEOUT = Duration.ofSeconds(30);
+
+    // the whole span a dataset may cover, to discover its symbols and days
+    private static final LocalDate FIRST_DAY = LocalDate.of(1970, 1, 1);
+
+    private static final LocalDate LAST_DAY = LocalDate.of(2999, 12, 31);
+
+    private static final int MAX_RESPONSE_SIZE = 16 * 1024 * 1024;
+
+    private final StandardEnvironment environment;
+
+    private final List<String> applicationArgs;
+
+    private final Path reportDirectory;
+
+    CryptoLoadTest(String[] args) {
+        this.environment = new StandardEnvironment();
+        environment.setConversionService(new ApplicationConversionService());
+        environment.getPropertySources().addFirst(new SimpleCommandLinePropertySource(args));
+
+        this.applicationArgs = Arrays.stream(args).filter(arg -> !arg.startsWith(ARGUMENT_PREFIX)).toList();
+        this.reportDirectory = Paths
+                .get(environment.getProperty("loadtest.report-directory", "build/reports/load-test"))
+                .resolve(environment.getProperty("loadtest.label",
+                        DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss").format(LocalDateTime.now())));
+    }
+
+    /**
+     * The entry point of the load test.
+     *
+     * @param args The arguments of the application and of the load test.
+     * @throws Exception If the load test cannot run
+     */
+    public static void main(String[] args) throws Exception {
+        new CryptoLoadTest(args).run();
+    }
+
+    void run() throws Exception {
+
+        List<Integer> rates = List.of(environment.getProperty("loadtest.rates", Integer[].class,
+                new Integer[] {100, 500, 1000}));
+        Duration duration = environment.getProperty("loadtest.duration", Duration.class, Duration.ofSeconds(30));
+        Duration warmup = environment.getProperty("loadtest.warmup", Duration.class, Duration.ofSeconds(10));
+        Duration sloP99 = environment.getProperty("loadtest.slo-p99", Duration.class, Duration.ofMillis(100));
+
+        Files.createDirectories(reportDirectory);
+        int port = freePort();
+        Process server = startServer(port);
+        Thread stopServer = new Thread(server::destroy);
+        Runtime.getRuntime().addShutdownHook(stopServer);
+
+        try {
+            HttpClient httpClient = new HttpClient();
+            httpClient.setMaxConnectionsPerDestination(
+                    environment.getProperty("loadtest.connections", Integer.class, 256));
+            httpClient.start();
+            try {
+                WebClient webClient = WebClient.builder()
+                        .baseUrl("http://localhost:" + port)
+                        .clientConnector(new JettyClientHttpConnector(httpClient))
+                        .codecs(codecs -> codecs.defaultCodecs().maxInMemorySize(MAX_RESPONSE_SIZE))
+                        .build();
+
+                awaitStarted(webClient, server);
+                Workload workload = createWorkload(webClient);
+
+                if (!warmup.isZero()) {
+                    System.out.printf("Warming up at %d req/s for %s%n", rates.get(0), warmup);
+                    runStage(webClient, workload, rates.get(0), warmup);
+                }
+
+                List<Stage> stages = new ArrayList<>();
+                for (int rate : rates) {
+                    System.out.printf("Running at %d req/s for %s%n", rate, duration);
+                    stages.add(runStage(webClient, workload, rate, duration));
+                }
+
+                writeReport(stages, sloP99);
+            }
+            finally {
+                httpClient.stop();
+            }
+        }
+        finally {
+            stopServer(server);
+            Runtime.getRuntime().removeShutdownHook(stopServer);
+        }
+    }
+
+    /**
+     * Starts the application from its executable jar, its output going to the report directory.
+     */
+    private Process startServer(int port) throws IOException {
+
+        String jar = environment.getProperty("loadtest.server-jar");
+        if (jar == null || !Files.isRegularFile(Paths.get(jar))) {
+            throw new IllegalStateException("The executable jar of the application is not found, see "
+                    + ARGUMENT_PREFIX + "server-jar: " + jar);
+        }
+
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(List.of(environment.getProperty("loadtest.server-jvm-args", String[].class,
+                new String[] {"-Xms4g", "-Xmx4g"})));
+        command.add("-jar");
+        command.add(jar);
+        command.add("--server.port=" + port);
+        command.addAll(applicationArgs);
+
+        Path log = reportDirectory.resolve("server.log");
+        System.out.printf("Starting the application on port %d, logging to %s%n", port, log.toAbsolutePath());
+        return new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(log.toFile())
+                .start();
+    }
+
+    /**
+     * Waits until the application answers its health checks.
+     */
+    private void awaitStarted(WebClient webClient, Process server) throws InterruptedException {
+
+        Duration timeout = environment.getProperty("loadtest.startup-timeout", Duration.class, Duration.ofMinutes(5));
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (System.nanoTime() < deadline) {
+            if (!server.isAlive()) {
+                throw new IllegalStateException("The application exited with " + server.exitValue()
+                        + ", see " + reportDirectory.resolve("server.log"));
+            }
+            try {
+                webClient.get().uri("/actuator/health").retrieve().toBodilessEntity().block(Duration.ofSeconds(5));
+                return;
+            }
+            catch (RuntimeException e) {
+                // not started yet
+                Thread.sleep(500);
+            }
+        }
+        throw new IllegalStateException("The application did not start within " + timeout);
+    }
+
+    /**
+     * Stops the application gracefully, or kills it if it does not stop in time.
+     */
+    private static void stopServer(Process server) throws InterruptedException {
+        server.destroy();
+        if (!server.waitFor(SHUTDOWN_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS)) {
+            server.destroyForcibly().waitFor();
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    /**
+     * The results of a stage.
+     *
+     * @param rate       The target requests per second.
+     * @param elapsed    The time from the first request to the last response.
+     * @param stats      The results per route.
+     */
+    private record Stage(int rate, Duration elapsed, Map<Endpoint, EndpointStats> stats) {
+
+        long count() {
+            return stats.values().stream().mapToLong(EndpointStats::getCount).sum();
+        }
+
+        long errors() {
+            return stats.values().stream().mapToLong(EndpointStats::getErrors).sum();
+        }
+
+        double achievedRate() {
+            return count() * 1e9 / elapsed.toNanos();
+        }
+    }
+
+    private Stage runStage(WebClient webClient, Workload workload, int rate, Duration duration)
+            throws InterruptedException {
+
+        Map<Endpoint, EndpointStats> stats = new EnumMap<>(Endpoint.class);
+        for (Endpoint endpoint : Endpoint.values()) {
+            stats.put(endpoint, new EndpointStats());
+        }
+
+        Set<InFlight> pending = ConcurrentHashMap.newKeySet();
+        long interval = TimeUnit.SECONDS.toNanos(1) / rate;
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+
+        for (long scheduled = start; scheduled < end; scheduled += interval) {
+            long wait = scheduled - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+
+            Workload.Request request = workload.next();
+            InFlight inFlight = new InFlight(stats.get(request.endpoint()), scheduled);
+
+            pending.add(inFlight);
+            inFlight.subscription = webClient.get()
+                    .uri(request.uri())
+                    .retrieve()
+                    .toEntity(byte[].class)
+                    .doFinally(signal -> pending.remove(inFlight))
+                    .subscribe(response -> inFlight.answered(), error -> inFlight.failed());
+        }
+
+        long drainDeadline = System.nanoTime() + DRAIN_TIMEOUT.toNanos();
+        while (!pending.isEmpty() && System.nanoTime() < drainDeadline) {
+            Thread.sleep(10);
+        }
+
+        // the requests still unanswered are given up on, and counted as errors
+        int unanswered = 0;
+        for (InFlight inFlight : pending) {
+            if (inFlight.failed()) {
+                unanswered++;
+            }
+            inFlight.subscription.dispose();
+        }
+        if (unanswered > 0) {
+            System.out.printf("%d requests unanswered after %s counted as errors%n", unanswered, DRAIN_TIMEOUT);
+        }
+
+        return new Stage(rate, Duration.ofNanos(System.nanoTime() - start), stats);
+    }
+
+    /**
+     * A request sent, whose outcome is recorded once : answered, failed, or given up on.
+     */
+    private static final class InFlight {
+
+        private final EndpointStats stats;
+
+        private final long scheduledAt;
+
+        private final AtomicBoolean recorded = new AtomicBoolean();
+
+        private volatile Disposable subscription;
+
+        InFlight(EndpointStats stats, long scheduledAt) {
+            this.stats = stats;
+            this.scheduledAt = scheduledAt;
+        }
+
+        void answered() {
+            if (recorded.compareAndSet(false, true)) {
+                stats.record(System.nanoTime() - scheduledAt);
+            }
+        }
+
+        /**
+         * Records a failure, unless the outcome of the request was already recorded.
+         *
+         * @return true if the failure was recorded
+         */
+        boolean failed() {
+            if (recorded.compareAndSet(false, true)) {
+                stats.recordError(System.nanoTime() - scheduledAt);
+                return true;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Creates the workload over the symbols and days of the loaded prices, as found through the routes of the
+     * application : the normalized ranges name the symbols, and the daily leaderboards the days.
+     */
+    private Workload createWorkload(WebClient webClient) {
+
+        List<String> symbols = new ArrayList<>();
+        JsonNode normalizedRanges = webClient.get()
+                .uri("/cryptos/normalizedRange?dateFrom={dateFrom}&dateTo={dateTo}", FIRST_DAY, LAST_DAY)
+                .retrieve()
+                .bodyToMono(JsonNode.class)
+                .block();
+        normalizedRanges.forEach(view -> symbols.add(view.get("name").asText()));
+        if (symbols.isEmpty()) {
+            throw new IllegalStateException("No prices were loaded");
+        }
+
+        JsonNode days = webClient.get()
+                .uri("/cryptos/normalizedRange/highest/daily?dateFrom={dateFrom}&dateTo={dateTo}&top=1",
+                        FIRST_DAY, LAST_DAY)
+                .retrieve()
+                .bodyToMono(JsonNode.class)
+                .block();
+        LocalDate first = LocalDate.parse(days.get(0).get("day").asText());
+        LocalDate last = LocalDate.parse(days.get(days.size() - 1).get("day").asText());
+
+        Map<Endpoint, Integer> weights = new EnumMap<>(Endpoint.class);
+        String mix = environment.getProperty("loadtest.mix", "normalizedRange=1,boundValues=3,highestNormalized=1");
+        for (String entry : mix.split(",")) {
+            String[] weight = entry.trim().split("=");
+            weights.put(endpointOf(weight[0]), Integer.parseInt(weight[1]));
+        }
+
+        return new Workload(environment.getProperty("loadtest.seed", Long.class, 42L), symbols,
+                first, last, environment.getProperty("loadtest.max-window-days", Integer.class, 31),
+                weights);
+    }
+
+    private void writeReport(List<Stage> stages, Duration sloP99) throws IOException {
+
+        Integer sustainable = null;
+        try (PrintWriter summary = new PrintWriter(Files.newBufferedWriter(reportDirectory.resolve("summary.csv")))) {
+            summary.println("rate,endpoint,count,errors,achieved_rps,p50_ms,p90_ms,p99_ms,p999_ms,max_ms");
+
+            for (Stage stage : stages) {
+                double worstP99 = 0;
+                for (Map.Entry<Endpoint, EndpointStats> entry : stage.stats().entrySet()) {
+                    EndpointStats stats = entry.getValue();
+                    if (stats.getCount() == 0) {
+                        continue;
+                    }
+
+                    String line = String.format(Locale.ROOT, "%d,%s,%d,%d,%.1f,%.3f,%.3f,%.3f,%.3f,%.3f",
+                            stage.rate(), entry.getKey().getLabel(), stats.getCount(), stats.getErrors(),
+                            stats.getCount() * 1e9 / stage.elapsed().toNanos(),
+                            stats.getLatencyMillis(50), stats.getLatencyMillis(90), stats.getLatencyMillis(99),
+                            stats.getLatencyMillis(99.9), stats.getMaxLatencyMillis());
+                    summary.println(line);
+                    System.out.println(line);
+                    worstP99 = Math.max(worstP99, stats.getLatencyMillis(99));
+
+                    Path distribution = reportDirectory.resolve(
+                            stage.rate() + "-" + entry.getKey().getLabel() + ".hgrm");
+                    try (PrintStream output = new PrintStream(Files.newOutputStream(distribution))) {
+                        stats.writeDistribution(output);
+                    }
+                }
+
+                // a rate is sustained when it is reached without errors, and the slowest route keeps its p99 under the slo
+                if (stage.errors() == 0 && stage.achievedRate() >= 0.95 * stage.rate()
+                        && worstP99 <= sloP99.toMillis()) {
+                    sustainable = sustainable == null
+                            ? stage.rate()
+                            : Math.max(sustainable, stage.rate());
+                }
+            }
+        }
+
+        System.out.println(sustainable != null
+                ? "Max sustainable rate : " + sustainable + " req/s (p99 <= " + sloP99.toMillis() + " ms)"
+                : "No rate was sustained (p99 <= " + sloP99.toMillis() + " ms)");
+        System.out.println("Report written to " + reportDirectory.toAbsolutePath());
+    }
+
+    private static Endpoint endpointOf(String label) {
+        for (Endpoint endpoint : Endpoint.values()) {
+            if (endpoint.getLabel().equals(label)) {
+                return endpoint;
+            }
+        }
+        throw new IllegalArgumentException("Unknown route in the workload mix: " + label);
+    }
+}
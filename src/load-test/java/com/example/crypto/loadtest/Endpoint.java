@@ -0,0 +1,21 @@
+package com.example.crypto.loadtest;
+
+/**
+ * The routes of the {@code CryptoController} driven by the load test.
+ */
+enum Endpoint {
+
+    NORMALIZED_RANGE("normalizedRange"),
+    BOUND_VALUES("boundValues"),
+    HIGHEST_NORMALIZED("highestNormalized");
+
+    private final String label;
+
+    Endpoint(String label) {
+        this.label = label;
+    }
+
+    String getLabel() {
+        return label;
+    }
+}
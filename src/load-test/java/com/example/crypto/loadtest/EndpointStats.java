@@ -0,0 +1,61 @@
+package com.example.crypto.loadtest;
+
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+/**
+ * The latencies and errors of a route during a stage of the load test. The latencies are measured from the time each
+ * request was scheduled to be sent, not from the time it was actually sent, so that a stalled server is charged for
+ * the requests queued behind it.
+ */
+class EndpointStats {
+
+    private static final long HIGHEST_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(1);
+
+    private final Histogram latencies = new ConcurrentHistogram(HIGHEST_LATENCY_MICROS, 3);
+
+    private final LongAdder errors = new LongAdder();
+
+    void record(long latencyNanos) {
+        latencies.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(latencyNanos), HIGHEST_LATENCY_MICROS));
+    }
+
+    void recordError(long latencyNanos) {
+        errors.increment();
+        record(latencyNanos);
+    }
+
+    long getCount() {
+        return latencies.getTotalCount();
+    }
+
+    long getErrors() {
+        return errors.sum();
+    }
+
+    /**
+     * Reads a latency percentile.
+     *
+     * @param percentile The percentile, e.g. 99.9.
+     * @return The latency in milliseconds
+     */
+    double getLatencyMillis(double percentile) {
+        return latencies.getValueAtPercentile(percentile) / 1000d;
+    }
+
+    double getMaxLatencyMillis() {
+        return latencies.getMaxValue() / 1000d;
+    }
+
+    /**
+     * Writes the full latency distribution, in milliseconds, in the HdrHistogram percentile format (.hgrm).
+     *
+     * @param output The stream to write to.
+     */
+    void writeDistribution(PrintStream output) {
+        latencies.outputPercentileDistribution(output, 1000d);
+    }
+}
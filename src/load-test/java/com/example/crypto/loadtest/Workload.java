@@ -0,0 +1,113 @@
+package com.example.crypto.loadtest;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * A seeded, mixed stream of requests over the symbols and days of the loaded dataset, so that two runs with the same
+ * settings send the same requests in the same order.
+ */
+class Workload {
+
+    /**
+     * A request to send.
+     *
+     * @param endpoint The route of the request.
+     * @param uri      The path and query of the request.
+     */
+    record Request(Endpoint endpoint, String uri) {
+    }
+
+    private final SplittableRandom random;
+
+    private final List<String> symbols;
+
+    private final LocalDate firstDay;
+
+    private final int days;
+
+    private final int maxWindowDays;
+
+    private final Endpoint[] endpoints;
+
+    private final int[] cumulativeWeights;
+
+    /**
+     * Creates a workload.
+     *
+     * @param seed          The seed of the requests.
+     * @param symbols       The crypto symbols of the dataset.
+     * @param firstDay      The first day of the dataset.
+     * @param lastDay       The last day of the dataset.
+     * @param maxWindowDays The longest date range requested.
+     * @param weights       The relative share of every route, e.g. 1 normalized range for 3 bound values.
+     */
+    Workload(long seed, List<String> symbols, LocalDate firstDay, LocalDate lastDay, int maxWindowDays,
+             Map<Endpoint, Integer> weights) {
+
+        this.random = new SplittableRandom(seed);
+        this.symbols = symbols;
+        this.firstDay = firstDay;
+        this.days = (int) ChronoUnit.DAYS.between(firstDay, lastDay) + 1;
+        this.maxWindowDays = Math.max(1, maxWindowDays);
+
+        Map<Endpoint, Integer> mix = new EnumMap<>(weights);
+        mix.values().removeIf(weight -> weight <= 0);
+        if (mix.isEmpty()) {
+            throw new IllegalArgumentException("The workload mix has no route: " + weights);
+        }
+
+        this.endpoints = mix.keySet().toArray(Endpoint[]::new);
+        this.cumulativeWeights = new int[endpoints.length];
+        int total = 0;
+        for (int i = 0; i < endpoints.length; i++) {
+            total += mix.get(endpoints[i]);
+            cumulativeWeights[i] = total;
+        }
+    }
+
+    /**
+     * Draws the next request.
+     *
+     * @return A Request
+     */
+    Request next() {
+        Endpoint endpoint = nextEndpoint();
+
+        return switch (endpoint) {
+            case NORMALIZED_RANGE -> {
+                LocalDate dateFrom = nextDay();
+                yield new Request(endpoint, "/cryptos/normalizedRange?dateFrom=" + dateFrom
+                        + "&dateTo=" + nextDateTo(dateFrom));
+            }
+            case BOUND_VALUES -> {
+                LocalDate dateFrom = nextDay();
+                yield new Request(endpoint, "/cryptos/" + symbols.get(random.nextInt(symbols.size()))
+                        + "/boundValues?dateFrom=" + dateFrom + "&dateTo=" + nextDateTo(dateFrom));
+            }
+            case HIGHEST_NORMALIZED -> new Request(endpoint, "/cryptos/normalizedRange/highest?day=" + nextDay());
+        };
+    }
+
+    private Endpoint nextEndpoint() {
+        int draw = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        int i = 0;
+        while (draw >= cumulativeWeights[i]) {
+            i++;
+        }
+        return endpoints[i];
+    }
+
+    private LocalDate nextDay() {
+        return firstDay.plusDays(random.nextInt(days));
+    }
+
+    private LocalDate nextDateTo(LocalDate dateFrom) {
+        int remaining = days - (int) ChronoUnit.DAYS.between(firstDay, dateFrom);
+        return dateFrom.plusDays(random.nextInt(Math.min(maxWindowDays, remaining)));
+    }
+}
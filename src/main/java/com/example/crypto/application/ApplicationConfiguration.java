@@ -1,7 +1,14 @@
 package com.example.crypto.application;
 
+import com.example.crypto.infrastructure.CryptoProperties;
 import com.example.crypto.infrastructure.InfrastructureConfiguration;
 import com.example.crypto.infrastructure.persistence.CryptoDocumentRepository;
+import com.example.crypto.infrastructure.persistence.CryptoPriceStore;
+import com.example.crypto.infrastructure.persistence.CryptoSymbolRegistry;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
@@ -10,9 +17,43 @@ import org.springframework.context.annotation.Import;
 @Import({InfrastructureConfiguration.class, SwaggerConfiguration.class})
 public class ApplicationConfiguration {
 
+    public static final String CRYPTO_QUERY_CACHE = "crypto-queries";
+
     @Bean
-    public CryptoApplicationService cryptoApplicationService(CryptoDocumentRepository cryptoDocumentRepository) {
+    public CryptoApplicationService cryptoApplicationService(CryptoProperties cryptoProperties,
+                                                             CryptoDocumentRepository cryptoDocumentRepository,
+                                                             CryptoSymbolRegistry cryptoSymbolRegistry,
+                                                             CryptoPriceStore cryptoPriceStore,
+                                                             MeterRegistry meterRegistry) {
+
+        CryptoApplicationService service = new CryptoApplicationServiceImpl(cryptoDocumentRepository, cryptoSymbolRegistry);
+
+        // the cache misses are coalesced, so that a burst of identical queries is computed once
+        if (cryptoProperties.getCoalescing().isEnabled()) {
+            service = new CoalescingCryptoApplicationService(service, cryptoPriceStore::getDataVersion, meterRegistry);
+        }
+        if (cryptoProperties.getCache().isEnabled()) {
+            service = new CachingCryptoApplicationService(service,
+                    cryptoQueryCache(cryptoProperties.getCache(), meterRegistry), cryptoPriceStore::getDataVersion);
+        }
+        return new MeteredCryptoApplicationService(service, cryptoSymbolRegistry, meterRegistry);
+    }
+
+    /**
+     * The cache of the service results. Its hits, misses, evictions and size are exported through the
+     * {@code cache.*} metrics tagged {@code cache=crypto-queries}.
+     */
+    private Cache<CryptoQueryKey, Object> cryptoQueryCache(CryptoProperties.Cache settings, MeterRegistry meterRegistry) {
+
+        Caffeine<Object, Object> builder = Caffeine.newBuilder()
+                .expireAfterWrite(settings.getExpireAfterWrite())
+                .recordStats();
+        Cache<CryptoQueryKey, Object> cache = settings.getMaxMemory() != null
+                ? builder.maximumWeight(settings.getMaxMemory().toBytes())
+                        .weigher(CachingCryptoApplicationService::weigh)
+                        .build()
+                : builder.maximumSize(settings.getMaxEntries()).build();
 
-        return new CryptoApplicationServiceImpl(cryptoDocumentRepository);
+        return CaffeineCacheMetrics.monitor(meterRegistry, cache, CRYPTO_QUERY_CACHE);
     }
 }
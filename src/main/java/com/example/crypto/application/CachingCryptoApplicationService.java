@@ -0,0 +1,188 @@
+package com.example.crypto.application;
+
+import com.example.crypto.application.getboundvalues.GetBoundValuesBatchRequest;
+import com.example.crypto.application.getboundvalues.GetBoundValuesView;
+import com.example.crypto.application.getboundvalues.GetSymbolBoundValuesView;
+import com.example.crypto.application.gethighestnormalized.GetDailyHighestNormalizedView;
+import com.example.crypto.application.gethighestnormalized.GetHighestNormalizedView;
+import com.example.crypto.application.getnormalizedrange.GetNormalizedRangeView;
+import com.example.crypto.application.getprices.GetPriceView;
+import com.example.crypto.application.getrollingrange.GetRollingRangeView;
+import com.example.crypto.application.ingestprices.IngestPricesRequest;
+import com.example.crypto.application.ingestprices.IngestPricesView;
+import com.example.crypto.infrastructure.persistence.CryptoDataVersion;
+import com.github.benmanes.caffeine.cache.Cache;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * A {@link CryptoApplicationService} serving the results of its delegate from a cache. The results are keyed by the
+ * version of the price data they were computed from, and the whole cache is invalidated as soon as a newer version is
+ * seen, so a result outlives neither its data nor the eviction policy of the cache. Only the thread moving the version
+ * forward invalidates the cache, so that threads reading different versions do not drop each other's results. Failed
+ * queries are not cached.
+ */
+@RequiredArgsConstructor
+public class CachingCryptoApplicationService implements CryptoApplicationService {
+
+    // the weights are the shallow sizes on a 64-bit JVM with compressed references : 12-byte object headers, 4-byte
+    // references, and objects aligned on 8 bytes
+
+    /**
+     * The weight of a key : the record, a header with 4 references and a long (40), and its 2 LocalDate, a header with
+     * an int and 2 shorts (24 each).
+     */
+    static final int KEY_WEIGHT = 88;
+
+    /**
+     * The weight of the symbol of a key : the String (24) and its array of up to 16 Latin-1 letters (32).
+     */
+    static final int SYMBOL_WEIGHT = 56;
+
+    /**
+     * The weight of a view : a header with up to 4 references (32), and as many boxed Double (16 each). Their names
+     * are the symbols interned by the registry, so they are not counted.
+     */
+    static final int VIEW_WEIGHT = 96;
+
+    /**
+     * The weight of a list of views, without them : the ArrayList, a header with an int and a reference (24), and its
+     * array header (16).
+     */
+    static final int LIST_WEIGHT = 40;
+
+    /**
+     * The weight of a reference to a view in a list.
+     */
+    static final int REFERENCE_WEIGHT = 4;
+
+    private final CryptoApplicationService delegate;
+
+    private final Cache<CryptoQueryKey, Object> cache;
+
+    private final Supplier<CryptoDataVersion> dataVersion;
+
+    private final AtomicLong cachedVersion = new AtomicLong(-1);
+
+    @Override
+    public Mono<List<GetNormalizedRangeView>> getNormalizedRange(LocalDate dateFrom, LocalDate dateTo) {
+        return cached(CryptoOperation.NORMALIZED_RANGE, null, dateFrom, dateTo,
+                () -> delegate.getNormalizedRange(dateFrom, dateTo));
+    }
+
+    @Override
+    public Mono<GetBoundValuesView> getBoundValues(String symbol, LocalDate dateFrom, LocalDate dateTo) {
+        return cached(CryptoOperation.BOUND_VALUES, symbol, dateFrom, dateTo,
+                () -> delegate.getBoundValues(symbol, dateFrom, dateTo));
+    }
+
+    @Override
+    public Mono<List<GetSymbolBoundValuesView>> getBatchBoundValues(GetBoundValuesBatchRequest request) {
+        // the batches are hardly ever repeated as is, and would crowd out the single queries
+        return delegate.getBatchBoundValues(request);
+    }
+
+    @Override
+    public Flux<GetPriceView> getPrices(String symbol, LocalDate dateFrom, LocalDate dateTo) {
+        // the streams are not cached, as they would have to be buffered whole
+        return delegate.getPrices(symbol, dateFrom, dateTo);
+    }
+
+    @Override
+    public Flux<GetRollingRangeView> getRollingRange(String symbol, LocalDate dateFrom, LocalDate dateTo,
+                                                     Duration window, Duration step) {
+        // the streams are not cached, as they would have to be buffered whole
+        return delegate.getRollingRange(symbol, dateFrom, dateTo, window, step);
+    }
+
+    @Override
+    public Mono<IngestPricesView> ingestPrices(IngestPricesRequest request) {
+        // the cached results are dropped by the new version of the data
+        return delegate.ingestPrices(request);
+    }
+
+    @Override
+    public Mono<GetHighestNormalizedView> getHighestNormalized(LocalDate day) {
+        return cached(CryptoOperation.HIGHEST_NORMALIZED, null, day, day,
+                () -> delegate.getHighestNormalized(day));
+    }
+
+    @Override
+    public Mono<List<GetDailyHighestNormalizedView>> getDailyHighestNormalized(LocalDate dateFrom, LocalDate dateTo,
+                                                                              int top) {
+        // the leaderboards are ranked from the daily rollups, and their keys would have to hold the number of cryptos
+        return delegate.getDailyHighestNormalized(dateFrom, dateTo, top);
+    }
+
+    /**
+     * Estimates the heap retained by a cached result, so that the cache can be bounded by memory.
+     *
+     * @param key   The result's key.
+     * @param value The result.
+     * @return The estimated size in bytes
+     */
+    static int weigh(CryptoQueryKey key, Object value) {
+        int keyWeight = KEY_WEIGHT + (key.symbol() != null ? SYMBOL_WEIGHT : 0);
+        return value instanceof List<?> views
+                ? keyWeight + LIST_WEIGHT + views.size() * (REFERENCE_WEIGHT + VIEW_WEIGHT)
+                : keyWeight + VIEW_WEIGHT;
+    }
+
+    /**
+     * Looks a result up, or computes it from the delegate and caches it.
+     *
+     * @param operation The operation.
+     * @param symbol    The crypto symbol argument, if any.
+     * @param dateFrom  The date from argument.
+     * @param dateTo    The date to argument.
+     * @param query     The delegate's operation.
+     * @return A Mono of the result
+     */
+    @SuppressWarnings("unchecked")
+    private <T> Mono<T> cached(CryptoOperation operation, String symbol, LocalDate dateFrom, LocalDate dateTo,
+                               Supplier<Mono<T>> query) {
+
+        return Mono.defer(() -> {
+            CryptoQueryKey key = new CryptoQueryKey(operation, symbol, dateFrom, dateTo, currentVersion());
+
+            T result = (T) cache.getIfPresent(key);
+            if (result != null) {
+                return Mono.just(result);
+            }
+            return query.get().doOnNext(value -> put(key, value));
+        });
+    }
+
+    /**
+     * Caches a result, unless its version was superseded meanwhile : the cache may have been invalidated before the
+     * result was put, which would leave it there until evicted.
+     */
+    private void put(CryptoQueryKey key, Object value) {
+        cache.put(key, value);
+        if (key.version() < cachedVersion.get()) {
+            cache.invalidate(key);
+        }
+    }
+
+    /**
+     * Reads the version of the price data, dropping every result of the previous versions when it moved forward.
+     *
+     * @return The current version
+     */
+    private long currentVersion() {
+        long version = dataVersion.get().version();
+        for (long cached = cachedVersion.get(); version > cached; cached = cachedVersion.get()) {
+            if (cachedVersion.compareAndSet(cached, version)) {
+                cache.invalidateAll();
+                break;
+            }
+        }
+        return version;
+    }
+}
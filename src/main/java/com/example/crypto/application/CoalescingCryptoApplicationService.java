@@ -0,0 +1,132 @@
+package com.example.crypto.application;
+
+import com.example.crypto.application.getboundvalues.GetBoundValuesBatchRequest;
+import com.example.crypto.application.getboundvalues.GetBoundValuesView;
+import com.example.crypto.application.getboundvalues.GetSymbolBoundValuesView;
+import com.example.crypto.application.gethighestnormalized.GetDailyHighestNormalizedView;
+import com.example.crypto.application.gethighestnormalized.GetHighestNormalizedView;
+import com.example.crypto.application.getnormalizedrange.GetNormalizedRangeView;
+import com.example.crypto.application.getprices.GetPriceView;
+import com.example.crypto.application.getrollingrange.GetRollingRangeView;
+import com.example.crypto.application.ingestprices.IngestPricesRequest;
+import com.example.crypto.application.ingestprices.IngestPricesView;
+import com.example.crypto.infrastructure.persistence.CryptoDataVersion;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * A {@link CryptoApplicationService} running each distinct query of its delegate once at a time : the callers asking
+ * for a query which is already running, on the same version of the price data, subscribe to that computation instead
+ * of starting their own. Nothing is kept once the computation terminated, successfully or not.
+ */
+public class CoalescingCryptoApplicationService implements CryptoApplicationService {
+
+    private final CryptoApplicationService delegate;
+
+    private final Supplier<CryptoDataVersion> dataVersion;
+
+    private final Map<CryptoQueryKey, Mono<?>> inFlight = new ConcurrentHashMap<>();
+
+    private final Counter coalesced;
+
+    public CoalescingCryptoApplicationService(CryptoApplicationService delegate,
+                                              Supplier<CryptoDataVersion> dataVersion,
+                                              MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.dataVersion = dataVersion;
+        this.coalesced = Counter.builder("crypto.service.coalesced")
+                .description("Number of queries served by a computation already running for another caller")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Mono<List<GetNormalizedRangeView>> getNormalizedRange(LocalDate dateFrom, LocalDate dateTo) {
+        return coalesced(CryptoOperation.NORMALIZED_RANGE, null, dateFrom, dateTo,
+                () -> delegate.getNormalizedRange(dateFrom, dateTo));
+    }
+
+    @Override
+    public Mono<GetBoundValuesView> getBoundValues(String symbol, LocalDate dateFrom, LocalDate dateTo) {
+        return coalesced(CryptoOperation.BOUND_VALUES, symbol, dateFrom, dateTo,
+                () -> delegate.getBoundValues(symbol, dateFrom, dateTo));
+    }
+
+    @Override
+    public Mono<List<GetSymbolBoundValuesView>> getBatchBoundValues(GetBoundValuesBatchRequest request) {
+        // the batches are keyed by their whole body, so concurrent callers hardly ever send the same one
+        return delegate.getBatchBoundValues(request);
+    }
+
+    @Override
+    public Flux<GetPriceView> getPrices(String symbol, LocalDate dateFrom, LocalDate dateTo) {
+        // every caller of a stream consumes it at its own pace, so the streams are not shared
+        return delegate.getPrices(symbol, dateFrom, dateTo);
+    }
+
+    @Override
+    public Flux<GetRollingRangeView> getRollingRange(String symbol, LocalDate dateFrom, LocalDate dateTo,
+                                                     Duration window, Duration step) {
+        // every caller of a stream consumes it at its own pace, so the streams are not shared
+        return delegate.getRollingRange(symbol, dateFrom, dateTo, window, step);
+    }
+
+    @Override
+    public Mono<IngestPricesView> ingestPrices(IngestPricesRequest request) {
+        // every write has to be applied, so the writes are never shared
+        return delegate.ingestPrices(request);
+    }
+
+    @Override
+    public Mono<GetHighestNormalizedView> getHighestNormalized(LocalDate day) {
+        return coalesced(CryptoOperation.HIGHEST_NORMALIZED, null, day, day,
+                () -> delegate.getHighestNormalized(day));
+    }
+
+    @Override
+    public Mono<List<GetDailyHighestNormalizedView>> getDailyHighestNormalized(LocalDate dateFrom, LocalDate dateTo,
+                                                                              int top) {
+        // the leaderboards are ranked from the daily rollups, and their keys would have to hold the number of cryptos
+        return delegate.getDailyHighestNormalized(dateFrom, dateTo, top);
+    }
+
+    /**
+     * Joins the computation running for the same query, or starts a shared one.
+     *
+     * @param operation The operation.
+     * @param symbol    The crypto symbol argument, if any.
+     * @param dateFrom  The date from argument.
+     * @param dateTo    The date to argument.
+     * @param query     The delegate's operation.
+     * @return A Mono of the result
+     */
+    @SuppressWarnings("unchecked")
+    private <T> Mono<T> coalesced(CryptoOperation operation, String symbol, LocalDate dateFrom, LocalDate dateTo,
+                                  Supplier<Mono<T>> query) {
+
+        return Mono.defer(() -> {
+            CryptoQueryKey key = new CryptoQueryKey(operation, symbol, dateFrom, dateTo, dataVersion.get().version());
+
+            Mono<?> running = inFlight.get(key);
+            if (running == null) {
+                // the computation starts with its first subscriber, and is forgotten once it terminated
+                Mono<T> shared = Mono.defer(query)
+                        .doFinally(signal -> inFlight.remove(key))
+                        .share();
+                running = inFlight.putIfAbsent(key, shared);
+                if (running == null) {
+                    return shared;
+                }
+            }
+            coalesced.increment();
+            return (Mono<T>) running;
+        });
+    }
+}
@@ -1,10 +1,19 @@
 package com.example.crypto.application;
 
+import com.example.crypto.application.getboundvalues.GetBoundValuesBatchRequest;
 import com.example.crypto.application.getboundvalues.GetBoundValuesView;
+import com.example.crypto.application.getboundvalues.GetSymbolBoundValuesView;
+import com.example.crypto.application.gethighestnormalized.GetDailyHighestNormalizedView;
 import com.example.crypto.application.gethighestnormalized.GetHighestNormalizedView;
 import com.example.crypto.application.getnormalizedrange.GetNormalizedRangeView;
+import com.example.crypto.application.getprices.GetPriceView;
+import com.example.crypto.application.getrollingrange.GetRollingRangeView;
+import com.example.crypto.application.ingestprices.IngestPricesRequest;
+import com.example.crypto.application.ingestprices.IngestPricesView;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.util.List;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 public interface CryptoApplicationService {
@@ -28,6 +37,49 @@ public interface CryptoApplicationService {
      */
     Mono<GetBoundValuesView> getBoundValues(String symbol, LocalDate dateFrom, LocalDate dateTo);
 
+    /**
+     * Retrieves the bound values of many cryptos over many date windows in one pass, the series of each crypto being
+     * read once for all the windows. The views are ordered by the requested symbols then windows, and the combinations
+     * without prices are left out.
+     *
+     * @param request The crypto symbols and date windows which the client is interested in.
+     * @return A List of GetSymbolBoundValuesView
+     */
+    Mono<List<GetSymbolBoundValuesView>> getBatchBoundValues(GetBoundValuesBatchRequest request);
+
+    /**
+     * Streams the prices of a crypto, oldest first, as they are read from the store.
+     *
+     * @param symbol   The crypto symbol which the client is interested in.
+     * @param dateFrom The date from which the client is interested in.
+     * @param dateTo   The date to which the client is interested in.
+     * @return A Flux of GetPriceView
+     */
+    Flux<GetPriceView> getPrices(String symbol, LocalDate dateFrom, LocalDate dateTo);
+
+    /**
+     * Streams the min and max values and the normalized range of a crypto over a window sliding by the given step,
+     * oldest first, all the windows being summarized in a single pass over the prices.
+     *
+     * @param symbol   The crypto symbol which the client is interested in.
+     * @param dateFrom The date from which the client is interested in.
+     * @param dateTo   The date to which the client is interested in.
+     * @param window   The duration of the window.
+     * @param step     The duration between two windows.
+     * @return A Flux of GetRollingRangeView
+     */
+    Flux<GetRollingRangeView> getRollingRange(String symbol, LocalDate dateFrom, LocalDate dateTo, Duration window,
+                                              Duration step);
+
+    /**
+     * Ingests a batch of prices, appending them to the prices of their cryptos, the new cryptos being registered. The
+     * batch is made durable before being published, all at once.
+     *
+     * @param request The prices to ingest.
+     * @return An IngestPricesView
+     */
+    Mono<IngestPricesView> ingestPrices(IngestPricesRequest request);
+
     /**
      * Retrieves the crypto with the highest normalized range for a specific date.
      *
@@ -35,4 +87,14 @@ public interface CryptoApplicationService {
      * @return A GetHighestNormalizedView
      */
     Mono<GetHighestNormalizedView> getHighestNormalized(LocalDate day);
+
+    /**
+     * Retrieves, for every day of a date span, the cryptos with the highest normalized range of the day.
+     *
+     * @param dateFrom The date from which the client is interested in.
+     * @param dateTo   The date to which the client is interested in.
+     * @param top      The number of cryptos to retrieve per day.
+     * @return A List of GetDailyHighestNormalizedView, one per day holding prices
+     */
+    Mono<List<GetDailyHighestNormalizedView>> getDailyHighestNormalized(LocalDate dateFrom, LocalDate dateTo, int top);
 }
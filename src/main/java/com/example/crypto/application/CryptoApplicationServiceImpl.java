@@ -1,32 +1,73 @@
 package com.example.crypto.application;
 
-import static java.util.stream.Collectors.groupingBy;
-
+import com.example.crypto.application.getboundvalues.GetBoundValuesBatchRequest;
 import com.example.crypto.application.getboundvalues.GetBoundValuesView;
+import com.example.crypto.application.getboundvalues.GetSymbolBoundValuesView;
+import com.example.crypto.application.gethighestnormalized.GetDailyHighestNormalizedView;
 import com.example.crypto.application.gethighestnormalized.GetHighestNormalizedView;
 import com.example.crypto.application.getnormalizedrange.GetNormalizedRangeView;
+import com.example.crypto.application.getprices.GetPriceView;
+import com.example.crypto.application.getrollingrange.GetRollingRangeView;
+import com.example.crypto.application.ingestprices.IngestPricesRequest;
+import com.example.crypto.application.ingestprices.IngestPricesView;
 import com.example.crypto.infrastructure.exception.PricesNotFoundException;
 import com.example.crypto.infrastructure.exception.ValidationException;
 import com.example.crypto.infrastructure.persistence.CryptoDocumentRepository;
-import com.example.crypto.infrastructure.persistence.CryptoEnum;
+import com.example.crypto.infrastructure.persistence.CryptoPriceBounds;
 import com.example.crypto.infrastructure.persistence.CryptoPriceDocument;
+import com.example.crypto.infrastructure.persistence.CryptoPriceWindowBounds;
+import com.example.crypto.infrastructure.persistence.CryptoSymbolRegistry;
+import com.example.crypto.infrastructure.persistence.TimeRange;
+import java.sql.Timestamp;
+import java.time.Duration;
 import java.time.LocalDate;
-import java.util.Collections;
+import java.util.ArrayList;
 import java.util.Comparator;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.regex.Pattern;
 import lombok.RequiredArgsConstructor;
-import org.apache.commons.lang3.EnumUtils;
 import org.apache.commons.lang3.StringUtils;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 @RequiredArgsConstructor
 public class CryptoApplicationServiceImpl implements CryptoApplicationService {
 
+    /**
+     * The maximum number of symbol and window combinations of a batch request.
+     */
+    static final int MAX_BATCH_COMBINATIONS = 10_000;
+
+    /**
+     * The maximum number of cryptos of a day of the daily leaderboard.
+     */
+    static final int MAX_DAILY_TOP = 100;
+
+    /**
+     * The minimum step of the rolling windows, which bounds the number of windows streamed per price.
+     */
+    static final Duration MIN_ROLLING_STEP = Duration.ofMinutes(1);
+
+    /**
+     * The maximum window and step of the rolling windows, far beyond any price history, which keeps the window ends
+     * within the range of the epoch milliseconds.
+     */
+    static final Duration MAX_ROLLING_DURATION = Duration.ofDays(36_500);
+
+    /**
+     * The maximum number of prices of an ingested batch.
+     */
+    static final int MAX_INGEST_BATCH = 100_000;
+
+    // the symbols of the ingested prices, which the new cryptos are registered under
+    private static final Pattern SYMBOL_PATTERN = Pattern.compile("[A-Z0-9]{1,16}");
+
     private final CryptoDocumentRepository repository;
 
+    private final CryptoSymbolRegistry symbolRegistry;
+
     @Override
     public Mono<List<GetNormalizedRangeView>> getNormalizedRange(LocalDate dateFrom, LocalDate dateTo) {
 
@@ -34,29 +75,11 @@ public class CryptoApplicationServiceImpl implements CryptoApplicationService {
             return Mono.error(new ValidationException("DateFrom must be less or equal to dateTo"));
         }
 
-        return repository.findAllByDateRange(dateFrom, dateTo)
+        return repository.findAllBoundsByDateRange(dateFrom, dateTo)
                 .switchIfEmpty(Mono.defer(() -> Mono.error(new PricesNotFoundException())))
-                .collectList()
-                .map(list -> {
-
-                    // we create a map of crypto prices grouped by symbol
-                    Map<String, List<CryptoPriceDocument>> pricesPerSymbol = list.stream()
-                            .collect(groupingBy(CryptoPriceDocument::symbol));
-
-                    return pricesPerSymbol.entrySet().stream()
-                            .map(entry -> {
-                                List<Double> prices = entry.getValue().stream()
-                                        .map(CryptoPriceDocument::price)
-                                        .toList();
-
-                                double normalizedRange = getNormalizedRange(prices);
-                                String symbol = entry.getKey();
-
-                                return new GetNormalizedRangeView(symbol, normalizedRange);
-                            })
-                            .sorted(Comparator.comparing(GetNormalizedRangeView::getRange).reversed())
-                            .collect(Collectors.toList());
-                });
+                .map(bounds -> new GetNormalizedRangeView(bounds.symbol(), bounds.normalizedRange()))
+                .collectSortedList(Comparator.comparing(GetNormalizedRangeView::getRange).reversed()
+                        .thenComparing(GetNormalizedRangeView::getName));
     }
 
     @Override
@@ -69,73 +92,197 @@ public class CryptoApplicationServiceImpl implements CryptoApplicationService {
             return Mono.error(new ValidationException("DateFrom must be less or equal to dateTo"));
         }
 
-        return repository.findBySymbolAndDateRange(symbol, dateFrom, dateTo)
+        return repository.findBoundsBySymbolAndDateRange(symbol, dateFrom, dateTo)
                 .switchIfEmpty(Mono.defer(() -> Mono.error(new PricesNotFoundException())))
-                .collectList()
-                .map(list -> {
+                .map(bounds -> new GetBoundValuesView(
+                        bounds.firstPrice(), bounds.lastPrice(), bounds.minPrice(), bounds.maxPrice()));
+    }
 
-                    double oldestPrice = list.stream()
-                            .min(Comparator.comparing(CryptoPriceDocument::timestamp))
-                            .map(CryptoPriceDocument::price)
-                            .orElse((double) 0);
+    @Override
+    public Mono<List<GetSymbolBoundValuesView>> getBatchBoundValues(GetBoundValuesBatchRequest request) {
 
-                    double newestPrice = list.stream()
-                            .max(Comparator.comparing(CryptoPriceDocument::timestamp))
-                            .map(CryptoPriceDocument::price)
-                            .orElse((double) 0);
+        if (request.getSymbols() == null || request.getSymbols().isEmpty()) {
+            return Mono.error(new ValidationException("At least one crypto must be given"));
+        }
+        if (request.getWindows() == null || request.getWindows().isEmpty()) {
+            return Mono.error(new ValidationException("At least one date window must be given"));
+        }
+        if ((long) request.getSymbols().size() * request.getWindows().size() > MAX_BATCH_COMBINATIONS) {
+            return Mono.error(new ValidationException(
+                    "At most " + MAX_BATCH_COMBINATIONS + " crypto and date window combinations can be given"));
+        }
 
-                    List<Double> prices = list.stream()
-                            .map(CryptoPriceDocument::price)
-                            .toList();
+        // the position of each symbol in the request, the duplicates being summarized once
+        Map<String, Integer> symbolOrder = new LinkedHashMap<>();
+        for (String symbol : request.getSymbols()) {
+            if (!validCryptoSymbol(symbol)) {
+                return Mono.error(new ValidationException("Crypto is not valid or not supported"));
+            }
+            symbolOrder.putIfAbsent(symbol, symbolOrder.size());
+        }
 
-                    double maxPrice = Collections.max(prices, null);
-                    double minPrice = Collections.min(prices, null);
+        List<GetBoundValuesBatchRequest.Window> windows = request.getWindows();
+        List<TimeRange> ranges = new ArrayList<>(windows.size());
+        for (GetBoundValuesBatchRequest.Window window : windows) {
+            if (window == null || !validDateRange(window.getDateFrom(), window.getDateTo())) {
+                return Mono.error(new ValidationException("DateFrom must be less or equal to dateTo"));
+            }
+            ranges.add(TimeRange.of(window.getDateFrom(), window.getDateTo()));
+        }
 
-                    return new GetBoundValuesView(oldestPrice, newestPrice, minPrice, maxPrice);
-                });
+        return repository.findBoundsBySymbolsAndTimeWindows(List.copyOf(symbolOrder.keySet()), ranges)
+                .switchIfEmpty(Mono.defer(() -> Mono.error(new PricesNotFoundException())))
+                .collectSortedList(Comparator.comparing((CryptoPriceWindowBounds bounds) ->
+                                symbolOrder.get(bounds.bounds().symbol()))
+                        .thenComparingInt(CryptoPriceWindowBounds::window))
+                .map(rows -> rows.stream()
+                        .map(row -> toSymbolBoundValuesView(row, windows.get(row.window())))
+                        .toList());
     }
 
     @Override
-    public Mono<GetHighestNormalizedView> getHighestNormalized(LocalDate day) {
-        return repository.findAllByDate(day)
-                .switchIfEmpty(Mono.defer(() -> Mono.error(new PricesNotFoundException())))
-                .collectList()
-                .map(list -> {
-                    // we create a map of crypto prices grouped by symbol
-                    Map<String, List<CryptoPriceDocument>> pricesPerSymbol = list.stream()
-                            .collect(groupingBy(CryptoPriceDocument::symbol));
+    public Flux<GetPriceView> getPrices(String symbol, LocalDate dateFrom, LocalDate dateTo) {
+
+        if (!validCryptoSymbol(symbol)) {
+            return Flux.error(new ValidationException("Crypto is not valid or not supported"));
+        }
+        if (!validDateRange(dateFrom, dateTo)) {
+            return Flux.error(new ValidationException("DateFrom must be less or equal to dateTo"));
+        }
+
+        return repository.findBySymbolAndDateRange(symbol, dateFrom, dateTo)
+                .map(document -> new GetPriceView(document.timestamp().getTime(), document.price()))
+                .switchIfEmpty(Mono.defer(() -> Mono.error(new PricesNotFoundException())));
+    }
+
+    @Override
+    public Flux<GetRollingRangeView> getRollingRange(String symbol, LocalDate dateFrom, LocalDate dateTo,
+                                                     Duration window, Duration step) {
+
+        if (!validCryptoSymbol(symbol)) {
+            return Flux.error(new ValidationException("Crypto is not valid or not supported"));
+        }
+        if (!validDateRange(dateFrom, dateTo)) {
+            return Flux.error(new ValidationException("DateFrom must be less or equal to dateTo"));
+        }
+        if (window == null || window.isNegative() || window.isZero()) {
+            return Flux.error(new ValidationException("Window must be positive"));
+        }
+        if (window.compareTo(MAX_ROLLING_DURATION) > 0) {
+            return Flux.error(new ValidationException("Window must be at most " + MAX_ROLLING_DURATION));
+        }
+        if (step == null || step.compareTo(MIN_ROLLING_STEP) < 0) {
+            return Flux.error(new ValidationException("Step must be at least " + MIN_ROLLING_STEP));
+        }
+        if (step.compareTo(MAX_ROLLING_DURATION) > 0) {
+            return Flux.error(new ValidationException("Step must be at most " + MAX_ROLLING_DURATION));
+        }
+
+        return repository.findRollingBoundsBySymbolAndDateRange(symbol, dateFrom, dateTo, window, step)
+                .map(rollingBounds -> new GetRollingRangeView(rollingBounds.windowEnd(),
+                        rollingBounds.bounds().minPrice(), rollingBounds.bounds().maxPrice(),
+                        rollingBounds.bounds().normalizedRange()))
+                .switchIfEmpty(Mono.defer(() -> Mono.error(new PricesNotFoundException())));
+    }
+
+    @Override
+    public Mono<IngestPricesView> ingestPrices(IngestPricesRequest request) {
+
+        List<IngestPricesRequest.Price> prices = request.getPrices();
+        if (prices == null || prices.isEmpty()) {
+            return Mono.error(new ValidationException("At least one price must be given"));
+        }
+        if (prices.size() > MAX_INGEST_BATCH) {
+            return Mono.error(new ValidationException("At most " + MAX_INGEST_BATCH + " prices can be given"));
+        }
 
-                    Map<String, Double> rangePerCrypto = new HashMap<>();
+        List<CryptoPriceDocument> documents = new ArrayList<>(prices.size());
+        for (IngestPricesRequest.Price price : prices) {
+            if (price == null || price.getSymbol() == null || !SYMBOL_PATTERN.matcher(price.getSymbol()).matches()) {
+                return Mono.error(new ValidationException(
+                        "Crypto symbol must be made of 1 to 16 upper case letters or digits"));
+            }
+            if (price.getTimestamp() == null || price.getTimestamp() < 0) {
+                return Mono.error(new ValidationException("Timestamp must be given in positive epoch milliseconds"));
+            }
+            if (price.getPrice() == null || !(price.getPrice() > 0) || price.getPrice().isInfinite()) {
+                return Mono.error(new ValidationException("Price must be a positive number"));
+            }
+            documents.add(new CryptoPriceDocument(
+                    new Timestamp(price.getTimestamp()), price.getSymbol(), price.getPrice()));
+        }
 
-                    // we calculate each crypto's normalized range and store into new map
-                    pricesPerSymbol.forEach((symbol, values) -> {
-                        List<Double> prices = values.stream()
-                                .map(CryptoPriceDocument::price)
-                                .toList();
+        // the new cryptos are reserved until the prices are stored, which registers them, so that they cannot
+        // outgrow the registry while a rejected or failed batch gives its room back
+        List<String> symbols = documents.stream().map(CryptoPriceDocument::symbol).toList();
+        return Mono.defer(() -> {
+            if (!symbolRegistry.reserveAll(symbols)) {
+                return Mono.error(new ValidationException(
+                        "At most " + symbolRegistry.getMaxSymbols() + " cryptos can be held"));
+            }
+            return repository.saveAll(documents)
+                    .map(version -> new IngestPricesView(documents.size(), version.version()))
+                    .doFinally(signal -> symbolRegistry.releaseAll(symbols));
+        });
+    }
 
-                        double normalizedRange = getNormalizedRange(prices);
+    @Override
+    public Mono<GetHighestNormalizedView> getHighestNormalized(LocalDate day) {
+        return repository.findAllBoundsByDateRange(day, day)
+                .map(bounds -> new GetHighestNormalizedView(bounds.symbol(), bounds.normalizedRange()))
+                .reduce(this::highest)
+                .switchIfEmpty(Mono.defer(() -> Mono.error(new PricesNotFoundException())));
+    }
 
-                        rangePerCrypto.put(symbol, normalizedRange);
-                    });
+    @Override
+    public Mono<List<GetDailyHighestNormalizedView>> getDailyHighestNormalized(LocalDate dateFrom, LocalDate dateTo,
+                                                                              int top) {
 
-                    // we extract the crypto with the highest normalized range
-                    String symbol = Collections.max(rangePerCrypto.entrySet(), Map.Entry.comparingByValue()).getKey();
-                    return new GetHighestNormalizedView(symbol, rangePerCrypto.get(symbol));
-                });
+        if (!validDateRange(dateFrom, dateTo)) {
+            return Mono.error(new ValidationException("DateFrom must be less or equal to dateTo"));
+        }
+        if (top < 1 || top > MAX_DAILY_TOP) {
+            return Mono.error(new ValidationException("Top must be between 1 and " + MAX_DAILY_TOP));
+        }
 
+        // a single pass over the daily rollups of every crypto, each day ranked in its own bounded heap
+        return repository.findDailyBoundsByDateRange(dateFrom, dateTo)
+                .collect(() -> new DailyLeaderboard(top), (leaderboard, bounds) -> leaderboard.accept(
+                        TimeRange.dayOf(bounds.firstTimestamp()), bounds.symbol(), bounds.normalizedRange()))
+                .filter(leaderboard -> !leaderboard.isEmpty())
+                .switchIfEmpty(Mono.defer(() -> Mono.error(new PricesNotFoundException())))
+                .map(DailyLeaderboard::toViews);
     }
 
     /**
-     * Calculates the normalized range from a list of prices.
+     * Converts the summary of a crypto over a window of a batch request to its view.
      *
-     * @param prices The list of prices.
-     * @return The normalized range
+     * @param row    The summary.
+     * @param window The requested window.
+     * @return A GetSymbolBoundValuesView
      */
-    private double getNormalizedRange(List<Double> prices) {
-        double maxPrice = Collections.max(prices, null);
-        double minPrice = Collections.min(prices, null);
+    private GetSymbolBoundValuesView toSymbolBoundValuesView(CryptoPriceWindowBounds row,
+                                                            GetBoundValuesBatchRequest.Window window) {
+        CryptoPriceBounds bounds = row.bounds();
+
+        return new GetSymbolBoundValuesView(bounds.symbol(), window.getDateFrom(), window.getDateTo(),
+                new GetBoundValuesView(bounds.firstPrice(), bounds.lastPrice(), bounds.minPrice(), bounds.maxPrice()));
+    }
 
-        return (maxPrice - minPrice) / minPrice;
+    /**
+     * Picks the crypto with the highest normalized range, or the first symbol in alphabetical order on a tie, so that
+     * the result does not depend on the order in which the cryptos are summarized.
+     *
+     * @param first  A crypto's normalized range.
+     * @param second Another crypto's normalized range.
+     * @return The highest of both
+     */
+    private GetHighestNormalizedView highest(GetHighestNormalizedView first, GetHighestNormalizedView second) {
+        int comparison = Double.compare(first.getRange(), second.getRange());
+        if (comparison == 0) {
+            comparison = second.getName().compareTo(first.getName());
+        }
+        return comparison >= 0 ? first : second;
     }
 
     /**
@@ -150,12 +297,12 @@ public class CryptoApplicationServiceImpl implements CryptoApplicationService {
     }
 
     /**
-     * Checks if the given crypto symbol exist in our approved crypto enumeration.
+     * Checks if the given crypto symbol is registered, i.e. if prices were ever found for it.
      *
      * @param symbol The crypto symbol.
      * @return Whether the symbol is valid.
      */
     private boolean validCryptoSymbol(String symbol) {
-        return !StringUtils.isBlank(symbol) && EnumUtils.isValidEnum(CryptoEnum.class, symbol);
+        return !StringUtils.isBlank(symbol) && symbolRegistry.contains(symbol);
     }
 }
@@ -0,0 +1,34 @@
+package com.example.crypto.application;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * The operations of the {@link CryptoApplicationService}, as tagged in its metrics. The ones whose results are cached
+ * or coalesced also make part of their {@link CryptoQueryKey}.
+ */
+@Getter
+@RequiredArgsConstructor
+enum CryptoOperation {
+
+    NORMALIZED_RANGE("normalizedRange"),
+
+    BOUND_VALUES("boundValues"),
+
+    BATCH_BOUND_VALUES("batchBoundValues"),
+
+    PRICES("prices"),
+
+    ROLLING_RANGE("rollingRange"),
+
+    INGEST_PRICES("ingestPrices"),
+
+    HIGHEST_NORMALIZED("highestNormalized"),
+
+    DAILY_HIGHEST_NORMALIZED("dailyHighestNormalized");
+
+    /**
+     * The value of the {@code operation} tag of the metrics.
+     */
+    private final String tag;
+}
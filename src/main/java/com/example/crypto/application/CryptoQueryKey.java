@@ -0,0 +1,15 @@
+package com.example.crypto.application;
+
+import java.time.LocalDate;
+
+/**
+ * A record that identifies the result of a {@link CryptoApplicationService} operation : the operation, its arguments,
+ * and the version of the data it was computed from, so that a result is never served for newer data.
+ */
+record CryptoQueryKey(
+        CryptoOperation operation,
+        String symbol,
+        LocalDate dateFrom,
+        LocalDate dateTo,
+        long version) {
+}
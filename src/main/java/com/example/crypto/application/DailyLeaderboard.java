@@ -0,0 +1,77 @@
+package com.example.crypto.application;
+
+import com.example.crypto.application.gethighestnormalized.GetDailyHighestNormalizedView;
+import com.example.crypto.application.gethighestnormalized.GetHighestNormalizedView;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+
+/**
+ * Keeps the cryptos with the highest normalized range of each day, in a heap per day bounded to the requested number
+ * of cryptos : a crypto is kept only if it ranks above the lowest one kept for its day, so that a day costs
+ * O(n log top) instead of a full sort of its cryptos. Ties are broken on the alphabetical order of the symbols.
+ */
+class DailyLeaderboard {
+
+    // the lowest ranked first, i.e. the lowest range and then the last symbol, so that the heaps evict it first
+    private static final Comparator<GetHighestNormalizedView> LOWEST_FIRST =
+            Comparator.comparing(GetHighestNormalizedView::getRange)
+                    .thenComparing(GetHighestNormalizedView::getName, Comparator.reverseOrder());
+
+    private final int top;
+
+    private final Map<LocalDate, PriorityQueue<GetHighestNormalizedView>> days = new TreeMap<>();
+
+    DailyLeaderboard(int top) {
+        this.top = top;
+    }
+
+    /**
+     * Ranks the normalized range of a crypto over a day.
+     *
+     * @param day    The day.
+     * @param symbol The crypto symbol.
+     * @param range  The crypto's normalized range over the day.
+     */
+    void accept(LocalDate day, String symbol, double range) {
+
+        PriorityQueue<GetHighestNormalizedView> heap = days.computeIfAbsent(day,
+                key -> new PriorityQueue<>(top + 1, LOWEST_FIRST));
+
+        if (heap.size() < top) {
+            heap.add(new GetHighestNormalizedView(symbol, range));
+            return;
+        }
+
+        GetHighestNormalizedView lowest = heap.peek();
+        int comparison = Double.compare(range, lowest.getRange());
+        if (comparison > 0 || comparison == 0 && symbol.compareTo(lowest.getName()) < 0) {
+            heap.poll();
+            heap.add(new GetHighestNormalizedView(symbol, range));
+        }
+    }
+
+    boolean isEmpty() {
+        return days.isEmpty();
+    }
+
+    /**
+     * Lists the kept cryptos of every day, the days in chronological order and their cryptos highest first.
+     *
+     * @return A List of GetDailyHighestNormalizedView
+     */
+    List<GetDailyHighestNormalizedView> toViews() {
+
+        List<GetDailyHighestNormalizedView> views = new ArrayList<>(days.size());
+        days.forEach((day, heap) -> {
+            List<GetHighestNormalizedView> highest = new ArrayList<>(heap);
+            highest.sort(LOWEST_FIRST.reversed());
+            views.add(new GetDailyHighestNormalizedView(day, highest));
+        });
+        return views;
+    }
+}
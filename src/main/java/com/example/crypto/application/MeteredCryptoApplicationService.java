@@ -0,0 +1,98 @@
+package com.example.crypto.application;
+
+import com.example.crypto.application.getboundvalues.GetBoundValuesBatchRequest;
+import com.example.crypto.application.getboundvalues.GetBoundValuesView;
+import com.example.crypto.application.getboundvalues.GetSymbolBoundValuesView;
+import com.example.crypto.application.gethighestnormalized.GetDailyHighestNormalizedView;
+import com.example.crypto.application.gethighestnormalized.GetHighestNormalizedView;
+import com.example.crypto.application.getnormalizedrange.GetNormalizedRangeView;
+import com.example.crypto.application.getprices.GetPriceView;
+import com.example.crypto.application.getrollingrange.GetRollingRangeView;
+import com.example.crypto.application.ingestprices.IngestPricesRequest;
+import com.example.crypto.application.ingestprices.IngestPricesView;
+import com.example.crypto.infrastructure.metrics.ReactiveTimers;
+import com.example.crypto.infrastructure.persistence.CryptoSymbolRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * A {@link CryptoApplicationService} recording the latency of the operations of its delegate, as seen by the
+ * controller, into the {@code crypto.service} timer tagged by operation, symbol and outcome.
+ */
+@RequiredArgsConstructor
+public class MeteredCryptoApplicationService implements CryptoApplicationService {
+
+    static final String TIMER = "crypto.service";
+
+    private final CryptoApplicationService delegate;
+
+    private final CryptoSymbolRegistry symbolRegistry;
+
+    private final MeterRegistry meterRegistry;
+
+    @Override
+    public Mono<List<GetNormalizedRangeView>> getNormalizedRange(LocalDate dateFrom, LocalDate dateTo) {
+        return ReactiveTimers.timed(meterRegistry, TIMER, tags(CryptoOperation.NORMALIZED_RANGE, "all"),
+                delegate.getNormalizedRange(dateFrom, dateTo));
+    }
+
+    @Override
+    public Mono<GetBoundValuesView> getBoundValues(String symbol, LocalDate dateFrom, LocalDate dateTo) {
+        String symbolTag = symbolRegistry.isWithinCapacity(symbol) ? symbol : "unknown";
+
+        return ReactiveTimers.timed(meterRegistry, TIMER, tags(CryptoOperation.BOUND_VALUES, symbolTag),
+                delegate.getBoundValues(symbol, dateFrom, dateTo));
+    }
+
+    @Override
+    public Mono<List<GetSymbolBoundValuesView>> getBatchBoundValues(GetBoundValuesBatchRequest request) {
+        return ReactiveTimers.timed(meterRegistry, TIMER, tags(CryptoOperation.BATCH_BOUND_VALUES, "all"),
+                delegate.getBatchBoundValues(request));
+    }
+
+    @Override
+    public Flux<GetPriceView> getPrices(String symbol, LocalDate dateFrom, LocalDate dateTo) {
+        String symbolTag = symbolRegistry.isWithinCapacity(symbol) ? symbol : "unknown";
+
+        return ReactiveTimers.timed(meterRegistry, TIMER, tags(CryptoOperation.PRICES, symbolTag),
+                delegate.getPrices(symbol, dateFrom, dateTo));
+    }
+
+    @Override
+    public Flux<GetRollingRangeView> getRollingRange(String symbol, LocalDate dateFrom, LocalDate dateTo,
+                                                     Duration window, Duration step) {
+        String symbolTag = symbolRegistry.isWithinCapacity(symbol) ? symbol : "unknown";
+
+        return ReactiveTimers.timed(meterRegistry, TIMER, tags(CryptoOperation.ROLLING_RANGE, symbolTag),
+                delegate.getRollingRange(symbol, dateFrom, dateTo, window, step));
+    }
+
+    @Override
+    public Mono<IngestPricesView> ingestPrices(IngestPricesRequest request) {
+        return ReactiveTimers.timed(meterRegistry, TIMER, tags(CryptoOperation.INGEST_PRICES, "all"),
+                delegate.ingestPrices(request));
+    }
+
+    @Override
+    public Mono<GetHighestNormalizedView> getHighestNormalized(LocalDate day) {
+        return ReactiveTimers.timed(meterRegistry, TIMER, tags(CryptoOperation.HIGHEST_NORMALIZED, "all"),
+                delegate.getHighestNormalized(day));
+    }
+
+    @Override
+    public Mono<List<GetDailyHighestNormalizedView>> getDailyHighestNormalized(LocalDate dateFrom, LocalDate dateTo,
+                                                                              int top) {
+        return ReactiveTimers.timed(meterRegistry, TIMER, tags(CryptoOperation.DAILY_HIGHEST_NORMALIZED, "all"),
+                delegate.getDailyHighestNormalized(dateFrom, dateTo, top));
+    }
+
+    private static Tags tags(CryptoOperation operation, String symbol) {
+        return Tags.of("operation", operation.getTag(), "symbol", symbol);
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.crypto.application.getboundvalues;
+
+import java.time.LocalDate;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * A request for the bound values of many cryptos over one or more date windows, every combination being computed.
+ */
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+public class GetBoundValuesBatchRequest {
+
+    /**
+     * The crypto symbols which the client is interested in.
+     */
+    private List<String> symbols;
+
+    /**
+     * The date windows which the client is interested in.
+     */
+    private List<Window> windows;
+
+    /**
+     * A date window, either end of which may be left open.
+     */
+    @Getter
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Window {
+
+        /**
+         * The date from which the client is interested in.
+         */
+        private LocalDate dateFrom;
+
+        /**
+         * The date to which the client is interested in.
+         */
+        private LocalDate dateTo;
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.crypto.application.getboundvalues;
+
+import java.time.LocalDate;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * A view holding the bound values of a crypto over one of the date windows of a batch request.
+ */
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+public class GetSymbolBoundValuesView {
+
+    /**
+     * The crypto's symbol.
+     */
+    private String symbol;
+
+    /**
+     * The date from of the window.
+     */
+    private LocalDate dateFrom;
+
+    /**
+     * The date to of the window.
+     */
+    private LocalDate dateTo;
+
+    /**
+     * The crypto's bound values over the window.
+     */
+    private GetBoundValuesView boundValues;
+}
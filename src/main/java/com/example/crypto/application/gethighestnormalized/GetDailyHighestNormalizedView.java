@@ -0,0 +1,26 @@
+package com.example.crypto.application.gethighestnormalized;
+
+import java.time.LocalDate;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * A view holding the cryptos with the highest normalized range of a day, highest first.
+ */
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+public class GetDailyHighestNormalizedView {
+
+    /**
+     * The day.
+     */
+    private LocalDate day;
+
+    /**
+     * The cryptos with the highest normalized range of the day.
+     */
+    private List<GetHighestNormalizedView> highest;
+}
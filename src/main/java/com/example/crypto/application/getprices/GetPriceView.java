@@ -0,0 +1,24 @@
+package com.example.crypto.application.getprices;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * A view holding a single price of a crypto.
+ */
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+public class GetPriceView {
+
+    /**
+     * The epoch milliseconds of the price.
+     */
+    private Long timestamp;
+
+    /**
+     * The crypto's price.
+     */
+    private Double price;
+}
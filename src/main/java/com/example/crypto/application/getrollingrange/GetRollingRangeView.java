@@ -0,0 +1,34 @@
+package com.example.crypto.application.getrollingrange;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * A view holding the min and max values and the normalized range of a crypto over a rolling window.
+ */
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+public class GetRollingRangeView {
+
+    /**
+     * The epoch milliseconds of the end of the window, exclusive.
+     */
+    private Long timestamp;
+
+    /**
+     * The crypto's min value over the window.
+     */
+    private Double minValue;
+
+    /**
+     * The crypto's max value over the window.
+     */
+    private Double maxValue;
+
+    /**
+     * The crypto's normalized range over the window.
+     */
+    private Double range;
+}
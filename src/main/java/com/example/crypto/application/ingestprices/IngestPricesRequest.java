@@ -0,0 +1,44 @@
+package com.example.crypto.application.ingestprices;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * A batch of prices to ingest, of one or more cryptos, in any order.
+ */
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+public class IngestPricesRequest {
+
+    /**
+     * The prices to ingest.
+     */
+    private List<Price> prices;
+
+    /**
+     * A single price of a crypto.
+     */
+    @Getter
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Price {
+
+        /**
+         * The crypto's symbol.
+         */
+        private String symbol;
+
+        /**
+         * The epoch milliseconds of the price.
+         */
+        private Long timestamp;
+
+        /**
+         * The crypto's price.
+         */
+        private Double price;
+    }
+}
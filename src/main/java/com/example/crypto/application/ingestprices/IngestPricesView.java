@@ -0,0 +1,24 @@
+package com.example.crypto.application.ingestprices;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * A view holding the outcome of the ingestion of a batch of prices.
+ */
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+public class IngestPricesView {
+
+    /**
+     * The number of prices ingested.
+     */
+    private Integer count;
+
+    /**
+     * The version of the price data holding them.
+     */
+    private Long version;
+}
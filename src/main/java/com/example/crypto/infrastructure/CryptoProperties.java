@@ -0,0 +1,160 @@
+package com.example.crypto.infrastructure;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * The application's own settings, bound from the {@code crypto.*} properties.
+ */
+@Getter
+@ConfigurationProperties(prefix = "crypto")
+public class CryptoProperties {
+
+    private final Data data = new Data();
+
+    private final Store store = new Store();
+
+    private final Ingest ingest = new Ingest();
+
+    private final Snapshot snapshot = new Snapshot();
+
+    private final Scheduler scheduler = new Scheduler();
+
+    private final Cache cache = new Cache();
+
+    private final Coalescing coalescing = new Coalescing();
+
+    private final Http http = new Http();
+
+    @Getter
+    @Setter
+    public static class Data {
+
+        /**
+         * A directory of {@code <SYMBOL>_values.csv} price files to load and watch for changes. When not set, the price
+         * files of the classpath are loaded once.
+         */
+        private Path directory;
+    }
+
+    @Getter
+    @Setter
+    public static class Store {
+
+        /**
+         * A directory of binary price files to memory-map. When not set, the csv price files are loaded onto the heap.
+         */
+        private Path binaryDirectory;
+    }
+
+    @Getter
+    @Setter
+    public static class Ingest {
+
+        /**
+         * The write-ahead log of the ingested prices, replayed on startup. When not set, the ingested prices are kept
+         * in memory only, and lost on restart. With a snapshot file, the log is compacted after every snapshot.
+         */
+        private Path walFile;
+
+        /**
+         * Whether every ingested batch is forced to disk before being acknowledged. When disabled, a crash of the host
+         * may lose the batches acknowledged since the operating system last wrote the log back.
+         */
+        private boolean sync = true;
+
+        /**
+         * The number of cryptos the store can hold, the ones of the price files included. A batch of prices which
+         * would add cryptos beyond it is rejected, and only the cryptos within it are tagged in the metrics.
+         */
+        private int maxSymbols = 1_000;
+    }
+
+    @Getter
+    @Setter
+    public static class Snapshot {
+
+        /**
+         * The binary snapshot of the csv price store, restored on startup instead of parsing the price files again,
+         * and written on shutdown. When not set, the store is always loaded from its price files.
+         */
+        private Path file;
+
+        /**
+         * The time between two snapshots, on top of the one written on shutdown. When not set, the snapshot is only
+         * written on shutdown.
+         */
+        private Duration interval;
+    }
+
+    @Getter
+    @Setter
+    public static class Scheduler {
+
+        /**
+         * The number of threads running the repository reads, off the request threads.
+         */
+        private int threads = Runtime.getRuntime().availableProcessors();
+
+        /**
+         * The number of reads which can wait for a thread. Any read beyond them is rejected.
+         */
+        private int queueCapacity = 1024;
+    }
+
+    @Getter
+    @Setter
+    public static class Cache {
+
+        /**
+         * Whether the results of the service operations are cached until the price data changes.
+         */
+        private boolean enabled = true;
+
+        /**
+         * The number of results to keep, the ones least likely to be reused being evicted first.
+         */
+        private long maxEntries = 10_000;
+
+        /**
+         * The heap the results can use. When set, the cache is bounded by memory instead of by its number of results.
+         */
+        private DataSize maxMemory;
+
+        /**
+         * The time a result is kept after being computed, even if the price data did not change.
+         */
+        private Duration expireAfterWrite = Duration.ofMinutes(5);
+    }
+
+    @Getter
+    @Setter
+    public static class Coalescing {
+
+        /**
+         * Whether the concurrent callers of the same service operation share a single computation of its result.
+         */
+        private boolean enabled = true;
+    }
+
+    @Getter
+    @Setter
+    public static class Http {
+
+        /**
+         * Whether the GET responses carry an ETag derived from the version of the price data, a matching conditional
+         * request being answered with a 304 without being computed.
+         */
+        private boolean conditionalResponses = true;
+
+        /**
+         * The Cache-Control header of the conditional responses. The default lets the clients and the edge caches
+         * keep the responses, but revalidate them on every use.
+         */
+        private String cacheControl = "no-cache";
+    }
+}
@@ -1,25 +1,180 @@
 package com.example.crypto.infrastructure;
 
 import com.example.crypto.infrastructure.json.JsonConfiguration;
+import com.example.crypto.infrastructure.metrics.CryptoPriceStoreMetrics;
 import com.example.crypto.infrastructure.persistence.CryptoDocumentRepository;
 import com.example.crypto.infrastructure.persistence.CryptoDocumentRepositoryImpl;
+import com.example.crypto.infrastructure.persistence.CryptoPriceFileWatcher;
+import com.example.crypto.infrastructure.persistence.CryptoPriceSnapshot;
+import com.example.crypto.infrastructure.persistence.CryptoPriceSnapshotter;
+import com.example.crypto.infrastructure.persistence.CryptoPriceStore;
+import com.example.crypto.infrastructure.persistence.CryptoPriceWriteAheadLog;
+import com.example.crypto.infrastructure.persistence.CryptoSymbolRegistry;
+import com.example.crypto.infrastructure.persistence.MeteredCryptoDocumentRepository;
 import com.example.crypto.infrastructure.util.FileCryptoReader;
+import com.example.crypto.infrastructure.web.ConditionalResponseWebFilter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
 
 @Configuration
 @Import({JacksonAutoConfiguration.class, JsonConfiguration.class})
+@EnableConfigurationProperties(CryptoProperties.class)
 public class InfrastructureConfiguration {
 
+    public static final String CRYPTO_SCHEDULER = "crypto-io";
+
+    public static final String CRYPTOS_PATH = "/cryptos/";
+
+    @Bean
+    public FileCryptoReader fileCryptoReader(MeterRegistry meterRegistry) {
+        return new FileCryptoReader(FileCryptoReader.DEFAULT_CHUNK_SIZE, meterRegistry);
+    }
+
+    @Bean
+    public CryptoSymbolRegistry cryptoSymbolRegistry(CryptoProperties cryptoProperties) {
+        return new CryptoSymbolRegistry(cryptoProperties.getIngest().getMaxSymbols());
+    }
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(prefix = "crypto.data", name = "directory")
+    public CryptoPriceFileWatcher cryptoPriceFileWatcher(CryptoProperties cryptoProperties,
+                                                         FileCryptoReader fileCryptoReader,
+                                                         CryptoSymbolRegistry cryptoSymbolRegistry) {
+        return new CryptoPriceFileWatcher(cryptoProperties.getData().getDirectory(), fileCryptoReader, cryptoSymbolRegistry);
+    }
+
+    @Bean(destroyMethod = "close")
+    public CryptoPriceWriteAheadLog cryptoPriceWriteAheadLog(CryptoProperties cryptoProperties) throws IOException {
+
+        CryptoProperties.Ingest settings = cryptoProperties.getIngest();
+
+        return settings.getWalFile() != null
+                ? CryptoPriceWriteAheadLog.open(settings.getWalFile(), settings.isSync())
+                : CryptoPriceWriteAheadLog.disabled();
+    }
+
+    @Bean
+    public CryptoPriceStore cryptoPriceStore(CryptoProperties cryptoProperties,
+                                             FileCryptoReader fileCryptoReader,
+                                             CryptoSymbolRegistry cryptoSymbolRegistry,
+                                             CryptoPriceWriteAheadLog cryptoPriceWriteAheadLog,
+                                             ObjectProvider<CryptoPriceFileWatcher> cryptoPriceFileWatcher) {
+
+        CryptoPriceStore store;
+        CryptoPriceFileWatcher watcher = cryptoPriceFileWatcher.getIfAvailable();
+        Path binaryDirectory = cryptoProperties.getStore().getBinaryDirectory();
+
+        // the binary price files are mapped in place, so only the csv stores are restored from a snapshot
+        long start = System.nanoTime();
+        CryptoPriceSnapshot snapshot = binaryDirectory == null
+                ? CryptoPriceSnapshotter.readIfPresent(cryptoProperties.getSnapshot().getFile())
+                : null;
+        if (watcher != null) {
+            store = watcher.load(snapshot);
+        } else if (binaryDirectory != null) {
+            store = CryptoPriceStore.map(binaryDirectory, cryptoSymbolRegistry);
+        } else if (snapshot != null) {
+            store = CryptoPriceStore.restore(snapshot, fileCryptoReader, cryptoSymbolRegistry,
+                    System.nanoTime() - start);
+        } else {
+            store = CryptoPriceStore.load(fileCryptoReader, cryptoSymbolRegistry);
+        }
+
+        // the prices ingested before the last shutdown, or since the snapshot : the log was compacted up to it
+        try {
+            cryptoPriceWriteAheadLog.replay(snapshot != null ? snapshot.walSequence() : 0, store::ingestAll);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return store;
+    }
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnExpression("'${crypto.snapshot.file:}' != '' && '${crypto.store.binary-directory:}' == ''")
+    public CryptoPriceSnapshotter cryptoPriceSnapshotter(CryptoProperties cryptoProperties,
+                                                         FileCryptoReader fileCryptoReader,
+                                                         CryptoPriceStore cryptoPriceStore,
+                                                         CryptoPriceWriteAheadLog cryptoPriceWriteAheadLog,
+                                                         ObjectProvider<CryptoPriceFileWatcher> cryptoPriceFileWatcher) {
+
+        // the classpath price files are only loaded on startup, so their checksums are computed once
+        CryptoPriceFileWatcher watcher = cryptoPriceFileWatcher.getIfAvailable();
+        Map<String, CryptoPriceSnapshot.Source> sources = watcher == null
+                ? fileCryptoReader.listPriceFileSources()
+                : null;
+        Supplier<CryptoPriceSnapshot> snapshots = watcher != null
+                ? () -> watcher.snapshot(cryptoPriceWriteAheadLog)
+                : () -> CryptoPriceSnapshot.of(cryptoPriceStore, cryptoPriceWriteAheadLog, sources);
+
+        CryptoProperties.Snapshot settings = cryptoProperties.getSnapshot();
+        return new CryptoPriceSnapshotter(settings.getFile(), cryptoPriceStore, cryptoPriceWriteAheadLog, snapshots,
+                settings.getInterval());
+    }
+
     @Bean
-    public FileCryptoReader fileCryptoReader() {
-        return new FileCryptoReader();
+    public CryptoPriceStoreMetrics cryptoPriceStoreMetrics(CryptoPriceStore cryptoPriceStore) {
+        return new CryptoPriceStoreMetrics(cryptoPriceStore);
+    }
+
+    /**
+     * The conditional responses of the price queries : their ETag changes with the version of the price data, so that
+     * the clients polling them only get a 304 until the data changes.
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "crypto.http", name = "conditional-responses", matchIfMissing = true)
+    public ConditionalResponseWebFilter conditionalResponseWebFilter(CryptoProperties cryptoProperties,
+                                                                     CryptoPriceStore cryptoPriceStore) {
+        String cacheControl = cryptoProperties.getHttp().getCacheControl();
+
+        return new ConditionalResponseWebFilter(CRYPTOS_PATH, cryptoPriceStore::getDataVersion,
+                cacheControl != null && !cacheControl.isBlank() ? cacheControl : null);
+    }
+
+    /**
+     * The bounded scheduler running the repository reads. Its executor is exported through the {@code executor.*}
+     * metrics tagged {@code name=crypto-io} : queued tasks, active threads, and the time tasks wait in the queue
+     * ({@code executor.idle}).
+     */
+    @Bean(destroyMethod = "dispose")
+    public Scheduler cryptoScheduler(CryptoProperties cryptoProperties, MeterRegistry meterRegistry) {
+
+        CryptoProperties.Scheduler settings = cryptoProperties.getScheduler();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(settings.getThreads(), settings.getThreads(),
+                0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(settings.getQueueCapacity()),
+                new CustomizableThreadFactory(CRYPTO_SCHEDULER + "-"));
+
+        return Schedulers.fromExecutorService(
+                ExecutorServiceMetrics.monitor(meterRegistry, executor, CRYPTO_SCHEDULER), CRYPTO_SCHEDULER);
     }
 
     @Bean
-    public CryptoDocumentRepository cryptoDocumentRepository(FileCryptoReader fileCryptoReader) {
-        return new CryptoDocumentRepositoryImpl(fileCryptoReader);
+    public CryptoDocumentRepository cryptoDocumentRepository(CryptoPriceStore cryptoPriceStore,
+                                                             CryptoPriceWriteAheadLog cryptoPriceWriteAheadLog,
+                                                             Scheduler cryptoScheduler,
+                                                             MeterRegistry meterRegistry) {
+        return new MeteredCryptoDocumentRepository(
+                new CryptoDocumentRepositoryImpl(cryptoPriceStore, cryptoPriceWriteAheadLog, cryptoScheduler),
+                cryptoPriceStore.getSymbolRegistry(), meterRegistry);
     }
 }
@@ -0,0 +1,45 @@
+package com.example.crypto.infrastructure.metrics;
+
+import com.example.crypto.infrastructure.persistence.CryptoPriceStore;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.BaseUnits;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.util.concurrent.TimeUnit;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Exposes the load time, the data version and the resident size of the {@link CryptoPriceStore} through the actuator metrics.
+ */
+@RequiredArgsConstructor
+public class CryptoPriceStoreMetrics implements MeterBinder {
+
+    private final CryptoPriceStore cryptoPriceStore;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+
+        TimeGauge.builder("crypto.store.load.time", cryptoPriceStore, TimeUnit.NANOSECONDS, CryptoPriceStore::getLoadTimeNanos)
+                .description("Time spent loading the price files into the store")
+                .register(registry);
+
+        Gauge.builder("crypto.store.rows", cryptoPriceStore, CryptoPriceStore::getRowCount)
+                .description("Number of prices held in the store")
+                .register(registry);
+
+        Gauge.builder("crypto.store.version", cryptoPriceStore, store -> store.getDataVersion().version())
+                .description("Version of the data held in the store, incremented on every change")
+                .register(registry);
+
+        Gauge.builder("crypto.store.size", cryptoPriceStore, CryptoPriceStore::getSizeInBytes)
+                .description("Heap used by the price columns held in the store")
+                .baseUnit(BaseUnits.BYTES)
+                .register(registry);
+
+        Gauge.builder("crypto.store.mapped.size", cryptoPriceStore, CryptoPriceStore::getMappedSizeInBytes)
+                .description("Size of the price columns memory-mapped outside the heap")
+                .baseUnit(BaseUnits.BYTES)
+                .register(registry);
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.crypto.infrastructure.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import java.util.concurrent.atomic.AtomicReference;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+/**
+ * Times reactive operations, from their subscription to their termination, into percentile-enabled timers tagged with
+ * the outcome of each operation : {@code SUCCESS}, {@code ERROR} with the simple name of the exception, or
+ * {@code CANCELLED}.
+ */
+public final class ReactiveTimers {
+
+    private ReactiveTimers() {
+    }
+
+    /**
+     * Times every subscription to a Mono.
+     *
+     * @param registry The registry of the timer.
+     * @param name     The name of the timer.
+     * @param tags     The tags of the operation.
+     * @param source   The timed Mono.
+     * @return The Mono, timed
+     */
+    public static <T> Mono<T> timed(MeterRegistry registry, String name, Tags tags, Mono<T> source) {
+        return Mono.defer(() -> {
+            Timer.Sample sample = Timer.start(registry);
+            AtomicReference<Throwable> error = new AtomicReference<>();
+
+            return source.doOnError(error::set)
+                    .doFinally(signal -> stop(registry, name, tags, sample, signal, error.get()));
+        });
+    }
+
+    /**
+     * Times every subscription to a Flux.
+     *
+     * @param registry The registry of the timer.
+     * @param name     The name of the timer.
+     * @param tags     The tags of the operation.
+     * @param source   The timed Flux.
+     * @return The Flux, timed
+     */
+    public static <T> Flux<T> timed(MeterRegistry registry, String name, Tags tags, Flux<T> source) {
+        return Flux.defer(() -> {
+            Timer.Sample sample = Timer.start(registry);
+            AtomicReference<Throwable> error = new AtomicReference<>();
+
+            return source.doOnError(error::set)
+                    .doFinally(signal -> stop(registry, name, tags, sample, signal, error.get()));
+        });
+    }
+
+    private static void stop(MeterRegistry registry, String name, Tags tags, Timer.Sample sample, SignalType signal,
+                             Throwable error) {
+
+        String outcome = signal == SignalType.CANCEL ? "CANCELLED" : error != null ? "ERROR" : "SUCCESS";
+
+        sample.stop(Timer.builder(name)
+                .tags(tags)
+                .tag("outcome", outcome)
+                .tag("exception", error != null ? error.getClass().getSimpleName() : "none")
+                .publishPercentileHistogram()
+                .register(registry));
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.crypto.infrastructure.persistence;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The binary columnar file format of a crypto's prices. A file is made of :
+ * <ul>
+ *     <li>a fixed header of {@value #HEADER_SIZE} bytes : the magic number, the format version, the row count, the
+ *     symbol's length and the symbol's UTF-8 bytes, zero padded,</li>
+ *     <li>the timestamp column : one epoch milliseconds long per row, sorted,</li>
+ *     <li>the price column : one double per row.</li>
+ * </ul>
+ * All the values are little-endian, and both columns start on an 8-byte boundary, so that they can be mapped and read
+ * in place. Since every column is mapped on its own, a file holds up to {@link Integer#MAX_VALUE} / 8 rows.
+ */
+public final class BinaryPriceFile {
+
+    public static final String EXTENSION = ".prices";
+
+    static final int MAGIC = 0x43525950;
+
+    static final int VERSION = 1;
+
+    static final int HEADER_SIZE = 64;
+
+    private static final int MAX_SYMBOL_LENGTH = HEADER_SIZE - 20;
+
+    private static final int MAX_ROWS = Integer.MAX_VALUE / Long.BYTES;
+
+    private static final int WRITE_BUFFER_SIZE = 1 << 16;
+
+    private BinaryPriceFile() {
+    }
+
+    /**
+     * Writes the given series to a binary price file, replacing any existing one.
+     *
+     * @param file   The file to write.
+     * @param series The price series.
+     * @throws IOException If the file cannot be written
+     */
+    public static void write(Path file, CryptoPriceSeries series) throws IOException {
+
+        byte[] symbol = series.getSymbol().getBytes(StandardCharsets.UTF_8);
+        if (symbol.length > MAX_SYMBOL_LENGTH) {
+            throw new IllegalArgumentException("Symbol is too long: " + series.getSymbol());
+        }
+
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+
+            ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(MAGIC)
+                    .putInt(VERSION)
+                    .putLong(series.size())
+                    .putInt(symbol.length)
+                    .put(symbol)
+                    .position(HEADER_SIZE);
+
+            for (int i = 0; i < series.size(); i++) {
+                if (buffer.remaining() < Long.BYTES) {
+                    flush(channel, buffer);
+                }
+                buffer.putLong(series.timestampAt(i));
+            }
+            for (int i = 0; i < series.size(); i++) {
+                if (buffer.remaining() < Double.BYTES) {
+                    flush(channel, buffer);
+                }
+                buffer.putDouble(series.priceAt(i));
+            }
+            flush(channel, buffer);
+        }
+    }
+
+    /**
+     * Memory-maps a binary price file. The mapping stays valid after the method returns and is released once the
+     * series is garbage collected.
+     *
+     * @param file The file to map.
+     * @return A CryptoPriceSeries reading its columns from the file
+     * @throws IOException If the file cannot be read or is not a valid price file
+     */
+    public static CryptoPriceSeries map(Path file) throws IOException {
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // keep reading until the header is complete
+            }
+            header.flip();
+
+            if (header.remaining() < HEADER_SIZE || header.getInt() != MAGIC) {
+                throw new IOException("Not a binary price file: " + file);
+            }
+            int version = header.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported binary price file version " + version + ": " + file);
+            }
+            long rows = header.getLong();
+            int symbolLength = header.getInt();
+            if (rows < 0 || rows > MAX_ROWS || symbolLength < 0 || symbolLength > MAX_SYMBOL_LENGTH
+                    || channel.size() < HEADER_SIZE + rows * (Long.BYTES + Double.BYTES)) {
+                throw new IOException("Corrupted binary price file: " + file);
+            }
+            byte[] symbol = new byte[symbolLength];
+            header.get(symbol);
+
+            long columnSize = rows * Long.BYTES;
+            return new MappedCryptoPriceSeries(new String(symbol, StandardCharsets.UTF_8),
+                    channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE, columnSize)
+                            .order(ByteOrder.LITTLE_ENDIAN)
+                            .asLongBuffer(),
+                    channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE + columnSize, columnSize)
+                            .order(ByteOrder.LITTLE_ENDIAN)
+                            .asDoubleBuffer());
+        }
+    }
+
+    private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
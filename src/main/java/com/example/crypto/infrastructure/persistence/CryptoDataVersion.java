@@ -0,0 +1,14 @@
+package com.example.crypto.infrastructure.persistence;
+
+import java.time.Instant;
+
+/**
+ * A record that identifies the data held by the {@link CryptoPriceStore} : the version is incremented on every
+ * change, which happened at lastModified.
+ */
+public record CryptoDataVersion(long version, Instant lastModified) {
+
+    CryptoDataVersion next() {
+        return new CryptoDataVersion(version + 1, Instant.now());
+    }
+}
@@ -1,7 +1,10 @@
 package com.example.crypto.infrastructure.persistence;
 
+import java.time.Duration;
 import java.time.LocalDate;
+import java.util.List;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 public interface CryptoDocumentRepository {
 
@@ -24,6 +27,72 @@ public interface CryptoDocumentRepository {
      */
     Flux<CryptoPriceDocument> findBySymbolAndDateRange(String symbol, LocalDate dateFrom, LocalDate dateTo);
 
+    /**
+     * Summarizes the {@link CryptoPriceDocument}s matching the given symbol and dates, without reading them.
+     *
+     * @param symbol     The crypto symbol to search for.
+     * @param dateFrom   The starting date to search for.
+     * @param dateTo     The end date to search for.
+     * @return A Mono of {@link CryptoPriceBounds}, empty if no prices match
+     */
+    Mono<CryptoPriceBounds> findBoundsBySymbolAndDateRange(String symbol, LocalDate dateFrom, LocalDate dateTo);
+
+    /**
+     * Summarizes the {@link CryptoPriceDocument}s of a crypto matching the given dates over a window sliding by the
+     * given step, in a single pass over the prices. The windows holding no prices are skipped.
+     *
+     * @param symbol     The crypto symbol to search for.
+     * @param dateFrom   The starting date to search for.
+     * @param dateTo     The end date to search for.
+     * @param window     The duration of the window.
+     * @param step       The duration between two windows.
+     * @return A Flux of {@link CryptoPriceRollingBounds}, ordered by window
+     */
+    Flux<CryptoPriceRollingBounds> findRollingBoundsBySymbolAndDateRange(String symbol, LocalDate dateFrom,
+                                                                         LocalDate dateTo, Duration window,
+                                                                         Duration step);
+
+    /**
+     * Summarizes the {@link CryptoPriceDocument}s of the given cryptos over each of the given time windows. The series
+     * of a crypto is looked up once and all the windows are summarized from it, the cryptos being summarized in
+     * parallel, so the rows are emitted in no particular order.
+     *
+     * @param symbols    The crypto symbols to search for.
+     * @param windows    The time windows to search for.
+     * @return A Flux of {@link CryptoPriceWindowBounds}, without the windows having no prices
+     */
+    Flux<CryptoPriceWindowBounds> findBoundsBySymbolsAndTimeWindows(List<String> symbols, List<TimeRange> windows);
+
+    /**
+     * Summarizes the {@link CryptoPriceDocument}s of every crypto matching the given dates, one row per crypto. The
+     * cryptos are summarized in parallel, so the rows are emitted in no particular order.
+     *
+     * @param dateFrom   The starting date to search for.
+     * @param dateTo     The end date to search for.
+     * @return A Flux of {@link CryptoPriceBounds}, without the cryptos having no prices in the range
+     */
+    Flux<CryptoPriceBounds> findAllBoundsByDateRange(LocalDate dateFrom, LocalDate dateTo);
+
+    /**
+     * Summarizes the {@link CryptoPriceDocument}s of every crypto matching the given dates, one row per crypto and
+     * day, ordered by crypto and then by day.
+     *
+     * @param dateFrom   The starting date to search for.
+     * @param dateTo     The end date to search for.
+     * @return A Flux of {@link CryptoPriceBounds}
+     */
+    Flux<CryptoPriceBounds> findDailyBoundsByDateRange(LocalDate dateFrom, LocalDate dateTo);
+
+    /**
+     * Saves the given {@link CryptoPriceDocument}s, appending them to the prices of their cryptos. The documents are
+     * made durable before being published, all at once.
+     *
+     * @param documents  The documents to save, in any order.
+     * @return A Mono of the {@link CryptoDataVersion} holding them, or a ValidationException if some of them are older
+     * than the memory-mapped prices of their crypto
+     */
+    Mono<CryptoDataVersion> saveAll(List<CryptoPriceDocument> documents);
+
     /**
      * Retrieves all {@link CryptoPriceDocument}s for the given day.
      *
@@ -1,85 +1,177 @@
 package com.example.crypto.infrastructure.persistence;
 
-import com.example.crypto.infrastructure.util.FileCryptoReader;
-import java.sql.Timestamp;
+import com.example.crypto.infrastructure.exception.ValidationException;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDate;
-import java.time.LocalDateTime;
-import java.time.LocalTime;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.function.Predicate;
-import java.util.stream.Stream;
+import java.util.Map;
+import java.util.Optional;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Repository;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
 
+/**
+ * Reads the prices of the {@link CryptoPriceStore}. Every read is deferred to subscription and runs on the given
+ * scheduler, never on the request threads : the memory-mapped series may have to fault their pages in from disk.
+ * <p>
+ * The writes are logged to the {@link CryptoPriceWriteAheadLog} before being appended to the store. They wait for the
+ * disk, so they run on the bounded elastic scheduler rather than on the one of the reads.
+ */
 @Repository
 @RequiredArgsConstructor
 public class CryptoDocumentRepositoryImpl implements CryptoDocumentRepository {
 
-    private final FileCryptoReader fileCryptoReader;
+    private final CryptoPriceStore cryptoPriceStore;
+
+    private final CryptoPriceWriteAheadLog writeAheadLog;
+
+    private final Scheduler cryptoScheduler;
 
     @Override
     public Flux<CryptoPriceDocument> findAllByDateRange(LocalDate dateFrom, LocalDate dateTo) {
 
-        List<CryptoPriceDocument> allPrices = Stream.of(CryptoEnum.values())
-                .map(crypto -> fileCryptoReader.extractCryptoValuesFromCsv(crypto.getFilePath()))
-                .flatMap(List::stream)
-                .filter(createDateFilters(dateFrom, dateTo).stream().reduce(x -> true, Predicate::and))
-                .toList();
+        TimeRange range = TimeRange.of(dateFrom, dateTo);
 
-        return Flux.fromIterable(allPrices);
+        return Flux.defer(() -> Flux.fromIterable(cryptoPriceStore.getAllSeries()))
+                .concatMap(series -> slice(series, range))
+                .subscribeOn(cryptoScheduler);
     }
 
     @Override
     public Flux<CryptoPriceDocument> findBySymbolAndDateRange(String symbol, LocalDate dateFrom, LocalDate dateTo) {
 
-        return Flux.fromIterable(
-                fileCryptoReader.extractCryptoValuesFromCsv(CryptoEnum.valueOf(symbol).getFilePath())
-                        .stream()
-                        .filter(createDateFilters(dateFrom, dateTo).stream().reduce(x -> true, Predicate::and))
-                        .toList());
+        return Flux.defer(() -> slice(cryptoPriceStore.getSeries(symbol), TimeRange.of(dateFrom, dateTo)))
+                .subscribeOn(cryptoScheduler);
     }
 
     @Override
-    public Flux<CryptoPriceDocument> findAllByDate(LocalDate day) {
+    public Mono<CryptoPriceBounds> findBoundsBySymbolAndDateRange(String symbol, LocalDate dateFrom, LocalDate dateTo) {
+
+        return Mono.fromSupplier(() -> cryptoPriceStore.getSeries(symbol).boundsOf(TimeRange.of(dateFrom, dateTo)))
+                .flatMap(Mono::justOrEmpty)
+                .subscribeOn(cryptoScheduler);
+    }
+
+    @Override
+    public Flux<CryptoPriceRollingBounds> findRollingBoundsBySymbolAndDateRange(String symbol, LocalDate dateFrom,
+                                                                                LocalDate dateTo, Duration window,
+                                                                                Duration step) {
+
+        TimeRange range = TimeRange.of(dateFrom, dateTo);
+
+        // the windows are summarized lazily, as they are requested
+        return Flux.defer(() -> Flux.fromIterable(() -> new RollingMinMax(
+                        cryptoPriceStore.getSeries(symbol), range, window.toMillis(), step.toMillis())))
+                .subscribeOn(cryptoScheduler);
+    }
+
+    @Override
+    public Flux<CryptoPriceWindowBounds> findBoundsBySymbolsAndTimeWindows(List<String> symbols,
+                                                                           List<TimeRange> windows) {
+
+        return Flux.fromIterable(symbols)
+                .parallel()
+                .runOn(cryptoScheduler)
+                .flatMapIterable(symbol -> windowBoundsOf(cryptoPriceStore.getSeries(symbol), windows))
+                .sequential();
+    }
+
+    @Override
+    public Flux<CryptoPriceBounds> findAllBoundsByDateRange(LocalDate dateFrom, LocalDate dateTo) {
+
+        TimeRange range = TimeRange.of(dateFrom, dateTo);
+
+        // the series are spread over the rails of the scheduler, each one summarized from its rollups and index
+        return Flux.defer(() -> Flux.fromIterable(cryptoPriceStore.getAllSeries()))
+                .parallel()
+                .runOn(cryptoScheduler)
+                .map(series -> series.boundsOf(range))
+                .filter(Optional::isPresent)
+                .map(Optional::get)
+                .sequential();
+    }
 
-        LocalDateTime localDateTime = day.atStartOfDay();
-        Timestamp dayStart = Timestamp.valueOf(localDateTime.with(LocalTime.MIN));
-        Timestamp dayEnd = Timestamp.valueOf(localDateTime.with(LocalTime.MAX));
-        List<Predicate<CryptoPriceDocument>> allPredicates = new ArrayList<>();
-        allPredicates.add(t -> t.timestamp().compareTo(dayStart) >= 0);
-        allPredicates.add(t -> t.timestamp().compareTo(dayEnd) <= 0);
+    @Override
+    public Flux<CryptoPriceBounds> findDailyBoundsByDateRange(LocalDate dateFrom, LocalDate dateTo) {
+
+        TimeRange range = TimeRange.of(dateFrom, dateTo);
+
+        return Flux.defer(() -> Flux.fromIterable(cryptoPriceStore.getAllSeries()))
+                .concatMapIterable(series -> series.dailyBoundsOf(range))
+                .subscribeOn(cryptoScheduler);
+    }
+
+    @Override
+    public Mono<CryptoDataVersion> saveAll(List<CryptoPriceDocument> documents) {
 
-        List<CryptoPriceDocument> allPrices = Stream.of(CryptoEnum.values())
-                .map(crypto -> fileCryptoReader.extractCryptoValuesFromCsv(crypto.getFilePath()))
-                .flatMap(List::stream)
-                .filter(allPredicates.stream().reduce(x -> true, Predicate::and))
-                .toList();
+        return Mono.fromCallable(() -> {
+                    Map<String, PriceColumns> batch = new LinkedHashMap<>();
+                    for (CryptoPriceDocument document : documents) {
+                        batch.computeIfAbsent(document.symbol(), symbol -> new PriceColumns())
+                                .add(document.timestamp().getTime(), document.price());
+                    }
+                    // the mapped history of a crypto is never rewritten, only followed by the ingested prices
+                    for (Map.Entry<String, PriceColumns> prices : batch.entrySet()) {
+                        long appendableFrom = cryptoPriceStore.getSeries(prices.getKey()).getAppendableFrom();
+                        if (prices.getValue().since(appendableFrom).size() < prices.getValue().size()) {
+                            throw new ValidationException("Prices of " + prices.getKey() + " older than "
+                                    + Instant.ofEpochMilli(appendableFrom) + " cannot be ingested");
+                        }
+                    }
 
-        return Flux.fromIterable(allPrices);
+                    writeAheadLog.append(batch, () -> cryptoPriceStore.ingestAll(batch));
+                    return cryptoPriceStore.getDataVersion();
+                })
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    @Override
+    public Flux<CryptoPriceDocument> findAllByDate(LocalDate day) {
+
+        TimeRange range = TimeRange.ofDay(day);
+
+        return Flux.defer(() -> Flux.fromIterable(cryptoPriceStore.getAllSeries()))
+                .concatMap(series -> slice(series, range))
+                .subscribeOn(cryptoScheduler);
     }
 
     /**
-     * Creates date filters.
+     * Summarizes a series over each of the given windows.
      *
-     * @param dateFrom   The starting date to search for.
-     * @param dateTo     The end date to search for.
-     * @return A list of predicates.
+     * @param series  The price series.
+     * @param windows The time windows.
+     * @return The summaries of the windows having prices, in window order
      */
-    private List<Predicate<CryptoPriceDocument>> createDateFilters(LocalDate dateFrom, LocalDate dateTo)  {
+    private List<CryptoPriceWindowBounds> windowBoundsOf(CryptoPriceSeries series, List<TimeRange> windows) {
 
-        List<Predicate<CryptoPriceDocument>> allPredicates = new ArrayList<>();
-        if (dateFrom != null) {
-            Timestamp from = Timestamp.valueOf(dateFrom.atStartOfDay());
-            allPredicates.add(t -> t.timestamp().compareTo(from) >= 0);
-        }
-        if (dateTo != null) {
-            LocalDateTime localDateTime = dateTo.atStartOfDay();
-            Timestamp to = Timestamp.valueOf(localDateTime.with(LocalTime.MAX));
-            allPredicates.add(t -> t.timestamp().compareTo(to) <= 0);
+        List<CryptoPriceWindowBounds> bounds = new ArrayList<>(windows.size());
+        for (int window = 0; window < windows.size(); window++) {
+            int index = window;
+            series.boundsOf(windows.get(window))
+                    .ifPresent(windowBounds -> bounds.add(new CryptoPriceWindowBounds(index, windowBounds)));
         }
+        return bounds;
+    }
+
+    /**
+     * Emits the documents of a series falling inside the given range.
+     *
+     * @param series The price series.
+     * @param range  The time range.
+     * @return A Flux of {@link CryptoPriceDocument}
+     */
+    private Flux<CryptoPriceDocument> slice(CryptoPriceSeries series, TimeRange range) {
+
+        int start = series.startOf(range);
+        int end = series.endOf(range);
 
-        return allPredicates;
+        return Flux.range(start, Math.max(0, end - start))
+                .map(series::documentAt);
     }
 }
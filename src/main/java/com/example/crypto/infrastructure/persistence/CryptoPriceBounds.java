@@ -0,0 +1,25 @@
+package com.example.crypto.infrastructure.persistence;
+
+/**
+ * A record that summarizes the prices of a crypto over a time range : its first and last ticks, its min and max price
+ * and the number of ticks.
+ */
+public record CryptoPriceBounds(
+        String symbol,
+        long firstTimestamp,
+        long lastTimestamp,
+        double firstPrice,
+        double lastPrice,
+        double minPrice,
+        double maxPrice,
+        long count) {
+
+    /**
+     * Calculates the normalized range of the prices, i.e. (max-min)/min.
+     *
+     * @return The normalized range
+     */
+    public double normalizedRange() {
+        return (maxPrice - minPrice) / minPrice;
+    }
+}
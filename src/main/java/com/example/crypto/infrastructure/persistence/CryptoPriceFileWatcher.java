@@ -0,0 +1,346 @@
+package com.example.crypto.infrastructure.persistence;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import com.example.crypto.infrastructure.exception.FileNotFoundException;
+import com.example.crypto.infrastructure.util.CsvPriceParser;
+import com.example.crypto.infrastructure.util.FileCryptoReader;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinTask;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Loads the {@code <SYMBOL>_values.csv} price files of a data directory into a {@link CryptoPriceStore}, then keeps
+ * the store in sync with the directory :
+ * <ul>
+ *     <li>rows appended to a file are read from the end of the last complete line read, and appended to its series;</li>
+ *     <li>a new, replaced or truncated file, or a file rewritten in place, is read again as a whole;</li>
+ *     <li>a deleted file removes its series.</li>
+ * </ul>
+ * The prices ingested into a crypto are kept by the store apart from its file, and merged again into the series of a
+ * file read again, so that they survive a rewrite or a deletion of the file.
+ * A file is deemed rewritten when the last line read from it changed, so that a rewrite is told from an append without
+ * reading the whole file again. A line is only read once its new line has been written. Every change is applied to the
+ * store as a new data version. When the events of the directory overflow, all its files are checked again.
+ */
+@Slf4j
+public class CryptoPriceFileWatcher implements Closeable {
+
+    private static final int CHECKSUM_BUFFER_SIZE = 64 * 1024;
+
+    private final Path directory;
+
+    private final FileCryptoReader fileCryptoReader;
+
+    private final CryptoSymbolRegistry symbolRegistry;
+
+    /**
+     * How far every file was read.
+     */
+    private final Map<Path, ReadMark> marks = new ConcurrentHashMap<>();
+
+    private WatchService watchService;
+
+    private CryptoPriceStore cryptoPriceStore;
+
+    public CryptoPriceFileWatcher(Path directory, FileCryptoReader fileCryptoReader, CryptoSymbolRegistry symbolRegistry) {
+        this.directory = directory;
+        this.fileCryptoReader = fileCryptoReader;
+        this.symbolRegistry = symbolRegistry;
+    }
+
+    /**
+     * Loads all the price files of the directory, registering their symbols, then starts watching it.
+     *
+     * @return The CryptoPriceStore kept in sync with the directory
+     */
+    public CryptoPriceStore load() {
+        return load(null);
+    }
+
+    /**
+     * Restores the series of a snapshot of the directory, then starts watching it. Only the rows appended to a file
+     * since the snapshot are read; a file which no longer starts with the bytes the snapshot was read from, or which
+     * is not part of the snapshot, is read as a whole, and the series of a file deleted since the snapshot is dropped,
+     * the ingested prices of the cryptos being merged into them again. The series which do not come from a file are
+     * kept.
+     *
+     * @param snapshot A snapshot taken by {@link #snapshot(CryptoPriceWriteAheadLog)}, or null to load every file.
+     * @return The CryptoPriceStore kept in sync with the directory
+     */
+    public synchronized CryptoPriceStore load(CryptoPriceSnapshot snapshot) {
+        if (cryptoPriceStore != null) {
+            return cryptoPriceStore;
+        }
+
+        long start = System.nanoTime();
+        try {
+            // the directory is registered first, so that no change made while loading is missed
+            watchService = directory.getFileSystem().newWatchService();
+            directory.register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+
+            // the series of the snapshot which do not come from a file are kept as is
+            Map<String, CryptoPriceSeries> restored = new LinkedHashMap<>();
+            Map<String, CryptoPriceSnapshot.Source> restoredSources = snapshot != null ? snapshot.sources() : Map.of();
+            Map<String, CryptoPriceSeries> ingested = snapshot != null ? snapshot.ingestedBySymbol() : Map.of();
+            if (snapshot != null) {
+                snapshot.series().forEach(series -> restored.put(series.getSymbol(), series));
+            }
+
+            List<ForkJoinTask<CryptoPriceSeries>> tasks = new ArrayList<>();
+            for (Path csvFile : listPriceFiles()) {
+                String symbol = symbolOf(csvFile);
+                CryptoPriceSeries series = restored.remove(symbol);
+                CryptoPriceSnapshot.Source source = restoredSources.get(csvFile.getFileName().toString());
+                tasks.add(ForkJoinTask.adapt(() -> {
+                    CRC32C prefixChecksum = series != null && source != null ? prefixChecksumOf(csvFile, source) : null;
+                    return prefixChecksum != null
+                            ? series.append(readFrom(csvFile, source.length(), prefixChecksum))
+                            : CryptoPriceStore.withIngested(CryptoPriceSeries.of(symbol,
+                                    readFrom(csvFile, 0, new CRC32C())), ingested.get(symbol));
+                }));
+            }
+            // and the ones of the files deleted since the snapshot are left with their ingested prices
+            for (String csvFile : restoredSources.keySet()) {
+                restored.computeIfPresent(FileCryptoReader.symbolOf(csvFile), (symbol, series) -> ingested.get(symbol));
+            }
+
+            List<CryptoPriceSeries> series = new ArrayList<>(CryptoPriceStore.collect(tasks));
+            series.addAll(restored.values());
+            cryptoPriceStore = new CryptoPriceStore(symbolRegistry, series,
+                    snapshot != null ? snapshot.ingested() : List.of(), System.nanoTime() - start);
+        }
+        catch (IOException e) {
+            throw new FileNotFoundException();
+        }
+
+        Thread thread = new Thread(this::watch, "crypto-price-file-watcher");
+        thread.setDaemon(true);
+        thread.start();
+
+        return cryptoPriceStore;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (watchService != null) {
+            watchService.close();
+        }
+    }
+
+    /**
+     * Takes a snapshot of the store along with the position read up to in every file and the checksum of the bytes
+     * before it, while no change of the directory is being applied.
+     *
+     * @param writeAheadLog The write-ahead log the store is fed from.
+     * @return A CryptoPriceSnapshot
+     */
+    public synchronized CryptoPriceSnapshot snapshot(CryptoPriceWriteAheadLog writeAheadLog) {
+        Map<String, CryptoPriceSnapshot.Source> sources = new TreeMap<>();
+        marks.forEach((csvFile, mark) -> sources.put(csvFile.getFileName().toString(),
+                new CryptoPriceSnapshot.Source(mark.offset(), (int) mark.prefixChecksum().getValue())));
+
+        return CryptoPriceSnapshot.of(cryptoPriceStore, writeAheadLog, sources);
+    }
+
+    private void watch() {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == OVERFLOW) {
+                        refreshAll();
+                    } else {
+                        Path csvFile = directory.resolve((Path) event.context());
+                        if (FileCryptoReader.symbolOf(csvFile) != null) {
+                            refresh(csvFile, event.kind() == ENTRY_CREATE);
+                        }
+                    }
+                }
+                key.reset();
+            }
+        }
+        catch (ClosedWatchServiceException | InterruptedException e) {
+            // the watcher is closed
+        }
+    }
+
+    /**
+     * Applies the changes of all the price files, e.g. once some of their events were lost : every file of the
+     * directory is refreshed, and the series of the files no longer in it are removed.
+     */
+    synchronized void refreshAll() {
+        List<Path> csvFiles;
+        try {
+            csvFiles = listPriceFiles();
+        }
+        catch (IOException | UncheckedIOException e) {
+            // the files are refreshed on their next event, or on the next overflow
+            log.warn("Could not list {}", directory, e);
+            return;
+        }
+
+        Set<Path> deleted = new HashSet<>(marks.keySet());
+        csvFiles.forEach(deleted::remove);
+        deleted.forEach(csvFile -> refresh(csvFile, false));
+        csvFiles.forEach(csvFile -> refresh(csvFile, false));
+    }
+
+    /**
+     * Applies the changes of a price file to the store.
+     *
+     * @param csvFile The price file.
+     * @param created true if the file was created or replaced, in which case it is read again as a whole.
+     */
+    synchronized void refresh(Path csvFile, boolean created) {
+        String symbol = symbolOf(csvFile);
+        try {
+            if (!Files.exists(csvFile)) {
+                marks.remove(csvFile);
+                cryptoPriceStore.remove(symbol);
+                return;
+            }
+
+            ReadMark mark = marks.get(csvFile);
+            if (created || mark == null || !mark.isPrefixOf(csvFile)) {
+                cryptoPriceStore.put(CryptoPriceSeries.of(symbol, readFrom(csvFile, 0, new CRC32C())));
+            } else {
+                PriceColumns appended = readFrom(csvFile, mark.offset(), mark.prefixChecksum());
+                if (appended.size() > 0) {
+                    cryptoPriceStore.append(symbol, appended);
+                }
+            }
+        }
+        catch (IOException | RuntimeException e) {
+            // most likely a file still being written : it will be read again on its next change
+            log.warn("Could not read {}", csvFile, e);
+        }
+    }
+
+    /**
+     * Registers the symbol of a price file.
+     *
+     * @return The interned crypto symbol
+     */
+    private String symbolOf(Path csvFile) {
+        return symbolRegistry.symbolOf(symbolRegistry.register(FileCryptoReader.symbolOf(csvFile)));
+    }
+
+    /**
+     * Reads the complete lines of a price file, from the given position, and moves its mark past them.
+     *
+     * @param prefixChecksum The CRC32C of the bytes preceding the position, which the lines read are added to.
+     */
+    private PriceColumns readFrom(Path csvFile, long from, CRC32C prefixChecksum) throws IOException {
+        try {
+            ReadMark mark;
+            try (FileChannel channel = FileChannel.open(csvFile)) {
+                long to = CsvPriceParser.lastLineEnd(channel, from, channel.size());
+                mark = ReadMark.of(channel, to, checksum(prefixChecksum, channel, from, to));
+            }
+
+            PriceColumns columns = fileCryptoReader.readPriceColumns(csvFile, from, mark.offset());
+            marks.put(csvFile, mark);
+            return columns;
+        }
+        catch (IOException | RuntimeException e) {
+            // the checksum may already hold some of the lines, so the file is read as a whole next time
+            marks.remove(csvFile);
+            throw e;
+        }
+    }
+
+    /**
+     * Checks whether a price file still starts with the bytes a snapshot was read from.
+     *
+     * @return The CRC32C of those bytes, or null if the file changed
+     */
+    private static CRC32C prefixChecksumOf(Path csvFile, CryptoPriceSnapshot.Source source) throws IOException {
+        try (FileChannel channel = FileChannel.open(csvFile)) {
+            if (channel.size() < source.length()) {
+                return null;
+            }
+            CRC32C crc = checksum(new CRC32C(), channel, 0, source.length());
+            return (int) crc.getValue() == source.checksum() ? crc : null;
+        }
+    }
+
+    /**
+     * Adds the given bytes of a file to a checksum.
+     *
+     * @return The checksum
+     */
+    private static CRC32C checksum(CRC32C crc, FileChannel channel, long from, long to) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(to - from, CHECKSUM_BUFFER_SIZE));
+        for (long position = from; position < to; ) {
+            buffer.clear().limit((int) Math.min(buffer.capacity(), to - position));
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new EOFException("The price file ended before " + to);
+            }
+            crc.update(buffer.flip());
+            position += read;
+        }
+        return crc;
+    }
+
+    private List<Path> listPriceFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                    .filter(file -> FileCryptoReader.symbolOf(file) != null)
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    /**
+     * How far a price file was read : the position following the last complete line read, the length and the CRC32C of
+     * that line, and the running CRC32C of all the bytes read, which the next lines read are added to.
+     */
+    private record ReadMark(long offset, int lastLineLength, int lastLineChecksum, CRC32C prefixChecksum) {
+
+        static ReadMark of(FileChannel channel, long offset, CRC32C prefixChecksum) throws IOException {
+            long lastLineStart = offset > 0 ? CsvPriceParser.lastLineEnd(channel, 0, offset - 1) : 0;
+            int length = (int) (offset - lastLineStart);
+            return new ReadMark(offset, length, lastLineChecksumOf(channel, lastLineStart, length), prefixChecksum);
+        }
+
+        /**
+         * Tells whether the given file still starts with the lines read, i.e. whether it was only appended to since.
+         */
+        boolean isPrefixOf(Path csvFile) throws IOException {
+            try (FileChannel channel = FileChannel.open(csvFile)) {
+                return channel.size() >= offset
+                        && lastLineChecksumOf(channel, offset - lastLineLength, lastLineLength) == lastLineChecksum;
+            }
+        }
+
+        private static int lastLineChecksumOf(FileChannel channel, long position, int length) throws IOException {
+            return (int) checksum(new CRC32C(), channel, position, position + length).getValue();
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.crypto.infrastructure.persistence;
+
+/**
+ * A record that represents the summary of the prices of a crypto over a rolling window, identified by its end.
+ */
+public record CryptoPriceRollingBounds(
+        long windowEnd,
+        CryptoPriceBounds bounds) {
+}
@@ -0,0 +1,238 @@
+package com.example.crypto.infrastructure.persistence;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * The prices of a single crypto, kept sorted by timestamp in two primitive columns, so that a time range is located
+ * with two binary searches and read as a contiguous slice. The columns live either on the heap
+ * ({@link HeapCryptoPriceSeries}) or in a memory-mapped file ({@link MappedCryptoPriceSeries}); in both cases the
+ * series carries its daily rollups.
+ */
+public abstract class CryptoPriceSeries {
+
+    private final String symbol;
+
+    private final DailyRollups dailyRollups;
+
+    CryptoPriceSeries(String symbol, DailyRollups dailyRollups) {
+        this.symbol = symbol;
+        this.dailyRollups = dailyRollups;
+    }
+
+    /**
+     * Creates the heap series of the given crypto from its documents, in any order.
+     *
+     * @param symbol     The crypto symbol.
+     * @param documents  The crypto's prices.
+     * @return A CryptoPriceSeries
+     */
+    public static CryptoPriceSeries of(String symbol, List<CryptoPriceDocument> documents) {
+        return of(symbol, PriceColumns.of(documents));
+    }
+
+    /**
+     * Creates the heap series of the given crypto from its parsed columns, in any order. The series takes ownership of
+     * the columns.
+     *
+     * @param symbol   The crypto symbol.
+     * @param columns  The crypto's prices.
+     * @return A CryptoPriceSeries
+     */
+    public static CryptoPriceSeries of(String symbol, PriceColumns columns) {
+        return HeapCryptoPriceSeries.fromColumns(symbol, columns);
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    public abstract int size();
+
+    public abstract long timestampAt(int index);
+
+    public abstract double priceAt(int index);
+
+    /**
+     * Creates the document of the given position.
+     *
+     * @param index The position in the series.
+     * @return A CryptoPriceDocument
+     */
+    public CryptoPriceDocument documentAt(int index) {
+        return new CryptoPriceDocument(new Timestamp(timestampAt(index)), symbol, priceAt(index));
+    }
+
+    /**
+     * Finds the first position whose timestamp is greater or equal to the given one.
+     *
+     * @param timestamp The epoch milliseconds to search for.
+     * @return A position between 0 and size, inclusive
+     */
+    public int lowerBound(long timestamp) {
+        int low = 0;
+        int high = size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (timestampAt(mid) < timestamp) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Finds the first position inside the given range.
+     *
+     * @param range The time range.
+     * @return A position between 0 and size, inclusive
+     */
+    public int startOf(TimeRange range) {
+        return lowerBound(range.fromInclusive());
+    }
+
+    /**
+     * Finds the first position after the given range.
+     *
+     * @param range The time range.
+     * @return A position between 0 and size, inclusive
+     */
+    public int endOf(TimeRange range) {
+        return lowerBound(range.toExclusive());
+    }
+
+    /**
+     * Summarizes the prices falling inside the given range, without reading the slice.
+     *
+     * @param range The time range.
+     * @return The CryptoPriceBounds of the range, or empty if there are no prices in it
+     */
+    public Optional<CryptoPriceBounds> boundsOf(TimeRange range) {
+        return boundsOf(startOf(range), endOf(range));
+    }
+
+    /**
+     * Summarizes the prices of the given slice. Days lying entirely inside the slice are read from the daily rollups
+     * and only the partial days at its edges are scanned.
+     *
+     * @param from The first position, inclusive.
+     * @param to   The last position, exclusive.
+     * @return The CryptoPriceBounds of the slice, or empty if the slice is empty
+     */
+    public Optional<CryptoPriceBounds> boundsOf(int from, int to) {
+        if (from >= to) {
+            return Optional.empty();
+        }
+
+        PriceAggregator aggregator = new PriceAggregator();
+        for (int day = dailyRollups.dayOf(from), lastDay = dailyRollups.dayOf(to - 1); day <= lastDay; day++) {
+            int dayStart = dailyRollups.firstIndexOf(day);
+            int dayEnd = dailyRollups.endIndexOf(day);
+
+            if (dayStart >= from && dayEnd <= to) {
+                aggregator.accept(dailyRollups.rowAt(day));
+            } else {
+                aggregate(aggregator, Math.max(dayStart, from), Math.min(dayEnd, to));
+            }
+        }
+
+        return Optional.of(aggregator.toBounds(symbol));
+    }
+
+    /**
+     * Summarizes the prices falling inside the given range day by day. Days lying entirely inside the range are read
+     * from the daily rollups; only the partial days at its edges, if any, are summarized from the raw prices.
+     *
+     * @param range The time range.
+     * @return A list of CryptoPriceBounds, one per day holding prices in the range
+     */
+    public List<CryptoPriceBounds> dailyBoundsOf(TimeRange range) {
+
+        int start = startOf(range);
+        int end = endOf(range);
+        if (start >= end) {
+            return List.of();
+        }
+
+        int firstDay = dailyRollups.dayOf(start);
+        int lastDay = dailyRollups.dayOf(end - 1);
+
+        List<CryptoPriceBounds> dailyBounds = new ArrayList<>(lastDay - firstDay + 1);
+        for (int day = firstDay; day <= lastDay; day++) {
+            int dayStart = dailyRollups.firstIndexOf(day);
+            int dayEnd = dailyRollups.endIndexOf(day);
+
+            if (dayStart >= start && dayEnd <= end) {
+                dailyBounds.add(dailyRollups.rowAt(day));
+            } else {
+                boundsOf(Math.max(dayStart, start), Math.min(dayEnd, end)).ifPresent(dailyBounds::add);
+            }
+        }
+
+        return dailyBounds;
+    }
+
+    /**
+     * Appends the given prices to the series. The series itself is left untouched, so that the reads in progress keep
+     * a consistent view of it.
+     *
+     * @param columns The prices to append, in any order, none older than {@link #getAppendableFrom()}. The new series
+     *                takes ownership of them.
+     * @return A new CryptoPriceSeries holding the prices of both
+     */
+    public CryptoPriceSeries append(PriceColumns columns) {
+        PriceColumns merged = new PriceColumns(size() + columns.size());
+        for (int i = 0; i < size(); i++) {
+            merged.add(timestampAt(i), priceAt(i));
+        }
+        for (int i = 0; i < columns.size(); i++) {
+            merged.add(columns.timestampAt(i), columns.priceAt(i));
+        }
+        return of(symbol, merged);
+    }
+
+    /**
+     * Tells the oldest timestamp which can still be appended to the series. The prices older than it are dropped by
+     * {@link #append(PriceColumns)}.
+     *
+     * @return The epoch milliseconds, or Long.MIN_VALUE if any price can be appended
+     */
+    public long getAppendableFrom() {
+        return Long.MIN_VALUE;
+    }
+
+    DailyRollups getDailyRollups() {
+        return dailyRollups;
+    }
+
+    /**
+     * Calculates the heap used by the series' columns and indexes.
+     *
+     * @return The size in bytes
+     */
+    public long getSizeInBytes() {
+        return dailyRollups.getSizeInBytes();
+    }
+
+    /**
+     * Calculates the size of the series' memory-mapped columns, outside the heap.
+     *
+     * @return The size in bytes
+     */
+    public long getMappedSizeInBytes() {
+        return 0;
+    }
+
+    /**
+     * Folds the raw prices of the given slice into the aggregator.
+     *
+     * @param aggregator The aggregator.
+     * @param from       The first position, inclusive.
+     * @param to         The last position, exclusive.
+     */
+    abstract void aggregate(PriceAggregator aggregator, int from, int to);
+}
@@ -0,0 +1,428 @@
+package com.example.crypto.infrastructure.persistence;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinTask;
+import java.util.zip.CRC32C;
+
+/**
+ * A point-in-time copy of the series of a {@link CryptoPriceStore}, written to a single binary file so that a restart
+ * restores the store without parsing its price files nor aggregating their daily rollups again.
+ * <p>
+ * Along with the series, a snapshot records where it stands in the sources of the store : the sequence number of the
+ * last {@link CryptoPriceWriteAheadLog} batch it holds, and how far every price file it was loaded from was read,
+ * along with the checksum of the bytes read, so that only the newer data has to be replayed on top of it and a file
+ * rewritten since is told apart from one that was only appended to. The prices ingested into the cryptos are written
+ * apart as well, so that they are merged again into the series of a file read again on restore.
+ * <p>
+ * The file is made of :
+ * <ul>
+ *     <li>the magic number, the format version and the length of the header,</li>
+ *     <li>the header : the WAL sequence, the creation time, the time zone of the daily rollups, the sources and the
+ *     number of series and of ingested series, followed by its CRC32C,</li>
+ *     <li>one block per series : the length and the CRC32C of its payload, then the payload itself, i.e. the symbol,
+ *     the row count, the day count, the timestamp column, the price column and the daily rollups. The blocks of the
+ *     ingested series follow the ones of the series.</li>
+ * </ul>
+ * All the values are little-endian. A snapshot is written to a temporary file, forced to disk and then moved over the
+ * previous one, so that a crash never leaves a partial snapshot behind.
+ *
+ * @param series      The series of the store.
+ * @param ingested    The series of the prices ingested into the store, apart from its price files.
+ * @param sources     How far every price file the series were loaded from was read, by name.
+ * @param walSequence The sequence number of the last batch of the write-ahead log held by the series.
+ * @param createdAt   The time the snapshot was taken.
+ */
+public record CryptoPriceSnapshot(
+        List<CryptoPriceSeries> series,
+        List<CryptoPriceSeries> ingested,
+        Map<String, CryptoPriceSnapshot.Source> sources,
+        long walSequence,
+        Instant createdAt) {
+
+    static final int MAGIC = 0x43534e50; // "CSNP"
+
+    static final int FORMAT_VERSION = 3;
+
+    // the length and the checksum of a block's payload
+    private static final int BLOCK_HEADER_SIZE = Long.BYTES + Integer.BYTES;
+
+    // the first tick, the last tick, the first, last, min and max prices and the count of a day
+    private static final int ROLLUP_SIZE = Integer.BYTES + 2 * Long.BYTES + 4 * Double.BYTES + Long.BYTES;
+
+    private static final int MAX_ROWS = Integer.MAX_VALUE / Long.BYTES;
+
+    private static final int WRITE_BUFFER_SIZE = 1 << 16;
+
+    /**
+     * Takes a snapshot of the given store. The series are read while no batch of the write-ahead log is being
+     * published, so that they hold exactly the batches up to the recorded sequence number.
+     *
+     * @param store         The store.
+     * @param writeAheadLog The write-ahead log the store is fed from.
+     * @param sources       How far every price file the series were loaded from was read, by name.
+     * @return A CryptoPriceSnapshot
+     */
+    public static CryptoPriceSnapshot of(CryptoPriceStore store, CryptoPriceWriteAheadLog writeAheadLog,
+                                         Map<String, Source> sources) {
+
+        List<CryptoPriceSeries> series = new ArrayList<>();
+        List<CryptoPriceSeries> ingested = new ArrayList<>();
+        long[] walSequence = new long[1];
+        writeAheadLog.whilePublished(sequence -> {
+            series.addAll(store.getAllSeries());
+            ingested.addAll(store.getIngestedSeries());
+            walSequence[0] = sequence;
+        });
+
+        return new CryptoPriceSnapshot(series, ingested, Collections.unmodifiableMap(new TreeMap<>(sources)),
+                walSequence[0], Instant.now());
+    }
+
+    /**
+     * Writes the snapshot to the given file, replacing any existing one once it is complete.
+     *
+     * @param file The file to write.
+     * @throws IOException If the file cannot be written
+     */
+    public void write(Path file) throws IOException {
+
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+
+            ByteBuffer header = encodeHeader();
+            ByteBuffer prefix = ByteBuffer.allocate(3 * Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN)
+                    .putInt(MAGIC)
+                    .putInt(FORMAT_VERSION)
+                    .putInt(header.remaining())
+                    .flip();
+            writeFully(channel, prefix);
+            writeFully(channel, header);
+
+            ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            for (CryptoPriceSeries oneSeries : series) {
+                writeBlock(channel, buffer, oneSeries);
+            }
+            for (CryptoPriceSeries oneSeries : ingested) {
+                writeBlock(channel, buffer, oneSeries);
+            }
+            channel.force(true);
+        }
+
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Reads a snapshot, decoding its series in parallel. The series are restored onto the heap; their daily rollups
+     * are aggregated again only if the snapshot was taken in another time zone.
+     *
+     * @param file The file to read.
+     * @return A CryptoPriceSnapshot
+     * @throws IOException If the file cannot be read, or is not a valid snapshot
+     */
+    public static CryptoPriceSnapshot read(Path file) throws IOException {
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+
+            long size = channel.size();
+            ByteBuffer prefix = readFully(channel, 0, 3 * Integer.BYTES, size, file);
+            if (prefix.getInt() != MAGIC) {
+                throw new IOException("Not a price snapshot: " + file);
+            }
+            int version = prefix.getInt();
+            if (version != FORMAT_VERSION) {
+                throw new IOException("Unsupported price snapshot version " + version + ": " + file);
+            }
+            int headerLength = prefix.getInt();
+            if (headerLength < Integer.BYTES) {
+                throw new IOException("Corrupted price snapshot: " + file);
+            }
+
+            long position = prefix.capacity();
+            ByteBuffer header = readFully(channel, position, headerLength, size, file);
+            position += headerLength;
+            CRC32C crc = new CRC32C();
+            crc.update(header.duplicate().limit(headerLength - Integer.BYTES));
+            if ((int) crc.getValue() != header.getInt(headerLength - Integer.BYTES)) {
+                throw new IOException("Corrupted price snapshot header: " + file);
+            }
+
+            long walSequence = header.getLong();
+            Instant createdAt = Instant.ofEpochMilli(header.getLong());
+            boolean sameZone = ZoneId.systemDefault().getId().equals(getString(header));
+            Map<String, Source> sources = new TreeMap<>();
+            for (int i = header.getInt(); i > 0; i--) {
+                String source = getString(header);
+                sources.put(source, new Source(header.getLong(), header.getInt()));
+            }
+            int seriesCount = header.getInt();
+            int ingestedCount = header.getInt();
+            if (seriesCount < 0 || ingestedCount < 0) {
+                throw new IOException("Corrupted price snapshot: " + file);
+            }
+
+            // the blocks are located first, then decoded and checked in parallel
+            List<ForkJoinTask<CryptoPriceSeries>> tasks = new ArrayList<>(seriesCount + ingestedCount);
+            for (int i = 0; i < seriesCount + ingestedCount; i++) {
+                ByteBuffer blockHeader = readFully(channel, position, BLOCK_HEADER_SIZE, size, file);
+                long length = blockHeader.getLong();
+                int checksum = blockHeader.getInt();
+                long start = position + BLOCK_HEADER_SIZE;
+                if (length < 0 || length > size - start) {
+                    throw new IOException("Corrupted price snapshot: " + file);
+                }
+                tasks.add(ForkJoinTask.adapt(() -> readBlock(channel, start, length, checksum, sameZone, file)));
+                position = start + length;
+            }
+            if (position != size) {
+                throw new IOException("Corrupted price snapshot: " + file);
+            }
+
+            List<CryptoPriceSeries> blocks;
+            try {
+                blocks = CryptoPriceStore.collect(tasks);
+            }
+            catch (RuntimeException e) {
+                // the failure of a block is wrapped, and may be wrapped again when rethrown in another thread
+                for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
+                    if (cause instanceof IOException ioException) {
+                        throw ioException;
+                    }
+                }
+                throw e;
+            }
+
+            return new CryptoPriceSnapshot(blocks.subList(0, seriesCount), blocks.subList(seriesCount, blocks.size()),
+                    Collections.unmodifiableMap(sources), walSequence, createdAt);
+        }
+    }
+
+    /**
+     * Counts the rows of all the series.
+     *
+     * @return The row count
+     */
+    public long rowCount() {
+        return series.stream().mapToLong(CryptoPriceSeries::size).sum();
+    }
+
+    /**
+     * Indexes the series of the ingested prices by symbol.
+     *
+     * @return The series of the ingested prices, by crypto symbol
+     */
+    public Map<String, CryptoPriceSeries> ingestedBySymbol() {
+        Map<String, CryptoPriceSeries> ingestedBySymbol = new HashMap<>();
+        ingested.forEach(series -> ingestedBySymbol.put(series.getSymbol(), series));
+        return ingestedBySymbol;
+    }
+
+    private ByteBuffer encodeHeader() {
+        byte[] zone = ZoneId.systemDefault().getId().getBytes(StandardCharsets.UTF_8);
+        List<byte[]> names = sources.keySet().stream().map(name -> name.getBytes(StandardCharsets.UTF_8)).toList();
+
+        int size = 2 * Long.BYTES + Integer.BYTES + zone.length + Integer.BYTES + 3 * Integer.BYTES;
+        for (byte[] name : names) {
+            size += Integer.BYTES + name.length + Long.BYTES + Integer.BYTES;
+        }
+
+        ByteBuffer header = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN)
+                .putLong(walSequence)
+                .putLong(createdAt.toEpochMilli())
+                .putInt(zone.length)
+                .put(zone)
+                .putInt(names.size());
+        int i = 0;
+        for (Source source : sources.values()) {
+            header.putInt(names.get(i).length).put(names.get(i++)).putLong(source.length()).putInt(source.checksum());
+        }
+        header.putInt(series.size()).putInt(ingested.size());
+
+        CRC32C crc = new CRC32C();
+        crc.update(header.duplicate().flip());
+        return header.putInt((int) crc.getValue()).flip();
+    }
+
+    private static void writeBlock(FileChannel channel, ByteBuffer buffer, CryptoPriceSeries series)
+            throws IOException {
+
+        byte[] symbol = series.getSymbol().getBytes(StandardCharsets.UTF_8);
+        DailyRollups dailyRollups = series.getDailyRollups();
+        int rows = series.size();
+        int days = dailyRollups.size();
+        long length = Integer.BYTES + symbol.length + 2 * Integer.BYTES
+                + (long) rows * (Long.BYTES + Double.BYTES) + (long) days * ROLLUP_SIZE;
+
+        // the checksum is only known once the payload is written
+        long blockStart = channel.position();
+        channel.position(blockStart + BLOCK_HEADER_SIZE);
+
+        CRC32C crc = new CRC32C();
+        buffer.clear();
+        buffer.putInt(symbol.length).put(symbol).putInt(rows).putInt(days);
+        for (int i = 0; i < rows; i++) {
+            if (buffer.remaining() < Long.BYTES) {
+                flush(channel, buffer, crc);
+            }
+            buffer.putLong(series.timestampAt(i));
+        }
+        for (int i = 0; i < rows; i++) {
+            if (buffer.remaining() < Double.BYTES) {
+                flush(channel, buffer, crc);
+            }
+            buffer.putDouble(series.priceAt(i));
+        }
+        for (int day = 0; day < days; day++) {
+            if (buffer.remaining() < ROLLUP_SIZE) {
+                flush(channel, buffer, crc);
+            }
+            CryptoPriceBounds bounds = dailyRollups.rowAt(day);
+            buffer.putInt(dailyRollups.firstIndexOf(day))
+                    .putLong(bounds.firstTimestamp())
+                    .putLong(bounds.lastTimestamp())
+                    .putDouble(bounds.firstPrice())
+                    .putDouble(bounds.lastPrice())
+                    .putDouble(bounds.minPrice())
+                    .putDouble(bounds.maxPrice())
+                    .putLong(bounds.count());
+        }
+        flush(channel, buffer, crc);
+        long blockEnd = channel.position();
+
+        ByteBuffer blockHeader = ByteBuffer.allocate(BLOCK_HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN)
+                .putLong(length)
+                .putInt((int) crc.getValue())
+                .flip();
+        while (blockHeader.hasRemaining()) {
+            channel.write(blockHeader, blockStart + blockHeader.position());
+        }
+        channel.position(blockEnd);
+    }
+
+    private static CryptoPriceSeries readBlock(FileChannel channel, long start, long length, int checksum,
+                                               boolean sameZone, Path file) throws IOException {
+
+        long end = start + length;
+        ByteBuffer symbolLength = readFully(channel, start, Integer.BYTES, end, file);
+        int symbolSize = symbolLength.getInt();
+        if (symbolSize < 0 || symbolSize > length - 3 * Integer.BYTES) {
+            throw new IOException("Corrupted price snapshot: " + file);
+        }
+        ByteBuffer symbolAndCounts = readFully(channel, start + Integer.BYTES, symbolSize + 2 * Integer.BYTES, end,
+                file);
+        byte[] symbolBytes = new byte[symbolSize];
+        symbolAndCounts.get(symbolBytes);
+        int rows = symbolAndCounts.getInt();
+        int days = symbolAndCounts.getInt();
+
+        long columnsStart = start + Integer.BYTES + symbolSize + 2 * Integer.BYTES;
+        long columnSize = (long) rows * Long.BYTES;
+        if (rows < 0 || rows > MAX_ROWS || days < 0 || days > rows
+                || columnsStart + 2 * columnSize + (long) days * ROLLUP_SIZE != end) {
+            throw new IOException("Corrupted price snapshot: " + file);
+        }
+
+        ByteBuffer timestampColumn = map(channel, columnsStart, columnSize);
+        ByteBuffer priceColumn = map(channel, columnsStart + columnSize, columnSize);
+        ByteBuffer rollups = map(channel, columnsStart + 2 * columnSize, (long) days * ROLLUP_SIZE);
+
+        CRC32C crc = new CRC32C();
+        crc.update(symbolLength.rewind());
+        crc.update(symbolAndCounts.rewind());
+        crc.update(timestampColumn.duplicate());
+        crc.update(priceColumn.duplicate());
+        crc.update(rollups.duplicate());
+        if ((int) crc.getValue() != checksum) {
+            throw new IOException("Corrupted price snapshot block at " + start + ": " + file);
+        }
+
+        String symbol = new String(symbolBytes, StandardCharsets.UTF_8);
+        long[] timestamps = new long[rows];
+        double[] prices = new double[rows];
+        timestampColumn.asLongBuffer().get(timestamps);
+        priceColumn.asDoubleBuffer().get(prices);
+
+        if (!sameZone) {
+            return HeapCryptoPriceSeries.restore(symbol, timestamps, prices,
+                    DailyRollups.of(symbol, LongBuffer.wrap(timestamps), DoubleBuffer.wrap(prices), rows));
+        }
+
+        int[] firstIndexes = new int[days];
+        CryptoPriceBounds[] bounds = new CryptoPriceBounds[days];
+        for (int day = 0; day < days; day++) {
+            firstIndexes[day] = rollups.getInt();
+            bounds[day] = new CryptoPriceBounds(symbol, rollups.getLong(), rollups.getLong(), rollups.getDouble(),
+                    rollups.getDouble(), rollups.getDouble(), rollups.getDouble(), rollups.getLong());
+        }
+        return HeapCryptoPriceSeries.restore(symbol, timestamps, prices,
+                DailyRollups.restore(firstIndexes, bounds, rows));
+    }
+
+    private static ByteBuffer map(FileChannel channel, long position, long size) throws IOException {
+        return channel.map(FileChannel.MapMode.READ_ONLY, position, size).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void flush(FileChannel channel, ByteBuffer buffer, CRC32C crc) throws IOException {
+        buffer.flip();
+        crc.update(buffer.duplicate());
+        writeFully(channel, buffer);
+        buffer.clear();
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * Reads the given bytes, failing if the file, or the given end, comes before them.
+     */
+    private static ByteBuffer readFully(FileChannel channel, long position, int length, long end, Path file)
+            throws IOException {
+
+        if (length < 0 || position + length > end) {
+            throw new IOException("Corrupted price snapshot: " + file);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Corrupted price snapshot: " + file);
+            }
+        }
+        return buffer.flip();
+    }
+
+    /**
+     * How far a price file was read.
+     *
+     * @param length   The number of bytes read from the start of the file.
+     * @param checksum The CRC32C of those bytes.
+     */
+    public record Source(long length, int checksum) {
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.crypto.infrastructure.persistence;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Writes the {@link CryptoPriceSnapshot}s of a {@link CryptoPriceStore} to a file, on a fixed schedule and once more
+ * when closed, i.e. on a graceful shutdown. A snapshot is only written if the data changed since the last one.
+ * <p>
+ * The {@link CryptoPriceWriteAheadLog} is compacted after every snapshot, dropping the batches the snapshot holds.
+ */
+@Slf4j
+public class CryptoPriceSnapshotter implements Closeable {
+
+    private final Path file;
+
+    private final CryptoPriceStore cryptoPriceStore;
+
+    private final CryptoPriceWriteAheadLog writeAheadLog;
+
+    private final Supplier<CryptoPriceSnapshot> snapshots;
+
+    private final ScheduledExecutorService executor;
+
+    private CryptoDataVersion writtenVersion;
+
+    /**
+     * Starts taking snapshots.
+     *
+     * @param file             The snapshot file.
+     * @param cryptoPriceStore The store.
+     * @param writeAheadLog    The write-ahead log the store is fed from.
+     * @param snapshots        Takes the snapshots of the store.
+     * @param interval         The time between two snapshots, or null to take one on close only.
+     */
+    public CryptoPriceSnapshotter(Path file, CryptoPriceStore cryptoPriceStore, CryptoPriceWriteAheadLog writeAheadLog,
+                                  Supplier<CryptoPriceSnapshot> snapshots, Duration interval) {
+        this.file = file;
+        this.cryptoPriceStore = cryptoPriceStore;
+        this.writeAheadLog = writeAheadLog;
+        this.snapshots = snapshots;
+
+        if (interval != null) {
+            executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "crypto-price-snapshotter");
+                thread.setDaemon(true);
+                return thread;
+            });
+            executor.scheduleWithFixedDelay(this::snapshotQuietly, interval.toMillis(), interval.toMillis(),
+                    TimeUnit.MILLISECONDS);
+        } else {
+            executor = null;
+        }
+    }
+
+    /**
+     * Reads the snapshot of the given file, if any. A snapshot which cannot be read is never skipped, as it may hold
+     * ingested prices which the write-ahead log dropped since.
+     *
+     * @param file The snapshot file, or null.
+     * @return The CryptoPriceSnapshot, or null if there is none
+     * @throws UncheckedIOException If the file exists but cannot be read
+     */
+    public static CryptoPriceSnapshot readIfPresent(Path file) {
+        if (file == null || !Files.exists(file)) {
+            return null;
+        }
+
+        long start = System.nanoTime();
+        try {
+            CryptoPriceSnapshot snapshot = CryptoPriceSnapshot.read(file);
+            log.info("Read the snapshot {} of {} cryptos and {} prices, taken at {}, in {} ms", file,
+                    snapshot.series().size(), snapshot.rowCount(), snapshot.createdAt(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            return snapshot;
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException("Could not read the snapshot " + file
+                    + ", which may hold ingested prices that the write-ahead log dropped", e);
+        }
+    }
+
+    /**
+     * Writes a snapshot of the store, unless the data did not change since the last one, then compacts the
+     * write-ahead log.
+     *
+     * @return true if a snapshot was written
+     * @throws IOException If the snapshot cannot be written, or the log cannot be compacted
+     */
+    public synchronized boolean snapshot() throws IOException {
+        // read before the snapshot is taken, so that a change made meanwhile is written by the next one
+        CryptoDataVersion version = cryptoPriceStore.getDataVersion();
+        if (version.equals(writtenVersion)) {
+            return false;
+        }
+
+        long start = System.nanoTime();
+        CryptoPriceSnapshot snapshot = snapshots.get();
+        snapshot.write(file);
+        writtenVersion = version;
+
+        log.info("Wrote the snapshot {} of {} cryptos and {} prices in {} ms", file, snapshot.series().size(),
+                snapshot.rowCount(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+
+        // the snapshot is on disk, so that the batches it holds are no longer needed
+        long dropped = writeAheadLog.compact(snapshot.walSequence());
+        if (dropped > 0) {
+            log.info("Dropped the {} bytes of the write-ahead log {} held by the snapshot", dropped,
+                    writeAheadLog.getFile());
+        }
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+        snapshot();
+    }
+
+    private void snapshotQuietly() {
+        try {
+            snapshot();
+        }
+        catch (IOException | RuntimeException e) {
+            log.error("Could not write the snapshot {}", file, e);
+        }
+    }
+}
@@ -0,0 +1,389 @@
+package com.example.crypto.infrastructure.persistence;
+
+import com.example.crypto.infrastructure.exception.FileNotFoundException;
+import com.example.crypto.infrastructure.util.FileCryptoReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinTask;
+import java.util.stream.Stream;
+
+/**
+ * An in-memory store holding the prices of every supported crypto. It is loaded once at startup and shared by all the
+ * repository calls, so that no request has to read or parse the price files again. The prices are either parsed from
+ * the csv files onto the heap, or memory-mapped from {@link BinaryPriceFile}s.
+ * <p>
+ * The series are kept in an array indexed by the dense ids of the {@link CryptoSymbolRegistry}, held in an immutable
+ * snapshot which the writers replace as a whole : a reader always sees a consistent version of the data, and never
+ * waits for a writer.
+ * <p>
+ * The prices ingested into a crypto are appended to its series, and kept apart in a series of their own as well : when
+ * the price file of the crypto is read again, they are merged into its new series, so that a file reload never drops
+ * them. The ingested prices are therefore held twice in memory.
+ */
+public class CryptoPriceStore {
+
+    private final CryptoSymbolRegistry symbolRegistry;
+
+    private volatile Snapshot snapshot;
+
+    private final long loadTimeNanos;
+
+    CryptoPriceStore(CryptoSymbolRegistry symbolRegistry, List<CryptoPriceSeries> series, long loadTimeNanos) {
+        this(symbolRegistry, series, List.of(), loadTimeNanos);
+    }
+
+    /**
+     * Creates a store of the given series.
+     *
+     * @param symbolRegistry The registry of the crypto symbols.
+     * @param series         The series of the cryptos, holding their ingested prices.
+     * @param ingested       The series of the prices ingested into the cryptos, apart from their price files.
+     * @param loadTimeNanos  The time spent loading the series.
+     */
+    CryptoPriceStore(CryptoSymbolRegistry symbolRegistry, List<CryptoPriceSeries> series,
+                     List<CryptoPriceSeries> ingested, long loadTimeNanos) {
+        // the symbols are registered first, so that the arrays are sized once and filled in place
+        series.forEach(oneSeries -> symbolRegistry.register(oneSeries.getSymbol()));
+        ingested.forEach(oneSeries -> symbolRegistry.register(oneSeries.getSymbol()));
+        CryptoPriceSeries[] seriesById = new CryptoPriceSeries[symbolRegistry.size()];
+        for (CryptoPriceSeries oneSeries : series) {
+            seriesById[symbolRegistry.idOf(oneSeries.getSymbol())] = oneSeries;
+        }
+        CryptoPriceSeries[] ingestedById = new CryptoPriceSeries[symbolRegistry.size()];
+        for (CryptoPriceSeries oneSeries : ingested) {
+            ingestedById[symbolRegistry.idOf(oneSeries.getSymbol())] = oneSeries;
+        }
+
+        this.symbolRegistry = symbolRegistry;
+        this.snapshot = Snapshot.of(seriesById, ingestedById, new CryptoDataVersion(1, Instant.now()));
+        this.loadTimeNanos = loadTimeNanos;
+    }
+
+    /**
+     * Loads the prices of all the cryptos whose price files are found on the classpath, registering their symbols.
+     *
+     * @param fileCryptoReader The reader used to extract the prices from the files.
+     * @param symbolRegistry   The registry of the crypto symbols.
+     * @return A CryptoPriceStore
+     */
+    public static CryptoPriceStore load(FileCryptoReader fileCryptoReader, CryptoSymbolRegistry symbolRegistry) {
+
+        long start = System.nanoTime();
+
+        // the cryptos are loaded concurrently, each of their files being itself parsed in parallel chunks
+        List<ForkJoinTask<CryptoPriceSeries>> tasks = fileCryptoReader.listPriceFiles().stream()
+                .map(csvFile -> {
+                    String symbol = symbolRegistry.symbolOf(symbolRegistry.register(FileCryptoReader.symbolOf(csvFile)));
+                    return ForkJoinTask.adapt(() -> CryptoPriceSeries.of(symbol, fileCryptoReader.readPriceColumns(csvFile)));
+                })
+                .toList();
+
+        return new CryptoPriceStore(symbolRegistry, collect(tasks), System.nanoTime() - start);
+    }
+
+    /**
+     * Memory-maps all the {@link BinaryPriceFile}s of the given directory, in file name order, registering their
+     * symbols.
+     *
+     * @param directory      The directory holding the binary price files.
+     * @param symbolRegistry The registry of the crypto symbols.
+     * @return A CryptoPriceStore
+     */
+    public static CryptoPriceStore map(Path directory, CryptoSymbolRegistry symbolRegistry) {
+
+        long start = System.nanoTime();
+
+        List<Path> priceFiles;
+        try (Stream<Path> files = Files.list(directory)) {
+            priceFiles = files
+                    .filter(file -> file.getFileName().toString().endsWith(BinaryPriceFile.EXTENSION))
+                    .sorted()
+                    .toList();
+        }
+        catch (IOException e) {
+            throw new FileNotFoundException();
+        }
+
+        // mapping a file is cheap, but building its daily rollups scans all of its rows
+        List<ForkJoinTask<CryptoPriceSeries>> tasks = priceFiles.stream()
+                .map(priceFile -> ForkJoinTask.adapt(() -> mapFile(priceFile)))
+                .toList();
+
+        return new CryptoPriceStore(symbolRegistry, collect(tasks), System.nanoTime() - start);
+    }
+
+    /**
+     * Restores the series of a {@link CryptoPriceSnapshot} of the classpath price files, registering their symbols.
+     * The series of a file whose contents changed since the snapshot, or which is not part of it, are loaded from the
+     * file again, and the ones of a file which is gone are dropped, the ingested prices of the cryptos being merged
+     * into them again. The series which do not come from a file are kept.
+     *
+     * @param snapshot         The snapshot.
+     * @param fileCryptoReader The reader used to extract the prices from the files.
+     * @param symbolRegistry   The registry of the crypto symbols.
+     * @param readTimeNanos    The time spent reading the snapshot.
+     * @return A CryptoPriceStore
+     */
+    public static CryptoPriceStore restore(CryptoPriceSnapshot snapshot, FileCryptoReader fileCryptoReader,
+                                           CryptoSymbolRegistry symbolRegistry, long readTimeNanos) {
+
+        long start = System.nanoTime();
+
+        Map<String, CryptoPriceSeries> restored = new LinkedHashMap<>();
+        snapshot.series().forEach(series -> restored.put(series.getSymbol(), series));
+        Map<String, CryptoPriceSeries> ingested = snapshot.ingestedBySymbol();
+
+        List<ForkJoinTask<CryptoPriceSeries>> tasks = new ArrayList<>();
+        fileCryptoReader.listPriceFileSources().forEach((csvFile, source) -> {
+            String symbol = symbolRegistry.symbolOf(symbolRegistry.register(FileCryptoReader.symbolOf(csvFile)));
+            CryptoPriceSeries series = restored.remove(symbol);
+            tasks.add(series != null && source.equals(snapshot.sources().get(csvFile))
+                    ? ForkJoinTask.adapt(() -> series)
+                    : ForkJoinTask.adapt(() -> withIngested(
+                            CryptoPriceSeries.of(symbol, fileCryptoReader.readPriceColumns(csvFile)),
+                            ingested.get(symbol))));
+        });
+        // the cryptos whose files are gone are left with their ingested prices
+        for (String csvFile : snapshot.sources().keySet()) {
+            restored.computeIfPresent(FileCryptoReader.symbolOf(csvFile), (symbol, series) -> ingested.get(symbol));
+        }
+
+        List<CryptoPriceSeries> series = new ArrayList<>(collect(tasks));
+        series.addAll(restored.values());
+        return new CryptoPriceStore(symbolRegistry, series, snapshot.ingested(),
+                readTimeNanos + System.nanoTime() - start);
+    }
+
+    private static CryptoPriceSeries mapFile(Path priceFile) {
+        try {
+            return BinaryPriceFile.map(priceFile);
+        }
+        catch (IOException e) {
+            throw new FileNotFoundException();
+        }
+    }
+
+    /**
+     * Merges the prices ingested into a crypto into the series read from its price file.
+     *
+     * @param series   The series read from the price file.
+     * @param ingested The series of the ingested prices, or null if there are none.
+     * @return A CryptoPriceSeries
+     */
+    static CryptoPriceSeries withIngested(CryptoPriceSeries series, CryptoPriceSeries ingested) {
+        return ingested != null ? series.append(PriceColumns.of(ingested)) : series;
+    }
+
+    /**
+     * Runs the given tasks in parallel and collects their series in task order, so that multi-symbol reads are
+     * emitted in a stable order.
+     */
+    static List<CryptoPriceSeries> collect(List<ForkJoinTask<CryptoPriceSeries>> tasks) {
+
+        ForkJoinTask.invokeAll(tasks);
+
+        return tasks.stream()
+                .map(ForkJoinTask::join)
+                .toList();
+    }
+
+    public CryptoSymbolRegistry getSymbolRegistry() {
+        return symbolRegistry;
+    }
+
+    /**
+     * Retrieves the price series of the given crypto.
+     *
+     * @param symbol The crypto symbol.
+     * @return A CryptoPriceSeries, empty if the symbol is unknown
+     */
+    public CryptoPriceSeries getSeries(String symbol) {
+        CryptoPriceSeries series = snapshot.seriesOf(symbolRegistry.idOf(symbol));
+        return series != null ? series : CryptoPriceSeries.of(symbol, List.of());
+    }
+
+    /**
+     * Retrieves the price series of the given crypto.
+     *
+     * @param id The id of the crypto symbol in the registry.
+     * @return A CryptoPriceSeries, empty if the crypto has no prices
+     */
+    public CryptoPriceSeries getSeries(int id) {
+        CryptoPriceSeries series = snapshot.seriesOf(id);
+        return series != null ? series : CryptoPriceSeries.of(symbolRegistry.symbolOf(id), List.of());
+    }
+
+    /**
+     * Retrieves the price series of all the cryptos.
+     *
+     * @return A collection of CryptoPriceSeries, in symbol id order
+     */
+    public Collection<CryptoPriceSeries> getAllSeries() {
+        return snapshot.allSeries();
+    }
+
+    /**
+     * Retrieves the series of the prices ingested into all the cryptos, apart from their price files.
+     *
+     * @return A collection of CryptoPriceSeries, in symbol id order
+     */
+    public Collection<CryptoPriceSeries> getIngestedSeries() {
+        return Arrays.stream(snapshot.ingestedById()).filter(Objects::nonNull).toList();
+    }
+
+    /**
+     * Retrieves the version of the data currently held by the store.
+     *
+     * @return A CryptoDataVersion
+     */
+    public CryptoDataVersion getDataVersion() {
+        return snapshot.version();
+    }
+
+    /**
+     * Adds the series read from the price file of a crypto, registering its symbol, or replaces its current one. The
+     * prices ingested into the crypto are merged into it again.
+     *
+     * @param series The series.
+     */
+    public synchronized void put(CryptoPriceSeries series) {
+        int id = symbolRegistry.register(series.getSymbol());
+        CryptoPriceSeries[] seriesById = copyOf(snapshot.seriesById());
+        seriesById[id] = withIngested(series, snapshot.ingestedOf(id));
+        update(seriesById, snapshot.ingestedById());
+    }
+
+    /**
+     * Appends prices read from the price file of a crypto to its series, creating it if needed.
+     *
+     * @param symbol  The crypto symbol.
+     * @param columns The prices to append, in any order.
+     */
+    public void append(String symbol, PriceColumns columns) {
+        appendAll(Map.of(symbol, columns), false);
+    }
+
+    /**
+     * Ingests prices into many cryptos, creating them if needed, as a single new version of the data : a reader sees
+     * either all of them or none. The prices are appended to the series of the cryptos, and to the ones of their
+     * ingested prices.
+     *
+     * @param prices The prices to ingest, in any order, by crypto symbol.
+     */
+    public void ingestAll(Map<String, PriceColumns> prices) {
+        appendAll(prices, true);
+    }
+
+    /**
+     * Appends prices to the series of many cryptos as a single new version of the data. The new series are built off
+     * the lock, from the current version, and only swapped in under it; they are built again if another writer
+     * published a version meanwhile.
+     */
+    private void appendAll(Map<String, PriceColumns> prices, boolean ingested) {
+        while (true) {
+            Snapshot current = snapshot;
+            int[] ids = new int[prices.size()];
+            int index = 0;
+            for (String symbol : prices.keySet()) {
+                ids[index++] = symbolRegistry.register(symbol);
+            }
+            // the arrays are copied once for the whole batch, then filled in place
+            CryptoPriceSeries[] seriesById = copyOf(current.seriesById());
+            CryptoPriceSeries[] ingestedById = ingested ? copyOf(current.ingestedById()) : current.ingestedById();
+            index = 0;
+            for (PriceColumns columns : prices.values()) {
+                int id = ids[index++];
+                seriesById[id] = appendTo(current.seriesOf(id), id, columns);
+                if (ingested) {
+                    // the columns are handed over to the series, so that each of them is given its own copy
+                    ingestedById[id] = appendTo(current.ingestedOf(id), id, columns.copy());
+                }
+            }
+
+            synchronized (this) {
+                if (snapshot == current) {
+                    update(seriesById, ingestedById);
+                    return;
+                }
+            }
+        }
+    }
+
+    private CryptoPriceSeries appendTo(CryptoPriceSeries series, int id, PriceColumns columns) {
+        return series != null ? series.append(columns) : CryptoPriceSeries.of(symbolRegistry.symbolOf(id), columns);
+    }
+
+    /**
+     * Removes the prices read from the price file of a crypto, only keeping the ones ingested into it. Its symbol
+     * stays registered.
+     *
+     * @param symbol The crypto symbol.
+     */
+    public synchronized void remove(String symbol) {
+        int id = symbolRegistry.idOf(symbol);
+        if (snapshot.seriesOf(id) != null) {
+            CryptoPriceSeries[] seriesById = snapshot.seriesById().clone();
+            seriesById[id] = snapshot.ingestedOf(id);
+            update(seriesById, snapshot.ingestedById());
+        }
+    }
+
+    private void update(CryptoPriceSeries[] seriesById, CryptoPriceSeries[] ingestedById) {
+        snapshot = Snapshot.of(seriesById, ingestedById, snapshot.version().next());
+    }
+
+    /**
+     * Copies series by id, with room for all the symbols registered so far.
+     */
+    private CryptoPriceSeries[] copyOf(CryptoPriceSeries[] seriesById) {
+        return Arrays.copyOf(seriesById, Math.max(seriesById.length, symbolRegistry.size()));
+    }
+
+    public long getRowCount() {
+        return getAllSeries().stream().mapToLong(CryptoPriceSeries::size).sum();
+    }
+
+    public long getSizeInBytes() {
+        return getAllSeries().stream().mapToLong(CryptoPriceSeries::getSizeInBytes).sum()
+                + getIngestedSeries().stream().mapToLong(CryptoPriceSeries::getSizeInBytes).sum();
+    }
+
+    public long getMappedSizeInBytes() {
+        return getAllSeries().stream().mapToLong(CryptoPriceSeries::getMappedSizeInBytes).sum();
+    }
+
+    public long getLoadTimeNanos() {
+        return loadTimeNanos;
+    }
+
+    /**
+     * The series of a version of the data, by symbol id, along with the list of the present ones for the scans, and
+     * the series of the ingested prices, by symbol id.
+     */
+    private record Snapshot(CryptoPriceSeries[] seriesById, CryptoPriceSeries[] ingestedById,
+                            List<CryptoPriceSeries> allSeries, CryptoDataVersion version) {
+
+        static Snapshot of(CryptoPriceSeries[] seriesById, CryptoPriceSeries[] ingestedById,
+                           CryptoDataVersion version) {
+            return new Snapshot(seriesById, ingestedById,
+                    Arrays.stream(seriesById).filter(Objects::nonNull).toList(), version);
+        }
+
+        CryptoPriceSeries seriesOf(int id) {
+            return id >= 0 && id < seriesById.length ? seriesById[id] : null;
+        }
+
+        CryptoPriceSeries ingestedOf(int id) {
+            return id >= 0 && id < ingestedById.length ? ingestedById[id] : null;
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.crypto.infrastructure.persistence;
+
+/**
+ * A record that represents the summary of the prices of a crypto over one of the time windows of a batch query.
+ */
+public record CryptoPriceWindowBounds(
+        int window,
+        CryptoPriceBounds bounds) {
+}
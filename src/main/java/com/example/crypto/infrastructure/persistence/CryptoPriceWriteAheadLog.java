@@ -0,0 +1,491 @@
+package com.example.crypto.infrastructure.persistence;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+import java.util.zip.CRC32C;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * An append-only log of the price batches ingested into the {@link CryptoPriceStore}, written and forced to disk
+ * before a batch is published, so that an acknowledged batch survives a crash : the log is replayed into the store on
+ * startup.
+ * <p>
+ * The file starts with a header (magic, format version, sequence number of the last batch dropped by a compaction),
+ * followed by one record per batch : the length and the CRC32C
+ * of the payload, then the payload itself, i.e. the batch's sequence number and, per crypto, its symbol and its
+ * prices. A record torn by a crash fails its length or checksum, and is cut off on replay along with anything after
+ * it.
+ * <p>
+ * The appends are serialized, but their syncs are grouped : a writer forces the file only if no other writer forced
+ * it since its own record was written, so that concurrent batches share their fsyncs. The batches are then published
+ * in log order.
+ * <p>
+ * A failed fsync leaves the records written since the last successful one in an unknown state, and a retried fsync
+ * may succeed without them having reached the disk. Those records are therefore cut off, and the log refuses any
+ * further append until it is opened and replayed again.
+ * <p>
+ * Once a {@link CryptoPriceSnapshot} holding the first batches is written, the log is compacted : the batches
+ * following them are copied to a new file, which replaces the log, so that it only holds the batches ingested since
+ * the last snapshot. A compacted log can then only be replayed over a snapshot holding the batches it dropped.
+ */
+@Slf4j
+public class CryptoPriceWriteAheadLog implements Closeable {
+
+    static final int MAGIC = 0x4357414c; // "CWAL"
+
+    static final int FORMAT_VERSION = 2;
+
+    static final int HEADER_SIZE = Integer.BYTES * 2 + Long.BYTES;
+
+    // the length and the checksum of a record's payload
+    private static final int RECORD_HEADER_SIZE = Integer.BYTES * 2;
+
+    private final Path file;
+
+    // replaced when the log is compacted
+    private volatile FileChannel channel;
+
+    private final boolean sync;
+
+    private final Object syncLock = new Object();
+
+    private long sequence;
+
+    // the sequence number of the last batch dropped from the log, all the previous ones being dropped as well
+    private long droppedSequence;
+
+    private volatile long writtenPosition;
+
+    private long syncedPosition;
+
+    // the failure of an fsync, after which nothing is appended anymore
+    private volatile IOException syncFailure;
+
+    private final Object publishLock = new Object();
+
+    // the sequence number of the last batch published, all the previous ones being published as well
+    private long publishedSequence;
+
+    private CryptoPriceWriteAheadLog(Path file, FileChannel channel, boolean sync) {
+        this.file = file;
+        this.channel = channel;
+        this.sync = sync;
+    }
+
+    /**
+     * Opens the log of the given file, creating it if needed. The log has to be replayed before any append.
+     *
+     * @param file The log file.
+     * @param sync Whether every append is forced to disk before it returns.
+     * @return A CryptoPriceWriteAheadLog
+     * @throws IOException If the file cannot be opened
+     */
+    public static CryptoPriceWriteAheadLog open(Path file, boolean sync) throws IOException {
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        return new CryptoPriceWriteAheadLog(file, channel, sync);
+    }
+
+    /**
+     * Creates a log which keeps nothing, for the stores whose ingested prices only live in memory.
+     *
+     * @return A CryptoPriceWriteAheadLog
+     */
+    public static CryptoPriceWriteAheadLog disabled() {
+        return new CryptoPriceWriteAheadLog(null, null, false);
+    }
+
+    public boolean isEnabled() {
+        return channel != null;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Retrieves the sequence number of the last batch appended or replayed.
+     *
+     * @return The sequence number, 0 if the log is empty
+     */
+    public synchronized long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Reads the batches of the log in order, passing each one whose sequence number is above the given one to the
+     * consumer. A torn or corrupted record ends the log : it is cut off, so that the next batches are appended after
+     * the last valid one. The next batches are numbered after both the last valid one and the given sequence number,
+     * so that they are never skipped by a later replay, even if the log lost batches that a snapshot holds.
+     *
+     * @param afterSequence The sequence number of the last batch already applied, 0 for all of them.
+     * @param consumer      The consumer of the batches, by crypto symbol.
+     * @return The number of batches passed to the consumer
+     * @throws IOException If the file cannot be read or is not a log, or if the log was compacted past the given
+     *                     sequence number, i.e. if some of the batches it dropped were not applied
+     */
+    public synchronized long replay(long afterSequence, Consumer<Map<String, PriceColumns>> consumer)
+            throws IOException {
+        if (channel == null) {
+            return 0;
+        }
+
+        long size = channel.size();
+        if (size == 0) {
+            // the batches up to the given one are held elsewhere, so that the log must never be replayed without them
+            writeFully(header(afterSequence), 0);
+            channel.force(true);
+            writtenPosition = syncedPosition = HEADER_SIZE;
+            droppedSequence = afterSequence;
+            startAfter(afterSequence);
+            return 0;
+        }
+
+        ByteBuffer header = readFully(0, HEADER_SIZE, size);
+        if (header == null || header.getInt() != MAGIC || header.getInt() != FORMAT_VERSION) {
+            throw new IOException("Not a price write-ahead log of version " + FORMAT_VERSION + " : " + file);
+        }
+        droppedSequence = header.getLong();
+        if (afterSequence < droppedSequence) {
+            throw new IOException("The write-ahead log " + file + " dropped the batches up to " + droppedSequence
+                    + ", but only the ones up to " + afterSequence + " were restored");
+        }
+        sequence = Math.max(sequence, droppedSequence);
+
+        long replayed = 0;
+        long position = HEADER_SIZE;
+        CRC32C crc = new CRC32C();
+        while (position < size) {
+            ByteBuffer recordHeader = readFully(position, RECORD_HEADER_SIZE, size);
+            int length = recordHeader != null ? recordHeader.getInt() : -1;
+            if (length <= 0 || length > size - position - RECORD_HEADER_SIZE) {
+                break;
+            }
+            ByteBuffer payload = readFully(position + RECORD_HEADER_SIZE, length, size);
+            crc.reset();
+            crc.update(payload.duplicate());
+            if ((int) crc.getValue() != recordHeader.getInt()) {
+                break;
+            }
+
+            // the batches already applied, e.g. held by a snapshot, are only checked
+            long batchSequence = payload.getLong();
+            if (batchSequence > afterSequence) {
+                consumer.accept(decode(payload));
+                replayed++;
+            }
+            sequence = Math.max(sequence, batchSequence);
+            position += RECORD_HEADER_SIZE + length;
+        }
+
+        if (position < size) {
+            log.warn("Cutting off the {} bytes of the write-ahead log {} following its last valid record",
+                    size - position, file);
+            channel.truncate(position);
+            channel.force(true);
+        }
+        writtenPosition = syncedPosition = position;
+        startAfter(afterSequence);
+        return replayed;
+    }
+
+    /**
+     * Numbers the next batches after the given sequence number, as well as after the ones replayed.
+     */
+    private void startAfter(long afterSequence) {
+        sequence = Math.max(sequence, afterSequence);
+        synchronized (publishLock) {
+            publishedSequence = sequence;
+        }
+    }
+
+    /**
+     * Appends a batch to the log, forces it to disk unless the log was opened without sync, then publishes it. The
+     * batches are published in the order of the log, one at a time, so that the published data always matches a
+     * prefix of the log.
+     *
+     * @param batch   The prices of the batch, by crypto symbol.
+     * @param publish The publication of the batch, e.g. to the store.
+     * @return The sequence number of the batch
+     * @throws IOException If the batch cannot be written, or if the log failed to sync, in which case it is not
+     *                     published
+     */
+    public long append(Map<String, PriceColumns> batch, Runnable publish) throws IOException {
+        if (channel == null) {
+            synchronized (publishLock) {
+                publish.run();
+            }
+            return 0;
+        }
+
+        long batchSequence;
+        long end;
+        synchronized (this) {
+            if (writtenPosition == 0) {
+                throw new IllegalStateException("The write-ahead log " + file + " has to be replayed first");
+            }
+            if (syncFailure != null) {
+                throw new IOException("The write-ahead log " + file + " failed to sync", syncFailure);
+            }
+            ByteBuffer payload = encode(sequence + 1, batch);
+
+            CRC32C crc = new CRC32C();
+            crc.update(payload.duplicate());
+            ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_SIZE + payload.remaining())
+                    .putInt(payload.remaining())
+                    .putInt((int) crc.getValue())
+                    .put(payload)
+                    .flip();
+
+            long position = writtenPosition;
+            writeFully(record, position);
+            end = position + record.capacity();
+            batchSequence = ++sequence;
+            writtenPosition = end;
+        }
+
+        try {
+            if (sync) {
+                sync(end);
+            }
+        }
+        catch (IOException e) {
+            // the batch is cut off from the log, and not acknowledged
+            publishInOrder(batchSequence, () -> { });
+            throw e;
+        }
+        publishInOrder(batchSequence, publish);
+        return batchSequence;
+    }
+
+    /**
+     * Drops the batches up to the given sequence number, e.g. once a snapshot holding them is written. The next
+     * batches are copied to a new file, forced to disk, which then atomically replaces the log; the appends wait
+     * meanwhile.
+     *
+     * @param throughSequence The sequence number of the last batch to drop.
+     * @return The number of bytes dropped
+     * @throws IOException If the new file cannot be written, in which case the log is left as is
+     */
+    public synchronized long compact(long throughSequence) throws IOException {
+        if (channel == null || writtenPosition == 0 || syncFailure != null) {
+            return 0;
+        }
+
+        synchronized (syncLock) {
+            // the records are only checked on replay, so that only their headers are read here
+            long size = writtenPosition;
+            long position = HEADER_SIZE;
+            long dropped = droppedSequence;
+            while (position < size) {
+                ByteBuffer recordHeader = readFully(position, RECORD_HEADER_SIZE + Long.BYTES, size);
+                int length = recordHeader.getInt();
+                long batchSequence = recordHeader.getLong(RECORD_HEADER_SIZE);
+                if (batchSequence > throughSequence) {
+                    break;
+                }
+                dropped = batchSequence;
+                position += RECORD_HEADER_SIZE + length;
+            }
+            if (position == HEADER_SIZE) {
+                return 0;
+            }
+
+            Path compacted = file.resolveSibling(file.getFileName() + ".tmp");
+            try (FileChannel target = FileChannel.open(compacted,
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer header = header(dropped);
+                while (header.hasRemaining()) {
+                    target.write(header);
+                }
+                for (long copied = position; copied < size; ) {
+                    copied += channel.transferTo(copied, size - copied, target);
+                }
+                target.force(true);
+            }
+            Files.move(compacted, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            FileChannel previous = channel;
+            try {
+                channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            }
+            catch (IOException e) {
+                // the previous file is gone, so that nothing can be appended to it anymore
+                syncFailure = e;
+                throw e;
+            }
+            finally {
+                previous.close();
+            }
+            // the records copied are on disk, including the ones whose writers are still waiting to sync them
+            writtenPosition = syncedPosition = HEADER_SIZE + size - position;
+            droppedSequence = dropped;
+            return position - HEADER_SIZE;
+        }
+    }
+
+    /**
+     * Runs the given action while no batch is being published, e.g. to copy the published data.
+     *
+     * @param action The action, given the sequence number of the last batch published.
+     */
+    public void whilePublished(LongConsumer action) {
+        synchronized (publishLock) {
+            action.accept(publishedSequence);
+        }
+    }
+
+    public long getSizeInBytes() {
+        return channel != null ? writtenPosition : 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+        }
+    }
+
+    /**
+     * Forces the log to disk up to the given position, unless another writer already did. When the fsync fails, the
+     * records following the last synced position are cut off, and the log is failed.
+     */
+    private void sync(long position) throws IOException {
+        synchronized (syncLock) {
+            if (syncedPosition >= position) {
+                return;
+            }
+            if (syncFailure != null) {
+                throw new IOException("The write-ahead log " + file + " failed to sync", syncFailure);
+            }
+            // every record written so far is covered, including the ones of the writers waiting for this lock
+            long written = writtenPosition;
+            try {
+                channel.force(false);
+            }
+            catch (IOException e) {
+                syncFailure = e;
+                cutOff(syncedPosition);
+                throw e;
+            }
+            syncedPosition = written;
+        }
+    }
+
+    /**
+     * Cuts off the records following the given position, as far as the failing disk allows it.
+     */
+    private void cutOff(long position) {
+        try {
+            channel.truncate(position);
+            channel.force(true);
+        }
+        catch (IOException e) {
+            log.error("Could not cut off the unsynced records of the write-ahead log {}", file, e);
+        }
+    }
+
+    /**
+     * Publishes a batch once all the previous ones are.
+     */
+    private void publishInOrder(long batchSequence, Runnable publish) {
+        boolean interrupted = false;
+        synchronized (publishLock) {
+            while (publishedSequence != batchSequence - 1) {
+                try {
+                    publishLock.wait();
+                }
+                catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            try {
+                publish.run();
+            }
+            finally {
+                publishedSequence = batchSequence;
+                publishLock.notifyAll();
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static ByteBuffer header(long droppedSequence) {
+        return ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(FORMAT_VERSION).putLong(droppedSequence).flip();
+    }
+
+    private static ByteBuffer encode(long batchSequence, Map<String, PriceColumns> batch) {
+        int size = Long.BYTES + Integer.BYTES;
+        for (Map.Entry<String, PriceColumns> prices : batch.entrySet()) {
+            size += Short.BYTES + prices.getKey().getBytes(StandardCharsets.UTF_8).length
+                    + Integer.BYTES + prices.getValue().size() * (Long.BYTES + Double.BYTES);
+        }
+
+        ByteBuffer payload = ByteBuffer.allocate(size).putLong(batchSequence).putInt(batch.size());
+        batch.forEach((symbol, columns) -> {
+            byte[] symbolBytes = symbol.getBytes(StandardCharsets.UTF_8);
+            payload.putShort((short) symbolBytes.length).put(symbolBytes).putInt(columns.size());
+            for (int i = 0; i < columns.size(); i++) {
+                payload.putLong(columns.timestampAt(i)).putDouble(columns.priceAt(i));
+            }
+        });
+        return payload.flip();
+    }
+
+    private static Map<String, PriceColumns> decode(ByteBuffer payload) {
+        int symbols = payload.getInt();
+
+        Map<String, PriceColumns> batch = new LinkedHashMap<>();
+        for (int s = 0; s < symbols; s++) {
+            byte[] symbolBytes = new byte[payload.getShort()];
+            payload.get(symbolBytes);
+            int rows = payload.getInt();
+
+            PriceColumns columns = new PriceColumns(rows);
+            for (int i = 0; i < rows; i++) {
+                columns.add(payload.getLong(), payload.getDouble());
+            }
+            batch.put(new String(symbolBytes, StandardCharsets.UTF_8), columns);
+        }
+        return batch;
+    }
+
+    private void writeFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    /**
+     * Reads the given bytes, or returns null if the file ends before them.
+     */
+    private ByteBuffer readFully(long position, int length, long size) throws IOException {
+        if (position + length > size) {
+            return null;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                return null;
+            }
+        }
+        return buffer.flip();
+    }
+}
@@ -0,0 +1,165 @@
+package com.example.crypto.infrastructure.persistence;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The registry of the crypto symbols known at runtime, discovered from the price files or from ingestion. Every
+ * symbol is interned once and given a dense id, from 0 in registration order, so that the per-symbol storage can be
+ * kept in plain arrays indexed by id. Symbols are never unregistered, so an id is stable for the life of the
+ * application.
+ * <p>
+ * The registry has a capacity, which bounds the symbols that clients can create by ingesting prices, along with the
+ * series and the meters they come with. The symbols of the price files are registered regardless of it.
+ */
+public class CryptoSymbolRegistry {
+
+    private final Map<String, Integer> idsPerSymbol = new ConcurrentHashMap<>();
+
+    private volatile String[] symbols = new String[0];
+
+    private final int maxSymbols;
+
+    private final Map<String, Integer> reservationsPerSymbol = new HashMap<>();
+
+    public CryptoSymbolRegistry() {
+        this(Integer.MAX_VALUE);
+    }
+
+    /**
+     * Creates an empty registry.
+     *
+     * @param maxSymbols The number of symbols beyond which {@link #reserveAll(Collection)} reserves none.
+     */
+    public CryptoSymbolRegistry(int maxSymbols) {
+        this.maxSymbols = maxSymbols;
+    }
+
+    /**
+     * Creates a registry holding the given symbols, in order.
+     *
+     * @param symbols The crypto symbols.
+     * @return A CryptoSymbolRegistry
+     */
+    public static CryptoSymbolRegistry of(String... symbols) {
+        CryptoSymbolRegistry registry = new CryptoSymbolRegistry();
+        Arrays.stream(symbols).forEach(registry::register);
+        return registry;
+    }
+
+    /**
+     * Registers a symbol, unless it is already registered.
+     *
+     * @param symbol The crypto symbol.
+     * @return The id of the symbol
+     */
+    public int register(String symbol) {
+        Integer id = idsPerSymbol.get(symbol);
+        return id != null ? id : registerIfAbsent(symbol);
+    }
+
+    /**
+     * Reserves room for the given symbols until they are released, unless the new ones would take the registry beyond
+     * its capacity, in which case none is reserved. The symbols are not registered, e.g. until the prices bringing
+     * them are stored, so that a batch which is rejected or fails does not use up the capacity.
+     *
+     * @param symbols The crypto symbols.
+     * @return true if all the symbols are reserved, and have to be released by {@link #releaseAll(Collection)}
+     */
+    public synchronized boolean reserveAll(Collection<String> symbols) {
+        Set<String> distinct = new HashSet<>(symbols);
+        long unregistered = distinct.stream().filter(symbol -> !contains(symbol)).count();
+        long reserved = reservationsPerSymbol.keySet().stream()
+                .filter(symbol -> !distinct.contains(symbol) && !contains(symbol))
+                .count();
+        if (unregistered > 0 && this.symbols.length + reserved + unregistered > maxSymbols) {
+            return false;
+        }
+        distinct.forEach(symbol -> reservationsPerSymbol.merge(symbol, 1, Integer::sum));
+        return true;
+    }
+
+    /**
+     * Releases the symbols reserved by {@link #reserveAll(Collection)}, whether they were registered since or not.
+     *
+     * @param symbols The crypto symbols.
+     */
+    public synchronized void releaseAll(Collection<String> symbols) {
+        new HashSet<>(symbols).forEach(symbol -> reservationsPerSymbol.computeIfPresent(symbol,
+                (reserved, reservations) -> reservations > 1 ? reservations - 1 : null));
+    }
+
+    private synchronized int registerIfAbsent(String symbol) {
+        Integer id = idsPerSymbol.get(symbol);
+        if (id != null) {
+            return id;
+        }
+
+        // the array is published before the id, so that any id read from the map can be resolved
+        String[] registered = Arrays.copyOf(symbols, symbols.length + 1);
+        registered[symbols.length] = symbol;
+        symbols = registered;
+        idsPerSymbol.put(symbol, symbols.length - 1);
+        return symbols.length - 1;
+    }
+
+    /**
+     * Finds the id of a symbol.
+     *
+     * @param symbol The crypto symbol.
+     * @return The id of the symbol, or -1 if it is not registered
+     */
+    public int idOf(String symbol) {
+        Integer id = symbol != null ? idsPerSymbol.get(symbol) : null;
+        return id != null ? id : -1;
+    }
+
+    /**
+     * Finds the symbol of an id.
+     *
+     * @param id The id of the symbol.
+     * @return The interned crypto symbol
+     */
+    public String symbolOf(int id) {
+        return symbols[id];
+    }
+
+    public boolean contains(String symbol) {
+        return idOf(symbol) >= 0;
+    }
+
+    /**
+     * Tells whether a symbol is registered within the capacity of the registry, e.g. whether it can be told apart in
+     * the metrics without letting their number grow with the price files.
+     *
+     * @param symbol The crypto symbol.
+     * @return true if the symbol is one of the first ones registered
+     */
+    public boolean isWithinCapacity(String symbol) {
+        int id = idOf(symbol);
+        return id >= 0 && id < maxSymbols;
+    }
+
+    public int getMaxSymbols() {
+        return maxSymbols;
+    }
+
+    public int size() {
+        return symbols.length;
+    }
+
+    /**
+     * Retrieves all the registered symbols.
+     *
+     * @return The symbols, in id order
+     */
+    public List<String> getSymbols() {
+        return List.of(symbols);
+    }
+}
@@ -0,0 +1,225 @@
+package com.example.crypto.infrastructure.persistence;
+
+import java.nio.DoubleBuffer;
+import java.nio.LongBuffer;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The daily rollups of a price series : for every day holding at least one price, the open, close, min and max prices
+ * and the number of ticks, along with the position of the day's first tick in the series.
+ */
+final class DailyRollups {
+
+    // the heap of a compressed reference and of an object header, on a 64-bit JVM with compressed oops
+    private static final int REFERENCE_SIZE = 4;
+
+    private static final int OBJECT_HEADER_SIZE = 12;
+
+    // the heap of a day : its first index, its slot in the rows and its bounds, i.e. the symbol reference, the first
+    // and last ticks, the first, last, min and max prices and the count
+    private static final int DAY_SIZE = Integer.BYTES + REFERENCE_SIZE
+            + OBJECT_HEADER_SIZE + REFERENCE_SIZE + 2 * Long.BYTES + 4 * Double.BYTES + Long.BYTES;
+
+    private final int[] firstIndexes;
+
+    private final CryptoPriceBounds[] rows;
+
+    private final int seriesSize;
+
+    private DailyRollups(int[] firstIndexes, CryptoPriceBounds[] rows, int seriesSize) {
+        this.firstIndexes = firstIndexes;
+        this.rows = rows;
+        this.seriesSize = seriesSize;
+    }
+
+    /**
+     * Builds the rollups of the given columns, which must be sorted by timestamp.
+     *
+     * @param symbol     The crypto symbol.
+     * @param timestamps The timestamp column.
+     * @param prices     The price column.
+     * @param size       The number of prices in the columns.
+     * @return A DailyRollups
+     */
+    static DailyRollups of(String symbol, LongBuffer timestamps, DoubleBuffer prices, int size) {
+        return of(symbol, timestamps, prices, 0, size);
+    }
+
+    /**
+     * Restores rollups built beforehand, e.g. read from a {@link CryptoPriceSnapshot}.
+     *
+     * @param firstIndexes The position of every day's first tick in the series.
+     * @param rows         The bounds of every day.
+     * @param seriesSize   The number of prices in the series.
+     * @return A DailyRollups
+     */
+    static DailyRollups restore(int[] firstIndexes, CryptoPriceBounds[] rows, int seriesSize) {
+        return new DailyRollups(firstIndexes, rows, seriesSize);
+    }
+
+    /**
+     * Builds the rollups of the given columns once prices have been appended to them. Only the last day of these
+     * rollups and the following days are aggregated again.
+     *
+     * @param symbol     The crypto symbol.
+     * @param timestamps The timestamp column.
+     * @param prices     The price column.
+     * @param size       The number of prices in the columns, appended ones included.
+     * @return A DailyRollups
+     */
+    DailyRollups append(String symbol, LongBuffer timestamps, DoubleBuffer prices, int size) {
+        return append(symbol, timestamps, prices, seriesSize, size);
+    }
+
+    /**
+     * Builds the rollups of the given columns once their prices have changed from the given position on, e.g. once
+     * late prices have been merged into them. Only the day preceding that position and the following days are
+     * aggregated again.
+     *
+     * @param symbol     The crypto symbol.
+     * @param timestamps The timestamp column.
+     * @param prices     The price column.
+     * @param from       The first position which changed; the previous ones are those of these rollups.
+     * @param size       The number of prices in the columns.
+     * @return A DailyRollups
+     */
+    DailyRollups append(String symbol, LongBuffer timestamps, DoubleBuffer prices, int from, int size) {
+        if (rows.length == 0 || from == 0) {
+            return of(symbol, timestamps, prices, size);
+        }
+
+        int keptDays = dayOf(from - 1);
+        DailyRollups tail = of(symbol, timestamps, prices, firstIndexes[keptDays], size);
+
+        int[] appendedFirstIndexes = Arrays.copyOf(firstIndexes, keptDays + tail.firstIndexes.length);
+        System.arraycopy(tail.firstIndexes, 0, appendedFirstIndexes, keptDays, tail.firstIndexes.length);
+        CryptoPriceBounds[] appendedRows = Arrays.copyOf(rows, keptDays + tail.rows.length);
+        System.arraycopy(tail.rows, 0, appendedRows, keptDays, tail.rows.length);
+
+        return new DailyRollups(appendedFirstIndexes, appendedRows, size);
+    }
+
+    /**
+     * Builds the rollups of a series followed by another one, none of whose prices is older than the ones of the
+     * first. The day they may share is merged from both rollups, so that no price is read.
+     *
+     * @param symbol The crypto symbol.
+     * @param next   The rollups of the following series.
+     * @return A DailyRollups
+     */
+    DailyRollups concat(String symbol, DailyRollups next) {
+        if (next.rows.length == 0) {
+            return this;
+        }
+
+        int lastDay = rows.length - 1;
+        boolean shared = lastDay >= 0 && TimeRange.dayOf(rows[lastDay].lastTimestamp())
+                .equals(TimeRange.dayOf(next.rows[0].firstTimestamp()));
+        int skipped = shared ? 1 : 0;
+        int length = rows.length + next.rows.length - skipped;
+
+        int[] concatFirstIndexes = Arrays.copyOf(firstIndexes, length);
+        CryptoPriceBounds[] concatRows = Arrays.copyOf(rows, length);
+        for (int day = skipped; day < next.rows.length; day++) {
+            concatFirstIndexes[rows.length + day - skipped] = seriesSize + next.firstIndexes[day];
+            concatRows[rows.length + day - skipped] = next.rows[day];
+        }
+        if (shared) {
+            concatRows[lastDay] = new PriceAggregator().accept(rows[lastDay]).accept(next.rows[0]).toBounds(symbol);
+        }
+
+        return new DailyRollups(concatFirstIndexes, concatRows, seriesSize + next.seriesSize);
+    }
+
+    private static DailyRollups of(String symbol, LongBuffer timestamps, DoubleBuffer prices, int from, int size) {
+
+        ZoneId zone = ZoneId.systemDefault();
+        PriceAggregator aggregator = new PriceAggregator();
+        List<Integer> firstIndexes = new ArrayList<>();
+        List<CryptoPriceBounds> rows = new ArrayList<>();
+
+        int dayStart = from;
+        long nextDayStart = Long.MIN_VALUE;
+        for (int i = from; i <= size; i++) {
+            if (i == size || timestamps.get(i) >= nextDayStart) {
+                if (i > from) {
+                    firstIndexes.add(dayStart);
+                    rows.add(aggregator.reset().accept(timestamps, prices, dayStart, i).toBounds(symbol));
+                }
+                if (i < size) {
+                    LocalDate day = Instant.ofEpochMilli(timestamps.get(i)).atZone(zone).toLocalDate();
+                    nextDayStart = TimeRange.startOfDay(day.plusDays(1));
+                    dayStart = i;
+                }
+            }
+        }
+
+        return new DailyRollups(
+                firstIndexes.stream().mapToInt(Integer::intValue).toArray(),
+                rows.toArray(CryptoPriceBounds[]::new),
+                size);
+    }
+
+    int size() {
+        return rows.length;
+    }
+
+    CryptoPriceBounds rowAt(int day) {
+        return rows[day];
+    }
+
+    /**
+     * Finds the position of the given day's first tick in the series.
+     *
+     * @param day The day's position in the rollups.
+     * @return A position in the series
+     */
+    int firstIndexOf(int day) {
+        return firstIndexes[day];
+    }
+
+    /**
+     * Finds the position following the given day's last tick in the series.
+     *
+     * @param day The day's position in the rollups.
+     * @return A position in the series
+     */
+    int endIndexOf(int day) {
+        return day + 1 < firstIndexes.length ? firstIndexes[day + 1] : seriesSize;
+    }
+
+    /**
+     * Finds the day holding the given position of the series.
+     *
+     * @param index A position in the series.
+     * @return The day's position in the rollups
+     */
+    int dayOf(int index) {
+        int low = 0;
+        int high = firstIndexes.length - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (firstIndexes[mid] <= index) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Calculates the heap used by the rollups.
+     *
+     * @return The size in bytes
+     */
+    long getSizeInBytes() {
+        return (long) rows.length * DAY_SIZE;
+    }
+
+}
@@ -0,0 +1,207 @@
+package com.example.crypto.infrastructure.persistence;
+
+import java.nio.DoubleBuffer;
+import java.nio.LongBuffer;
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * A price series whose columns are held in heap arrays, along with a {@link PriceRangeIndex} answering the min and
+ * max price of any slice in O(log n).
+ * <p>
+ * The arrays usually have some spare capacity. Prices appended in timestamp order are written to it, and the new
+ * series shares the arrays and the index with this one, which never reads past its own size. Only the first append
+ * of a series may share its arrays : any other one copies them. Late prices are merged into a copy of the arrays, the
+ * rows older than all of them being copied as they are.
+ */
+final class HeapCryptoPriceSeries extends CryptoPriceSeries {
+
+    private final Columns columns;
+
+    private final int size;
+
+    private HeapCryptoPriceSeries(String symbol, DailyRollups dailyRollups, Columns columns, int size) {
+        super(symbol, dailyRollups);
+        this.columns = columns;
+        this.size = size;
+    }
+
+    static HeapCryptoPriceSeries fromColumns(String symbol, PriceColumns priceColumns) {
+        priceColumns.sortByTimestamp();
+
+        long[] timestamps = priceColumns.getTimestamps();
+        double[] prices = priceColumns.getPrices();
+        int size = priceColumns.size();
+
+        return new HeapCryptoPriceSeries(symbol,
+                DailyRollups.of(symbol, LongBuffer.wrap(timestamps), DoubleBuffer.wrap(prices), size),
+                new Columns(timestamps, prices, size), size);
+    }
+
+    /**
+     * Restores a series from columns sorted by timestamp and their rollups, e.g. read from a
+     * {@link CryptoPriceSnapshot}. Only the range index is built again.
+     */
+    static HeapCryptoPriceSeries restore(String symbol, long[] timestamps, double[] prices, DailyRollups dailyRollups) {
+        return new HeapCryptoPriceSeries(symbol, dailyRollups,
+                new Columns(timestamps, prices, timestamps.length), timestamps.length);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public long timestampAt(int index) {
+        return columns.timestamps[index];
+    }
+
+    @Override
+    public double priceAt(int index) {
+        return columns.prices[index];
+    }
+
+    @Override
+    public Optional<CryptoPriceBounds> boundsOf(int from, int to) {
+        if (from >= to) {
+            return Optional.empty();
+        }
+
+        return Optional.of(new CryptoPriceBounds(getSymbol(),
+                columns.timestamps[from], columns.timestamps[to - 1],
+                columns.prices[from], columns.prices[to - 1],
+                columns.rangeIndex.min(from, to), columns.rangeIndex.max(from, to),
+                to - from));
+    }
+
+    @Override
+    public CryptoPriceSeries append(PriceColumns appended) {
+        int count = appended.size();
+        if (count == 0) {
+            return this;
+        }
+        if (!appended.isSortedFrom(size > 0 ? columns.timestamps[size - 1] : Long.MIN_VALUE)) {
+            return merge(appended);
+        }
+
+        Columns target = columns.claim(size, size + count);
+        for (int i = 0; i < count; i++) {
+            target.set(size + i, appended.timestampAt(i), appended.priceAt(i));
+        }
+
+        DailyRollups dailyRollups = getDailyRollups().append(getSymbol(),
+                LongBuffer.wrap(target.timestamps), DoubleBuffer.wrap(target.prices), size + count);
+
+        return new HeapCryptoPriceSeries(getSymbol(), dailyRollups, target, size + count);
+    }
+
+    /**
+     * Merges late prices into a copy of the series, keeping the series' rows first among equal timestamps.
+     */
+    private HeapCryptoPriceSeries merge(PriceColumns appended) {
+        appended.sortByTimestamp();
+
+        // the rows older than all the appended ones are left in place
+        int from = upperBound(appended.timestampAt(0));
+        int mergedSize = size + appended.size();
+        long[] timestamps = Arrays.copyOf(columns.timestamps, mergedSize);
+        double[] prices = Arrays.copyOf(columns.prices, mergedSize);
+        for (int i = from, left = from, right = 0; i < mergedSize; i++) {
+            if (right >= appended.size()
+                    || (left < size && columns.timestamps[left] <= appended.timestampAt(right))) {
+                timestamps[i] = columns.timestamps[left];
+                prices[i] = columns.prices[left++];
+            } else {
+                timestamps[i] = appended.timestampAt(right);
+                prices[i] = appended.priceAt(right++);
+            }
+        }
+
+        DailyRollups dailyRollups = getDailyRollups().append(getSymbol(),
+                LongBuffer.wrap(timestamps), DoubleBuffer.wrap(prices), from, mergedSize);
+
+        return new HeapCryptoPriceSeries(getSymbol(), dailyRollups,
+                new Columns(timestamps, prices, mergedSize), mergedSize);
+    }
+
+    /**
+     * Finds the first position whose timestamp is greater than the given one.
+     */
+    private int upperBound(long timestamp) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (columns.timestamps[mid] <= timestamp) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    @Override
+    public long getSizeInBytes() {
+        return (long) columns.timestamps.length * Long.BYTES + (long) columns.prices.length * Double.BYTES
+                + columns.rangeIndex.getSizeInBytes()
+                + super.getSizeInBytes();
+    }
+
+    @Override
+    void aggregate(PriceAggregator aggregator, int from, int to) {
+        aggregator.accept(columns.timestamps, columns.prices, from, to);
+    }
+
+    /**
+     * The arrays and the index shared by a series and its appended copies.
+     */
+    private static final class Columns {
+
+        private final long[] timestamps;
+
+        private final double[] prices;
+
+        private final PriceRangeIndex rangeIndex;
+
+        /**
+         * The number of positions written so far, by the series or one of its appended copies.
+         */
+        private int claimedSize;
+
+        private Columns(long[] timestamps, double[] prices, int size) {
+            this.timestamps = timestamps;
+            this.prices = prices;
+            this.rangeIndex = new PriceRangeIndex(prices, size, prices.length);
+            this.claimedSize = size;
+        }
+
+        /**
+         * Claims the positions [size, newSize) for a series of the given size, copying the columns into larger arrays
+         * if they are too small or if those positions were already claimed by another series.
+         */
+        private synchronized Columns claim(int size, int newSize) {
+            if (claimedSize == size && newSize <= timestamps.length) {
+                claimedSize = newSize;
+                return this;
+            }
+
+            int capacity = Math.max(newSize, size + (size >> 1));
+            long[] timestampsCopy = new long[capacity];
+            double[] pricesCopy = new double[capacity];
+            System.arraycopy(timestamps, 0, timestampsCopy, 0, size);
+            System.arraycopy(prices, 0, pricesCopy, 0, size);
+
+            Columns copy = new Columns(timestampsCopy, pricesCopy, size);
+            copy.claimedSize = newSize;
+            return copy;
+        }
+
+        private void set(int index, long timestamp, double price) {
+            timestamps[index] = timestamp;
+            prices[index] = price;
+            rangeIndex.set(index, price);
+        }
+    }
+}
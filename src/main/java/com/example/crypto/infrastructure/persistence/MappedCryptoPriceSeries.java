@@ -0,0 +1,91 @@
+package com.example.crypto.infrastructure.persistence;
+
+import java.nio.DoubleBuffer;
+import java.nio.LongBuffer;
+import java.util.List;
+
+/**
+ * A price series whose columns are read zero-copy from a memory-mapped {@link BinaryPriceFile}. Only the daily
+ * rollups are kept on the heap: the min and max price of a slice are merged from them, scanning the mapped columns
+ * for the partial days at its edges only.
+ * <p>
+ * The mapped rows are never copied : the prices appended to the series are kept in a {@link HeapCryptoPriceSeries}
+ * following them, which late prices are merged into. The prices older than the last mapped one cannot be inserted
+ * among the mapped rows, so they are dropped.
+ */
+final class MappedCryptoPriceSeries extends CryptoPriceSeries {
+
+    private final LongBuffer timestamps;
+
+    private final DoubleBuffer prices;
+
+    private final int mappedSize;
+
+    private final DailyRollups mappedRollups;
+
+    private final CryptoPriceSeries tail;
+
+    MappedCryptoPriceSeries(String symbol, LongBuffer timestamps, DoubleBuffer prices) {
+        this(symbol, timestamps, prices, DailyRollups.of(symbol, timestamps, prices, timestamps.limit()),
+                CryptoPriceSeries.of(symbol, List.of()));
+    }
+
+    private MappedCryptoPriceSeries(String symbol, LongBuffer timestamps, DoubleBuffer prices,
+                                    DailyRollups mappedRollups, CryptoPriceSeries tail) {
+        super(symbol, mappedRollups.concat(symbol, tail.getDailyRollups()));
+        this.timestamps = timestamps;
+        this.prices = prices;
+        this.mappedSize = timestamps.limit();
+        this.mappedRollups = mappedRollups;
+        this.tail = tail;
+    }
+
+    @Override
+    public int size() {
+        return mappedSize + tail.size();
+    }
+
+    @Override
+    public long timestampAt(int index) {
+        return index < mappedSize ? timestamps.get(index) : tail.timestampAt(index - mappedSize);
+    }
+
+    @Override
+    public double priceAt(int index) {
+        return index < mappedSize ? prices.get(index) : tail.priceAt(index - mappedSize);
+    }
+
+    @Override
+    public CryptoPriceSeries append(PriceColumns columns) {
+        PriceColumns appended = columns.since(getAppendableFrom());
+        if (appended.size() == 0) {
+            return this;
+        }
+        return new MappedCryptoPriceSeries(getSymbol(), timestamps, prices, mappedRollups, tail.append(appended));
+    }
+
+    @Override
+    public long getAppendableFrom() {
+        return mappedSize > 0 ? timestamps.get(mappedSize - 1) : Long.MIN_VALUE;
+    }
+
+    @Override
+    public long getSizeInBytes() {
+        return tail.getSizeInBytes() + super.getSizeInBytes();
+    }
+
+    @Override
+    public long getMappedSizeInBytes() {
+        return (long) mappedSize * (Long.BYTES + Double.BYTES);
+    }
+
+    @Override
+    void aggregate(PriceAggregator aggregator, int from, int to) {
+        if (from < mappedSize) {
+            aggregator.accept(timestamps, prices, from, Math.min(to, mappedSize));
+        }
+        if (to > mappedSize) {
+            tail.aggregate(aggregator, Math.max(from, mappedSize) - mappedSize, to - mappedSize);
+        }
+    }
+}
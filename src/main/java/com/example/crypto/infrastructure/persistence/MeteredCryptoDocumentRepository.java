@@ -0,0 +1,144 @@
+package com.example.crypto.infrastructure.persistence;
+
+import com.example.crypto.infrastructure.metrics.ReactiveTimers;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * A {@link CryptoDocumentRepository} recording the queries of its delegate : their latency into the
+ * {@code crypto.repository} timer, and the prices they cover and the rows they return into the
+ * {@code crypto.repository.rows.scanned} and {@code crypto.repository.rows.returned} counters, all tagged by operation
+ * and symbol. A summary returns a single row, and scans the prices it summarizes.
+ */
+@RequiredArgsConstructor
+public class MeteredCryptoDocumentRepository implements CryptoDocumentRepository {
+
+    static final String TIMER = "crypto.repository";
+
+    static final String ROWS_SCANNED = "crypto.repository.rows.scanned";
+
+    static final String ROWS_RETURNED = "crypto.repository.rows.returned";
+
+    // the symbol tag of the queries over every crypto
+    static final String ALL_SYMBOLS = "all";
+
+    // the symbol tag of the unknown symbols, and of the ones beyond the capacity of the registry, which are not tagged
+    // as such so that neither the clients nor the price files can create meters
+    static final String UNKNOWN_SYMBOL = "unknown";
+
+    private final CryptoDocumentRepository delegate;
+
+    private final CryptoSymbolRegistry symbolRegistry;
+
+    private final MeterRegistry meterRegistry;
+
+    @Override
+    public Flux<CryptoPriceDocument> findAllByDateRange(LocalDate dateFrom, LocalDate dateTo) {
+        return documents("findAllByDateRange", ALL_SYMBOLS, delegate.findAllByDateRange(dateFrom, dateTo));
+    }
+
+    @Override
+    public Flux<CryptoPriceDocument> findBySymbolAndDateRange(String symbol, LocalDate dateFrom, LocalDate dateTo) {
+        return documents("findBySymbolAndDateRange", symbol,
+                delegate.findBySymbolAndDateRange(symbol, dateFrom, dateTo));
+    }
+
+    @Override
+    public Mono<CryptoPriceBounds> findBoundsBySymbolAndDateRange(String symbol, LocalDate dateFrom, LocalDate dateTo) {
+        return bounds("findBoundsBySymbolAndDateRange", symbol,
+                delegate.findBoundsBySymbolAndDateRange(symbol, dateFrom, dateTo).flux())
+                .singleOrEmpty();
+    }
+
+    @Override
+    public Flux<CryptoPriceRollingBounds> findRollingBoundsBySymbolAndDateRange(String symbol, LocalDate dateFrom,
+                                                                                LocalDate dateTo, Duration window,
+                                                                                Duration step) {
+        Tags tags = tags("findRollingBoundsBySymbolAndDateRange", symbol);
+
+        // the windows overlap and share their prices, so each one is counted as a single row scanned
+        return ReactiveTimers.timed(meterRegistry, TIMER, tags, Flux.defer(() -> {
+            long[] rows = new long[1];
+            return delegate.findRollingBoundsBySymbolAndDateRange(symbol, dateFrom, dateTo, window, step)
+                    .doOnNext(rollingBounds -> rows[0]++)
+                    .doFinally(signal -> count(tags, rows[0], rows[0]));
+        }));
+    }
+
+    @Override
+    public Flux<CryptoPriceWindowBounds> findBoundsBySymbolsAndTimeWindows(List<String> symbols,
+                                                                           List<TimeRange> windows) {
+        Tags tags = tags("findBoundsBySymbolsAndTimeWindows", ALL_SYMBOLS);
+
+        return ReactiveTimers.timed(meterRegistry, TIMER, tags, Flux.defer(() -> {
+            long[] rows = new long[2];
+            return delegate.findBoundsBySymbolsAndTimeWindows(symbols, windows)
+                    .doOnNext(windowBounds -> {
+                        rows[0] += windowBounds.bounds().count();
+                        rows[1]++;
+                    })
+                    .doFinally(signal -> count(tags, rows[0], rows[1]));
+        }));
+    }
+
+    @Override
+    public Flux<CryptoPriceBounds> findAllBoundsByDateRange(LocalDate dateFrom, LocalDate dateTo) {
+        return bounds("findAllBoundsByDateRange", ALL_SYMBOLS, delegate.findAllBoundsByDateRange(dateFrom, dateTo));
+    }
+
+    @Override
+    public Flux<CryptoPriceBounds> findDailyBoundsByDateRange(LocalDate dateFrom, LocalDate dateTo) {
+        return bounds("findDailyBoundsByDateRange", ALL_SYMBOLS, delegate.findDailyBoundsByDateRange(dateFrom, dateTo));
+    }
+
+    @Override
+    public Mono<CryptoDataVersion> saveAll(List<CryptoPriceDocument> documents) {
+        return ReactiveTimers.timed(meterRegistry, TIMER, tags("saveAll", ALL_SYMBOLS),
+                delegate.saveAll(documents));
+    }
+
+    @Override
+    public Flux<CryptoPriceDocument> findAllByDate(LocalDate day) {
+        return documents("findAllByDate", ALL_SYMBOLS, delegate.findAllByDate(day));
+    }
+
+    private Flux<CryptoPriceDocument> documents(String operation, String symbol, Flux<CryptoPriceDocument> source) {
+        Tags tags = tags(operation, symbol);
+
+        return ReactiveTimers.timed(meterRegistry, TIMER, tags, Flux.defer(() -> {
+            long[] rows = new long[1];
+            return source.doOnNext(document -> rows[0]++)
+                    .doFinally(signal -> count(tags, rows[0], rows[0]));
+        }));
+    }
+
+    private Flux<CryptoPriceBounds> bounds(String operation, String symbol, Flux<CryptoPriceBounds> source) {
+        Tags tags = tags(operation, symbol);
+
+        return ReactiveTimers.timed(meterRegistry, TIMER, tags, Flux.defer(() -> {
+            long[] rows = new long[2];
+            return source.doOnNext(bounds -> {
+                        rows[0] += bounds.count();
+                        rows[1]++;
+                    })
+                    .doFinally(signal -> count(tags, rows[0], rows[1]));
+        }));
+    }
+
+    private void count(Tags tags, long scanned, long returned) {
+        meterRegistry.counter(ROWS_SCANNED, tags).increment(scanned);
+        meterRegistry.counter(ROWS_RETURNED, tags).increment(returned);
+    }
+
+    private Tags tags(String operation, String symbol) {
+        String symbolTag = ALL_SYMBOLS.equals(symbol) || symbolRegistry.isWithinCapacity(symbol)
+                ? symbol : UNKNOWN_SYMBOL;
+        return Tags.of("operation", operation, "symbol", symbolTag);
+    }
+}
@@ -0,0 +1,197 @@
+package com.example.crypto.infrastructure.persistence;
+
+import java.nio.DoubleBuffer;
+import java.nio.LongBuffer;
+
+/**
+ * A single-pass aggregation kernel over primitive prices. It folds ticks (or already aggregated summaries) given in
+ * time order into their first, last, min and max prices and their count, without boxing any value or allocating any
+ * intermediate collection. An instance is mutable and meant to be confined to a single computation.
+ */
+public final class PriceAggregator {
+
+    private long firstTimestamp;
+
+    private long lastTimestamp;
+
+    private double firstPrice;
+
+    private double lastPrice;
+
+    private double minPrice = Double.POSITIVE_INFINITY;
+
+    private double maxPrice = Double.NEGATIVE_INFINITY;
+
+    private long count;
+
+    /**
+     * Folds a single tick, newer than all the previous ones.
+     *
+     * @param timestamp The tick's epoch milliseconds.
+     * @param price     The tick's price.
+     * @return This aggregator
+     */
+    public PriceAggregator accept(long timestamp, double price) {
+        if (count == 0) {
+            firstTimestamp = timestamp;
+            firstPrice = price;
+        }
+        lastTimestamp = timestamp;
+        lastPrice = price;
+        minPrice = Math.min(minPrice, price);
+        maxPrice = Math.max(maxPrice, price);
+        count++;
+        return this;
+    }
+
+    /**
+     * Folds a slice of time-sorted columns, newer than all the previous ticks.
+     *
+     * @param timestamps The timestamp column.
+     * @param prices     The price column.
+     * @param from       The first position, inclusive.
+     * @param to         The last position, exclusive.
+     * @return This aggregator
+     */
+    public PriceAggregator accept(long[] timestamps, double[] prices, int from, int to) {
+        if (from >= to) {
+            return this;
+        }
+        if (count == 0) {
+            firstTimestamp = timestamps[from];
+            firstPrice = prices[from];
+        }
+
+        double min = minPrice;
+        double max = maxPrice;
+        for (int i = from; i < to; i++) {
+            double price = prices[i];
+            min = Math.min(min, price);
+            max = Math.max(max, price);
+        }
+
+        minPrice = min;
+        maxPrice = max;
+        lastTimestamp = timestamps[to - 1];
+        lastPrice = prices[to - 1];
+        count += to - from;
+        return this;
+    }
+
+    /**
+     * Folds a slice of time-sorted columns held in buffers, typically memory-mapped, newer than all the previous
+     * ticks. Only absolute reads are used, so the buffers may be shared between threads.
+     *
+     * @param timestamps The timestamp column.
+     * @param prices     The price column.
+     * @param from       The first position, inclusive.
+     * @param to         The last position, exclusive.
+     * @return This aggregator
+     */
+    public PriceAggregator accept(LongBuffer timestamps, DoubleBuffer prices, int from, int to) {
+        if (from >= to) {
+            return this;
+        }
+        if (count == 0) {
+            firstTimestamp = timestamps.get(from);
+            firstPrice = prices.get(from);
+        }
+
+        double min = minPrice;
+        double max = maxPrice;
+        for (int i = from; i < to; i++) {
+            double price = prices.get(i);
+            min = Math.min(min, price);
+            max = Math.max(max, price);
+        }
+
+        minPrice = min;
+        maxPrice = max;
+        lastTimestamp = timestamps.get(to - 1);
+        lastPrice = prices.get(to - 1);
+        count += to - from;
+        return this;
+    }
+
+    /**
+     * Folds a summary of ticks, newer than all the previous ones.
+     *
+     * @param bounds The summary.
+     * @return This aggregator
+     */
+    public PriceAggregator accept(CryptoPriceBounds bounds) {
+        if (bounds.count() == 0) {
+            return this;
+        }
+        if (count == 0) {
+            firstTimestamp = bounds.firstTimestamp();
+            firstPrice = bounds.firstPrice();
+        }
+        lastTimestamp = bounds.lastTimestamp();
+        lastPrice = bounds.lastPrice();
+        minPrice = Math.min(minPrice, bounds.minPrice());
+        maxPrice = Math.max(maxPrice, bounds.maxPrice());
+        count += bounds.count();
+        return this;
+    }
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    public double getFirstPrice() {
+        return firstPrice;
+    }
+
+    public double getLastPrice() {
+        return lastPrice;
+    }
+
+    public double getMinPrice() {
+        return minPrice;
+    }
+
+    public double getMaxPrice() {
+        return maxPrice;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Calculates the normalized range (i.e. (max-min)/min) of the folded prices.
+     *
+     * @return The normalized range
+     */
+    public double getNormalizedRange() {
+        return (maxPrice - minPrice) / minPrice;
+    }
+
+    /**
+     * Creates the summary of the folded prices.
+     *
+     * @param symbol The crypto symbol.
+     * @return A CryptoPriceBounds
+     */
+    public CryptoPriceBounds toBounds(String symbol) {
+        return new CryptoPriceBounds(symbol,
+                firstTimestamp, lastTimestamp, firstPrice, lastPrice, minPrice, maxPrice, count);
+    }
+
+    /**
+     * Clears the aggregator, so that it can be reused for another computation.
+     *
+     * @return This aggregator
+     */
+    public PriceAggregator reset() {
+        firstTimestamp = 0;
+        lastTimestamp = 0;
+        firstPrice = 0;
+        lastPrice = 0;
+        minPrice = Double.POSITIVE_INFINITY;
+        maxPrice = Double.NEGATIVE_INFINITY;
+        count = 0;
+        return this;
+    }
+}
@@ -0,0 +1,211 @@
+package com.example.crypto.infrastructure.persistence;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Growable timestamp and price columns, filled row by row while a price file is parsed. They are then handed over to
+ * a {@link CryptoPriceSeries} without any copy, so the columns must not be modified once a series is built from them.
+ */
+public final class PriceColumns {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private long[] timestamps;
+
+    private double[] prices;
+
+    private int size;
+
+    public PriceColumns() {
+        this(INITIAL_CAPACITY);
+    }
+
+    public PriceColumns(int capacity) {
+        this.timestamps = new long[capacity];
+        this.prices = new double[capacity];
+    }
+
+    /**
+     * Copies the given documents into columns.
+     *
+     * @param documents The documents to copy.
+     * @return A PriceColumns
+     */
+    public static PriceColumns of(List<CryptoPriceDocument> documents) {
+        PriceColumns columns = new PriceColumns(documents.size());
+        documents.forEach(document -> columns.add(document.timestamp().getTime(), document.price()));
+        return columns;
+    }
+
+    /**
+     * Copies the rows of the given series into columns.
+     *
+     * @param series The series to copy.
+     * @return A PriceColumns
+     */
+    static PriceColumns of(CryptoPriceSeries series) {
+        PriceColumns columns = new PriceColumns(series.size());
+        for (int i = 0; i < series.size(); i++) {
+            columns.add(series.timestampAt(i), series.priceAt(i));
+        }
+        return columns;
+    }
+
+    /**
+     * Concatenates the given columns, in order.
+     *
+     * @param parts The columns to concatenate.
+     * @return A PriceColumns
+     */
+    public static PriceColumns concat(List<PriceColumns> parts) {
+        if (parts.size() == 1) {
+            return parts.get(0);
+        }
+
+        PriceColumns columns = new PriceColumns(Math.max(1, parts.stream().mapToInt(PriceColumns::size).sum()));
+        for (PriceColumns part : parts) {
+            System.arraycopy(part.timestamps, 0, columns.timestamps, columns.size, part.size);
+            System.arraycopy(part.prices, 0, columns.prices, columns.size, part.size);
+            columns.size += part.size;
+        }
+        return columns;
+    }
+
+    /**
+     * Appends a row to the columns.
+     *
+     * @param timestamp The epoch millis of the price.
+     * @param price     The price.
+     */
+    public void add(long timestamp, double price) {
+        if (size == timestamps.length) {
+            int capacity = Math.max(INITIAL_CAPACITY, size + (size >> 1));
+            timestamps = Arrays.copyOf(timestamps, capacity);
+            prices = Arrays.copyOf(prices, capacity);
+        }
+        timestamps[size] = timestamp;
+        prices[size] = price;
+        size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Copies the columns, so that a second series can be built from them.
+     *
+     * @return A PriceColumns
+     */
+    PriceColumns copy() {
+        PriceColumns columns = new PriceColumns(size);
+        System.arraycopy(timestamps, 0, columns.timestamps, 0, size);
+        System.arraycopy(prices, 0, columns.prices, 0, size);
+        columns.size = size;
+        return columns;
+    }
+
+    public long timestampAt(int index) {
+        return timestamps[index];
+    }
+
+    public double priceAt(int index) {
+        return prices[index];
+    }
+
+    long[] getTimestamps() {
+        return timestamps;
+    }
+
+    double[] getPrices() {
+        return prices;
+    }
+
+    /**
+     * Sorts the rows by timestamp, keeping the file order of equal timestamps. The price files are usually already
+     * sorted, in which case nothing is copied.
+     */
+    void sortByTimestamp() {
+        if (isSorted()) {
+            return;
+        }
+
+        // a bottom-up merge sort of the row positions, so that no row has to be boxed
+        int[] order = new int[size];
+        int[] merged = new int[size];
+        Arrays.setAll(order, i -> i);
+        for (int width = 1; width < size; width *= 2) {
+            for (int low = 0; low < size; low += 2 * width) {
+                merge(order, merged, low, Math.min(low + width, size), Math.min(low + 2 * width, size));
+            }
+            int[] swap = order;
+            order = merged;
+            merged = swap;
+        }
+
+        long[] sortedTimestamps = new long[timestamps.length];
+        double[] sortedPrices = new double[prices.length];
+        for (int i = 0; i < size; i++) {
+            sortedTimestamps[i] = timestamps[order[i]];
+            sortedPrices[i] = prices[order[i]];
+        }
+        timestamps = sortedTimestamps;
+        prices = sortedPrices;
+    }
+
+    private boolean isSorted() {
+        return isSortedFrom(Long.MIN_VALUE);
+    }
+
+    /**
+     * Checks whether the rows are sorted by timestamp, none of them being older than the given timestamp.
+     *
+     * @param timestamp The epoch millis of the last row preceding these ones.
+     * @return true if the rows can be appended as they are
+     */
+    boolean isSortedFrom(long timestamp) {
+        long previous = timestamp;
+        for (int i = 0; i < size; i++) {
+            if (timestamps[i] < previous) {
+                return false;
+            }
+            previous = timestamps[i];
+        }
+        return true;
+    }
+
+    /**
+     * Keeps the rows which are not older than the given timestamp.
+     *
+     * @param timestamp The epoch millis of the oldest row to keep.
+     * @return These columns if no row is dropped, or a copy of the kept rows
+     */
+    PriceColumns since(long timestamp) {
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            kept += timestamps[i] >= timestamp ? 1 : 0;
+        }
+        if (kept == size) {
+            return this;
+        }
+
+        PriceColumns columns = new PriceColumns(Math.max(1, kept));
+        for (int i = 0; i < size; i++) {
+            if (timestamps[i] >= timestamp) {
+                columns.add(timestamps[i], prices[i]);
+            }
+        }
+        return columns;
+    }
+
+    private void merge(int[] order, int[] merged, int low, int middle, int high) {
+        for (int left = low, right = middle, i = low; i < high; i++) {
+            if (right >= high || (left < middle && timestamps[order[left]] <= timestamps[order[right]])) {
+                merged[i] = order[left++];
+            } else {
+                merged[i] = order[right++];
+            }
+        }
+    }
+}
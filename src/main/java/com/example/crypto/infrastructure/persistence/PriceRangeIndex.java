@@ -0,0 +1,109 @@
+package com.example.crypto.infrastructure.persistence;
+
+import java.util.Arrays;
+
+/**
+ * A segment tree over a price column, answering the min and the max price of any contiguous slice in O(log n). The
+ * tree is kept bottom-up in two arrays of 2n nodes, n being the capacity of the column : the leaves are stored at
+ * [n, 2n) and every node i above them holds the min (resp. max) of its children 2i and 2i + 1.
+ * <p>
+ * Prices can be appended to the unused leaves in O(log n). Appending only updates the nodes covering the new
+ * positions, which a query on the previous positions never reads, so the tree can be shared by a series and the
+ * appended copies of it.
+ */
+final class PriceRangeIndex {
+
+    private final int size;
+
+    private final double[] minTree;
+
+    private final double[] maxTree;
+
+    PriceRangeIndex(double[] prices, int size) {
+        this(prices, size, size);
+    }
+
+    PriceRangeIndex(double[] prices, int size, int capacity) {
+        this.size = capacity;
+        this.minTree = new double[2 * capacity];
+        this.maxTree = new double[2 * capacity];
+
+        System.arraycopy(prices, 0, minTree, capacity, size);
+        System.arraycopy(prices, 0, maxTree, capacity, size);
+        Arrays.fill(minTree, capacity + size, 2 * capacity, Double.POSITIVE_INFINITY);
+        Arrays.fill(maxTree, capacity + size, 2 * capacity, Double.NEGATIVE_INFINITY);
+        for (int i = capacity - 1; i > 0; i--) {
+            minTree[i] = Math.min(minTree[2 * i], minTree[2 * i + 1]);
+            maxTree[i] = Math.max(maxTree[2 * i], maxTree[2 * i + 1]);
+        }
+    }
+
+    int capacity() {
+        return size;
+    }
+
+    /**
+     * Sets the price of an unused position, and updates the nodes above it.
+     *
+     * @param index The position, lower than the capacity.
+     * @param price The price.
+     */
+    void set(int index, double price) {
+        int node = index + size;
+        minTree[node] = price;
+        maxTree[node] = price;
+        for (node >>= 1; node > 0; node >>= 1) {
+            minTree[node] = Math.min(minTree[2 * node], minTree[2 * node + 1]);
+            maxTree[node] = Math.max(maxTree[2 * node], maxTree[2 * node + 1]);
+        }
+    }
+
+    /**
+     * Finds the min price of the given slice.
+     *
+     * @param from The first position, inclusive.
+     * @param to   The last position, exclusive.
+     * @return The min price, or positive infinity if the slice is empty
+     */
+    double min(int from, int to) {
+        double min = Double.POSITIVE_INFINITY;
+        for (int low = from + size, high = to + size; low < high; low >>= 1, high >>= 1) {
+            if ((low & 1) == 1) {
+                min = Math.min(min, minTree[low++]);
+            }
+            if ((high & 1) == 1) {
+                min = Math.min(min, minTree[--high]);
+            }
+        }
+        return min;
+    }
+
+    /**
+     * Finds the max price of the given slice.
+     *
+     * @param from The first position, inclusive.
+     * @param to   The last position, exclusive.
+     * @return The max price, or negative infinity if the slice is empty
+     */
+    double max(int from, int to) {
+        double max = Double.NEGATIVE_INFINITY;
+        for (int low = from + size, high = to + size; low < high; low >>= 1, high >>= 1) {
+            if ((low & 1) == 1) {
+                max = Math.max(max, maxTree[low++]);
+            }
+            if ((high & 1) == 1) {
+                max = Math.max(max, maxTree[--high]);
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Calculates the heap used by the tree.
+     *
+     * @return The size in bytes
+     */
+    long getSizeInBytes() {
+        return 4L * size * Double.BYTES;
+    }
+}
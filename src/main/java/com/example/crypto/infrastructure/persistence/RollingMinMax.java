@@ -0,0 +1,186 @@
+package com.example.crypto.infrastructure.persistence;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Slides a window of fixed duration over the prices of a series falling inside a range, summarizing the window at
+ * every step. The window ends are sampled from the start of the range plus the window, or from the first price plus
+ * the window when the range has no start, until an end reaches the end of the range, or the last price when it has
+ * none; the windows holding no prices are skipped.
+ * <p>
+ * The window is the slice [lo, hi) of the series, both ends only moving forward, and its min and max prices are read
+ * from the front of two monotonic deques of indices : the min deque holds increasing prices and the max deque
+ * decreasing ones, an index being dropped from the back when a better price arrives and from the front when it
+ * leaves the window. Every index enters and leaves each deque once, so the whole series is summarized in O(n)
+ * however much the windows overlap.
+ */
+final class RollingMinMax implements Iterator<CryptoPriceRollingBounds> {
+
+    private final CryptoPriceSeries series;
+
+    private final long window;
+
+    private final long step;
+
+    private final int end;
+
+    private final long firstEnd;
+
+    private final long rangeEnd;
+
+    private final IndexDeque minDeque = new IndexDeque();
+
+    private final IndexDeque maxDeque = new IndexDeque();
+
+    private int lo;
+
+    private int hi;
+
+    private long windowEnd;
+
+    private CryptoPriceRollingBounds next;
+
+    /**
+     * @param series The price series.
+     * @param range  The time range of the prices to summarize.
+     * @param window The duration of the window in milliseconds, positive and small enough for the window ends to
+     *               fit in a long, e.g. at most a century.
+     * @param step   The duration between two window ends in milliseconds, positive and bounded like the window.
+     */
+    RollingMinMax(CryptoPriceSeries series, TimeRange range, long window, long step) {
+        this.series = series;
+        this.window = window;
+        this.step = step;
+        this.lo = series.startOf(range);
+        this.hi = lo;
+        this.end = series.endOf(range);
+
+        boolean empty = lo >= end;
+        long start = range.fromInclusive() != Long.MIN_VALUE || empty ? range.fromInclusive() : series.timestampAt(lo);
+        this.firstEnd = start + window;
+        this.windowEnd = firstEnd;
+        this.rangeEnd = range.toExclusive() != Long.MAX_VALUE || empty
+                ? range.toExclusive() : series.timestampAt(end - 1) + 1;
+        this.next = empty ? null : advance();
+    }
+
+    @Override
+    public boolean hasNext() {
+        return next != null;
+    }
+
+    @Override
+    public CryptoPriceRollingBounds next() {
+        if (next == null) {
+            throw new NoSuchElementException();
+        }
+        CryptoPriceRollingBounds current = next;
+        next = advance();
+        return current;
+    }
+
+    /**
+     * Slides the window to the next end holding prices.
+     *
+     * @return The summary of the window, or null once the range is covered
+     */
+    private CryptoPriceRollingBounds advance() {
+
+        while (windowEnd - step < rangeEnd) {
+            long current = windowEnd;
+            windowEnd += step;
+
+            while (hi < end && series.timestampAt(hi) < current) {
+                push(hi++);
+            }
+            long windowStart = current - window;
+            while (lo < hi && series.timestampAt(lo) < windowStart) {
+                lo++;
+            }
+            minDeque.dropFrontBelow(lo);
+            maxDeque.dropFrontBelow(lo);
+
+            if (lo < hi) {
+                return new CryptoPriceRollingBounds(current, bounds());
+            }
+            if (hi == end) {
+                return null;
+            }
+            // a gap in the prices : jump to the first end after the next price rather than stepping over empty windows
+            long nextPrice = series.timestampAt(hi);
+            if (windowEnd <= nextPrice) {
+                windowEnd = firstEnd + ((nextPrice - firstEnd) / step + 1) * step;
+            }
+        }
+        return null;
+    }
+
+    private void push(int index) {
+        double price = series.priceAt(index);
+        while (!minDeque.isEmpty() && series.priceAt(minDeque.back()) >= price) {
+            minDeque.popBack();
+        }
+        minDeque.pushBack(index);
+        while (!maxDeque.isEmpty() && series.priceAt(maxDeque.back()) <= price) {
+            maxDeque.popBack();
+        }
+        maxDeque.pushBack(index);
+    }
+
+    private CryptoPriceBounds bounds() {
+        return new CryptoPriceBounds(series.getSymbol(),
+                series.timestampAt(lo), series.timestampAt(hi - 1),
+                series.priceAt(lo), series.priceAt(hi - 1),
+                series.priceAt(minDeque.front()), series.priceAt(maxDeque.front()),
+                hi - lo);
+    }
+
+    /**
+     * A growable ring buffer of increasing indices.
+     */
+    private static final class IndexDeque {
+
+        private int[] indices = new int[16];
+
+        private int head;
+
+        private int size;
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        int front() {
+            return indices[head];
+        }
+
+        int back() {
+            return indices[(head + size - 1) & (indices.length - 1)];
+        }
+
+        void pushBack(int index) {
+            if (size == indices.length) {
+                int[] grown = new int[indices.length * 2];
+                for (int i = 0; i < size; i++) {
+                    grown[i] = indices[(head + i) & (indices.length - 1)];
+                }
+                indices = grown;
+                head = 0;
+            }
+            indices[(head + size) & (indices.length - 1)] = index;
+            size++;
+        }
+
+        void popBack() {
+            size--;
+        }
+
+        void dropFrontBelow(int index) {
+            while (size > 0 && indices[head] < index) {
+                head = (head + 1) & (indices.length - 1);
+                size--;
+            }
+        }
+    }
+}
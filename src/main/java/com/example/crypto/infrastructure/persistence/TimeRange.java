@@ -0,0 +1,56 @@
+package com.example.crypto.infrastructure.persistence;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+
+/**
+ * A half-open range of epoch milliseconds, i.e. [fromInclusive, toExclusive).
+ */
+public record TimeRange(long fromInclusive, long toExclusive) {
+
+    /**
+     * Creates the range covering whole days, from the start of dateFrom to the end of dateTo. A missing date leaves
+     * the corresponding side of the range unbounded.
+     *
+     * @param dateFrom   The starting date, inclusive.
+     * @param dateTo     The end date, inclusive.
+     * @return A TimeRange
+     */
+    public static TimeRange of(LocalDate dateFrom, LocalDate dateTo) {
+        long from = dateFrom == null ? Long.MIN_VALUE : startOfDay(dateFrom);
+        long to = dateTo == null ? Long.MAX_VALUE : startOfDay(dateTo.plusDays(1));
+
+        return new TimeRange(from, to);
+    }
+
+    /**
+     * Creates the range covering the given day.
+     *
+     * @param day The day.
+     * @return A TimeRange
+     */
+    public static TimeRange ofDay(LocalDate day) {
+        return of(day, day);
+    }
+
+    /**
+     * Calculates the start of the given day, in the system time zone.
+     *
+     * @param day The day.
+     * @return The epoch milliseconds of the day's start
+     */
+    public static long startOfDay(LocalDate day) {
+        return day.atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    /**
+     * Calculates the day of the given epoch milliseconds, in the system time zone.
+     *
+     * @param timestamp The epoch milliseconds.
+     * @return The day
+     */
+    public static LocalDate dayOf(long timestamp) {
+        return LocalDate.ofInstant(Instant.ofEpochMilli(timestamp), ZoneId.systemDefault());
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.crypto.infrastructure.util;
+
+import com.example.crypto.infrastructure.persistence.BinaryPriceFile;
+import com.example.crypto.infrastructure.persistence.CryptoPriceSeries;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Converts the {@code <SYMBOL>_values.csv} price files of a directory into {@link BinaryPriceFile}s, which can then
+ * be memory-mapped by the price store.
+ */
+@RequiredArgsConstructor
+public class CryptoPriceFileConverter {
+
+    private final FileCryptoReader fileCryptoReader;
+
+    /**
+     * Converts all the csv price files of the input directory.
+     *
+     * @param inputDirectory   The directory holding the csv files.
+     * @param outputDirectory  The directory to write the binary files to.
+     * @return The binary files written
+     * @throws IOException If a file cannot be read or written
+     */
+    public List<Path> convert(Path inputDirectory, Path outputDirectory) throws IOException {
+
+        Files.createDirectories(outputDirectory);
+
+        List<Path> csvFiles;
+        try (Stream<Path> files = Files.list(inputDirectory)) {
+            csvFiles = files
+                    .filter(file -> file.getFileName().toString().endsWith(FileCryptoReader.CSV_SUFFIX))
+                    .sorted()
+                    .toList();
+        }
+
+        List<Path> binaryFiles = new ArrayList<>();
+        for (Path csvFile : csvFiles) {
+            String symbol = FileCryptoReader.symbolOf(csvFile);
+
+            Path binaryFile = outputDirectory.resolve(symbol + BinaryPriceFile.EXTENSION);
+            BinaryPriceFile.write(binaryFile,
+                    CryptoPriceSeries.of(symbol, fileCryptoReader.readPriceColumns(csvFile)));
+            binaryFiles.add(binaryFile);
+        }
+
+        return binaryFiles;
+    }
+
+    /**
+     * Converts the csv price files of a directory.
+     *
+     * @param args The input directory and the output directory.
+     * @throws IOException If a file cannot be read or written
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: CryptoPriceFileConverter <csv directory> <binary directory>");
+            System.exit(1);
+        }
+
+        List<Path> binaryFiles = new CryptoPriceFileConverter(new FileCryptoReader())
+                .convert(Paths.get(args[0]), Paths.get(args[1]));
+
+        binaryFiles.forEach(file -> System.out.println("Converted " + file));
+    }
+}
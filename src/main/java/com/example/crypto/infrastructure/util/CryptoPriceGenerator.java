@@ -0,0 +1,218 @@
+package com.example.crypto.infrastructure.util;
+
+import com.example.crypto.infrastructure.persistence.BinaryPriceFile;
+import com.example.crypto.infrastructure.persistence.CryptoPriceSeries;
+import com.example.crypto.infrastructure.persistence.PriceColumns;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Generates synthetic price files for scale testing : each crypto is a geometric random walk, one tick per interval
+ * from the start of dateFrom to the end of dateTo, seeded by the seed and its symbol so that the same arguments always
+ * give the same prices. The days are UTC ones, so that the same files are generated whatever the time zone.
+ */
+@RequiredArgsConstructor
+public class CryptoPriceGenerator {
+
+    /**
+     * The formats the price files can be written in.
+     */
+    public enum Format {
+        CSV, BINARY
+    }
+
+    private static final String CSV_HEADER = "timestamp,symbol,price";
+
+    // the standard deviation of the log return of a tick, for a one minute interval
+    private static final double MINUTE_VOLATILITY = 0.0008;
+
+    private final long seed;
+
+    private final Duration interval;
+
+    private final LocalDate dateFrom;
+
+    private final LocalDate dateTo;
+
+    /**
+     * Names the crypto of the given index : AAA, AAB, ... ZZZ, then AAAA and so on.
+     *
+     * @param index The index of the crypto.
+     * @return The crypto symbol
+     */
+    public static String symbolOf(int index) {
+        int length = 3;
+        int count = 26 * 26 * 26;
+        while (index >= count) {
+            index -= count;
+            count *= 26;
+            length++;
+        }
+
+        char[] symbol = new char[length];
+        for (int i = length - 1; i >= 0; i--) {
+            symbol[i] = (char) ('A' + index % 26);
+            index /= 26;
+        }
+        return new String(symbol);
+    }
+
+    /**
+     * Calculates the number of ticks of every crypto.
+     *
+     * @return The number of ticks
+     */
+    public int rows() {
+        long span = startOfDay(dateTo.plusDays(1)) - startOfDay(dateFrom);
+        return Math.toIntExact(span / interval.toMillis());
+    }
+
+    /**
+     * Generates the prices of a crypto over the whole date span.
+     *
+     * @param symbol The crypto symbol.
+     * @return The PriceColumns
+     */
+    public PriceColumns generate(String symbol) {
+        return generate(symbol, rows());
+    }
+
+    /**
+     * Generates the given number of ticks of a crypto, from the start of dateFrom, in UTC.
+     *
+     * @param symbol The crypto symbol.
+     * @param rows   The number of ticks.
+     * @return The PriceColumns
+     */
+    public PriceColumns generate(String symbol, int rows) {
+
+        SplittableRandom random = new SplittableRandom(seed * 31 + symbol.hashCode());
+        double volatility = MINUTE_VOLATILITY * Math.sqrt(interval.toMillis() / 60_000d);
+        long step = interval.toMillis();
+
+        // log-uniform starting prices, from a hundredth to tens of thousands
+        double price = Math.exp(random.nextDouble(Math.log(0.01), Math.log(50_000)));
+        long timestamp = startOfDay(dateFrom);
+
+        PriceColumns columns = new PriceColumns(rows);
+        for (int i = 0; i < rows; i++) {
+            columns.add(timestamp, round(price));
+            timestamp += step;
+            price *= Math.exp(volatility * random.nextGaussian());
+        }
+        return columns;
+    }
+
+    /**
+     * Writes the price files of the given number of cryptos, in parallel.
+     *
+     * @param directory The directory to write the files to.
+     * @param symbols   The number of cryptos.
+     * @param formats   The formats to write each crypto in.
+     * @return The files written
+     * @throws IOException If a file cannot be written
+     */
+    public List<Path> write(Path directory, int symbols, Set<Format> formats) throws IOException {
+
+        Files.createDirectories(directory);
+
+        List<Path> files = Collections.synchronizedList(new ArrayList<>());
+        try {
+            IntStream.range(0, symbols).parallel().forEach(index -> {
+                String symbol = symbolOf(index);
+                PriceColumns columns = generate(symbol);
+                try {
+                    if (formats.contains(Format.CSV)) {
+                        files.add(writeCsv(directory.resolve(symbol + FileCryptoReader.CSV_SUFFIX), symbol, columns));
+                    }
+                    if (formats.contains(Format.BINARY)) {
+                        Path file = directory.resolve(symbol + BinaryPriceFile.EXTENSION);
+                        BinaryPriceFile.write(file, CryptoPriceSeries.of(symbol, columns));
+                        files.add(file);
+                    }
+                }
+                catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+        catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        Collections.sort(files);
+        return files;
+    }
+
+    private static Path writeCsv(Path file, String symbol, PriceColumns columns) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+            writer.write(CSV_HEADER);
+            writer.newLine();
+
+            StringBuilder line = new StringBuilder(64);
+            for (int i = 0; i < columns.size(); i++) {
+                line.setLength(0);
+                line.append(columns.timestampAt(i)).append(',').append(symbol).append(',').append(columns.priceAt(i));
+                writer.append(line).append('\n');
+            }
+        }
+        return file;
+    }
+
+    private static long startOfDay(LocalDate day) {
+        return day.atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+    }
+
+    /**
+     * Rounds a price to the precision of the bundled price files : 2 decimals above 1000, 4 below 1, else 3.
+     */
+    private static double round(double price) {
+        double scale = price >= 1000 ? 100 : price >= 1 ? 1000 : 10_000;
+        return Math.max(Math.round(price * scale), 1) / scale;
+    }
+
+    /**
+     * Writes synthetic price files.
+     *
+     * @param args The output directory, the number of cryptos, the tick interval (e.g. PT1M), the first and last
+     *             dates, the seed, and the comma separated formats (csv, binary).
+     * @throws IOException If a file cannot be written
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 7) {
+            System.err.println("Usage: CryptoPriceGenerator <directory> <symbols> <interval> <date from> <date to> "
+                    + "<seed> <csv,binary>");
+            System.exit(1);
+        }
+
+        Set<Format> formats = EnumSet.noneOf(Format.class);
+        for (String format : args[6].split(",")) {
+            formats.add(Format.valueOf(format.trim().toUpperCase(Locale.ROOT)));
+        }
+
+        CryptoPriceGenerator generator = new CryptoPriceGenerator(Long.parseLong(args[5]), Duration.parse(args[2]),
+                LocalDate.parse(args[3]), LocalDate.parse(args[4]));
+
+        long start = System.nanoTime();
+        List<Path> files = generator.write(Paths.get(args[0]), Integer.parseInt(args[1]), formats);
+
+        System.out.printf("Generated %d files of %d rows in %d ms%n",
+                files.size(), generator.rows(), Duration.ofNanos(System.nanoTime() - start).toMillis());
+    }
+}
@@ -0,0 +1,334 @@
+package com.example.crypto.infrastructure.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A streaming parser for the fixed {@code timestamp,symbol,price} csv layout of the price files. It reads the bytes
+ * through a fixed-size buffer and parses the timestamp and the price in place, emitting every row through a primitive
+ * callback : no String, String[] or boxed value is created per row, so a file of any size is parsed in constant
+ * memory. Lines which do not start with a digit (i.e. the header) are skipped, and so is the symbol column, since a
+ * price file holds a single crypto.
+ */
+public final class CsvPriceParser {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private static final int MAX_EXACT_POWER_OF_TEN = 22;
+
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+    private static final double[] POWERS_OF_TEN = new double[MAX_EXACT_POWER_OF_TEN + 1];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    /**
+     * Receives the rows of a price file.
+     */
+    @FunctionalInterface
+    public interface PriceRowConsumer {
+
+        void accept(long timestamp, double price);
+    }
+
+    private CsvPriceParser() {
+    }
+
+    /**
+     * Parses all the rows readable from the given channel.
+     *
+     * @param channel  The channel to read from. It is not closed.
+     * @param consumer The consumer of the rows.
+     * @return The number of rows parsed
+     * @throws IOException If the channel cannot be read or a row is longer than the buffer
+     */
+    public static long parse(ReadableByteChannel channel, PriceRowConsumer consumer) throws IOException {
+        return parse((ByteSource) channel::read, consumer);
+    }
+
+    /**
+     * Parses all the rows of a region of the given file. The region must start at the beginning of a line, and its
+     * last line does not need to end with a new line.
+     *
+     * @param channel  The file to read from. It is only read with positional reads, so it can be shared by threads.
+     * @param from     The first byte of the region, inclusive.
+     * @param to       The last byte of the region, exclusive.
+     * @param consumer The consumer of the rows.
+     * @return The number of rows parsed
+     * @throws IOException If the file cannot be read or a row is longer than the buffer
+     */
+    public static long parse(FileChannel channel, long from, long to, PriceRowConsumer consumer) throws IOException {
+        return parse(new RegionSource(channel, from, to), consumer);
+    }
+
+    /**
+     * Finds the first line starting at or after the given position of a file.
+     *
+     * @param channel  The file to read from.
+     * @param position A position of the file.
+     * @return The position of the line, or the size of the file if there is none
+     * @throws IOException If the file cannot be read
+     */
+    public static long nextLineStart(FileChannel channel, long position) throws IOException {
+        if (position <= 0) {
+            return 0;
+        }
+
+        // the line starts right after the new line preceding it, which may be the byte just before the position
+        ByteBuffer buffer = ByteBuffer.allocate(1024);
+        for (long offset = position - 1; ; offset += buffer.position()) {
+            buffer.clear();
+            if (channel.read(buffer, offset) < 0) {
+                return channel.size();
+            }
+            for (int i = 0; i < buffer.position(); i++) {
+                if (buffer.get(i) == '\n') {
+                    return offset + i + 1;
+                }
+            }
+        }
+    }
+
+    /**
+     * Finds the end of the last complete line of a region of a file, so that a line still being written is left
+     * for a later read.
+     *
+     * @param channel The file to read from.
+     * @param from    The first byte of the region, inclusive.
+     * @param to      The last byte of the region, exclusive.
+     * @return The position following the last new line of the region, or from if there is none
+     * @throws IOException If the file cannot be read
+     */
+    public static long lastLineEnd(FileChannel channel, long from, long to) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(1024);
+        for (long end = to; end > from; end -= buffer.limit()) {
+            buffer.clear();
+            buffer.limit((int) Math.min(buffer.capacity(), end - from));
+            long offset = end - buffer.limit();
+            while (buffer.hasRemaining() && channel.read(buffer, offset + buffer.position()) >= 0) {
+                // reads the whole block
+            }
+            for (int i = buffer.position() - 1; i >= 0; i--) {
+                if (buffer.get(i) == '\n') {
+                    return offset + i + 1;
+                }
+            }
+        }
+        return from;
+    }
+
+    private static long parse(ByteSource source, PriceRowConsumer consumer) throws IOException {
+
+        byte[] bytes = new byte[BUFFER_SIZE];
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+
+        long rows = 0;
+        while (true) {
+            boolean endOfStream = source.read(buffer) < 0;
+            int limit = buffer.position();
+
+            int lineStart = 0;
+            for (int newLine = indexOfNewLine(bytes, lineStart, limit); newLine >= 0;
+                 newLine = indexOfNewLine(bytes, lineStart, limit)) {
+                rows += parseLine(bytes, lineStart, newLine, consumer);
+                lineStart = newLine + 1;
+            }
+
+            if (endOfStream) {
+                return rows + parseLine(bytes, lineStart, limit, consumer);
+            }
+            if (lineStart == 0 && limit == bytes.length) {
+                throw new IOException("Price row longer than " + BUFFER_SIZE + " bytes");
+            }
+
+            // we move the incomplete last line to the front of the buffer, and read the rest of it
+            System.arraycopy(bytes, lineStart, bytes, 0, limit - lineStart);
+            buffer.position(limit - lineStart);
+        }
+    }
+
+    /**
+     * Parses all the rows of the given bytes. The last line does not need to end with a new line.
+     *
+     * @param bytes    The bytes to parse.
+     * @param from     The first byte, inclusive, which must start a line.
+     * @param to       The last byte, exclusive.
+     * @param consumer The consumer of the rows.
+     * @return The number of rows parsed
+     */
+    public static long parse(byte[] bytes, int from, int to, PriceRowConsumer consumer) {
+        long rows = 0;
+        int lineStart = from;
+        for (int newLine = indexOfNewLine(bytes, lineStart, to); newLine >= 0; newLine = indexOfNewLine(bytes, lineStart, to)) {
+            rows += parseLine(bytes, lineStart, newLine, consumer);
+            lineStart = newLine + 1;
+        }
+        return rows + parseLine(bytes, lineStart, to, consumer);
+    }
+
+    @FunctionalInterface
+    private interface ByteSource {
+
+        int read(ByteBuffer buffer) throws IOException;
+    }
+
+    /**
+     * Reads a region of a file with positional reads.
+     */
+    private static final class RegionSource implements ByteSource {
+
+        private final FileChannel channel;
+
+        private final long to;
+
+        private long position;
+
+        private RegionSource(FileChannel channel, long from, long to) {
+            this.channel = channel;
+            this.position = from;
+            this.to = to;
+        }
+
+        @Override
+        public int read(ByteBuffer buffer) throws IOException {
+            if (position >= to) {
+                return -1;
+            }
+
+            int limit = buffer.limit();
+            buffer.limit((int) Math.min(limit, buffer.position() + to - position));
+            try {
+                int read = channel.read(buffer, position);
+                if (read > 0) {
+                    position += read;
+                }
+                return read;
+            }
+            finally {
+                buffer.limit(limit);
+            }
+        }
+    }
+
+    private static int indexOfNewLine(byte[] bytes, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (bytes[i] == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Parses a single line, without its new line.
+     *
+     * @return 1 if a row was emitted, 0 if the line was skipped
+     */
+    private static int parseLine(byte[] bytes, int from, int to, PriceRowConsumer consumer) {
+        if (to > from && bytes[to - 1] == '\r') {
+            to--;
+        }
+        if (from >= to || !isDigit(bytes[from])) {
+            return 0;
+        }
+
+        int timestampEnd = indexOf(bytes, (byte) ',', from, to);
+        int symbolEnd = indexOf(bytes, (byte) ',', timestampEnd + 1, to);
+        if (timestampEnd < 0 || symbolEnd < 0) {
+            throw new NumberFormatException("Malformed price row: " + new String(bytes, from, to - from, StandardCharsets.US_ASCII));
+        }
+
+        consumer.accept(parseLong(bytes, from, timestampEnd), parseDouble(bytes, symbolEnd + 1, to));
+        return 1;
+    }
+
+    private static int indexOf(byte[] bytes, byte value, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (bytes[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    static long parseLong(byte[] bytes, int from, int to) {
+        if (from >= to || to - from > 18) {
+            throw new NumberFormatException("Malformed timestamp: " + new String(bytes, from, to - from, StandardCharsets.US_ASCII));
+        }
+
+        long value = 0;
+        for (int i = from; i < to; i++) {
+            if (!isDigit(bytes[i])) {
+                throw new NumberFormatException("Malformed timestamp: " + new String(bytes, from, to - from, StandardCharsets.US_ASCII));
+            }
+            value = value * 10 + (bytes[i] - '0');
+        }
+        return value;
+    }
+
+    /**
+     * Parses a decimal number in place. Numbers with at most 15 significant digits and a small exponent, i.e. all the
+     * usual prices, are converted exactly with a single multiplication or division; any other number falls back to
+     * {@link Double#parseDouble(String)}, so that the result is always correctly rounded.
+     */
+    static double parseDouble(byte[] bytes, int from, int to) {
+        int i = from;
+        boolean negative = false;
+        if (i < to && (bytes[i] == '-' || bytes[i] == '+')) {
+            negative = bytes[i] == '-';
+            i++;
+        }
+
+        long mantissa = 0;
+        int exponent = 0;
+        int digits = 0;
+        boolean exact = true;
+        boolean anyDigit = false;
+
+        for (; i < to && isDigit(bytes[i]); i++, anyDigit = true) {
+            if (digits < 18) {
+                mantissa = mantissa * 10 + (bytes[i] - '0');
+                digits += mantissa == 0 ? 0 : 1;
+            } else {
+                exact = false;
+            }
+        }
+        if (i < to && bytes[i] == '.') {
+            for (i++; i < to && isDigit(bytes[i]); i++, anyDigit = true) {
+                if (digits < 18) {
+                    mantissa = mantissa * 10 + (bytes[i] - '0');
+                    digits += mantissa == 0 ? 0 : 1;
+                    exponent--;
+                } else {
+                    exact = false;
+                }
+            }
+        }
+        if (i < to && (bytes[i] == 'e' || bytes[i] == 'E')) {
+            exact = false;
+            i = to;
+        }
+        if (i != to || !anyDigit) {
+            throw new NumberFormatException("Malformed price: " + new String(bytes, from, to - from, StandardCharsets.US_ASCII));
+        }
+
+        if (!exact || mantissa > MAX_EXACT_MANTISSA || -exponent > MAX_EXACT_POWER_OF_TEN) {
+            return Double.parseDouble(new String(bytes, from, to - from, StandardCharsets.US_ASCII));
+        }
+
+        double value = mantissa / POWERS_OF_TEN[-exponent];
+        return negative ? -value : value;
+    }
+
+    private static boolean isDigit(byte value) {
+        return value >= '0' && value <= '9';
+    }
+}
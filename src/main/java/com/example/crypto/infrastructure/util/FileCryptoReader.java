@@ -1,47 +1,250 @@
 package com.example.crypto.infrastructure.util;
 
 import com.example.crypto.infrastructure.exception.FileNotFoundException;
-import com.example.crypto.infrastructure.persistence.CryptoPriceDocument;
-import com.opencsv.CSVParser;
-import com.opencsv.CSVReader;
+import com.example.crypto.infrastructure.persistence.CryptoPriceSnapshot;
+import com.example.crypto.infrastructure.persistence.PriceColumns;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.sql.Timestamp;
+import java.net.URL;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinTask;
+import java.util.zip.CRC32C;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
 
+/**
+ * Reads the csv price files. The files of the file system are split into chunks aligned on line boundaries, which
+ * are parsed in parallel on the fork-join pool of the caller, or the common pool, and concatenated in file order. The
+ * time spent reading every file and the rows parsed are recorded per symbol.
+ */
 public class FileCryptoReader {
 
+    public static final String CSV_SUFFIX = "_values.csv";
+
+    public static final String CLASSPATH_DIRECTORY = "prices";
+
+    public static final int DEFAULT_CHUNK_SIZE = 8 * 1024 * 1024;
+
+    static final String PARSE_TIMER = "crypto.reader.parse";
+
+    static final String PARSED_ROWS = "crypto.reader.rows";
+
+    private final int chunkSize;
+
+    private final MeterRegistry meterRegistry;
+
+    public FileCryptoReader() {
+        this(DEFAULT_CHUNK_SIZE);
+    }
+
     /**
-     * Retrieves the crypto values from the given csv file.
+     * @param chunkSize The size in bytes of the chunks parsed in parallel.
+     */
+    public FileCryptoReader(int chunkSize) {
+        this(chunkSize, new CompositeMeterRegistry());
+    }
+
+    /**
+     * @param chunkSize     The size in bytes of the chunks parsed in parallel.
+     * @param meterRegistry The registry of the {@value #PARSE_TIMER} timer and of the {@value #PARSED_ROWS} counter,
+     *                      tagged by symbol.
+     */
+    public FileCryptoReader(int chunkSize, MeterRegistry meterRegistry) {
+        this.chunkSize = chunkSize;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Discovers the price files of the classpath, under the {@value #CLASSPATH_DIRECTORY} directory.
      *
-     * @param csvFile    The file to extract the values from.
-     * @return A list of CryptoPriceDocument
+     * @return The classpath names of the price files, in name order
      */
-    public List<CryptoPriceDocument> extractCryptoValuesFromCsv(String csvFile) {
+    public List<String> listPriceFiles() {
         try {
-            InputStream input = getClass().getResourceAsStream("/" + csvFile);
-            CSVReader csvReader = new CSVReader(
-                    new InputStreamReader(input), CSVParser.DEFAULT_SEPARATOR, CSVParser.DEFAULT_QUOTE_CHARACTER,1);
-            return csvReader.readAll().stream()
-                    .map(this::map)
-                    .collect(Collectors.toList());
+            Resource[] resources = new PathMatchingResourcePatternResolver()
+                    .getResources("classpath*:" + CLASSPATH_DIRECTORY + "/*" + CSV_SUFFIX);
+
+            return Arrays.stream(resources)
+                    .map(resource -> CLASSPATH_DIRECTORY + "/" + resource.getFilename())
+                    .distinct()
+                    .sorted()
+                    .toList();
         }
-        catch (Exception e) {
+        catch (IOException e) {
             throw new FileNotFoundException();
         }
     }
 
     /**
-     * Converts a String array with fixed elements (0 : timestamp, 1 : symbol, 2 : price) to a CryptoPriceDocument.
+     * Discovers the price files of the classpath along with the length and the CRC32C of their contents, e.g. to tell
+     * whether a snapshot of them is still up to date.
      *
-     * @param row    A String array.
-     * @return A CryptoPriceDocument
+     * @return The contents of the price files, by classpath name, in name order
+     */
+    public Map<String, CryptoPriceSnapshot.Source> listPriceFileSources() {
+        Map<String, CryptoPriceSnapshot.Source> sources = new TreeMap<>();
+        byte[] buffer = new byte[64 * 1024];
+        for (String csvFile : listPriceFiles()) {
+            URL resource = getClass().getResource("/" + csvFile);
+            if (resource == null) {
+                throw new FileNotFoundException();
+            }
+            try (InputStream input = resource.openStream()) {
+                CRC32C crc = new CRC32C();
+                long length = 0;
+                for (int read = input.read(buffer); read >= 0; read = input.read(buffer)) {
+                    crc.update(buffer, 0, read);
+                    length += read;
+                }
+                sources.put(csvFile, new CryptoPriceSnapshot.Source(length, (int) crc.getValue()));
+            }
+            catch (IOException e) {
+                throw new FileNotFoundException();
+            }
+        }
+        return sources;
+    }
+
+    /**
+     * Retrieves the crypto values from the given csv file of the classpath.
+     *
+     * @param csvFile    The file to extract the values from.
+     * @return The PriceColumns of the file, in file order
      */
-    private CryptoPriceDocument map(String[] row)  {
+    public PriceColumns readPriceColumns(String csvFile) {
+        URL resource = getClass().getResource("/" + csvFile);
+        if (resource == null) {
+            throw new FileNotFoundException();
+        }
 
-        Timestamp timestamp = new Timestamp(Long.parseLong(row[0]));
+        // an exploded classpath can be chunked like any file, whereas a packaged one can only be streamed
+        return timed(symbolOf(csvFile), () -> {
+            if ("file".equals(resource.getProtocol())) {
+                try (FileChannel channel = FileChannel.open(Path.of(resource.toURI()))) {
+                    return readPriceColumns(channel, 0, channel.size());
+                }
+            }
+            try (InputStream input = resource.openStream()) {
+                PriceColumns columns = new PriceColumns();
+                CsvPriceParser.parse(Channels.newChannel(input), columns::add);
+                return columns;
+            }
+        });
+    }
+
+    /**
+     * Retrieves the crypto values from the given csv file of the file system.
+     *
+     * @param csvFile    The file to extract the values from.
+     * @return The PriceColumns of the file, in file order
+     */
+    public PriceColumns readPriceColumns(Path csvFile) {
+        return timed(symbolOf(csvFile), () -> {
+            try (FileChannel channel = FileChannel.open(csvFile)) {
+                return readPriceColumns(channel, 0, channel.size());
+            }
+        });
+    }
+
+    /**
+     * Retrieves the crypto values from a region of the given csv file of the file system.
+     *
+     * @param csvFile    The file to extract the values from.
+     * @param from       The first byte of the region, inclusive, which must start a line.
+     * @param to         The last byte of the region, exclusive.
+     * @return The PriceColumns of the region, in file order
+     */
+    public PriceColumns readPriceColumns(Path csvFile, long from, long to) {
+        return timed(symbolOf(csvFile), () -> {
+            try (FileChannel channel = FileChannel.open(csvFile)) {
+                return readPriceColumns(channel, from, to);
+            }
+        });
+    }
+
+    /**
+     * Finds the crypto symbol of a price file, named after the {@code <SYMBOL>_values.csv} pattern.
+     *
+     * @param csvFile    The price file.
+     * @return The crypto symbol, or null if the file is not a price file
+     */
+    public static String symbolOf(Path csvFile) {
+        return symbolOf(csvFile.getFileName().toString());
+    }
+
+    /**
+     * Finds the crypto symbol of a price file, named after the {@code <SYMBOL>_values.csv} pattern.
+     *
+     * @param csvFile    The name of the price file, possibly with a directory.
+     * @return The crypto symbol, or null if the file is not a price file
+     */
+    public static String symbolOf(String csvFile) {
+        String fileName = csvFile.substring(csvFile.lastIndexOf('/') + 1);
+        return fileName.endsWith(CSV_SUFFIX) ? fileName.substring(0, fileName.length() - CSV_SUFFIX.length()) : null;
+    }
+
+    /**
+     * Runs a read, recording its time and the rows it parsed.
+     *
+     * @param symbol The crypto symbol of the file read, if any.
+     * @param read   The read.
+     * @return The PriceColumns read
+     */
+    private PriceColumns timed(String symbol, Callable<PriceColumns> read) {
+        Tags tags = Tags.of("symbol", symbol != null ? symbol : "unknown");
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            PriceColumns columns = read.call();
+            meterRegistry.counter(PARSED_ROWS, tags).increment(columns.size());
+            return columns;
+        }
+        catch (Exception e) {
+            throw new FileNotFoundException();
+        }
+        finally {
+            sample.stop(meterRegistry.timer(PARSE_TIMER, tags));
+        }
+    }
+
+    private PriceColumns readPriceColumns(FileChannel channel, long start, long end) throws Exception {
+
+        List<ForkJoinTask<PriceColumns>> chunks = new ArrayList<>();
+        for (long from = start; from < end; ) {
+            long to = Math.min(end, CsvPriceParser.nextLineStart(channel, Math.min(end, from + chunkSize)));
+            chunks.add(parseChunk(channel, from, to));
+            from = to;
+        }
+        if (chunks.isEmpty()) {
+            return new PriceColumns();
+        }
+
+        ForkJoinTask.invokeAll(chunks);
+
+        List<PriceColumns> parts = new ArrayList<>(chunks.size());
+        for (ForkJoinTask<PriceColumns> chunk : chunks) {
+            parts.add(chunk.join());
+        }
+        return PriceColumns.concat(parts);
+    }
 
-        return new CryptoPriceDocument(timestamp, row[1], Double.parseDouble(row[2]));
+    private ForkJoinTask<PriceColumns> parseChunk(FileChannel channel, long from, long to) {
+        return ForkJoinTask.adapt(() -> {
+            // the rows are about 30 bytes long, so that the columns of a chunk should rarely grow
+            PriceColumns columns = new PriceColumns((int) Math.max(1, (to - from) / 30));
+            CsvPriceParser.parse(channel, from, to, columns::add);
+            return columns;
+        });
     }
 }
@@ -0,0 +1,116 @@
+package com.example.crypto.infrastructure.web;
+
+import com.example.crypto.infrastructure.persistence.CryptoDataVersion;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+import java.util.zip.CRC32C;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+/**
+ * Makes the GET responses under a path prefix conditional on the version of the price data : they are given an ETag
+ * derived from the {@link CryptoDataVersion} and the request (path, query parameters and accepted media types). A
+ * request whose If-None-Match still matches is answered with a 304 right away, without reaching the controller nor
+ * computing anything.
+ * <p>
+ * The responses carry no Last-Modified : its second precision would answer a 304 to an If-Modified-Since sent after
+ * a response computed earlier in the second the data changed, whereas the ETag changes with every version.
+ * <p>
+ * The version is read before the request is handled, so a response is never labelled with a version newer than the
+ * data it was computed from : at worst, a response computed while the data changed is sent again in full on its next
+ * poll. Only the successful responses are labelled.
+ */
+public class ConditionalResponseWebFilter implements WebFilter {
+
+    private final String pathPrefix;
+
+    private final Supplier<CryptoDataVersion> dataVersion;
+
+    private final String cacheControl;
+
+    /**
+     * Creates the filter.
+     *
+     * @param pathPrefix   The path prefix of the responses made conditional, e.g. /cryptos/.
+     * @param dataVersion  The version of the price data.
+     * @param cacheControl The Cache-Control header of the labelled responses, or null to leave it unset.
+     */
+    public ConditionalResponseWebFilter(String pathPrefix, Supplier<CryptoDataVersion> dataVersion,
+                                        String cacheControl) {
+        this.pathPrefix = pathPrefix;
+        this.dataVersion = dataVersion;
+        this.cacheControl = cacheControl;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+
+        ServerHttpRequest request = exchange.getRequest();
+        HttpMethod method = request.getMethod();
+        if (method != HttpMethod.GET && method != HttpMethod.HEAD
+                || !request.getPath().pathWithinApplication().value().startsWith(pathPrefix)) {
+            return chain.filter(exchange);
+        }
+
+        CryptoDataVersion version = dataVersion.get();
+        ServerHttpResponse response = exchange.getResponse();
+        HttpHeaders headers = response.getHeaders();
+        headers.setVary(List.of(HttpHeaders.ACCEPT));
+        if (cacheControl != null) {
+            headers.setCacheControl(cacheControl);
+        }
+
+        // sets the ETag header, and the 304 status if it matches
+        if (exchange.checkNotModified(eTagOf(request, version))) {
+            return response.setComplete();
+        }
+
+        response.beforeCommit(() -> {
+            HttpStatus status = response.getStatusCode();
+            if (status != null && !status.is2xxSuccessful()) {
+                headers.remove(HttpHeaders.ETAG);
+            }
+            return Mono.empty();
+        });
+        return chain.filter(exchange);
+    }
+
+    /**
+     * Derives the ETag of a response from the version of the data and the request. The ETag is weak, as the same
+     * content may be encoded differently, e.g. compressed or not.
+     *
+     * @param request The request.
+     * @param version The version of the data.
+     * @return The ETag, quoted
+     */
+    static String eTagOf(ServerHttpRequest request, CryptoDataVersion version) {
+
+        // the parameters are sorted, so that their order in the query does not matter
+        CRC32C crc = new CRC32C();
+        update(crc, request.getPath().pathWithinApplication().value());
+        for (Map.Entry<String, List<String>> parameter : new TreeMap<>(request.getQueryParams()).entrySet()) {
+            update(crc, parameter.getKey());
+            parameter.getValue().forEach(value -> update(crc, value));
+        }
+        request.getHeaders().getOrEmpty(HttpHeaders.ACCEPT).forEach(accept -> update(crc, accept));
+
+        return "W/\"" + Long.toHexString(version.lastModified().toEpochMilli()) + "-"
+                + Long.toHexString(version.version()) + "-" + Long.toHexString(crc.getValue()) + "\"";
+    }
+
+    private static void update(CRC32C crc, String value) {
+        crc.update(value.getBytes(StandardCharsets.UTF_8));
+        // a separator, so that ("ab", "c") and ("a", "bc") differ
+        crc.update(0);
+    }
+}
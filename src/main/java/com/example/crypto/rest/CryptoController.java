@@ -1,9 +1,16 @@
 package com.example.crypto.rest;
 
 
+import com.example.crypto.application.getboundvalues.GetBoundValuesBatchRequest;
 import com.example.crypto.application.getboundvalues.GetBoundValuesView;
+import com.example.crypto.application.getboundvalues.GetSymbolBoundValuesView;
+import com.example.crypto.application.gethighestnormalized.GetDailyHighestNormalizedView;
 import com.example.crypto.application.gethighestnormalized.GetHighestNormalizedView;
 import com.example.crypto.application.getnormalizedrange.GetNormalizedRangeView;
+import com.example.crypto.application.getprices.GetPriceView;
+import com.example.crypto.application.getrollingrange.GetRollingRangeView;
+import com.example.crypto.application.ingestprices.IngestPricesRequest;
+import com.example.crypto.application.ingestprices.IngestPricesView;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.ArraySchema;
@@ -11,11 +18,14 @@ import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.util.List;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestParam;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 public interface CryptoController {
@@ -65,6 +75,106 @@ public interface CryptoController {
 
     // -------------------------------------------------------------------------------------------------------------
 
+    @Operation(description = "Calculates the oldest, newest, min and max values of many cryptos\n" +
+            "over one or more date windows, in a single pass over each crypto")
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "List of GetSymbolBoundValuesView generated successfully",
+                    content = {
+                            @Content(
+                                    mediaType = "application/json",
+                                    array = @ArraySchema(
+                                            schema = @Schema(implementation = GetSymbolBoundValuesView.class)
+                                    )
+                            )
+                    })
+    })
+    Mono<List<GetSymbolBoundValuesView>> getBatchBoundValues(
+            @io.swagger.v3.oas.annotations.parameters.RequestBody(
+                    description = "The crypto symbols and date windows that the client is interested in.")
+            @RequestBody GetBoundValuesBatchRequest request);
+
+    // -------------------------------------------------------------------------------------------------------------
+
+    @Operation(description = "Streams the prices of a given crypto, oldest first,\n" +
+            "as newline delimited json or server-sent events")
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "A stream of GetPriceView",
+                    content = {
+                            @Content(
+                                    mediaType = "application/x-ndjson",
+                                    schema = @Schema(implementation = GetPriceView.class)
+                            ),
+                            @Content(
+                                    mediaType = "text/event-stream",
+                                    schema = @Schema(implementation = GetPriceView.class)
+                            )
+                    })
+    })
+    Flux<GetPriceView> getPrices(
+            @Parameter(description = "The crypto symbol that the client is interested in.")
+            @PathVariable(value = "symbol") String symbol,
+            @Parameter(description = "The date from which the client is interested in.")
+            @RequestParam(value = "dateFrom") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dateFrom,
+            @Parameter(description = "The date to which the client is interested in.")
+            @RequestParam(value = "dateTo") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dateTo);
+
+    // -------------------------------------------------------------------------------------------------------------
+
+    @Operation(description = "Streams the min and max values and the normalized range of a given crypto\n" +
+            "over a window sliding by a step, as newline delimited json or server-sent events")
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "A stream of GetRollingRangeView",
+                    content = {
+                            @Content(
+                                    mediaType = "application/x-ndjson",
+                                    schema = @Schema(implementation = GetRollingRangeView.class)
+                            ),
+                            @Content(
+                                    mediaType = "text/event-stream",
+                                    schema = @Schema(implementation = GetRollingRangeView.class)
+                            )
+                    })
+    })
+    Flux<GetRollingRangeView> getRollingRange(
+            @Parameter(description = "The crypto symbol that the client is interested in.")
+            @PathVariable(value = "symbol") String symbol,
+            @Parameter(description = "The date from which the client is interested in.")
+            @RequestParam(value = "dateFrom") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dateFrom,
+            @Parameter(description = "The date to which the client is interested in.")
+            @RequestParam(value = "dateTo") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dateTo,
+            @Parameter(description = "The duration of the window, e.g. PT24H.")
+            @RequestParam(value = "window") Duration window,
+            @Parameter(description = "The duration between two windows, e.g. PT1H.")
+            @RequestParam(value = "step") Duration step);
+
+    // -------------------------------------------------------------------------------------------------------------
+
+    @Operation(description = "Ingests a batch of prices of one or more cryptos,\n" +
+            "made durable before being published to the queries")
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "An IngestPricesView generated successfully",
+                    content = {
+                            @Content(
+                                    mediaType = "application/json",
+                                    schema = @Schema(implementation = IngestPricesView.class)
+                            )
+                    })
+    })
+    Mono<IngestPricesView> ingestPrices(
+            @io.swagger.v3.oas.annotations.parameters.RequestBody(
+                    description = "The prices that the client wants to ingest.")
+            @RequestBody IngestPricesRequest request);
+
+    // -------------------------------------------------------------------------------------------------------------
+
     @Operation(description = "Retrieves the crypto with the highest normalized range for a specific date")
     @ApiResponses(value = {
             @ApiResponse(
@@ -80,4 +190,29 @@ public interface CryptoController {
     Mono<GetHighestNormalizedView> getHighestNormalized(
             @Parameter(description = "The date which the client is interested in.")
             @RequestParam(value = "day") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate day);
+
+    // -------------------------------------------------------------------------------------------------------------
+
+    @Operation(description = "Retrieves, for every day of a date span,\n" +
+            "the cryptos with the highest normalized range of the day")
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "List of GetDailyHighestNormalizedView generated successfully",
+                    content = {
+                            @Content(
+                                    mediaType = "application/json",
+                                    array = @ArraySchema(
+                                            schema = @Schema(implementation = GetDailyHighestNormalizedView.class)
+                                    )
+                            )
+                    })
+    })
+    Mono<List<GetDailyHighestNormalizedView>> getDailyHighestNormalized(
+            @Parameter(description = "The date from which the client is interested in.")
+            @RequestParam(value = "dateFrom") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dateFrom,
+            @Parameter(description = "The date to which the client is interested in.")
+            @RequestParam(value = "dateTo") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dateTo,
+            @Parameter(description = "The number of cryptos to retrieve per day.")
+            @RequestParam(value = "top") int top);
 }
@@ -1,18 +1,30 @@
 package com.example.crypto.rest;
 
 import com.example.crypto.application.CryptoApplicationService;
+import com.example.crypto.application.getboundvalues.GetBoundValuesBatchRequest;
 import com.example.crypto.application.getboundvalues.GetBoundValuesView;
+import com.example.crypto.application.getboundvalues.GetSymbolBoundValuesView;
+import com.example.crypto.application.gethighestnormalized.GetDailyHighestNormalizedView;
 import com.example.crypto.application.gethighestnormalized.GetHighestNormalizedView;
 import com.example.crypto.application.getnormalizedrange.GetNormalizedRangeView;
+import com.example.crypto.application.getprices.GetPriceView;
+import com.example.crypto.application.getrollingrange.GetRollingRangeView;
+import com.example.crypto.application.ingestprices.IngestPricesRequest;
+import com.example.crypto.application.ingestprices.IngestPricesView;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.util.List;
 import lombok.RequiredArgsConstructor;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 @RestController
@@ -46,10 +58,53 @@ public class CryptoControllerImpl implements CryptoController {
         return cryptoApplicationService.getBoundValues(symbol, dateFrom, dateTo);
     }
 
+    @PostMapping(path = "/boundValues")
+    public Mono<List<GetSymbolBoundValuesView>> getBatchBoundValues(@RequestBody GetBoundValuesBatchRequest request) {
+
+        return cryptoApplicationService.getBatchBoundValues(request);
+    }
+
+    @GetMapping(path = "/{symbol}/prices",
+            produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE})
+    public Flux<GetPriceView> getPrices(
+            @PathVariable(value = "symbol") String symbol,
+            @RequestParam(value = "dateFrom", required=false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dateFrom,
+            @RequestParam(value = "dateTo", required=false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dateTo) {
+
+        return cryptoApplicationService.getPrices(symbol, dateFrom, dateTo);
+    }
+
+    @GetMapping(path = "/{symbol}/rollingRange",
+            produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE})
+    public Flux<GetRollingRangeView> getRollingRange(
+            @PathVariable(value = "symbol") String symbol,
+            @RequestParam(value = "dateFrom", required=false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dateFrom,
+            @RequestParam(value = "dateTo", required=false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dateTo,
+            @RequestParam(value = "window") Duration window,
+            @RequestParam(value = "step") Duration step) {
+
+        return cryptoApplicationService.getRollingRange(symbol, dateFrom, dateTo, window, step);
+    }
+
+    @PostMapping(path = "/prices")
+    public Mono<IngestPricesView> ingestPrices(@RequestBody IngestPricesRequest request) {
+
+        return cryptoApplicationService.ingestPrices(request);
+    }
+
     @GetMapping(path = "/normalizedRange/highest")
     public Mono<GetHighestNormalizedView> getHighestNormalized(
             @RequestParam(value = "day") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate day) {
 
         return cryptoApplicationService.getHighestNormalized(day);
     }
+
+    @GetMapping(path = "/normalizedRange/highest/daily")
+    public Mono<List<GetDailyHighestNormalizedView>> getDailyHighestNormalized(
+            @RequestParam(value = "dateFrom", required=false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dateFrom,
+            @RequestParam(value = "dateTo", required=false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dateTo,
+            @RequestParam(value = "top", defaultValue = "1") int top) {
+
+        return cryptoApplicationService.getDailyHighestNormalized(dateFrom, dateTo, top);
+    }
 }
@@ -0,0 +1,199 @@
+package com.example.crypto.application;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+import com.example.crypto.application.getboundvalues.GetBoundValuesView;
+import com.example.crypto.application.gethighestnormalized.GetHighestNormalizedView;
+import com.example.crypto.application.getnormalizedrange.GetNormalizedRangeView;
+import com.example.crypto.infrastructure.exception.PricesNotFoundException;
+import com.example.crypto.infrastructure.persistence.CryptoDataVersion;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+@RunWith(MockitoJUnitRunner.class)
+public class CachingCryptoApplicationServiceTest {
+
+    @Mock
+    CryptoApplicationService delegate;
+
+    Cache<CryptoQueryKey, Object> cache;
+
+    AtomicReference<CryptoDataVersion> dataVersion;
+
+    CachingCryptoApplicationService cryptoApplicationService;
+
+    @Before
+    public void setUp() {
+        reset(delegate);
+        cache = Caffeine.newBuilder().maximumSize(100).recordStats().build();
+        dataVersion = new AtomicReference<>(new CryptoDataVersion(1, Instant.EPOCH));
+        cryptoApplicationService = new CachingCryptoApplicationService(delegate, cache, dataVersion::get);
+    }
+
+    @After
+    public void tearDown() {
+        verifyNoMoreInteractions(delegate);
+    }
+
+    // -----------------------------------
+    // Tests: getNormalizedRange
+    // -----------------------------------
+    @Test
+    public void test_getNormalizedRange_isComputedOnce() {
+
+        LocalDate dateFrom = LocalDate.of(2022, 1, 1);
+        LocalDate dateTo = LocalDate.of(2022, 1, 31);
+
+        when(delegate.getNormalizedRange(dateFrom, dateTo))
+                .thenReturn(Mono.just(List.of(new GetNormalizedRangeView("XRP", 0.0192))));
+
+        for (int i = 0; i < 3; i++) {
+            StepVerifier.create(cryptoApplicationService.getNormalizedRange(dateFrom, dateTo))
+                    .assertNext(views -> assertEquals("XRP", views.get(0).getName()))
+                    .verifyComplete();
+        }
+
+        assertEquals(2, cache.stats().hitCount());
+        assertEquals(1, cache.stats().missCount());
+        verify(delegate).getNormalizedRange(dateFrom, dateTo);
+    }
+
+    @Test
+    public void test_getNormalizedRange_when_dataVersionChanges() {
+
+        LocalDate dateFrom = LocalDate.of(2022, 1, 1);
+        LocalDate dateTo = LocalDate.of(2022, 1, 31);
+
+        when(delegate.getNormalizedRange(dateFrom, dateTo))
+                .thenReturn(Mono.just(List.of(new GetNormalizedRangeView("XRP", 0.0192))))
+                .thenReturn(Mono.just(List.of(new GetNormalizedRangeView("LTC", 0.0141))));
+
+        StepVerifier.create(cryptoApplicationService.getNormalizedRange(dateFrom, dateTo))
+                .assertNext(views -> assertEquals("XRP", views.get(0).getName()))
+                .verifyComplete();
+
+        dataVersion.set(new CryptoDataVersion(2, Instant.now()));
+
+        StepVerifier.create(cryptoApplicationService.getNormalizedRange(dateFrom, dateTo))
+                .assertNext(views -> assertEquals("LTC", views.get(0).getName()))
+                .verifyComplete();
+
+        assertEquals(1, cache.estimatedSize());
+        verify(delegate, times(2)).getNormalizedRange(dateFrom, dateTo);
+    }
+
+    // -----------------------------------
+    // Tests: getBoundValues
+    // -----------------------------------
+    @Test
+    public void test_getBoundValues_isCachedPerSymbol() {
+
+        LocalDate dateFrom = LocalDate.of(2022, 1, 1);
+        LocalDate dateTo = LocalDate.of(2022, 1, 31);
+
+        when(delegate.getBoundValues("BTC", dateFrom, dateTo))
+                .thenReturn(Mono.just(new GetBoundValuesView(46813.21, 47001.28, 46813.21, 47001.28)));
+        when(delegate.getBoundValues("ETH", dateFrom, dateTo))
+                .thenReturn(Mono.just(new GetBoundValuesView(3715.32, 3697.04, 3697.04, 3718.67)));
+
+        StepVerifier.create(cryptoApplicationService.getBoundValues("BTC", dateFrom, dateTo))
+                .assertNext(view -> assertEquals(Double.valueOf(47001.28), view.getMaxValue()))
+                .verifyComplete();
+        StepVerifier.create(cryptoApplicationService.getBoundValues("ETH", dateFrom, dateTo))
+                .assertNext(view -> assertEquals(Double.valueOf(3718.67), view.getMaxValue()))
+                .verifyComplete();
+        StepVerifier.create(cryptoApplicationService.getBoundValues("BTC", dateFrom, dateTo))
+                .assertNext(view -> assertEquals(Double.valueOf(47001.28), view.getMaxValue()))
+                .verifyComplete();
+
+        verify(delegate).getBoundValues("BTC", dateFrom, dateTo);
+        verify(delegate).getBoundValues("ETH", dateFrom, dateTo);
+    }
+
+    @Test
+    public void test_getBoundValues_when_olderVersionRead() {
+
+        LocalDate dateFrom = LocalDate.of(2022, 1, 1);
+        LocalDate dateTo = LocalDate.of(2022, 1, 31);
+
+        when(delegate.getBoundValues("BTC", dateFrom, dateTo))
+                .thenReturn(Mono.just(new GetBoundValuesView(46813.21, 47001.28, 46813.21, 47001.28)));
+
+        dataVersion.set(new CryptoDataVersion(2, Instant.now()));
+        StepVerifier.create(cryptoApplicationService.getBoundValues("BTC", dateFrom, dateTo))
+                .expectNextCount(1)
+                .verifyComplete();
+
+        // a query which read the previous version neither drops the newer results nor stays cached
+        dataVersion.set(new CryptoDataVersion(1, Instant.EPOCH));
+        StepVerifier.create(cryptoApplicationService.getBoundValues("BTC", dateFrom, dateTo))
+                .expectNextCount(1)
+                .verifyComplete();
+
+        dataVersion.set(new CryptoDataVersion(2, Instant.now()));
+        StepVerifier.create(cryptoApplicationService.getBoundValues("BTC", dateFrom, dateTo))
+                .expectNextCount(1)
+                .verifyComplete();
+
+        assertEquals(1, cache.estimatedSize());
+        assertEquals(1, cache.stats().hitCount());
+        verify(delegate, times(2)).getBoundValues("BTC", dateFrom, dateTo);
+    }
+
+    // -----------------------------------
+    // Tests: getHighestNormalized
+    // -----------------------------------
+    @Test
+    public void test_getHighestNormalized_when_noPricesFound_isNotCached() {
+
+        LocalDate day = LocalDate.of(2022, 1, 1);
+
+        when(delegate.getHighestNormalized(day))
+                .thenReturn(Mono.error(new PricesNotFoundException()))
+                .thenReturn(Mono.just(new GetHighestNormalizedView("XRP", 0.0192)));
+
+        StepVerifier.create(cryptoApplicationService.getHighestNormalized(day))
+                .expectErrorSatisfies(error -> assertTrue(error instanceof PricesNotFoundException))
+                .verify();
+        StepVerifier.create(cryptoApplicationService.getHighestNormalized(day))
+                .assertNext(view -> assertEquals("XRP", view.getName()))
+                .verifyComplete();
+
+        verify(delegate, times(2)).getHighestNormalized(day);
+    }
+
+    // -----------------------------------
+    // Tests: weigh
+    // -----------------------------------
+    @Test
+    public void test_weigh() {
+
+        LocalDate day = LocalDate.of(2022, 1, 1);
+        CryptoQueryKey boundValues = new CryptoQueryKey(CryptoOperation.BOUND_VALUES, "BTC", day, day, 1);
+        CryptoQueryKey normalizedRange = new CryptoQueryKey(CryptoOperation.NORMALIZED_RANGE, null, day, day, 1);
+
+        assertEquals(88 + 56 + 96, CachingCryptoApplicationService.weigh(boundValues,
+                new GetBoundValuesView(46813.21, 47001.28, 46813.21, 47001.28)));
+        assertEquals(88 + 40 + 2 * (4 + 96), CachingCryptoApplicationService.weigh(normalizedRange, List.of(
+                new GetNormalizedRangeView("BTC", 0.0040), new GetNormalizedRangeView("ETH", 0.0090))));
+        assertEquals(88 + 40, CachingCryptoApplicationService.weigh(normalizedRange, List.of()));
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.crypto.application;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+import com.example.crypto.application.gethighestnormalized.GetHighestNormalizedView;
+import com.example.crypto.application.getnormalizedrange.GetNormalizedRangeView;
+import com.example.crypto.infrastructure.exception.PricesNotFoundException;
+import com.example.crypto.infrastructure.persistence.CryptoDataVersion;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+@RunWith(MockitoJUnitRunner.class)
+public class CoalescingCryptoApplicationServiceTest {
+
+    @Mock
+    CryptoApplicationService delegate;
+
+    SimpleMeterRegistry meterRegistry;
+
+    AtomicReference<CryptoDataVersion> dataVersion;
+
+    CoalescingCryptoApplicationService cryptoApplicationService;
+
+    @Before
+    public void setUp() {
+        reset(delegate);
+        meterRegistry = new SimpleMeterRegistry();
+        dataVersion = new AtomicReference<>(new CryptoDataVersion(1, Instant.EPOCH));
+        cryptoApplicationService = new CoalescingCryptoApplicationService(delegate, dataVersion::get, meterRegistry);
+    }
+
+    @After
+    public void tearDown() {
+        verifyNoMoreInteractions(delegate);
+    }
+
+    // -----------------------------------
+    // Tests: getNormalizedRange
+    // -----------------------------------
+    @Test
+    public void test_getNormalizedRange_concurrentCallersShareOneComputation() {
+
+        LocalDate dateFrom = LocalDate.of(2022, 1, 1);
+        LocalDate dateTo = LocalDate.of(2022, 1, 31);
+
+        Sinks.One<List<GetNormalizedRangeView>> result = Sinks.one();
+        when(delegate.getNormalizedRange(dateFrom, dateTo)).thenReturn(result.asMono());
+
+        List<List<GetNormalizedRangeView>> received = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            cryptoApplicationService.getNormalizedRange(dateFrom, dateTo).subscribe(received::add);
+        }
+        assertTrue(received.isEmpty());
+
+        result.tryEmitValue(List.of(new GetNormalizedRangeView("XRP", 0.0192)));
+
+        assertEquals(3, received.size());
+        assertEquals("XRP", received.get(2).get(0).getName());
+        assertEquals(2.0, meterRegistry.counter("crypto.service.coalesced").count(), 0.0);
+        verify(delegate).getNormalizedRange(dateFrom, dateTo);
+    }
+
+    @Test
+    public void test_getNormalizedRange_isComputedAgainOnceTerminated() {
+
+        LocalDate dateFrom = LocalDate.of(2022, 1, 1);
+        LocalDate dateTo = LocalDate.of(2022, 1, 31);
+
+        when(delegate.getNormalizedRange(dateFrom, dateTo))
+                .thenReturn(Mono.just(List.of(new GetNormalizedRangeView("XRP", 0.0192))))
+                .thenReturn(Mono.just(List.of(new GetNormalizedRangeView("LTC", 0.0141))));
+
+        StepVerifier.create(cryptoApplicationService.getNormalizedRange(dateFrom, dateTo))
+                .assertNext(views -> assertEquals("XRP", views.get(0).getName()))
+                .verifyComplete();
+        StepVerifier.create(cryptoApplicationService.getNormalizedRange(dateFrom, dateTo))
+                .assertNext(views -> assertEquals("LTC", views.get(0).getName()))
+                .verifyComplete();
+
+        assertEquals(0.0, meterRegistry.counter("crypto.service.coalesced").count(), 0.0);
+        verify(delegate, times(2)).getNormalizedRange(dateFrom, dateTo);
+    }
+
+    @Test
+    public void test_getNormalizedRange_when_dataVersionChanges() {
+
+        LocalDate dateFrom = LocalDate.of(2022, 1, 1);
+        LocalDate dateTo = LocalDate.of(2022, 1, 31);
+
+        when(delegate.getNormalizedRange(dateFrom, dateTo)).thenReturn(Sinks.<List<GetNormalizedRangeView>>one().asMono());
+
+        cryptoApplicationService.getNormalizedRange(dateFrom, dateTo).subscribe();
+        dataVersion.set(new CryptoDataVersion(2, Instant.now()));
+        cryptoApplicationService.getNormalizedRange(dateFrom, dateTo).subscribe();
+
+        assertEquals(0.0, meterRegistry.counter("crypto.service.coalesced").count(), 0.0);
+        verify(delegate, times(2)).getNormalizedRange(dateFrom, dateTo);
+    }
+
+    // -----------------------------------
+    // Tests: getHighestNormalized
+    // -----------------------------------
+    @Test
+    public void test_getHighestNormalized_when_noPricesFound() {
+
+        LocalDate day = LocalDate.of(2022, 1, 1);
+
+        Sinks.One<GetHighestNormalizedView> result = Sinks.one();
+        when(delegate.getHighestNormalized(day)).thenReturn(result.asMono());
+
+        List<Throwable> errors = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            cryptoApplicationService.getHighestNormalized(day).subscribe(view -> { }, errors::add);
+        }
+        result.tryEmitError(new PricesNotFoundException());
+
+        assertEquals(2, errors.size());
+        assertTrue(errors.get(1) instanceof PricesNotFoundException);
+        verify(delegate).getHighestNormalized(day);
+    }
+}
@@ -1,6 +1,7 @@
 package com.example.crypto.application;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.reset;
@@ -8,22 +9,37 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 
+import com.example.crypto.application.getboundvalues.GetBoundValuesBatchRequest;
+import com.example.crypto.application.ingestprices.IngestPricesRequest;
 import com.example.crypto.infrastructure.exception.PricesNotFoundException;
 import com.example.crypto.infrastructure.exception.ValidationException;
+import com.example.crypto.infrastructure.persistence.CryptoDataVersion;
 import com.example.crypto.infrastructure.persistence.CryptoDocumentRepository;
+import com.example.crypto.infrastructure.persistence.CryptoPriceBounds;
 import com.example.crypto.infrastructure.persistence.CryptoPriceDocument;
+import com.example.crypto.infrastructure.persistence.CryptoPriceRollingBounds;
+import com.example.crypto.infrastructure.persistence.CryptoPriceWindowBounds;
+import com.example.crypto.infrastructure.persistence.CryptoSymbolRegistry;
+import com.example.crypto.infrastructure.persistence.PriceAggregator;
+import com.example.crypto.infrastructure.persistence.TimeRange;
 import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
 @RunWith(MockitoJUnitRunner.class)
@@ -32,12 +48,13 @@ public class CryptoApplicationServiceTest {
     @Mock
     CryptoDocumentRepository repository;
 
-    @InjectMocks
     CryptoApplicationServiceImpl cryptoApplicationService;
 
     @Before
     public void setUp() {
         reset(repository);
+        cryptoApplicationService = new CryptoApplicationServiceImpl(
+                repository, CryptoSymbolRegistry.of("BTC", "DOGE", "ETH", "LTC", "XRP"));
     }
 
     @After
@@ -54,8 +71,8 @@ public class CryptoApplicationServiceTest {
         LocalDate dateFrom = LocalDate.of(2022, 1, 1);
         LocalDate dateTo = LocalDate.of(2022, 1, 3);
 
-        when(repository.findAllByDateRange(eq(dateFrom), eq(dateTo)))
-                .thenReturn(Flux.fromIterable(getCryptoDocuments()));
+        when(repository.findAllBoundsByDateRange(eq(dateFrom), eq(dateTo)))
+                .thenReturn(toBounds(getCryptoDocuments()));
 
         StepVerifier.create(cryptoApplicationService.getNormalizedRange(dateFrom, dateTo))
                 .assertNext(views -> {
@@ -78,7 +95,7 @@ public class CryptoApplicationServiceTest {
                 })
                 .verifyComplete();
 
-        verify(repository).findAllByDateRange(dateFrom, dateTo);
+        verify(repository).findAllBoundsByDateRange(dateFrom, dateTo);
     }
 
     @Test
@@ -101,7 +118,7 @@ public class CryptoApplicationServiceTest {
         LocalDate dateFrom = LocalDate.of(2022, 1, 1);
         LocalDate dateTo = LocalDate.of(2022, 1, 3);
 
-        when(repository.findAllByDateRange(eq(dateFrom), eq(dateTo))).thenReturn(Flux.empty());
+        when(repository.findAllBoundsByDateRange(eq(dateFrom), eq(dateTo))).thenReturn(Flux.empty());
 
         StepVerifier.create(cryptoApplicationService.getNormalizedRange(dateFrom, dateTo))
                 .expectErrorSatisfies(error -> {
@@ -110,7 +127,7 @@ public class CryptoApplicationServiceTest {
                 })
                 .verify();
 
-        verify(repository).findAllByDateRange(dateFrom, dateTo);
+        verify(repository).findAllBoundsByDateRange(dateFrom, dateTo);
     }
 
     // -----------------------------------
@@ -122,12 +139,11 @@ public class CryptoApplicationServiceTest {
         LocalDate dateFrom = LocalDate.of(2022, 1, 1);
         LocalDate dateTo = LocalDate.of(2022, 1, 3);
 
-        List<CryptoPriceDocument> btcPriceDocuments = getCryptoDocuments().stream()
-                .filter(doc -> doc.symbol().equals("BTC"))
-                .toList();
+        CryptoPriceBounds btcBounds = new CryptoPriceBounds(
+                "BTC", 1641009600000L, 1641308400000L, 46814.18, 47001.28, 46813.21, 47001.28, 3);
 
-        when(repository.findBySymbolAndDateRange(eq("BTC"), eq(dateFrom), eq(dateTo)))
-                .thenReturn(Flux.fromIterable(btcPriceDocuments));
+        when(repository.findBoundsBySymbolAndDateRange(eq("BTC"), eq(dateFrom), eq(dateTo)))
+                .thenReturn(Mono.just(btcBounds));
 
         StepVerifier.create(cryptoApplicationService.getBoundValues("BTC", dateFrom, dateTo))
                 .assertNext(view -> {
@@ -138,7 +154,7 @@ public class CryptoApplicationServiceTest {
                 })
                 .verifyComplete();
 
-        verify(repository).findBySymbolAndDateRange("BTC", dateFrom, dateTo);
+        verify(repository).findBoundsBySymbolAndDateRange("BTC", dateFrom, dateTo);
     }
 
     @Test
@@ -161,7 +177,7 @@ public class CryptoApplicationServiceTest {
         LocalDate dateFrom = LocalDate.of(2022, 1, 1);
         LocalDate dateTo = LocalDate.of(2022, 1, 3);
 
-        when(repository.findBySymbolAndDateRange(eq("BTC"), eq(dateFrom), eq(dateTo))).thenReturn(Flux.empty());
+        when(repository.findBoundsBySymbolAndDateRange(eq("BTC"), eq(dateFrom), eq(dateTo))).thenReturn(Mono.empty());
 
         StepVerifier.create(cryptoApplicationService.getBoundValues("BTC", dateFrom, dateTo))
                 .expectErrorSatisfies(error -> {
@@ -170,7 +186,7 @@ public class CryptoApplicationServiceTest {
                 })
                 .verify();
 
-        verify(repository).findBySymbolAndDateRange("BTC", dateFrom, dateTo);
+        verify(repository).findBoundsBySymbolAndDateRange("BTC", dateFrom, dateTo);
     }
 
     @Test
@@ -188,6 +204,266 @@ public class CryptoApplicationServiceTest {
                 .verify();
     }
 
+    // -----------------------------------
+    // Tests: getBatchBoundValues
+    // -----------------------------------
+    @Test
+    public void test_getBatchBoundValues() {
+
+        LocalDate day = LocalDate.of(2022, 1, 1);
+        LocalDate dateTo = LocalDate.of(2022, 1, 3);
+
+        List<GetBoundValuesBatchRequest.Window> windows = List.of(
+                new GetBoundValuesBatchRequest.Window(day, dateTo),
+                new GetBoundValuesBatchRequest.Window(day, day));
+        List<TimeRange> ranges = List.of(TimeRange.of(day, dateTo), TimeRange.of(day, day));
+
+        // emitted out of order, as the cryptos are summarized in parallel
+        when(repository.findBoundsBySymbolsAndTimeWindows(eq(List.of("XRP", "BTC")), eq(ranges)))
+                .thenReturn(Flux.just(
+                        new CryptoPriceWindowBounds(1, new CryptoPriceBounds(
+                                "BTC", 1641009600000L, 1641020400000L, 46814.18, 46813.21, 46813.21, 46814.18, 2)),
+                        new CryptoPriceWindowBounds(0, new CryptoPriceBounds(
+                                "XRP", 1640995200000L, 1641049200000L, 0.8298, 0.8458, 0.8298, 0.8458, 3)),
+                        new CryptoPriceWindowBounds(0, new CryptoPriceBounds(
+                                "BTC", 1641009600000L, 1641308400000L, 46814.18, 47001.28, 46813.21, 47001.28, 3))));
+
+        GetBoundValuesBatchRequest request = new GetBoundValuesBatchRequest(List.of("XRP", "BTC", "XRP"), windows);
+
+        StepVerifier.create(cryptoApplicationService.getBatchBoundValues(request))
+                .assertNext(views -> {
+                    assertEquals(3, views.size());
+
+                    assertEquals("XRP", views.get(0).getSymbol());
+                    assertEquals(dateTo, views.get(0).getDateTo());
+                    assertEquals(Double.valueOf(0.8458), views.get(0).getBoundValues().getMaxValue());
+
+                    assertEquals("BTC", views.get(1).getSymbol());
+                    assertEquals(dateTo, views.get(1).getDateTo());
+                    assertEquals(Double.valueOf(47001.28), views.get(1).getBoundValues().getNewestValue());
+
+                    assertEquals("BTC", views.get(2).getSymbol());
+                    assertEquals(day, views.get(2).getDateTo());
+                    assertEquals(Double.valueOf(46813.21), views.get(2).getBoundValues().getNewestValue());
+                })
+                .verifyComplete();
+
+        verify(repository).findBoundsBySymbolsAndTimeWindows(List.of("XRP", "BTC"), ranges);
+    }
+
+    @Test
+    public void test_getBatchBoundValues_when_noPricesFound() {
+
+        LocalDate day = LocalDate.of(2022, 1, 1);
+
+        when(repository.findBoundsBySymbolsAndTimeWindows(eq(List.of("BTC")), eq(List.of(TimeRange.of(day, day)))))
+                .thenReturn(Flux.empty());
+
+        GetBoundValuesBatchRequest request = new GetBoundValuesBatchRequest(
+                List.of("BTC"), List.of(new GetBoundValuesBatchRequest.Window(day, day)));
+
+        StepVerifier.create(cryptoApplicationService.getBatchBoundValues(request))
+                .expectErrorSatisfies(error -> {
+                    assertTrue(error instanceof PricesNotFoundException);
+                    assertEquals("Prices not found for given criteria", error.getMessage());
+                })
+                .verify();
+
+        verify(repository).findBoundsBySymbolsAndTimeWindows(List.of("BTC"), List.of(TimeRange.of(day, day)));
+    }
+
+    @Test
+    public void test_getBatchBoundValues_when_symbolNotValid() {
+
+        LocalDate day = LocalDate.of(2022, 1, 1);
+
+        GetBoundValuesBatchRequest request = new GetBoundValuesBatchRequest(
+                List.of("BTC", "ADA"), List.of(new GetBoundValuesBatchRequest.Window(day, day)));
+
+        StepVerifier.create(cryptoApplicationService.getBatchBoundValues(request))
+                .expectErrorSatisfies(error -> {
+                    assertTrue(error instanceof ValidationException);
+                    assertEquals("Crypto is not valid or not supported", error.getMessage());
+                })
+                .verify();
+    }
+
+    @Test
+    public void test_getBatchBoundValues_when_dateFromLargerThanDateTo() {
+
+        GetBoundValuesBatchRequest request = new GetBoundValuesBatchRequest(List.of("BTC"), List.of(
+                new GetBoundValuesBatchRequest.Window(LocalDate.of(2022, 1, 5), LocalDate.of(2022, 1, 3))));
+
+        StepVerifier.create(cryptoApplicationService.getBatchBoundValues(request))
+                .expectErrorSatisfies(error -> {
+                    assertTrue(error instanceof ValidationException);
+                    assertEquals("DateFrom must be less or equal to dateTo", error.getMessage());
+                })
+                .verify();
+    }
+
+    @Test
+    public void test_getBatchBoundValues_when_tooManyCombinations() {
+
+        List<GetBoundValuesBatchRequest.Window> windows = Collections.nCopies(
+                CryptoApplicationServiceImpl.MAX_BATCH_COMBINATIONS / 2 + 1, new GetBoundValuesBatchRequest.Window());
+
+        StepVerifier.create(cryptoApplicationService.getBatchBoundValues(
+                        new GetBoundValuesBatchRequest(List.of("BTC", "ETH"), windows)))
+                .expectErrorSatisfies(error -> {
+                    assertTrue(error instanceof ValidationException);
+                    assertEquals("At most 10000 crypto and date window combinations can be given", error.getMessage());
+                })
+                .verify();
+    }
+
+    // -----------------------------------
+    // Tests: getPrices
+    // -----------------------------------
+    @Test
+    public void test_getPrices() {
+
+        LocalDate dateFrom = LocalDate.of(2022, 1, 1);
+        LocalDate dateTo = LocalDate.of(2022, 1, 3);
+
+        when(repository.findBySymbolAndDateRange(eq("BTC"), eq(dateFrom), eq(dateTo)))
+                .thenReturn(Flux.fromIterable(getCryptoDocuments()).filter(doc -> doc.symbol().equals("BTC")));
+
+        StepVerifier.create(cryptoApplicationService.getPrices("BTC", dateFrom, dateTo))
+                .assertNext(view -> {
+                    assertEquals(Long.valueOf(1641009600000L), view.getTimestamp());
+                    assertEquals(Double.valueOf(46814.18), view.getPrice());
+                })
+                .expectNextCount(2)
+                .verifyComplete();
+
+        verify(repository).findBySymbolAndDateRange("BTC", dateFrom, dateTo);
+    }
+
+    @Test
+    public void test_getPrices_when_noPricesFound() {
+
+        LocalDate dateFrom = LocalDate.of(2022, 1, 1);
+        LocalDate dateTo = LocalDate.of(2022, 1, 3);
+
+        when(repository.findBySymbolAndDateRange(eq("BTC"), eq(dateFrom), eq(dateTo))).thenReturn(Flux.empty());
+
+        StepVerifier.create(cryptoApplicationService.getPrices("BTC", dateFrom, dateTo))
+                .expectErrorSatisfies(error -> {
+                    assertTrue(error instanceof PricesNotFoundException);
+                    assertEquals("Prices not found for given criteria", error.getMessage());
+                })
+                .verify();
+
+        verify(repository).findBySymbolAndDateRange("BTC", dateFrom, dateTo);
+    }
+
+    @Test
+    public void test_getPrices_when_symbolNotValid() {
+
+        LocalDate dateFrom = LocalDate.of(2022, 1, 1);
+        LocalDate dateTo = LocalDate.of(2022, 1, 3);
+
+        StepVerifier.create(cryptoApplicationService.getPrices("ADA", dateFrom, dateTo))
+                .expectErrorSatisfies(error -> {
+                    assertTrue(error instanceof ValidationException);
+                    assertEquals("Crypto is not valid or not supported", error.getMessage());
+                })
+                .verify();
+    }
+
+    // -----------------------------------
+    // Tests: getRollingRange
+    // -----------------------------------
+    @Test
+    public void test_getRollingRange() {
+
+        LocalDate dateFrom = LocalDate.of(2022, 1, 1);
+        LocalDate dateTo = LocalDate.of(2022, 1, 3);
+        Duration window = Duration.ofDays(1);
+        Duration step = Duration.ofHours(12);
+
+        when(repository.findRollingBoundsBySymbolAndDateRange(
+                eq("BTC"), eq(dateFrom), eq(dateTo), eq(window), eq(step)))
+                .thenReturn(Flux.just(
+                        new CryptoPriceRollingBounds(1641081600000L, new CryptoPriceBounds(
+                                "BTC", 1641009600000L, 1641020400000L, 46814.18, 46813.21, 46813.21, 46814.18, 2)),
+                        new CryptoPriceRollingBounds(1641124800000L, new CryptoPriceBounds(
+                                "BTC", 1641020400000L, 1641020400000L, 46813.21, 46813.21, 46813.21, 46813.21, 1))));
+
+        StepVerifier.create(cryptoApplicationService.getRollingRange("BTC", dateFrom, dateTo, window, step))
+                .assertNext(view -> {
+                    assertEquals(Long.valueOf(1641081600000L), view.getTimestamp());
+                    assertEquals(Double.valueOf(46813.21), view.getMinValue());
+                    assertEquals(Double.valueOf(46814.18), view.getMaxValue());
+                    assertEquals((46814.18 - 46813.21) / 46813.21, view.getRange(), 0);
+                })
+                .assertNext(view -> assertEquals(Double.valueOf(0), view.getRange()))
+                .verifyComplete();
+
+        verify(repository).findRollingBoundsBySymbolAndDateRange("BTC", dateFrom, dateTo, window, step);
+    }
+
+    @Test
+    public void test_getRollingRange_when_noPricesFound() {
+
+        LocalDate dateFrom = LocalDate.of(2022, 1, 1);
+        LocalDate dateTo = LocalDate.of(2022, 1, 3);
+        Duration window = Duration.ofDays(1);
+        Duration step = Duration.ofHours(1);
+
+        when(repository.findRollingBoundsBySymbolAndDateRange(
+                eq("BTC"), eq(dateFrom), eq(dateTo), eq(window), eq(step)))
+                .thenReturn(Flux.empty());
+
+        StepVerifier.create(cryptoApplicationService.getRollingRange("BTC", dateFrom, dateTo, window, step))
+                .expectErrorSatisfies(error -> {
+                    assertTrue(error instanceof PricesNotFoundException);
+                    assertEquals("Prices not found for given criteria", error.getMessage());
+                })
+                .verify();
+
+        verify(repository).findRollingBoundsBySymbolAndDateRange("BTC", dateFrom, dateTo, window, step);
+    }
+
+    @Test
+    public void test_getRollingRange_when_stepTooShort() {
+
+        LocalDate dateFrom = LocalDate.of(2022, 1, 1);
+        LocalDate dateTo = LocalDate.of(2022, 1, 3);
+
+        StepVerifier.create(cryptoApplicationService.getRollingRange("BTC", dateFrom, dateTo,
+                        Duration.ofDays(1), Duration.ofSeconds(1)))
+                .expectErrorSatisfies(error -> {
+                    assertTrue(error instanceof ValidationException);
+                    assertEquals("Step must be at least PT1M", error.getMessage());
+                })
+                .verify();
+    }
+
+    @Test
+    public void test_getRollingRange_when_durationTooLong() {
+
+        LocalDate dateFrom = LocalDate.of(2022, 1, 1);
+        LocalDate dateTo = LocalDate.of(2022, 1, 3);
+
+        // i.e. PT2562047788015215H30M7S, which overflows the epoch milliseconds
+        StepVerifier.create(cryptoApplicationService.getRollingRange("BTC", dateFrom, dateTo,
+                        Duration.ofSeconds(Long.MAX_VALUE), Duration.ofHours(1)))
+                .expectErrorSatisfies(error -> {
+                    assertTrue(error instanceof ValidationException);
+                    assertEquals("Window must be at most PT876000H", error.getMessage());
+                })
+                .verify();
+        StepVerifier.create(cryptoApplicationService.getRollingRange("BTC", dateFrom, dateTo,
+                        Duration.ofDays(1), Duration.ofDays(36_501)))
+                .expectErrorSatisfies(error -> {
+                    assertTrue(error instanceof ValidationException);
+                    assertEquals("Step must be at most PT876000H", error.getMessage());
+                })
+                .verify();
+    }
+
     // -----------------------------------
     // Tests: getHighestNormalized
     // -----------------------------------
@@ -200,7 +476,8 @@ public class CryptoApplicationServiceTest {
                 .filter(doc -> doc.timestamp().toLocalDateTime().toLocalDate().compareTo(day) == 0)
                 .toList();
 
-        when(repository.findAllByDate(eq(day))).thenReturn(Flux.fromIterable(priceDocuments));
+        when(repository.findAllBoundsByDateRange(eq(day), eq(day)))
+                .thenReturn(toBounds(priceDocuments));
 
         StepVerifier.create(cryptoApplicationService.getHighestNormalized(day))
                 .assertNext(view -> {
@@ -209,7 +486,7 @@ public class CryptoApplicationServiceTest {
                 })
                 .verifyComplete();
 
-        verify(repository).findAllByDate(day);
+        verify(repository).findAllBoundsByDateRange(day, day);
     }
 
     @Test
@@ -217,7 +494,7 @@ public class CryptoApplicationServiceTest {
 
         LocalDate day = LocalDate.of(2022, 1, 1);
 
-        when(repository.findAllByDate(eq(day))).thenReturn(Flux.empty());
+        when(repository.findAllBoundsByDateRange(eq(day), eq(day))).thenReturn(Flux.empty());
 
         StepVerifier.create(cryptoApplicationService.getHighestNormalized(day))
                 .expectErrorSatisfies(error -> {
@@ -226,11 +503,203 @@ public class CryptoApplicationServiceTest {
                 })
                 .verify();
 
-        verify(repository).findAllByDate(day);
+        verify(repository).findAllBoundsByDateRange(day, day);
+    }
+
+    // -----------------------------------
+    // Tests: getDailyHighestNormalized
+    // -----------------------------------
+    @Test
+    public void test_getDailyHighestNormalized() {
+
+        LocalDate dateFrom = LocalDate.of(2022, 1, 1);
+        LocalDate dateTo = LocalDate.of(2022, 1, 2);
+
+        when(repository.findDailyBoundsByDateRange(eq(dateFrom), eq(dateTo))).thenReturn(Flux.just(
+                dailyBounds("BTC", dateFrom, 100, 104),
+                dailyBounds("BTC", dateTo, 100, 101),
+                dailyBounds("ETH", dateFrom, 10, 10.2),
+                dailyBounds("ETH", dateTo, 10, 10.5),
+                dailyBounds("LTC", dateFrom, 50, 52),
+                dailyBounds("XRP", dateFrom, 1, 1.01),
+                dailyBounds("XRP", dateTo, 1, 1.03)));
+
+        StepVerifier.create(cryptoApplicationService.getDailyHighestNormalized(dateFrom, dateTo, 2))
+                .assertNext(views -> {
+                    assertEquals(2, views.size());
+
+                    assertEquals(dateFrom, views.get(0).getDay());
+                    assertEquals(2, views.get(0).getHighest().size());
+                    // BTC and LTC tie, ETH and XRP rank below
+                    assertEquals("BTC", views.get(0).getHighest().get(0).getName());
+                    assertEquals(0.04, views.get(0).getHighest().get(0).getRange(), 1e-9);
+                    assertEquals("LTC", views.get(0).getHighest().get(1).getName());
+
+                    assertEquals(dateTo, views.get(1).getDay());
+                    assertEquals("ETH", views.get(1).getHighest().get(0).getName());
+                    assertEquals("XRP", views.get(1).getHighest().get(1).getName());
+                })
+                .verifyComplete();
+
+        verify(repository).findDailyBoundsByDateRange(dateFrom, dateTo);
+    }
+
+    @Test
+    public void test_getDailyHighestNormalized_when_noPricesFound() {
+
+        LocalDate dateFrom = LocalDate.of(2021, 12, 1);
+        LocalDate dateTo = LocalDate.of(2021, 12, 31);
+
+        when(repository.findDailyBoundsByDateRange(eq(dateFrom), eq(dateTo))).thenReturn(Flux.empty());
+
+        StepVerifier.create(cryptoApplicationService.getDailyHighestNormalized(dateFrom, dateTo, 3))
+                .expectErrorSatisfies(error -> {
+                    assertTrue(error instanceof PricesNotFoundException);
+                    assertEquals("Prices not found for given criteria", error.getMessage());
+                })
+                .verify();
+
+        verify(repository).findDailyBoundsByDateRange(dateFrom, dateTo);
+    }
+
+    @Test
+    public void test_getDailyHighestNormalized_when_topNotValid() {
+
+        LocalDate dateFrom = LocalDate.of(2022, 1, 1);
+        LocalDate dateTo = LocalDate.of(2022, 1, 3);
+
+        StepVerifier.create(cryptoApplicationService.getDailyHighestNormalized(dateFrom, dateTo, 0))
+                .expectErrorSatisfies(error -> {
+                    assertTrue(error instanceof ValidationException);
+                    assertEquals("Top must be between 1 and 100", error.getMessage());
+                })
+                .verify();
+    }
+
+    // -----------------------------------
+    // Tests: ingestPrices
+    // -----------------------------------
+    @Test
+    public void test_ingestPrices() {
+
+        List<CryptoPriceDocument> documents = List.of(
+                new CryptoPriceDocument(new Timestamp(1641009600000L), "BTC", 46814.18),
+                new CryptoPriceDocument(new Timestamp(1641009600000L), "SOL", 170.12));
+
+        when(repository.saveAll(eq(documents)))
+                .thenReturn(Mono.just(new CryptoDataVersion(3, Instant.ofEpochMilli(1641009600000L))));
+
+        StepVerifier.create(cryptoApplicationService.ingestPrices(new IngestPricesRequest(List.of(
+                        new IngestPricesRequest.Price("BTC", 1641009600000L, 46814.18),
+                        new IngestPricesRequest.Price("SOL", 1641009600000L, 170.12)))))
+                .assertNext(view -> {
+                    assertEquals(Integer.valueOf(2), view.getCount());
+                    assertEquals(Long.valueOf(3), view.getVersion());
+                })
+                .verifyComplete();
+
+        verify(repository).saveAll(documents);
+    }
+
+    @Test
+    public void test_ingestPrices_when_noPrices() {
+
+        StepVerifier.create(cryptoApplicationService.ingestPrices(new IngestPricesRequest(List.of())))
+                .expectErrorSatisfies(error -> {
+                    assertTrue(error instanceof ValidationException);
+                    assertEquals("At least one price must be given", error.getMessage());
+                })
+                .verify();
+    }
+
+    @Test
+    public void test_ingestPrices_when_tooManyCryptos() {
+
+        CryptoSymbolRegistry symbolRegistry = new CryptoSymbolRegistry(2);
+        symbolRegistry.register("BTC");
+        cryptoApplicationService = new CryptoApplicationServiceImpl(repository, symbolRegistry);
+
+        StepVerifier.create(cryptoApplicationService.ingestPrices(new IngestPricesRequest(List.of(
+                        new IngestPricesRequest.Price("SOL", 1641009600000L, 170.12),
+                        new IngestPricesRequest.Price("ADA", 1641009600000L, 1.31)))))
+                .expectErrorSatisfies(error -> {
+                    assertTrue(error instanceof ValidationException);
+                    assertEquals("At most 2 cryptos can be held", error.getMessage());
+                })
+                .verify();
+
+        assertFalse(symbolRegistry.contains("SOL"));
+    }
+
+    @Test
+    public void test_ingestPrices_when_rejected() {
+
+        CryptoSymbolRegistry symbolRegistry = new CryptoSymbolRegistry(2);
+        symbolRegistry.register("BTC");
+        cryptoApplicationService = new CryptoApplicationServiceImpl(repository, symbolRegistry);
+        List<CryptoPriceDocument> rejected = List.of(new CryptoPriceDocument(new Timestamp(1L), "SOL", 170.12));
+        List<CryptoPriceDocument> accepted =
+                List.of(new CryptoPriceDocument(new Timestamp(1641009600000L), "ADA", 1.31));
+
+        when(repository.saveAll(eq(rejected)))
+                .thenReturn(Mono.error(new ValidationException("Too old")));
+        when(repository.saveAll(eq(accepted)))
+                .thenReturn(Mono.just(new CryptoDataVersion(3, Instant.ofEpochMilli(1641009600000L))));
+
+        StepVerifier.create(cryptoApplicationService.ingestPrices(new IngestPricesRequest(List.of(
+                        new IngestPricesRequest.Price("SOL", 1L, 170.12)))))
+                .expectError(ValidationException.class)
+                .verify();
+
+        // the rejected batch gave its room back
+        StepVerifier.create(cryptoApplicationService.ingestPrices(new IngestPricesRequest(List.of(
+                        new IngestPricesRequest.Price("ADA", 1641009600000L, 1.31)))))
+                .assertNext(view -> assertEquals(Integer.valueOf(1), view.getCount()))
+                .verifyComplete();
+    }
+
+    @Test
+    public void test_ingestPrices_when_symbolNotValid() {
+
+        StepVerifier.create(cryptoApplicationService.ingestPrices(new IngestPricesRequest(List.of(
+                        new IngestPricesRequest.Price("btc", 1641009600000L, 46814.18)))))
+                .expectErrorSatisfies(error -> {
+                    assertTrue(error instanceof ValidationException);
+                    assertEquals("Crypto symbol must be made of 1 to 16 upper case letters or digits",
+                            error.getMessage());
+                })
+                .verify();
+    }
+
+    @Test
+    public void test_ingestPrices_when_priceNotValid() {
+
+        StepVerifier.create(cryptoApplicationService.ingestPrices(new IngestPricesRequest(List.of(
+                        new IngestPricesRequest.Price("BTC", 1641009600000L, Double.NaN)))))
+                .expectErrorSatisfies(error -> {
+                    assertTrue(error instanceof ValidationException);
+                    assertEquals("Price must be a positive number", error.getMessage());
+                })
+                .verify();
     }
 
 
     // ---------------------------------------------------------------------------------------------------------
+    private Flux<CryptoPriceBounds> toBounds(List<CryptoPriceDocument> documents) {
+        Map<String, PriceAggregator> aggregators = new TreeMap<>(Comparator.reverseOrder());
+        documents.forEach(document -> aggregators.computeIfAbsent(document.symbol(), symbol -> new PriceAggregator())
+                .accept(document.timestamp().getTime(), document.price()));
+
+        // emitted in reverse symbol order, as the repository gives no guarantee on the order of the cryptos
+        return Flux.fromIterable(aggregators.entrySet())
+                .map(entry -> entry.getValue().toBounds(entry.getKey()));
+    }
+
+    private CryptoPriceBounds dailyBounds(String symbol, LocalDate day, double minPrice, double maxPrice) {
+        long start = TimeRange.startOfDay(day);
+        return new CryptoPriceBounds(symbol, start, start + 3_600_000L, minPrice, maxPrice, minPrice, maxPrice, 2);
+    }
+
     private List<CryptoPriceDocument> getCryptoDocuments() {
         return Arrays.asList(
                     new CryptoPriceDocument(new Timestamp(1641009600000L), "BTC", 46814.18),
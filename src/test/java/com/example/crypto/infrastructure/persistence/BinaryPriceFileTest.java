@@ -0,0 +1,128 @@
+package com.example.crypto.infrastructure.persistence;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+
+public class BinaryPriceFileTest {
+
+    // -----------------------------------
+    // Tests: write / map
+    // -----------------------------------
+    @Test
+    public void test_writeAndMap() throws IOException {
+
+        CryptoPriceSeries series = CryptoPriceSeries.of("BTC", getCryptoDocuments());
+
+        Path file = Files.createTempFile("BTC", BinaryPriceFile.EXTENSION);
+        try {
+            BinaryPriceFile.write(file, series);
+            CryptoPriceSeries mapped = BinaryPriceFile.map(file);
+
+            assertEquals("BTC", mapped.getSymbol());
+            assertEquals(series.size(), mapped.size());
+            for (int i = 0; i < series.size(); i++) {
+                assertEquals(series.timestampAt(i), mapped.timestampAt(i));
+                assertEquals(series.priceAt(i), mapped.priceAt(i), 0);
+            }
+            assertEquals(5L * (Long.BYTES + Double.BYTES), mapped.getMappedSizeInBytes());
+        }
+        finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void test_map_boundsMatchHeapSeries() throws IOException {
+
+        CryptoPriceSeries series = CryptoPriceSeries.of("BTC", getCryptoDocuments());
+
+        Path file = Files.createTempFile("BTC", BinaryPriceFile.EXTENSION);
+        try {
+            BinaryPriceFile.write(file, series);
+            CryptoPriceSeries mapped = BinaryPriceFile.map(file);
+
+            TimeRange range = new TimeRange(1641020400000L, 1642838400001L);
+
+            assertEquals(series.boundsOf(range), mapped.boundsOf(range));
+            assertEquals(series.dailyBoundsOf(range), mapped.dailyBoundsOf(range));
+        }
+        finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void test_map_thenAppend() throws IOException {
+
+        CryptoPriceSeries series = CryptoPriceSeries.of("BTC", getCryptoDocuments());
+
+        Path file = Files.createTempFile("BTC", BinaryPriceFile.EXTENSION);
+        try {
+            BinaryPriceFile.write(file, series);
+            CryptoPriceSeries mapped = BinaryPriceFile.map(file);
+
+            PriceColumns appended = new PriceColumns();
+            appended.add(1642845600000L, 47400.0);
+            appended.add(1642924800000L, 46500.0);
+            appended.add(1641000000000L, 40000.0);
+            CryptoPriceSeries appendedSeries = mapped.append(appended);
+            PriceColumns late = new PriceColumns();
+            late.add(1642842000000L, 47300.0);
+            appendedSeries = appendedSeries.append(late);
+
+            // the price older than the mapped ones is dropped, and the late one merged into the appended ones
+            PriceColumns expectedAppended = new PriceColumns();
+            expectedAppended.add(1642842000000L, 47300.0);
+            expectedAppended.add(1642845600000L, 47400.0);
+            expectedAppended.add(1642924800000L, 46500.0);
+            CryptoPriceSeries expected = series.append(expectedAppended);
+
+            assertEquals(1642838400000L, mapped.getAppendableFrom());
+            assertEquals(5, mapped.size());
+            assertEquals(8, appendedSeries.size());
+            for (int i = 0; i < expected.size(); i++) {
+                assertEquals(expected.timestampAt(i), appendedSeries.timestampAt(i));
+                assertEquals(expected.priceAt(i), appendedSeries.priceAt(i), 0);
+            }
+            TimeRange range = TimeRange.of(null, null);
+            assertEquals(expected.boundsOf(range), appendedSeries.boundsOf(range));
+            assertEquals(expected.dailyBoundsOf(range), appendedSeries.dailyBoundsOf(range));
+            assertEquals(expected.boundsOf(3, 7), appendedSeries.boundsOf(3, 7));
+            assertEquals(5L * (Long.BYTES + Double.BYTES), appendedSeries.getMappedSizeInBytes());
+        }
+        finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void test_map_when_notAPriceFile() throws IOException {
+
+        Path file = Files.createTempFile("BTC", BinaryPriceFile.EXTENSION);
+        try {
+            Files.writeString(file, "timestamp,symbol,price\n1641009600000,BTC,46813.21\n");
+            BinaryPriceFile.map(file);
+        }
+        finally {
+            Files.delete(file);
+        }
+    }
+
+
+    // ---------------------------------------------------------------------------------------------------------
+    private List<CryptoPriceDocument> getCryptoDocuments() {
+        return Arrays.asList(
+                new CryptoPriceDocument(new Timestamp(1641009600000L), "BTC", 46813.21),
+                new CryptoPriceDocument(new Timestamp(1641020400000L), "BTC", 46979.61),
+                new CryptoPriceDocument(new Timestamp(1641031200000L), "BTC", 47143.98),
+                new CryptoPriceDocument(new Timestamp(1641099600000L), "BTC", 46871.09),
+                new CryptoPriceDocument(new Timestamp(1642838400000L), "BTC", 47001.28));
+    }
+}
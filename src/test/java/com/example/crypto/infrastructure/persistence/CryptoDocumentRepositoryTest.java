@@ -1,6 +1,7 @@
 package com.example.crypto.infrastructure.persistence;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.reset;
@@ -14,14 +15,16 @@ import java.sql.Timestamp;
 import java.time.LocalDate;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
 import reactor.test.StepVerifier;
 
 @RunWith(MockitoJUnitRunner.class)
@@ -30,9 +33,6 @@ public class CryptoDocumentRepositoryTest {
     @Mock
     FileCryptoReader fileReader;
 
-    @InjectMocks
-    CryptoDocumentRepositoryImpl repository;
-
     @Before
     public void setUp() {
         reset(fileReader);
@@ -49,11 +49,7 @@ public class CryptoDocumentRepositoryTest {
     @Test
     public void test_findAllByDateRange() {
 
-        when(fileReader.extractCryptoValuesFromCsv(eq("BTC_values.csv"))).thenReturn(getCryptoDocuments("BTC"));
-        when(fileReader.extractCryptoValuesFromCsv(eq("DOGE_values.csv"))).thenReturn(getCryptoDocuments("DOGE"));
-        when(fileReader.extractCryptoValuesFromCsv(eq("ETH_values.csv"))).thenReturn(getCryptoDocuments("ETH"));
-        when(fileReader.extractCryptoValuesFromCsv(eq("LTC_values.csv"))).thenReturn(getCryptoDocuments("LTC"));
-        when(fileReader.extractCryptoValuesFromCsv(eq("XRP_values.csv"))).thenReturn(getCryptoDocuments("XRP"));
+        CryptoDocumentRepositoryImpl repository = createRepository();
 
         LocalDate dateFrom = LocalDate.of(2022, 1, 1);
         LocalDate dateTo = LocalDate.of(2022, 1, 2);
@@ -111,7 +107,8 @@ public class CryptoDocumentRepositoryTest {
                 })
                 .verifyComplete();
 
-        verify(fileReader, times(5)).extractCryptoValuesFromCsv(anyString());
+        verify(fileReader).listPriceFiles();
+        verify(fileReader, times(5)).readPriceColumns(anyString());
     }
 
     // -----------------------------------
@@ -120,7 +117,7 @@ public class CryptoDocumentRepositoryTest {
     @Test
     public void test_findBySymbolAndDateRange() {
 
-        when(fileReader.extractCryptoValuesFromCsv(eq("BTC_values.csv"))).thenReturn(getCryptoDocuments("BTC"));
+        CryptoDocumentRepositoryImpl repository = createRepository();
 
         LocalDate dateFrom = LocalDate.of(2022, 1, 1);
         LocalDate dateTo = LocalDate.of(2022, 1, 2);
@@ -138,7 +135,165 @@ public class CryptoDocumentRepositoryTest {
                 })
                 .verifyComplete();
 
-        verify(fileReader).extractCryptoValuesFromCsv("BTC_values.csv");
+        verify(fileReader).listPriceFiles();
+        verify(fileReader, times(5)).readPriceColumns(anyString());
+    }
+
+    // -----------------------------------
+    // Tests: findBoundsBySymbolAndDateRange
+    // -----------------------------------
+    @Test
+    public void test_findBoundsBySymbolAndDateRange() {
+
+        CryptoDocumentRepositoryImpl repository = createRepository();
+
+        LocalDate dateFrom = LocalDate.of(2022, 1, 1);
+        LocalDate dateTo = LocalDate.of(2022, 1, 31);
+
+        StepVerifier.create(repository.findBoundsBySymbolAndDateRange("DOGE", dateFrom, dateTo))
+                .assertNext(next -> {
+                    assertEquals("DOGE", next.symbol());
+                    assertEquals(1641009600000L, next.firstTimestamp());
+                    assertEquals(1642838900000L, next.lastTimestamp());
+                    assertEquals(Double.valueOf(0.1702), Double.valueOf(next.firstPrice()));
+                    assertEquals(Double.valueOf(0.1711), Double.valueOf(next.lastPrice()));
+                    assertEquals(Double.valueOf(0.1701), Double.valueOf(next.minPrice()));
+                    assertEquals(Double.valueOf(0.1711), Double.valueOf(next.maxPrice()));
+                    assertEquals(3, next.count());
+                })
+                .verifyComplete();
+
+        verify(fileReader).listPriceFiles();
+        verify(fileReader, times(5)).readPriceColumns(anyString());
+    }
+
+    @Test
+    public void test_findBoundsBySymbolAndDateRange_when_noPricesFound() {
+
+        CryptoDocumentRepositoryImpl repository = createRepository();
+
+        LocalDate day = LocalDate.of(2021, 12, 1);
+
+        StepVerifier.create(repository.findBoundsBySymbolAndDateRange("DOGE", day, day))
+                .verifyComplete();
+
+        verify(fileReader).listPriceFiles();
+        verify(fileReader, times(5)).readPriceColumns(anyString());
+    }
+
+    // -----------------------------------
+    // Tests: findBoundsBySymbolsAndTimeWindows
+    // -----------------------------------
+    @Test
+    public void test_findBoundsBySymbolsAndTimeWindows() {
+
+        CryptoDocumentRepositoryImpl repository = createRepository();
+
+        List<TimeRange> windows = List.of(
+                TimeRange.of(LocalDate.of(2022, 1, 1), LocalDate.of(2022, 1, 31)),
+                TimeRange.ofDay(LocalDate.of(2021, 12, 1)),
+                TimeRange.ofDay(LocalDate.of(2022, 1, 1)));
+
+        StepVerifier.create(repository.findBoundsBySymbolsAndTimeWindows(List.of("DOGE", "BTC", "ADA"), windows)
+                        .collectSortedList(Comparator
+                                .comparing((CryptoPriceWindowBounds bounds) -> bounds.bounds().symbol())
+                                .thenComparingInt(CryptoPriceWindowBounds::window)))
+                .assertNext(next -> {
+                    assertEquals(4, next.size());
+                    assertEquals("BTC", next.get(0).bounds().symbol());
+                    assertEquals(0, next.get(0).window());
+                    assertEquals(3, next.get(0).bounds().count());
+                    assertEquals(Double.valueOf(47001.28), Double.valueOf(next.get(0).bounds().maxPrice()));
+                    assertEquals("BTC", next.get(1).bounds().symbol());
+                    assertEquals(2, next.get(1).window());
+                    assertEquals(2, next.get(1).bounds().count());
+                    assertEquals("DOGE", next.get(2).bounds().symbol());
+                    assertEquals(0, next.get(2).window());
+                    assertEquals("DOGE", next.get(3).bounds().symbol());
+                    assertEquals(2, next.get(3).window());
+                    assertEquals(Double.valueOf(0.1702), Double.valueOf(next.get(3).bounds().firstPrice()));
+                })
+                .verifyComplete();
+
+        verify(fileReader).listPriceFiles();
+        verify(fileReader, times(5)).readPriceColumns(anyString());
+    }
+
+    // -----------------------------------
+    // Tests: findAllBoundsByDateRange
+    // -----------------------------------
+    @Test
+    public void test_findAllBoundsByDateRange() {
+
+        CryptoDocumentRepositoryImpl repository = createRepository();
+
+        LocalDate dateFrom = LocalDate.of(2022, 1, 1);
+        LocalDate dateTo = LocalDate.of(2022, 1, 1);
+
+        StepVerifier.create(repository.findAllBoundsByDateRange(dateFrom, dateTo)
+                        .collectSortedList(Comparator.comparing(CryptoPriceBounds::symbol)))
+                .assertNext(next -> {
+                    assertEquals(5, next.size());
+                    assertEquals("BTC", next.get(0).symbol());
+                    assertEquals(Double.valueOf(46813.21), Double.valueOf(next.get(0).firstPrice()));
+                    assertEquals(Double.valueOf(46814.18), Double.valueOf(next.get(0).lastPrice()));
+                    assertEquals(Double.valueOf(46813.21), Double.valueOf(next.get(0).minPrice()));
+                    assertEquals(Double.valueOf(46814.18), Double.valueOf(next.get(0).maxPrice()));
+                    assertEquals(2, next.get(0).count());
+                    assertEquals("DOGE", next.get(1).symbol());
+                    assertEquals(1, next.get(1).count());
+                })
+                .verifyComplete();
+
+        verify(fileReader).listPriceFiles();
+        verify(fileReader, times(5)).readPriceColumns(anyString());
+    }
+
+    @Test
+    public void test_findAllBoundsByDateRange_when_noPricesFound() {
+
+        CryptoDocumentRepositoryImpl repository = createRepository();
+
+        LocalDate day = LocalDate.of(2021, 12, 1);
+
+        StepVerifier.create(repository.findAllBoundsByDateRange(day, day))
+                .verifyComplete();
+
+        verify(fileReader).listPriceFiles();
+        verify(fileReader, times(5)).readPriceColumns(anyString());
+    }
+
+    // -----------------------------------
+    // Tests: findDailyBoundsByDateRange
+    // -----------------------------------
+    @Test
+    public void test_findDailyBoundsByDateRange() {
+
+        CryptoDocumentRepositoryImpl repository = createRepository();
+
+        LocalDate dateFrom = LocalDate.of(2022, 1, 1);
+        LocalDate dateTo = LocalDate.of(2022, 1, 31);
+
+        StepVerifier.create(repository.findDailyBoundsByDateRange(dateFrom, dateTo))
+                .assertNext(next -> {
+                    assertEquals("BTC", next.symbol());
+                    assertEquals(Double.valueOf(46813.21), Double.valueOf(next.firstPrice()));
+                    assertEquals(Double.valueOf(46814.18), Double.valueOf(next.lastPrice()));
+                    assertEquals(Double.valueOf(46813.21), Double.valueOf(next.minPrice()));
+                    assertEquals(Double.valueOf(46814.18), Double.valueOf(next.maxPrice()));
+                    assertEquals(2, next.count());
+                })
+                .assertNext(next -> {
+                    assertEquals("BTC", next.symbol());
+                    assertEquals(Double.valueOf(47001.28), Double.valueOf(next.minPrice()));
+                    assertEquals(Double.valueOf(47001.28), Double.valueOf(next.maxPrice()));
+                    assertEquals(1, next.count());
+                })
+                .expectNextCount(8)
+                .verifyComplete();
+
+        verify(fileReader).listPriceFiles();
+        verify(fileReader, times(5)).readPriceColumns(anyString());
     }
 
     // -----------------------------------
@@ -147,11 +302,7 @@ public class CryptoDocumentRepositoryTest {
     @Test
     public void test_findAllByDate() {
 
-        when(fileReader.extractCryptoValuesFromCsv(eq("BTC_values.csv"))).thenReturn(getCryptoDocuments("BTC"));
-        when(fileReader.extractCryptoValuesFromCsv(eq("DOGE_values.csv"))).thenReturn(getCryptoDocuments("DOGE"));
-        when(fileReader.extractCryptoValuesFromCsv(eq("ETH_values.csv"))).thenReturn(getCryptoDocuments("ETH"));
-        when(fileReader.extractCryptoValuesFromCsv(eq("LTC_values.csv"))).thenReturn(getCryptoDocuments("LTC"));
-        when(fileReader.extractCryptoValuesFromCsv(eq("XRP_values.csv"))).thenReturn(getCryptoDocuments("XRP"));
+        CryptoDocumentRepositoryImpl repository = createRepository();
 
         LocalDate day = LocalDate.of(2022, 1, 22);
 
@@ -183,11 +334,78 @@ public class CryptoDocumentRepositoryTest {
                 })
                 .verifyComplete();
 
-        verify(fileReader, times(5)).extractCryptoValuesFromCsv(anyString());
+        verify(fileReader).listPriceFiles();
+        verify(fileReader, times(5)).readPriceColumns(anyString());
+    }
+
+    // -----------------------------------
+    // Tests: price store
+    // -----------------------------------
+    @Test
+    public void test_pricesAreLoadedOnce() {
+
+        CryptoDocumentRepositoryImpl repository = createRepository();
+
+        LocalDate dateFrom = LocalDate.of(2022, 1, 1);
+        LocalDate dateTo = LocalDate.of(2022, 1, 2);
+
+        StepVerifier.create(repository.findAllByDateRange(dateFrom, dateTo)).expectNextCount(10).verifyComplete();
+        StepVerifier.create(repository.findBySymbolAndDateRange("BTC", dateFrom, dateTo)).expectNextCount(2).verifyComplete();
+        StepVerifier.create(repository.findAllByDate(LocalDate.of(2022, 1, 22))).expectNextCount(5).verifyComplete();
+
+        verify(fileReader).listPriceFiles();
+        verify(fileReader, times(5)).readPriceColumns(anyString());
+    }
+
+    @Test
+    public void test_readsRunOnScheduler() {
+
+        Scheduler scheduler = Schedulers.newSingle("crypto-test");
+        try {
+            CryptoDocumentRepositoryImpl repository = createRepository(scheduler);
+
+            StepVerifier.create(repository.findBoundsBySymbolAndDateRange("BTC", null, null)
+                            .map(bounds -> Thread.currentThread().getName()))
+                    .assertNext(thread -> assertTrue(thread.startsWith("crypto-test")))
+                    .verifyComplete();
+            StepVerifier.create(repository.findDailyBoundsByDateRange(null, null)
+                            .map(bounds -> Thread.currentThread().getName())
+                            .distinct())
+                    .assertNext(thread -> assertTrue(thread.startsWith("crypto-test")))
+                    .verifyComplete();
+            StepVerifier.create(repository.findAllBoundsByDateRange(null, null)
+                            .map(bounds -> Thread.currentThread().getName())
+                            .distinct())
+                    .assertNext(thread -> assertTrue(thread.startsWith("crypto-test")))
+                    .verifyComplete();
+        }
+        finally {
+            scheduler.dispose();
+        }
+
+        verify(fileReader).listPriceFiles();
+        verify(fileReader, times(5)).readPriceColumns(anyString());
     }
 
 
     // ---------------------------------------------------------------------------------------------------------
+    private CryptoDocumentRepositoryImpl createRepository() {
+        return createRepository(Schedulers.immediate());
+    }
+
+    private CryptoDocumentRepositoryImpl createRepository(Scheduler scheduler) {
+        when(fileReader.listPriceFiles()).thenReturn(List.of("prices/BTC_values.csv", "prices/DOGE_values.csv",
+                "prices/ETH_values.csv", "prices/LTC_values.csv", "prices/XRP_values.csv"));
+        when(fileReader.readPriceColumns(eq("prices/BTC_values.csv"))).thenReturn(PriceColumns.of(getCryptoDocuments("BTC")));
+        when(fileReader.readPriceColumns(eq("prices/DOGE_values.csv"))).thenReturn(PriceColumns.of(getCryptoDocuments("DOGE")));
+        when(fileReader.readPriceColumns(eq("prices/ETH_values.csv"))).thenReturn(PriceColumns.of(getCryptoDocuments("ETH")));
+        when(fileReader.readPriceColumns(eq("prices/LTC_values.csv"))).thenReturn(PriceColumns.of(getCryptoDocuments("LTC")));
+        when(fileReader.readPriceColumns(eq("prices/XRP_values.csv"))).thenReturn(PriceColumns.of(getCryptoDocuments("XRP")));
+
+        return new CryptoDocumentRepositoryImpl(CryptoPriceStore.load(fileReader, new CryptoSymbolRegistry()),
+                CryptoPriceWriteAheadLog.disabled(), scheduler);
+    }
+
     private List<CryptoPriceDocument> getCryptoDocuments(String crypto) {
         return switch (crypto) {
             case "BTC" -> Arrays.asList(
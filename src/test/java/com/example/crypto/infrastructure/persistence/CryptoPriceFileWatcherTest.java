@@ -0,0 +1,267 @@
+package com.example.crypto.infrastructure.persistence;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.example.crypto.infrastructure.util.FileCryptoReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.zip.CRC32C;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class CryptoPriceFileWatcherTest {
+
+    private Path directory;
+
+    private CryptoPriceFileWatcher watcher;
+
+    @Before
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("prices");
+        Files.writeString(directory.resolve("BTC_values.csv"),
+                "timestamp,symbol,price\n1641009600000,BTC,46813.21\n1641020400000,BTC,46979.61\n");
+        Files.writeString(directory.resolve("ETH_values.csv"),
+                "timestamp,symbol,price\n1641009600000,ETH,3715.32\n");
+        watcher = new CryptoPriceFileWatcher(directory, new FileCryptoReader(), new CryptoSymbolRegistry());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        watcher.close();
+        try (var files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    // -----------------------------------
+    // Tests: load
+    // -----------------------------------
+    @Test
+    public void test_load() {
+
+        CryptoPriceStore store = watcher.load();
+
+        assertEquals(2, store.getAllSeries().size());
+        assertEquals(2, store.getSeries("BTC").size());
+        assertEquals(1, store.getSeries("ETH").size());
+        assertEquals(1, store.getDataVersion().version());
+    }
+
+    @Test
+    public void test_load_fromSnapshot() throws Exception {
+
+        CryptoPriceStore store = watcher.load();
+        PriceColumns ingested = new PriceColumns();
+        ingested.add(1641009600000L, 170.12);
+        store.ingestAll(Map.of("SOL", ingested));
+        CryptoPriceSnapshot snapshot = watcher.snapshot(CryptoPriceWriteAheadLog.disabled());
+
+        Files.writeString(directory.resolve("BTC_values.csv"), "1641031200000,BTC,47143.98\n",
+                StandardOpenOption.APPEND);
+        Files.delete(directory.resolve("ETH_values.csv"));
+
+        try (CryptoPriceFileWatcher restarted =
+                     new CryptoPriceFileWatcher(directory, new FileCryptoReader(), new CryptoSymbolRegistry())) {
+            CryptoPriceStore restored = restarted.load(snapshot);
+
+            assertEquals(2, restored.getAllSeries().size());
+            assertEquals(3, restored.getSeries("BTC").size());
+            assertEquals(47143.98, restored.getSeries("BTC").priceAt(2), 0);
+            assertEquals(0, restored.getSeries("ETH").size());
+            assertEquals(1, restored.getSeries("SOL").size());
+
+            // the appended rows are read from where the restored ones end
+            Path csvFile = directory.resolve("BTC_values.csv");
+            Files.writeString(csvFile, "1641099600000,BTC,46871.09\n", StandardOpenOption.APPEND);
+            restarted.refresh(csvFile, false);
+            assertEquals(4, restored.getSeries("BTC").size());
+        }
+    }
+
+    @Test
+    public void test_load_fromSnapshot_when_fileRewrittenInPlace() throws Exception {
+
+        watcher.load();
+        CryptoPriceSnapshot snapshot = watcher.snapshot(CryptoPriceWriteAheadLog.disabled());
+
+        // a corrected price of the same length, followed by a new row : the file only grew
+        Files.writeString(directory.resolve("BTC_values.csv"), "timestamp,symbol,price\n1641009600000,BTC,46813.99\n"
+                + "1641020400000,BTC,46979.61\n1641031200000,BTC,47143.98\n");
+
+        try (CryptoPriceFileWatcher restarted =
+                     new CryptoPriceFileWatcher(directory, new FileCryptoReader(), new CryptoSymbolRegistry())) {
+            CryptoPriceStore restored = restarted.load(snapshot);
+
+            assertEquals(3, restored.getSeries("BTC").size());
+            assertEquals(46813.99, restored.getSeries("BTC").priceAt(0), 0);
+        }
+    }
+
+    @Test
+    public void test_load_fromSnapshot_when_ingestedFileRewritten() throws Exception {
+
+        CryptoPriceStore store = watcher.load();
+        store.ingestAll(Map.of("BTC", columns(1641031200000L, 47143.98)));
+        CryptoPriceSnapshot snapshot = watcher.snapshot(CryptoPriceWriteAheadLog.disabled());
+
+        Files.writeString(directory.resolve("BTC_values.csv"), "timestamp,symbol,price\n1641009600000,BTC,46999.99\n");
+
+        try (CryptoPriceFileWatcher restarted =
+                     new CryptoPriceFileWatcher(directory, new FileCryptoReader(), new CryptoSymbolRegistry())) {
+            CryptoPriceStore restored = restarted.load(snapshot);
+
+            // the file is read again, and the ingested price merged into it
+            assertEquals(2, restored.getSeries("BTC").size());
+            assertEquals(46999.99, restored.getSeries("BTC").priceAt(0), 0);
+            assertEquals(47143.98, restored.getSeries("BTC").priceAt(1), 0);
+            assertEquals(1, restored.getIngestedSeries().size());
+        }
+    }
+
+    @Test
+    public void test_snapshot_when_rowsAppended() throws Exception {
+
+        watcher.load();
+        Path csvFile = directory.resolve("BTC_values.csv");
+        Files.writeString(csvFile, "1641031200000,BTC,47143.98\n", StandardOpenOption.APPEND);
+        watcher.refresh(csvFile, false);
+
+        CryptoPriceSnapshot.Source source =
+                watcher.snapshot(CryptoPriceWriteAheadLog.disabled()).sources().get("BTC_values.csv");
+
+        // the checksum covers the rows read on load and the appended ones
+        byte[] bytes = Files.readAllBytes(csvFile);
+        CRC32C crc = new CRC32C();
+        crc.update(bytes);
+        assertEquals(new CryptoPriceSnapshot.Source(bytes.length, (int) crc.getValue()), source);
+    }
+
+    // -----------------------------------
+    // Tests: refresh
+    // -----------------------------------
+    @Test
+    public void test_refresh_when_rowsAppended() throws Exception {
+
+        CryptoPriceStore store = watcher.load();
+        Path csvFile = directory.resolve("BTC_values.csv");
+
+        Files.writeString(csvFile, "1641031200000,BTC,47143.98\n1641099600000,BTC,468", StandardOpenOption.APPEND);
+        watcher.refresh(csvFile, false);
+
+        assertEquals(3, store.getSeries("BTC").size());
+        assertEquals(47143.98, store.getSeries("BTC").priceAt(2), 0);
+        assertEquals(2, store.getDataVersion().version());
+
+        Files.writeString(csvFile, "71.09\n", StandardOpenOption.APPEND);
+        watcher.refresh(csvFile, false);
+
+        assertEquals(4, store.getSeries("BTC").size());
+        assertEquals(46871.09, store.getSeries("BTC").priceAt(3), 0);
+        assertEquals(3, store.getDataVersion().version());
+    }
+
+    @Test
+    public void test_refresh_when_fileReplaced() throws Exception {
+
+        CryptoPriceStore store = watcher.load();
+        Path csvFile = directory.resolve("BTC_values.csv");
+
+        Files.writeString(csvFile, "timestamp,symbol,price\n1641099600000,BTC,46871.09\n");
+        watcher.refresh(csvFile, false);
+
+        assertEquals(1, store.getSeries("BTC").size());
+        assertEquals(46871.09, store.getSeries("BTC").priceAt(0), 0);
+    }
+
+    @Test
+    public void test_refresh_when_fileRewrittenInPlace() throws Exception {
+
+        CryptoPriceStore store = watcher.load();
+        Path csvFile = directory.resolve("BTC_values.csv");
+
+        // a corrected price, followed by a new row : the file only grew
+        Files.writeString(csvFile, "timestamp,symbol,price\n1641009600000,BTC,46813.21\n1641020400000,BTC,46999.99\n"
+                + "1641031200000,BTC,47143.98\n");
+        watcher.refresh(csvFile, false);
+
+        assertEquals(3, store.getSeries("BTC").size());
+        assertEquals(46999.99, store.getSeries("BTC").priceAt(1), 0);
+        assertEquals(47143.98, store.getSeries("BTC").priceAt(2), 0);
+    }
+
+    @Test
+    public void test_refresh_when_ingestedFileRewrittenOrDeleted() throws Exception {
+
+        CryptoPriceStore store = watcher.load();
+        store.ingestAll(Map.of("BTC", columns(1641031200000L, 47143.98)));
+        Path csvFile = directory.resolve("BTC_values.csv");
+
+        Files.writeString(csvFile, "timestamp,symbol,price\n1641099600000,BTC,46871.09\n");
+        watcher.refresh(csvFile, true);
+
+        // the ingested price is merged again into the prices of the file, in timestamp order
+        assertEquals(2, store.getSeries("BTC").size());
+        assertEquals(47143.98, store.getSeries("BTC").priceAt(0), 0);
+        assertEquals(46871.09, store.getSeries("BTC").priceAt(1), 0);
+
+        Files.delete(csvFile);
+        watcher.refresh(csvFile, false);
+
+        assertEquals(1, store.getSeries("BTC").size());
+        assertEquals(47143.98, store.getSeries("BTC").priceAt(0), 0);
+    }
+
+    @Test
+    public void test_refresh_when_fileCreatedOrDeleted() throws Exception {
+
+        CryptoPriceStore store = watcher.load();
+
+        Path csvFile = Files.writeString(directory.resolve("XRP_values.csv"),
+                "timestamp,symbol,price\n1641009600000,XRP,0.8298\n");
+        watcher.refresh(csvFile, true);
+
+        assertEquals(3, store.getAllSeries().size());
+        assertEquals(1, store.getSeries("XRP").size());
+
+        Files.delete(directory.resolve("ETH_values.csv"));
+        watcher.refresh(directory.resolve("ETH_values.csv"), false);
+
+        assertEquals(2, store.getAllSeries().size());
+        assertTrue(store.getSeries("ETH").size() == 0);
+    }
+
+    // -----------------------------------
+    // Tests: refreshAll
+    // -----------------------------------
+    @Test
+    public void test_refreshAll() throws Exception {
+
+        CryptoPriceStore store = watcher.load();
+
+        // the changes whose events were lost
+        Files.writeString(directory.resolve("BTC_values.csv"), "1641031200000,BTC,47143.98\n",
+                StandardOpenOption.APPEND);
+        Files.delete(directory.resolve("ETH_values.csv"));
+        Files.writeString(directory.resolve("XRP_values.csv"), "timestamp,symbol,price\n1641009600000,XRP,0.8298\n");
+        watcher.refreshAll();
+
+        assertEquals(2, store.getAllSeries().size());
+        assertEquals(3, store.getSeries("BTC").size());
+        assertEquals(0, store.getSeries("ETH").size());
+        assertEquals(1, store.getSeries("XRP").size());
+    }
+
+    // ---------------------------------------------------------------------------------------------------------
+    private PriceColumns columns(long timestamp, double price) {
+        PriceColumns columns = new PriceColumns(1);
+        columns.add(timestamp, price);
+        return columns;
+    }
+}
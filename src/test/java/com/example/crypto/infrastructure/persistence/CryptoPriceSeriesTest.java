@@ -0,0 +1,235 @@
+package com.example.crypto.infrastructure.persistence;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+
+public class CryptoPriceSeriesTest {
+
+    // -----------------------------------
+    // Tests: of
+    // -----------------------------------
+    @Test
+    public void test_of_sortsByTimestamp() {
+
+        CryptoPriceSeries series = CryptoPriceSeries.of("BTC", getCryptoDocuments());
+
+        assertEquals(5, series.size());
+        assertEquals(1641009600000L, series.timestampAt(0));
+        assertEquals(1641020400000L, series.timestampAt(1));
+        assertEquals(1641031200000L, series.timestampAt(2));
+        assertEquals(1641099600000L, series.timestampAt(3));
+        assertEquals(1642838400000L, series.timestampAt(4));
+        assertEquals(46813.21, series.priceAt(0), 0);
+        assertEquals(47001.28, series.priceAt(4), 0);
+    }
+
+    // -----------------------------------
+    // Tests: startOf / endOf
+    // -----------------------------------
+    @Test
+    public void test_startOfAndEndOf() {
+
+        CryptoPriceSeries series = CryptoPriceSeries.of("BTC", getCryptoDocuments());
+
+        TimeRange range = new TimeRange(1641020400000L, 1641099600000L);
+
+        assertEquals(1, series.startOf(range));
+        assertEquals(3, series.endOf(range));
+    }
+
+    @Test
+    public void test_startOfAndEndOf_when_unbounded() {
+
+        CryptoPriceSeries series = CryptoPriceSeries.of("BTC", getCryptoDocuments());
+
+        TimeRange range = TimeRange.of(null, null);
+
+        assertEquals(0, series.startOf(range));
+        assertEquals(5, series.endOf(range));
+    }
+
+    @Test
+    public void test_startOfAndEndOf_when_noPricesInRange() {
+
+        CryptoPriceSeries series = CryptoPriceSeries.of("BTC", getCryptoDocuments());
+
+        TimeRange range = TimeRange.ofDay(LocalDate.of(2021, 12, 31));
+
+        assertEquals(series.startOf(range), series.endOf(range));
+    }
+
+    // -----------------------------------
+    // Tests: boundsOf
+    // -----------------------------------
+    @Test
+    public void test_boundsOf() {
+
+        CryptoPriceSeries series = CryptoPriceSeries.of("BTC", getCryptoDocuments());
+
+        CryptoPriceBounds bounds = series.boundsOf(1, 4).orElseThrow();
+
+        assertEquals(1641020400000L, bounds.firstTimestamp());
+        assertEquals(1641099600000L, bounds.lastTimestamp());
+        assertEquals(46979.61, bounds.firstPrice(), 0);
+        assertEquals(46871.09, bounds.lastPrice(), 0);
+        assertEquals(46871.09, bounds.minPrice(), 0);
+        assertEquals(47143.98, bounds.maxPrice(), 0);
+        assertEquals(3, bounds.count());
+    }
+
+    @Test
+    public void test_boundsOf_when_emptySlice() {
+
+        CryptoPriceSeries series = CryptoPriceSeries.of("BTC", getCryptoDocuments());
+
+        assertTrue(series.boundsOf(2, 2).isEmpty());
+    }
+
+    // -----------------------------------
+    // Tests: dailyBoundsOf
+    // -----------------------------------
+    @Test
+    public void test_dailyBoundsOf() {
+
+        CryptoPriceSeries series = CryptoPriceSeries.of("BTC", getCryptoDocuments());
+
+        List<CryptoPriceBounds> dailyBounds = series.dailyBoundsOf(TimeRange.of(null, null));
+
+        assertEquals(3, dailyBounds.size());
+        assertEquals(3, dailyBounds.get(0).count());
+        assertEquals(46813.21, dailyBounds.get(0).firstPrice(), 0);
+        assertEquals(47143.98, dailyBounds.get(0).lastPrice(), 0);
+        assertEquals(46813.21, dailyBounds.get(0).minPrice(), 0);
+        assertEquals(47143.98, dailyBounds.get(0).maxPrice(), 0);
+        assertEquals(1, dailyBounds.get(1).count());
+        assertEquals(1, dailyBounds.get(2).count());
+    }
+
+    @Test
+    public void test_dailyBoundsOf_when_partialDay() {
+
+        CryptoPriceSeries series = CryptoPriceSeries.of("BTC", getCryptoDocuments());
+
+        List<CryptoPriceBounds> dailyBounds = series.dailyBoundsOf(new TimeRange(1641020400000L, 1641099600001L));
+
+        assertEquals(2, dailyBounds.size());
+        assertEquals(2, dailyBounds.get(0).count());
+        assertEquals(46979.61, dailyBounds.get(0).minPrice(), 0);
+        assertEquals(47143.98, dailyBounds.get(0).maxPrice(), 0);
+        assertEquals(46871.09, dailyBounds.get(1).firstPrice(), 0);
+    }
+
+    // -----------------------------------
+    // Tests: append
+    // -----------------------------------
+    @Test
+    public void test_append() {
+
+        PriceColumns columns = new PriceColumns();
+        getCryptoDocuments().forEach(document -> columns.add(document.timestamp().getTime(), document.price()));
+        CryptoPriceSeries series = CryptoPriceSeries.of("BTC", columns);
+
+        PriceColumns appended = new PriceColumns();
+        appended.add(1642840200000L, 47210.5);
+        appended.add(1642924800000L, 46500.0);
+        CryptoPriceSeries appendedSeries = series.append(appended);
+
+        assertEquals(5, series.size());
+        assertEquals(7, appendedSeries.size());
+        assertEquals(46500.0, appendedSeries.priceAt(6), 0);
+
+        CryptoPriceBounds bounds = appendedSeries.boundsOf(TimeRange.of(null, null)).orElseThrow();
+        assertEquals(46500.0, bounds.lastPrice(), 0);
+        assertEquals(46500.0, bounds.minPrice(), 0);
+        assertEquals(47210.5, bounds.maxPrice(), 0);
+        assertEquals(7, bounds.count());
+
+        List<CryptoPriceBounds> dailyBounds = appendedSeries.dailyBoundsOf(TimeRange.of(null, null));
+        assertEquals(4, dailyBounds.size());
+        assertEquals(2, dailyBounds.get(2).count());
+        assertEquals(47210.5, dailyBounds.get(2).maxPrice(), 0);
+
+        assertEquals(47143.98, series.boundsOf(TimeRange.of(null, null)).orElseThrow().maxPrice(), 0);
+    }
+
+    @Test
+    public void test_append_when_outOfOrder() {
+
+        CryptoPriceSeries series = CryptoPriceSeries.of("BTC", getCryptoDocuments());
+
+        PriceColumns appended = new PriceColumns();
+        appended.add(1641000000000L, 40000.0);
+        CryptoPriceSeries appendedSeries = series.append(appended);
+
+        assertEquals(6, appendedSeries.size());
+        assertEquals(1641000000000L, appendedSeries.timestampAt(0));
+        assertEquals(40000.0, appendedSeries.boundsOf(TimeRange.of(null, null)).orElseThrow().minPrice(), 0);
+        assertEquals(1641009600000L, series.timestampAt(0));
+    }
+
+    @Test
+    public void test_append_when_lateInTheLastDays() {
+
+        CryptoPriceSeries series = CryptoPriceSeries.of("BTC", getCryptoDocuments());
+
+        PriceColumns appended = new PriceColumns();
+        appended.add(1642842000000L, 47300.0);
+        appended.add(1641035000000L, 47500.0);
+        appended.add(1641031200000L, 47000.0);
+        CryptoPriceSeries appendedSeries = series.append(appended);
+
+        List<CryptoPriceDocument> documents = new ArrayList<>(getCryptoDocuments());
+        documents.add(new CryptoPriceDocument(new Timestamp(1642842000000L), "BTC", 47300.0));
+        documents.add(new CryptoPriceDocument(new Timestamp(1641035000000L), "BTC", 47500.0));
+        documents.add(new CryptoPriceDocument(new Timestamp(1641031200000L), "BTC", 47000.0));
+        CryptoPriceSeries expected = CryptoPriceSeries.of("BTC", documents);
+
+        assertEquals(8, appendedSeries.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.timestampAt(i), appendedSeries.timestampAt(i));
+            assertEquals(expected.priceAt(i), appendedSeries.priceAt(i), 0);
+        }
+        assertEquals(expected.dailyBoundsOf(TimeRange.of(null, null)),
+                appendedSeries.dailyBoundsOf(TimeRange.of(null, null)));
+        assertEquals(5, series.size());
+    }
+
+    @Test
+    public void test_append_when_appendedTwice() {
+
+        // the default capacity of the columns leaves room to append in place
+        PriceColumns columns = new PriceColumns();
+        getCryptoDocuments().forEach(document -> columns.add(document.timestamp().getTime(), document.price()));
+        CryptoPriceSeries series = CryptoPriceSeries.of("BTC", columns);
+
+        PriceColumns first = new PriceColumns();
+        first.add(1642842000000L, 50000.0);
+        PriceColumns second = new PriceColumns();
+        second.add(1642842000000L, 30000.0);
+
+        CryptoPriceSeries firstSeries = series.append(first);
+        CryptoPriceSeries secondSeries = series.append(second);
+
+        assertEquals(50000.0, firstSeries.priceAt(5), 0);
+        assertEquals(50000.0, firstSeries.boundsOf(TimeRange.of(null, null)).orElseThrow().maxPrice(), 0);
+        assertEquals(30000.0, secondSeries.priceAt(5), 0);
+        assertEquals(30000.0, secondSeries.boundsOf(TimeRange.of(null, null)).orElseThrow().minPrice(), 0);
+    }
+
+    // ---------------------------------------------------------------------------------------------------------
+    private List<CryptoPriceDocument> getCryptoDocuments() {
+        return Arrays.asList(
+                new CryptoPriceDocument(new Timestamp(1642838400000L), "BTC", 47001.28),
+                new CryptoPriceDocument(new Timestamp(1641020400000L), "BTC", 46979.61),
+                new CryptoPriceDocument(new Timestamp(1641009600000L), "BTC", 46813.21),
+                new CryptoPriceDocument(new Timestamp(1641099600000L), "BTC", 46871.09),
+                new CryptoPriceDocument(new Timestamp(1641031200000L), "BTC", 47143.98));
+    }
+}
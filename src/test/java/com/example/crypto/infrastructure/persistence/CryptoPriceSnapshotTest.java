@@ -0,0 +1,139 @@
+package com.example.crypto.infrastructure.persistence;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class CryptoPriceSnapshotTest {
+
+    private Path file;
+
+    @Before
+    public void setUp() throws Exception {
+        file = Files.createTempFile("prices", ".snapshot");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        Files.deleteIfExists(file);
+    }
+
+    // -----------------------------------
+    // Tests: write / read
+    // -----------------------------------
+    @Test
+    public void test_writeAndRead() throws Exception {
+
+        CryptoPriceSeries btc = CryptoPriceSeries.of("BTC", columns(
+                1641009600000L, 46813.21, 1641020400000L, 46979.61, 1641308400000L, 47001.28));
+        CryptoPriceSeries eth = CryptoPriceSeries.of("ETH", columns(1641009600000L, 3715.32));
+        CryptoPriceSeries ingested = CryptoPriceSeries.of("BTC", columns(1641308400000L, 47001.28));
+
+        Map<String, CryptoPriceSnapshot.Source> sources =
+                Map.of("BTC_values.csv", new CryptoPriceSnapshot.Source(120, 0x1234abcd));
+        new CryptoPriceSnapshot(List.of(btc, eth), List.of(ingested), sources, 7, Instant.ofEpochMilli(1641009600000L))
+                .write(file);
+        CryptoPriceSnapshot snapshot = CryptoPriceSnapshot.read(file);
+
+        assertEquals(7, snapshot.walSequence());
+        assertEquals(Instant.ofEpochMilli(1641009600000L), snapshot.createdAt());
+        assertEquals(sources, snapshot.sources());
+        assertEquals(2, snapshot.series().size());
+        assertEquals(4, snapshot.rowCount());
+
+        CryptoPriceSeries restored = snapshot.series().get(0);
+        assertEquals("BTC", restored.getSymbol());
+        for (int i = 0; i < btc.size(); i++) {
+            assertEquals(btc.timestampAt(i), restored.timestampAt(i));
+            assertEquals(btc.priceAt(i), restored.priceAt(i), 0);
+        }
+        TimeRange range = TimeRange.of(LocalDate.of(2021, 12, 1), LocalDate.of(2022, 2, 1));
+        assertEquals(btc.dailyBoundsOf(range), restored.dailyBoundsOf(range));
+        assertEquals(btc.boundsOf(range), restored.boundsOf(range));
+        assertEquals(eth.boundsOf(range), snapshot.series().get(1).boundsOf(range));
+        assertEquals(1, snapshot.ingested().size());
+        assertEquals(47001.28, snapshot.ingestedBySymbol().get("BTC").priceAt(0), 0);
+    }
+
+    @Test
+    public void test_read_when_corrupted() throws Exception {
+
+        new CryptoPriceSnapshot(List.of(CryptoPriceSeries.of("BTC", columns(1641009600000L, 46813.21))), List.of(),
+                Map.of(), 0, Instant.now()).write(file);
+
+        // a flipped byte in the rollups of the series
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[] {0x7f}), channel.size() - 1);
+        }
+
+        try {
+            CryptoPriceSnapshot.read(file);
+            fail("A corrupted snapshot must not be read");
+        }
+        catch (IOException e) {
+            assertEquals("Corrupted price snapshot block at ", e.getMessage().substring(0, 34));
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void test_read_when_truncated() throws Exception {
+
+        new CryptoPriceSnapshot(List.of(CryptoPriceSeries.of("BTC", columns(1641009600000L, 46813.21))), List.of(),
+                Map.of(), 0, Instant.now()).write(file);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 8);
+        }
+
+        CryptoPriceSnapshot.read(file);
+    }
+
+    // -----------------------------------
+    // Tests: of
+    // -----------------------------------
+    @Test
+    public void test_of() throws Exception {
+
+        CryptoPriceStore store = new CryptoPriceStore(new CryptoSymbolRegistry(),
+                List.of(CryptoPriceSeries.of("BTC", columns(1641009600000L, 46813.21))), 0);
+        Path walFile = Files.createTempFile("prices", ".wal");
+        try (CryptoPriceWriteAheadLog writeAheadLog = CryptoPriceWriteAheadLog.open(walFile, false)) {
+            writeAheadLog.replay(0, store::ingestAll);
+            writeAheadLog.append(Map.of("ETH", columns(1641009600000L, 3715.32)),
+                    () -> store.ingestAll(Map.of("ETH", columns(1641009600000L, 3715.32))));
+
+            Map<String, CryptoPriceSnapshot.Source> sources =
+                    Map.of("BTC_values.csv", new CryptoPriceSnapshot.Source(60, 42));
+            CryptoPriceSnapshot snapshot = CryptoPriceSnapshot.of(store, writeAheadLog, sources);
+
+            assertEquals(1, snapshot.walSequence());
+            assertEquals(2, snapshot.series().size());
+            assertEquals(1, snapshot.ingested().size());
+            assertEquals(sources, snapshot.sources());
+        }
+        finally {
+            Files.delete(walFile);
+        }
+    }
+
+    // ---------------------------------------------------------------------------------------------------------
+    private PriceColumns columns(Object... timestampPrices) {
+        PriceColumns columns = new PriceColumns();
+        for (int i = 0; i < timestampPrices.length; i += 2) {
+            columns.add(((Number) timestampPrices[i]).longValue(), ((Number) timestampPrices[i + 1]).doubleValue());
+        }
+        return columns;
+    }
+}
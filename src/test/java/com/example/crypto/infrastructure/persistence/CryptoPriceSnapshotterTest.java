@@ -0,0 +1,85 @@
+package com.example.crypto.infrastructure.persistence;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class CryptoPriceSnapshotterTest {
+
+    private Path file;
+
+    private Path walFile;
+
+    @Before
+    public void setUp() throws Exception {
+        file = Files.createTempFile("prices", ".snapshot");
+        walFile = Files.createTempFile("prices", ".wal");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        Files.deleteIfExists(file);
+        Files.deleteIfExists(walFile);
+    }
+
+    // -----------------------------------
+    // Tests: readIfPresent
+    // -----------------------------------
+    @Test
+    public void test_readIfPresent_when_absent() throws Exception {
+
+        Files.delete(file);
+
+        assertNull(CryptoPriceSnapshotter.readIfPresent(file));
+        assertNull(CryptoPriceSnapshotter.readIfPresent(null));
+    }
+
+    @Test(expected = UncheckedIOException.class)
+    public void test_readIfPresent_when_unreadable() throws Exception {
+
+        Files.writeString(file, "not a snapshot");
+
+        CryptoPriceSnapshotter.readIfPresent(file);
+    }
+
+    // -----------------------------------
+    // Tests: snapshot
+    // -----------------------------------
+    @Test
+    public void test_snapshot_compactsWriteAheadLog() throws Exception {
+
+        CryptoPriceStore store = new CryptoPriceStore(new CryptoSymbolRegistry(), List.of(), 0);
+        try (CryptoPriceWriteAheadLog writeAheadLog = CryptoPriceWriteAheadLog.open(walFile, false)) {
+            writeAheadLog.replay(0, store::ingestAll);
+            writeAheadLog.append(Map.of("BTC", columns(1641009600000L, 46813.21)),
+                    () -> store.ingestAll(Map.of("BTC", columns(1641009600000L, 46813.21))));
+
+            CryptoPriceSnapshotter snapshotter = new CryptoPriceSnapshotter(file, store, writeAheadLog,
+                    () -> CryptoPriceSnapshot.of(store, writeAheadLog, Map.of()), null);
+            assertTrue(snapshotter.snapshot());
+            assertFalse(snapshotter.snapshot());
+
+            assertEquals(CryptoPriceWriteAheadLog.HEADER_SIZE, Files.size(walFile));
+            CryptoPriceSnapshot snapshot = CryptoPriceSnapshot.read(file);
+            assertEquals(1, snapshot.walSequence());
+            assertEquals(1, snapshot.ingested().size());
+        }
+    }
+
+    // ---------------------------------------------------------------------------------------------------------
+    private PriceColumns columns(long timestamp, double price) {
+        PriceColumns columns = new PriceColumns(1);
+        columns.add(timestamp, price);
+        return columns;
+    }
+}
@@ -0,0 +1,300 @@
+package com.example.crypto.infrastructure.persistence;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class CryptoPriceWriteAheadLogTest {
+
+    private Path file;
+
+    @Before
+    public void setUp() throws Exception {
+        file = Files.createTempFile("prices", ".wal");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        Files.deleteIfExists(file);
+    }
+
+    // -----------------------------------
+    // Tests: append / replay
+    // -----------------------------------
+    @Test
+    public void test_appendAndReplay() throws Exception {
+
+        try (CryptoPriceWriteAheadLog log = CryptoPriceWriteAheadLog.open(file, true)) {
+            assertEquals(0, log.replay(0, batch -> { }));
+
+            List<Map<String, PriceColumns>> published = new ArrayList<>();
+            assertEquals(1, log.append(batch("BTC", 1000L, 46814.18, "ETH", 1000L, 3715.32),
+                    () -> published.add(null)));
+            assertEquals(2, log.append(batch("BTC", 2000L, 46813.21, "ETH", 2000L, 3718.67),
+                    () -> published.add(null)));
+            assertEquals(2, published.size());
+            assertEquals(2, log.getSequence());
+        }
+
+        try (CryptoPriceWriteAheadLog log = CryptoPriceWriteAheadLog.open(file, true)) {
+            List<Map<String, PriceColumns>> replayed = new ArrayList<>();
+            assertEquals(2, log.replay(0, replayed::add));
+
+            assertEquals(List.of("BTC", "ETH"), new ArrayList<>(replayed.get(0).keySet()));
+            assertEquals(1000L, replayed.get(0).get("BTC").timestampAt(0));
+            assertEquals(46814.18, replayed.get(0).get("BTC").priceAt(0), 0);
+            assertEquals(3718.67, replayed.get(1).get("ETH").priceAt(0), 0);
+
+            // the next batches follow the replayed ones
+            assertEquals(3, log.append(batch("BTC", 3000L, 47001.28), () -> { }));
+        }
+    }
+
+    @Test
+    public void test_replay_afterSequence() throws Exception {
+
+        try (CryptoPriceWriteAheadLog log = CryptoPriceWriteAheadLog.open(file, false)) {
+            log.replay(0, batch -> { });
+            for (int i = 1; i <= 3; i++) {
+                log.append(batch("BTC", i * 1000L, i), () -> { });
+            }
+        }
+
+        try (CryptoPriceWriteAheadLog log = CryptoPriceWriteAheadLog.open(file, false)) {
+            List<Map<String, PriceColumns>> replayed = new ArrayList<>();
+            assertEquals(1, log.replay(2, replayed::add));
+
+            assertEquals(3, replayed.get(0).get("BTC").priceAt(0), 0);
+            assertEquals(3, log.getSequence());
+        }
+    }
+
+    @Test
+    public void test_replay_when_behindSnapshot() throws Exception {
+
+        // a snapshot holding the batches up to 5, restored over a log which lost them
+        try (CryptoPriceWriteAheadLog log = CryptoPriceWriteAheadLog.open(file, false)) {
+            log.replay(0, batch -> { });
+            log.append(batch("BTC", 1000L, 1), () -> { });
+        }
+
+        try (CryptoPriceWriteAheadLog log = CryptoPriceWriteAheadLog.open(file, false)) {
+            assertEquals(0, log.replay(5, batch -> { }));
+            assertEquals(5, log.getSequence());
+            assertEquals(6, log.append(batch("BTC", 6000L, 6), () -> { }));
+        }
+        Files.delete(file);
+        try (CryptoPriceWriteAheadLog log = CryptoPriceWriteAheadLog.open(file, false)) {
+            assertEquals(0, log.replay(5, batch -> { }));
+            assertEquals(6, log.append(batch("BTC", 6000L, 6), () -> { }));
+        }
+
+        try (CryptoPriceWriteAheadLog log = CryptoPriceWriteAheadLog.open(file, false)) {
+            List<Map<String, PriceColumns>> replayed = new ArrayList<>();
+            assertEquals(1, log.replay(5, replayed::add));
+
+            assertEquals(6, replayed.get(0).get("BTC").priceAt(0), 0);
+        }
+    }
+
+    @Test
+    public void test_replay_cutsOffTornRecord() throws Exception {
+
+        long validSize;
+        try (CryptoPriceWriteAheadLog log = CryptoPriceWriteAheadLog.open(file, true)) {
+            log.replay(0, batch -> { });
+            log.append(batch("BTC", 1000L, 46814.18), () -> { });
+            validSize = log.getSizeInBytes();
+            log.append(batch("BTC", 2000L, 46813.21), () -> { });
+        }
+
+        // a crash in the middle of the second record
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 5);
+        }
+
+        try (CryptoPriceWriteAheadLog log = CryptoPriceWriteAheadLog.open(file, true)) {
+            List<Map<String, PriceColumns>> replayed = new ArrayList<>();
+            assertEquals(1, log.replay(0, replayed::add));
+
+            assertEquals(46814.18, replayed.get(0).get("BTC").priceAt(0), 0);
+            assertEquals(validSize, Files.size(file));
+            assertEquals(2, log.append(batch("BTC", 3000L, 47001.28), () -> { }));
+        }
+    }
+
+    @Test
+    public void test_replay_cutsOffCorruptedRecord() throws Exception {
+
+        try (CryptoPriceWriteAheadLog log = CryptoPriceWriteAheadLog.open(file, true)) {
+            log.replay(0, batch -> { });
+            log.append(batch("BTC", 1000L, 46814.18), () -> { });
+        }
+
+        // a flipped byte in the prices of the record
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[] {0x7f}), channel.size() - 1);
+        }
+
+        try (CryptoPriceWriteAheadLog log = CryptoPriceWriteAheadLog.open(file, true)) {
+            assertEquals(0, log.replay(0, batch -> { }));
+            assertEquals(CryptoPriceWriteAheadLog.HEADER_SIZE, Files.size(file));
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void test_append_when_notReplayed() throws Exception {
+
+        try (CryptoPriceWriteAheadLog log = CryptoPriceWriteAheadLog.open(file, true)) {
+            log.append(batch("BTC", 1000L, 46814.18), () -> { });
+        }
+    }
+
+    @Test
+    public void test_append_publishesInOrder() throws Exception {
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try (CryptoPriceWriteAheadLog log = CryptoPriceWriteAheadLog.open(file, true)) {
+            log.replay(0, batch -> { });
+
+            List<Long> published = new ArrayList<>();
+            List<Future<Long>> appends = new ArrayList<>();
+            for (int i = 0; i < 64; i++) {
+                long timestamp = i;
+                appends.add(executor.submit(
+                        () -> log.append(batch("BTC", timestamp, 1), () -> published.add(timestamp))));
+            }
+
+            // the batches are published in the order of their sequence numbers
+            long[] timestampsBySequence = new long[64];
+            for (int i = 0; i < 64; i++) {
+                timestampsBySequence[(int) (appends.get(i).get() - 1)] = i;
+            }
+            for (int i = 0; i < 64; i++) {
+                assertEquals(timestampsBySequence[i], (long) published.get(i));
+            }
+            log.whilePublished(sequence -> assertEquals(64, sequence));
+        }
+        finally {
+            executor.shutdown();
+        }
+    }
+
+    // -----------------------------------
+    // Tests: compact
+    // -----------------------------------
+    @Test
+    public void test_compact() throws Exception {
+
+        try (CryptoPriceWriteAheadLog log = CryptoPriceWriteAheadLog.open(file, true)) {
+            log.replay(0, batch -> { });
+            log.append(batch("BTC", 1000L, 1), () -> { });
+            log.append(batch("BTC", 2000L, 2), () -> { });
+            log.append(batch("BTC", 3000L, 3), () -> { });
+            long size = log.getSizeInBytes();
+
+            // a snapshot holding the first two batches
+            long dropped = log.compact(2);
+            assertTrue(dropped > 0);
+            assertEquals(size - dropped, log.getSizeInBytes());
+            assertEquals(log.getSizeInBytes(), Files.size(file));
+            assertEquals(0, log.compact(2));
+
+            assertEquals(4, log.append(batch("BTC", 4000L, 4), () -> { }));
+        }
+
+        try (CryptoPriceWriteAheadLog log = CryptoPriceWriteAheadLog.open(file, true)) {
+            List<Map<String, PriceColumns>> replayed = new ArrayList<>();
+            assertEquals(2, log.replay(2, replayed::add));
+
+            assertEquals(3, replayed.get(0).get("BTC").priceAt(0), 0);
+            assertEquals(4, replayed.get(1).get("BTC").priceAt(0), 0);
+            assertEquals(4, log.getSequence());
+        }
+    }
+
+    @Test
+    public void test_replay_when_compactedPastSnapshot() throws Exception {
+
+        try (CryptoPriceWriteAheadLog log = CryptoPriceWriteAheadLog.open(file, false)) {
+            log.replay(0, batch -> { });
+            log.append(batch("BTC", 1000L, 1), () -> { });
+            log.append(batch("BTC", 2000L, 2), () -> { });
+            log.compact(1);
+        }
+
+        // e.g. the snapshot holding the first batch was lost
+        try (CryptoPriceWriteAheadLog log = CryptoPriceWriteAheadLog.open(file, false)) {
+            log.replay(0, batch -> { });
+            fail("A log missing batches must not be replayed");
+        }
+        catch (IOException e) {
+            assertTrue(e.getMessage().contains("dropped the batches up to 1"));
+        }
+
+        try (CryptoPriceWriteAheadLog log = CryptoPriceWriteAheadLog.open(file, false)) {
+            assertEquals(1, log.replay(1, batch -> { }));
+        }
+    }
+
+    @Test
+    public void test_compact_when_allBatchesHeld() throws Exception {
+
+        try (CryptoPriceWriteAheadLog log = CryptoPriceWriteAheadLog.open(file, false)) {
+            log.replay(0, batch -> { });
+            log.append(batch("BTC", 1000L, 1), () -> { });
+            log.compact(1);
+
+            assertEquals(CryptoPriceWriteAheadLog.HEADER_SIZE, Files.size(file));
+            assertEquals(2, log.append(batch("BTC", 2000L, 2), () -> { }));
+        }
+
+        // the numbering goes on from the snapshot
+        try (CryptoPriceWriteAheadLog log = CryptoPriceWriteAheadLog.open(file, false)) {
+            List<Map<String, PriceColumns>> replayed = new ArrayList<>();
+            assertEquals(1, log.replay(1, replayed::add));
+            assertEquals(2, replayed.get(0).get("BTC").priceAt(0), 0);
+        }
+    }
+
+    @Test
+    public void test_disabled() throws Exception {
+
+        CryptoPriceWriteAheadLog log = CryptoPriceWriteAheadLog.disabled();
+        boolean[] published = {false};
+
+        assertFalse(log.isEnabled());
+        assertEquals(0, log.replay(0, batch -> { }));
+        assertEquals(0, log.append(batch("BTC", 1000L, 46814.18), () -> published[0] = true));
+        assertTrue(published[0]);
+    }
+
+    // ---------------------------------------------------------------------------------------------------------
+    private Map<String, PriceColumns> batch(Object... symbolTimestampPrices) {
+        Map<String, PriceColumns> batch = new LinkedHashMap<>();
+        for (int i = 0; i < symbolTimestampPrices.length; i += 3) {
+            batch.computeIfAbsent((String) symbolTimestampPrices[i], symbol -> new PriceColumns(1))
+                    .add(((Number) symbolTimestampPrices[i + 1]).longValue(),
+                            ((Number) symbolTimestampPrices[i + 2]).doubleValue());
+        }
+        return batch;
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.crypto.infrastructure.persistence;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import org.junit.Test;
+
+public class CryptoSymbolRegistryTest {
+
+    // -----------------------------------
+    // Tests: register
+    // -----------------------------------
+    @Test
+    public void test_register() {
+
+        CryptoSymbolRegistry registry = new CryptoSymbolRegistry();
+
+        assertEquals(0, registry.register("BTC"));
+        assertEquals(1, registry.register("ETH"));
+        assertEquals(0, registry.register(new String("BTC")));
+
+        assertEquals(2, registry.size());
+        assertEquals(List.of("BTC", "ETH"), registry.getSymbols());
+        assertEquals("ETH", registry.symbolOf(1));
+    }
+
+    @Test
+    public void test_register_internsSymbols() {
+
+        CryptoSymbolRegistry registry = CryptoSymbolRegistry.of("BTC");
+
+        String symbol = registry.symbolOf(registry.register(new String("BTC")));
+
+        assertTrue(symbol == registry.symbolOf(0));
+    }
+
+    // -----------------------------------
+    // Tests: reserveAll / releaseAll
+    // -----------------------------------
+    @Test
+    public void test_reserveAll() {
+
+        CryptoSymbolRegistry registry = new CryptoSymbolRegistry(3);
+        registry.register("BTC");
+
+        assertTrue(registry.reserveAll(List.of("ETH", "BTC", "ETH")));
+        assertTrue(registry.reserveAll(List.of("ETH")));
+        assertFalse(registry.reserveAll(List.of("XRP", "DOGE")));
+        assertTrue(registry.reserveAll(List.of("XRP", "BTC")));
+        assertFalse(registry.reserveAll(List.of("DOGE")));
+
+        // the reservations are not registrations
+        assertEquals(List.of("BTC"), registry.getSymbols());
+    }
+
+    @Test
+    public void test_releaseAll() {
+
+        CryptoSymbolRegistry registry = new CryptoSymbolRegistry(2);
+        registry.register("BTC");
+
+        assertTrue(registry.reserveAll(List.of("ETH")));
+        assertTrue(registry.reserveAll(List.of("ETH")));
+        registry.releaseAll(List.of("ETH"));
+        assertFalse(registry.reserveAll(List.of("XRP")));
+
+        // e.g. a batch which failed
+        registry.releaseAll(List.of("ETH"));
+        assertTrue(registry.reserveAll(List.of("XRP")));
+
+        // e.g. a batch which was stored
+        registry.register("XRP");
+        registry.releaseAll(List.of("XRP"));
+        assertTrue(registry.reserveAll(List.of("XRP", "BTC")));
+        assertFalse(registry.reserveAll(List.of("ETH")));
+    }
+
+    @Test
+    public void test_isWithinCapacity() {
+
+        CryptoSymbolRegistry registry = new CryptoSymbolRegistry(1);
+        registry.register("BTC");
+        registry.register("ETH");
+
+        assertTrue(registry.isWithinCapacity("BTC"));
+        assertFalse(registry.isWithinCapacity("ETH"));
+        assertFalse(registry.isWithinCapacity("XRP"));
+    }
+
+    // -----------------------------------
+    // Tests: idOf / contains
+    // -----------------------------------
+    @Test
+    public void test_idOf() {
+
+        CryptoSymbolRegistry registry = CryptoSymbolRegistry.of("BTC", "DOGE");
+
+        assertEquals(1, registry.idOf("DOGE"));
+        assertEquals(-1, registry.idOf("XRP"));
+        assertEquals(-1, registry.idOf(null));
+        assertTrue(registry.contains("BTC"));
+        assertFalse(registry.contains("btc"));
+    }
+}
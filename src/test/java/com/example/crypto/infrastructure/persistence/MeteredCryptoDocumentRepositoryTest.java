@@ -0,0 +1,104 @@
+package com.example.crypto.infrastructure.persistence;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+@RunWith(MockitoJUnitRunner.class)
+public class MeteredCryptoDocumentRepositoryTest {
+
+    @Mock
+    CryptoDocumentRepository delegate;
+
+    SimpleMeterRegistry meterRegistry;
+
+    MeteredCryptoDocumentRepository repository;
+
+    @Before
+    public void setUp() {
+        reset(delegate);
+        meterRegistry = new SimpleMeterRegistry();
+        repository = new MeteredCryptoDocumentRepository(delegate, CryptoSymbolRegistry.of("BTC", "ETH"), meterRegistry);
+    }
+
+    @After
+    public void tearDown() {
+        verifyNoMoreInteractions(delegate);
+    }
+
+    @Test
+    public void test_findBySymbolAndDateRange_countsRows() {
+
+        LocalDate day = LocalDate.of(2022, 1, 1);
+
+        when(delegate.findBySymbolAndDateRange("BTC", day, day)).thenReturn(Flux.just(
+                new CryptoPriceDocument(new Timestamp(1641009600000L), "BTC", 46813.21),
+                new CryptoPriceDocument(new Timestamp(1641020400000L), "BTC", 46814.18)));
+
+        StepVerifier.create(repository.findBySymbolAndDateRange("BTC", day, day))
+                .expectNextCount(2)
+                .verifyComplete();
+
+        Tags tags = Tags.of("operation", "findBySymbolAndDateRange", "symbol", "BTC");
+        assertEquals(2.0, meterRegistry.counter(MeteredCryptoDocumentRepository.ROWS_SCANNED, tags).count(), 0.0);
+        assertEquals(2.0, meterRegistry.counter(MeteredCryptoDocumentRepository.ROWS_RETURNED, tags).count(), 0.0);
+        assertEquals(1, meterRegistry.get(MeteredCryptoDocumentRepository.TIMER).tags(tags).tag("outcome", "SUCCESS")
+                .timer().count());
+        verify(delegate).findBySymbolAndDateRange("BTC", day, day);
+    }
+
+    @Test
+    public void test_findAllBoundsByDateRange_countsSummarizedRows() {
+
+        LocalDate day = LocalDate.of(2022, 1, 1);
+
+        when(delegate.findAllBoundsByDateRange(day, day)).thenReturn(Flux.just(
+                new CryptoPriceBounds("BTC", 1L, 2L, 1, 2, 1, 2, 120),
+                new CryptoPriceBounds("ETH", 1L, 2L, 1, 2, 1, 2, 80)));
+
+        StepVerifier.create(repository.findAllBoundsByDateRange(day, day))
+                .expectNextCount(2)
+                .verifyComplete();
+
+        Tags tags = Tags.of("operation", "findAllBoundsByDateRange", "symbol", "all");
+        assertEquals(200.0, meterRegistry.counter(MeteredCryptoDocumentRepository.ROWS_SCANNED, tags).count(), 0.0);
+        assertEquals(2.0, meterRegistry.counter(MeteredCryptoDocumentRepository.ROWS_RETURNED, tags).count(), 0.0);
+        verify(delegate).findAllBoundsByDateRange(day, day);
+    }
+
+    @Test
+    public void test_findBoundsBySymbolAndDateRange_when_unknownSymbol() {
+
+        LocalDate day = LocalDate.of(2022, 1, 1);
+
+        when(delegate.findBoundsBySymbolAndDateRange("ADA", day, day))
+                .thenReturn(Mono.error(new IllegalStateException()));
+
+        StepVerifier.create(repository.findBoundsBySymbolAndDateRange("ADA", day, day))
+                .expectError(IllegalStateException.class)
+                .verify();
+
+        assertEquals(1, meterRegistry.get(MeteredCryptoDocumentRepository.TIMER)
+                .tags("operation", "findBoundsBySymbolAndDateRange", "symbol", "unknown")
+                .tag("outcome", "ERROR")
+                .tag("exception", "IllegalStateException")
+                .timer().count());
+        verify(delegate).findBoundsBySymbolAndDateRange("ADA", day, day);
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.crypto.infrastructure.persistence;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class PriceAggregatorTest {
+
+    // -----------------------------------
+    // Tests: accept
+    // -----------------------------------
+    @Test
+    public void test_accept_columns() {
+
+        long[] timestamps = {1641009600000L, 1641020400000L, 1641031200000L, 1641099600000L};
+        double[] prices = {46813.21, 46979.61, 47143.98, 46871.09};
+
+        PriceAggregator aggregator = new PriceAggregator()
+                .accept(timestamps, prices, 0, 2)
+                .accept(timestamps, prices, 2, 4);
+
+        assertEquals(46813.21, aggregator.getFirstPrice(), 0);
+        assertEquals(46871.09, aggregator.getLastPrice(), 0);
+        assertEquals(46813.21, aggregator.getMinPrice(), 0);
+        assertEquals(47143.98, aggregator.getMaxPrice(), 0);
+        assertEquals(4, aggregator.getCount());
+        assertEquals((47143.98 - 46813.21) / 46813.21, aggregator.getNormalizedRange(), 0);
+    }
+
+    @Test
+    public void test_accept_bounds() {
+
+        PriceAggregator aggregator = new PriceAggregator()
+                .accept(new CryptoPriceBounds("ETH", 1L, 2L, 3715.32, 3718.67, 3715.32, 3718.67, 2))
+                .accept(1641049200000L, 3697.04);
+
+        CryptoPriceBounds bounds = aggregator.toBounds("ETH");
+
+        assertEquals(1L, bounds.firstTimestamp());
+        assertEquals(1641049200000L, bounds.lastTimestamp());
+        assertEquals(3715.32, bounds.firstPrice(), 0);
+        assertEquals(3697.04, bounds.lastPrice(), 0);
+        assertEquals(3697.04, bounds.minPrice(), 0);
+        assertEquals(3718.67, bounds.maxPrice(), 0);
+        assertEquals(3, bounds.count());
+    }
+
+    @Test
+    public void test_reset() {
+
+        PriceAggregator aggregator = new PriceAggregator().accept(1L, 10).reset();
+
+        assertTrue(aggregator.isEmpty());
+        assertEquals(Double.POSITIVE_INFINITY, aggregator.getMinPrice(), 0);
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.crypto.infrastructure.persistence;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import org.junit.Test;
+
+public class RollingMinMaxTest {
+
+    // -----------------------------------
+    // Tests: next
+    // -----------------------------------
+    @Test
+    public void test_next() {
+
+        PriceColumns columns = new PriceColumns(8);
+        columns.add(0, 5);
+        columns.add(10, 3);
+        columns.add(20, 4);
+        columns.add(30, 8);
+        columns.add(40, 6);
+        columns.add(100, 7);
+
+        List<CryptoPriceRollingBounds> windows = rollingBounds(CryptoPriceSeries.of("BTC", columns),
+                TimeRange.of(null, null), 30, 10);
+
+        // the windows [0, 30) to [20, 50), then a gap until the window [80, 110)
+        assertEquals(List.of(30L, 40L, 50L, 60L, 70L, 110L),
+                windows.stream().map(CryptoPriceRollingBounds::windowEnd).toList());
+
+        assertEquals(3, windows.get(0).bounds().minPrice(), 0);
+        assertEquals(5, windows.get(0).bounds().maxPrice(), 0);
+        assertEquals(3, windows.get(0).bounds().count());
+        assertEquals(3, windows.get(1).bounds().minPrice(), 0);
+        assertEquals(8, windows.get(1).bounds().maxPrice(), 0);
+        assertEquals(4, windows.get(2).bounds().minPrice(), 0);
+        assertEquals(6, windows.get(3).bounds().minPrice(), 0);
+        assertEquals(8, windows.get(3).bounds().maxPrice(), 0);
+        assertEquals(1, windows.get(4).bounds().count());
+        assertEquals(7, windows.get(5).bounds().firstPrice(), 0);
+    }
+
+    @Test
+    public void test_next_when_noPricesInRange() {
+
+        PriceColumns columns = new PriceColumns(2);
+        columns.add(0, 5);
+
+        assertFalse(new RollingMinMax(CryptoPriceSeries.of("BTC", columns), new TimeRange(10, 20), 5, 5).hasNext());
+    }
+
+    @Test
+    public void test_next_matchesBoundsOf() {
+
+        Random random = new Random(7);
+        for (int trial = 0; trial < 200; trial++) {
+            PriceColumns columns = new PriceColumns(16);
+            long timestamp = 1_000_000L;
+            for (int i = 0, size = random.nextInt(200); i < size; i++) {
+                timestamp += random.nextInt(10) == 0 ? random.nextInt(5000) + 1 : random.nextInt(50) + 1;
+                columns.add(timestamp, 1 + random.nextInt(100));
+            }
+            CryptoPriceSeries series = CryptoPriceSeries.of("BTC", columns);
+
+            long window = random.nextInt(500) + 1;
+            long step = random.nextInt(300) + 1;
+            TimeRange range = new TimeRange(1_000_000L + random.nextInt(3000), 1_003_000L + random.nextInt(20_000));
+
+            // every window summarized on its own from the series' index
+            List<CryptoPriceRollingBounds> expected = new ArrayList<>();
+            for (long end = range.fromInclusive() + window; end - step < range.toExclusive(); end += step) {
+                long windowEnd = end;
+                Optional<CryptoPriceBounds> bounds = series.boundsOf(new TimeRange(
+                        Math.max(end - window, range.fromInclusive()), Math.min(end, range.toExclusive())));
+                bounds.ifPresent(windowBounds -> expected.add(new CryptoPriceRollingBounds(windowEnd, windowBounds)));
+            }
+
+            assertEquals(expected, rollingBounds(series, range, window, step));
+        }
+    }
+
+
+    // ---------------------------------------------------------------------------------------------------------
+    private List<CryptoPriceRollingBounds> rollingBounds(CryptoPriceSeries series, TimeRange range, long window,
+                                                         long step) {
+        List<CryptoPriceRollingBounds> windows = new ArrayList<>();
+        new RollingMinMax(series, range, window, step).forEachRemaining(windows::add);
+        return windows;
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.crypto.infrastructure.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.example.crypto.infrastructure.persistence.BinaryPriceFile;
+import com.example.crypto.infrastructure.persistence.CryptoPriceSeries;
+import com.example.crypto.infrastructure.persistence.PriceColumns;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.TimeZone;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class CryptoPriceGeneratorTest {
+
+    private static final LocalDate DAY = LocalDate.of(2022, 1, 1);
+
+    private Path directory;
+
+    @Before
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("prices");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        try (var files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    // -----------------------------------
+    // Tests: symbolOf
+    // -----------------------------------
+    @Test
+    public void test_symbolOf() {
+        assertEquals("AAA", CryptoPriceGenerator.symbolOf(0));
+        assertEquals("AAZ", CryptoPriceGenerator.symbolOf(25));
+        assertEquals("ABA", CryptoPriceGenerator.symbolOf(26));
+        assertEquals("ZZZ", CryptoPriceGenerator.symbolOf(26 * 26 * 26 - 1));
+        assertEquals("AAAA", CryptoPriceGenerator.symbolOf(26 * 26 * 26));
+    }
+
+    // -----------------------------------
+    // Tests: generate
+    // -----------------------------------
+    @Test
+    public void test_generate_isReproducible() {
+
+        CryptoPriceGenerator generator = new CryptoPriceGenerator(7L, Duration.ofMinutes(1), DAY, DAY.plusDays(1));
+
+        PriceColumns first = generator.generate("BTC");
+        PriceColumns second = generator.generate("BTC");
+
+        assertEquals(2 * 24 * 60, generator.rows());
+        assertEquals(generator.rows(), first.size());
+        assertEquals(1640995200000L, first.timestampAt(0));
+        assertEquals(DAY.plusDays(2).atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli() - 60_000L,
+                first.timestampAt(first.size() - 1));
+        for (int i = 0; i < first.size(); i++) {
+            assertEquals(first.timestampAt(i), second.timestampAt(i));
+            assertEquals(first.priceAt(i), second.priceAt(i), 0);
+            assertTrue(first.priceAt(i) > 0);
+        }
+    }
+
+    @Test
+    public void test_generate_isIndependentOfTimeZone() {
+
+        CryptoPriceGenerator generator = new CryptoPriceGenerator(7L, Duration.ofMinutes(1), DAY, DAY.plusDays(1));
+        TimeZone defaultZone = TimeZone.getDefault();
+        PriceColumns tokyo;
+        PriceColumns newYork;
+        try {
+            TimeZone.setDefault(TimeZone.getTimeZone("Asia/Tokyo"));
+            tokyo = generator.generate("BTC");
+            TimeZone.setDefault(TimeZone.getTimeZone("America/New_York"));
+            newYork = generator.generate("BTC");
+        }
+        finally {
+            TimeZone.setDefault(defaultZone);
+        }
+
+        assertEquals(tokyo.size(), newYork.size());
+        assertEquals(tokyo.timestampAt(0), newYork.timestampAt(0));
+        assertEquals(tokyo.timestampAt(tokyo.size() - 1), newYork.timestampAt(newYork.size() - 1));
+    }
+
+    // -----------------------------------
+    // Tests: write
+    // -----------------------------------
+    @Test
+    public void test_write_csvAndBinary() throws Exception {
+
+        CryptoPriceGenerator generator = new CryptoPriceGenerator(7L, Duration.ofHours(1), DAY, DAY);
+
+        List<Path> files = generator.write(directory, 2,
+                EnumSet.of(CryptoPriceGenerator.Format.CSV, CryptoPriceGenerator.Format.BINARY));
+
+        assertEquals(List.of(directory.resolve("AAA" + BinaryPriceFile.EXTENSION),
+                directory.resolve("AAA_values.csv"),
+                directory.resolve("AAB" + BinaryPriceFile.EXTENSION),
+                directory.resolve("AAB_values.csv")), files);
+
+        PriceColumns expected = generator.generate("AAB");
+        PriceColumns csv = new FileCryptoReader().readPriceColumns(directory.resolve("AAB_values.csv"));
+        CryptoPriceSeries binary = BinaryPriceFile.map(directory.resolve("AAB" + BinaryPriceFile.EXTENSION));
+
+        assertEquals(24, csv.size());
+        assertEquals(24, binary.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.timestampAt(i), csv.timestampAt(i));
+            assertEquals(expected.priceAt(i), csv.priceAt(i), 0);
+            assertEquals(expected.priceAt(i), binary.priceAt(i), 0);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.crypto.infrastructure.util;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+public class CsvPriceParserTest {
+
+    // -----------------------------------
+    // Tests: parse
+    // -----------------------------------
+    @Test
+    public void test_parse_skipsHeader() throws Exception {
+
+        List<String> rows = new ArrayList<>();
+        long count = parse("timestamp,symbol,price\n1641009600000,BTC,46813.21\n1641020400000,BTC,46979.61\n", rows);
+
+        assertEquals(2, count);
+        assertEquals(List.of("1641009600000=46813.21", "1641020400000=46979.61"), rows);
+    }
+
+    @Test
+    public void test_parse_windowsLineEndingsAndNoTrailingNewLine() throws Exception {
+
+        List<String> rows = new ArrayList<>();
+        long count = parse("timestamp,symbol,price\r\n1641009600000,DOGE,0.1702\r\n\r\n1641020400000,DOGE,0.1722", rows);
+
+        assertEquals(2, count);
+        assertEquals(List.of("1641009600000=0.1702", "1641020400000=0.1722"), rows);
+    }
+
+    @Test
+    public void test_parse_rowsAcrossBufferBoundaries() throws Exception {
+
+        StringBuilder csv = new StringBuilder("timestamp,symbol,price\n");
+        for (int i = 0; i < 10_000; i++) {
+            csv.append(1641009600000L + i).append(",BTC,").append(i).append('.').append(i % 100).append('\n');
+        }
+
+        List<String> rows = new ArrayList<>();
+        long count = parse(csv.toString(), rows);
+
+        assertEquals(10_000, count);
+        assertEquals("1641009600000=0.0", rows.get(0));
+        assertEquals("1641009604999=4999.99", rows.get(4999));
+        assertEquals("1641009609999=9999.99", rows.get(9999));
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void test_parse_malformedRow() throws Exception {
+        parse("1641009600000,BTC\n", new ArrayList<>());
+    }
+
+    // -----------------------------------
+    // Tests: parseDouble
+    // -----------------------------------
+    @Test
+    public void test_parseDouble() {
+
+        for (String value : List.of("0", "46813.21", "-0.5", "+3.25", "0.000001234", "123456789012345.6",
+                "1234567890123456789012", "0.1234567890123456789", "1.5e3", "2E-5", ".5", "7.")) {
+            byte[] bytes = value.getBytes(StandardCharsets.US_ASCII);
+            assertEquals(value, Double.parseDouble(value), CsvPriceParser.parseDouble(bytes, 0, bytes.length), 0);
+        }
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void test_parseDouble_malformed() {
+        byte[] bytes = "12.3x".getBytes(StandardCharsets.US_ASCII);
+        CsvPriceParser.parseDouble(bytes, 0, bytes.length);
+    }
+
+    // -----------------------------------
+    // Helper Methods
+    // -----------------------------------
+    private long parse(String csv, List<String> rows) throws Exception {
+        return CsvPriceParser.parse(
+                Channels.newChannel(new ByteArrayInputStream(csv.getBytes(StandardCharsets.US_ASCII))),
+                (timestamp, price) -> rows.add(timestamp + "=" + price));
+    }
+}
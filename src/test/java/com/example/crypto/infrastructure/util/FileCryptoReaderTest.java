@@ -0,0 +1,72 @@
+package com.example.crypto.infrastructure.util;
+
+import static org.junit.Assert.assertEquals;
+
+import com.example.crypto.infrastructure.exception.FileNotFoundException;
+import com.example.crypto.infrastructure.persistence.PriceColumns;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class FileCryptoReaderTest {
+
+    private Path directory;
+
+    @Before
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("prices");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        try (var files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    // -----------------------------------
+    // Tests: readPriceColumns
+    // -----------------------------------
+    @Test
+    public void test_readPriceColumns_chunksMatchSingleRead() throws Exception {
+
+        StringBuilder csv = new StringBuilder("timestamp,symbol,price\n");
+        for (int i = 0; i < 5_000; i++) {
+            csv.append(1641009600000L + 1000L * i).append(",BTC,").append(46000 + i).append(".5\n");
+        }
+        Path csvFile = Files.writeString(directory.resolve("BTC_values.csv"), csv);
+
+        PriceColumns single = new FileCryptoReader().readPriceColumns(csvFile);
+        PriceColumns chunked = new FileCryptoReader(1000).readPriceColumns(csvFile);
+
+        assertEquals(5_000, single.size());
+        assertEquals(single.size(), chunked.size());
+        for (int i = 0; i < single.size(); i++) {
+            assertEquals(single.timestampAt(i), chunked.timestampAt(i));
+            assertEquals(single.priceAt(i), chunked.priceAt(i), 0);
+        }
+    }
+
+    @Test
+    public void test_readPriceColumns_when_emptyFile() throws Exception {
+
+        Path csvFile = Files.writeString(directory.resolve("BTC_values.csv"), "");
+
+        assertEquals(0, new FileCryptoReader().readPriceColumns(csvFile).size());
+    }
+
+    @Test(expected = FileNotFoundException.class)
+    public void test_readPriceColumns_when_fileNotFound() {
+        new FileCryptoReader().readPriceColumns(directory.resolve("BTC_values.csv"));
+    }
+
+    @Test(expected = FileNotFoundException.class)
+    public void test_readPriceColumns_when_resourceNotFound() {
+        new FileCryptoReader().readPriceColumns("UNKNOWN_values.csv");
+    }
+}
@@ -0,0 +1,158 @@
+package com.example.crypto.infrastructure.web;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.example.crypto.infrastructure.persistence.CryptoDataVersion;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.WebFilterChain;
+
+public class ConditionalResponseWebFilterTest {
+
+    private final AtomicReference<CryptoDataVersion> dataVersion = new AtomicReference<>();
+
+    private ConditionalResponseWebFilter filter;
+
+    @Before
+    public void setUp() {
+        dataVersion.set(new CryptoDataVersion(1, Instant.ofEpochMilli(1641009600000L)));
+        filter = new ConditionalResponseWebFilter("/cryptos/", dataVersion::get, "no-cache");
+    }
+
+    // -----------------------------------
+    // Tests: filter
+    // -----------------------------------
+    @Test
+    public void test_filter() {
+
+        MockServerWebExchange exchange = MockServerWebExchange.from(
+                MockServerHttpRequest.get("/cryptos/BTC/boundValues?dateFrom=2022-01-01"));
+        AtomicBoolean handled = new AtomicBoolean();
+
+        filter.filter(exchange, chain(handled, HttpStatus.OK)).block();
+
+        HttpHeaders headers = exchange.getResponse().getHeaders();
+        assertTrue(handled.get());
+        assertEquals(HttpStatus.OK, exchange.getResponse().getStatusCode());
+        assertNotNull(headers.getETag());
+        assertTrue(headers.getETag().startsWith("W/"));
+        assertEquals(-1, headers.getLastModified());
+        assertEquals("no-cache", headers.getCacheControl());
+    }
+
+    @Test
+    public void test_filter_when_notModified() {
+
+        String eTag = eTagOf("/cryptos/BTC/boundValues?dateFrom=2022-01-01");
+        MockServerWebExchange exchange = MockServerWebExchange.from(
+                MockServerHttpRequest.get("/cryptos/BTC/boundValues?dateFrom=2022-01-01").ifNoneMatch(eTag));
+        AtomicBoolean handled = new AtomicBoolean();
+
+        filter.filter(exchange, chain(handled, HttpStatus.OK)).block();
+
+        assertFalse(handled.get());
+        assertEquals(HttpStatus.NOT_MODIFIED, exchange.getResponse().getStatusCode());
+        assertEquals(eTag, exchange.getResponse().getHeaders().getETag());
+    }
+
+    @Test
+    public void test_filter_when_dataChanged() {
+
+        String eTag = eTagOf("/cryptos/BTC/boundValues?dateFrom=2022-01-01");
+        dataVersion.set(new CryptoDataVersion(2, Instant.ofEpochMilli(1641009660000L)));
+        MockServerWebExchange exchange = MockServerWebExchange.from(
+                MockServerHttpRequest.get("/cryptos/BTC/boundValues?dateFrom=2022-01-01").ifNoneMatch(eTag));
+        AtomicBoolean handled = new AtomicBoolean();
+
+        filter.filter(exchange, chain(handled, HttpStatus.OK)).block();
+
+        assertTrue(handled.get());
+        assertEquals(HttpStatus.OK, exchange.getResponse().getStatusCode());
+        assertNotEquals(eTag, exchange.getResponse().getHeaders().getETag());
+    }
+
+    @Test
+    public void test_filter_when_dataChangedWithinTheSecond() {
+
+        // a client which cached a response computed early in the second the data changed
+        dataVersion.set(new CryptoDataVersion(2, Instant.ofEpochMilli(1641009600500L)));
+        MockServerWebExchange exchange = MockServerWebExchange.from(
+                MockServerHttpRequest.get("/cryptos/BTC/boundValues?dateFrom=2022-01-01")
+                        .ifModifiedSince(1641009600000L));
+        AtomicBoolean handled = new AtomicBoolean();
+
+        filter.filter(exchange, chain(handled, HttpStatus.OK)).block();
+
+        assertTrue(handled.get());
+        assertEquals(HttpStatus.OK, exchange.getResponse().getStatusCode());
+    }
+
+    @Test
+    public void test_filter_when_failed() {
+
+        MockServerWebExchange exchange = MockServerWebExchange.from(
+                MockServerHttpRequest.get("/cryptos/BTC/boundValues?dateFrom=2022-01-31&dateTo=2022-01-01"));
+        AtomicBoolean handled = new AtomicBoolean();
+
+        filter.filter(exchange, chain(handled, HttpStatus.BAD_REQUEST)).block();
+
+        assertTrue(handled.get());
+        assertNull(exchange.getResponse().getHeaders().getETag());
+    }
+
+    @Test
+    public void test_filter_when_notQuery() {
+
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.post("/cryptos/prices"));
+        AtomicBoolean handled = new AtomicBoolean();
+
+        filter.filter(exchange, chain(handled, HttpStatus.OK)).block();
+
+        assertTrue(handled.get());
+        assertNull(exchange.getResponse().getHeaders().getETag());
+    }
+
+    // -----------------------------------
+    // Tests: eTagOf
+    // -----------------------------------
+    @Test
+    public void test_eTagOf() {
+
+        assertEquals(eTagOf("/cryptos/BTC/prices?dateFrom=2022-01-01&dateTo=2022-01-31"),
+                eTagOf("/cryptos/BTC/prices?dateTo=2022-01-31&dateFrom=2022-01-01"));
+        assertNotEquals(eTagOf("/cryptos/BTC/prices?dateFrom=2022-01-01"),
+                eTagOf("/cryptos/ETH/prices?dateFrom=2022-01-01"));
+        assertNotEquals(eTagOf("/cryptos/BTC/prices?dateFrom=2022-01-01"),
+                eTagOf("/cryptos/BTC/prices?dateFrom=2022-01-02"));
+        assertNotEquals(
+                ConditionalResponseWebFilter.eTagOf(MockServerHttpRequest.get("/cryptos/BTC/prices")
+                        .header(HttpHeaders.ACCEPT, "application/x-ndjson").build(), dataVersion.get()),
+                ConditionalResponseWebFilter.eTagOf(MockServerHttpRequest.get("/cryptos/BTC/prices")
+                        .header(HttpHeaders.ACCEPT, "text/event-stream").build(), dataVersion.get()));
+    }
+
+    // ---------------------------------------------------------------------------------------------------------
+    private String eTagOf(String uri) {
+        return ConditionalResponseWebFilter.eTagOf(MockServerHttpRequest.get(uri).build(), dataVersion.get());
+    }
+
+    private WebFilterChain chain(AtomicBoolean handled, HttpStatus status) {
+        return exchange -> {
+            handled.set(true);
+            exchange.getResponse().setStatusCode(status);
+            return exchange.getResponse().setComplete();
+        };
+    }
+}